@@ -0,0 +1,175 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.harness;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Receives GELF messages over TCP like a Graylog input, without parsing them. Counts messages and records the
+ * latency from the capture timestamp in their mac_timestamp field to their arrival.
+ */
+public class FakeGelfServer implements Closeable {
+
+    private static final Logger LOG = LogManager.getLogger(FakeGelfServer.class);
+
+    private static final byte[] MAC_TIMESTAMP = "\"_mac_timestamp\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final ServerSocket socket;
+    private final LongSupplier clockMicros;
+
+    private final AtomicLong messages = new AtomicLong(0);
+    private final AtomicLong bytes = new AtomicLong(0);
+
+    private long[] latencies = new long[1 << 16];
+    private int latencyCount = 0;
+    private volatile boolean recording = false;
+
+    /**
+     * @param clockMicros The clock of the capture timestamps.
+     */
+    public FakeGelfServer(LongSupplier clockMicros) throws IOException {
+        this.clockMicros = clockMicros;
+        this.socket = new ServerSocket(0, 16, InetAddress.getLoopbackAddress());
+
+        Thread acceptor = new Thread(this::accept, "fake-gelf-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    private void accept() {
+        while (!socket.isClosed()) {
+            try {
+                Socket connection = socket.accept();
+                Thread reader = new Thread(() -> read(connection), "fake-gelf-" + connection.getPort());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    LOG.error("Could not accept connection.", e);
+                }
+            }
+        }
+    }
+
+    private void read(Socket connection) {
+        byte[] message = new byte[64 * 1024];
+        int length = 0;
+
+        try (InputStream in = new BufferedInputStream(connection.getInputStream(), 64 * 1024)) {
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (b != 0) {
+                    if (length == message.length) {
+                        message = Arrays.copyOf(message, message.length * 2);
+                    }
+                    message[length++] = (byte) b;
+                    continue;
+                }
+
+                // GELF TCP messages are delimited by a null byte.
+                long now = clockMicros.getAsLong();
+                messages.incrementAndGet();
+                bytes.addAndGet(length + 1);
+
+                long captured = readMacTimestamp(message, length);
+                if (captured >= 0 && recording) {
+                    recordLatency(now - captured);
+                }
+
+                length = 0;
+            }
+        } catch (IOException e) {
+            LOG.debug("Connection closed.", e);
+        }
+    }
+
+    private static long readMacTimestamp(byte[] message, int length) {
+        outer:
+        for (int i = 0; i + MAC_TIMESTAMP.length < length; i++) {
+            for (int j = 0; j < MAC_TIMESTAMP.length; j++) {
+                if (message[i + j] != MAC_TIMESTAMP[j]) {
+                    continue outer;
+                }
+            }
+
+            long value = 0;
+            for (int k = i + MAC_TIMESTAMP.length; k < length && message[k] >= '0' && message[k] <= '9'; k++) {
+                value = value * 10 + (message[k] - '0');
+            }
+            return value;
+        }
+
+        return -1;
+    }
+
+    private synchronized void recordLatency(long micros) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[latencyCount++] = micros;
+    }
+
+    /**
+     * Starts recording latencies, for example after the warmup.
+     */
+    public void startRecording() {
+        recording = true;
+    }
+
+    /**
+     * @return the recorded latencies in microseconds, sorted.
+     */
+    public synchronized long[] stopRecording() {
+        recording = false;
+
+        long[] result = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(result);
+        return result;
+    }
+
+    public long getMessageCount() {
+        return messages.get();
+    }
+
+    public long getByteCount() {
+        return bytes.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+}
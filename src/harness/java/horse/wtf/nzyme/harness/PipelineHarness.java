@@ -0,0 +1,184 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.harness;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.github.joschi.jadconfig.JadConfig;
+import com.github.joschi.jadconfig.repositories.InMemoryRepository;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import horse.wtf.nzyme.NzymeImpl;
+import horse.wtf.nzyme.capture.TrafficGenerator;
+import horse.wtf.nzyme.configuration.CLIArguments;
+import horse.wtf.nzyme.configuration.Configuration;
+import horse.wtf.nzyme.processing.DuplicateFilter;
+import horse.wtf.nzyme.statistics.Statistics;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feeds generated traffic through the full pipeline, from the capture loop to a {@link horse.wtf.nzyme.notifications.uplinks.graylog.GraylogUplink}
+ * that sends to an in-process {@link FakeGelfServer}, and reports sustained throughput, latency percentiles from
+ * capture timestamp to arrival at the GELF server and drop counts.
+ *
+ * Needs no network interface or Graylog. Run it with: mvn -P harness test-compile exec:exec
+ */
+public class PipelineHarness {
+
+    private static final String INTERFACE = "harness0";
+
+    private static class Arguments {
+
+        @Parameter(names = "--config", description = "Configuration file. Uplinks, channels and spooling are overridden.")
+        private String config = "nzyme.conf.example";
+
+        @Parameter(names = "--duration", description = "Measured seconds, after the warmup.")
+        private int duration = 60;
+
+        @Parameter(names = "--warmup", description = "Seconds before measuring.")
+        private int warmup = 10;
+
+        @Parameter(names = "--rate", description = "Generated frames per second. 0 is as fast as possible.")
+        private int rate = 0;
+
+        @Parameter(names = "--seed")
+        private long seed = 42;
+
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Arguments arguments = new Arguments();
+        JCommander.newBuilder().addObject(arguments).build().parse(argv);
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(Paths.get(arguments.config))) {
+            properties.load(in);
+        }
+
+        Map<String, String> settings = Maps.newHashMap(Maps.fromProperties(properties));
+        settings.put("channels", INTERFACE + ":1");
+        settings.put("versionchecks_enabled", "false");
+        settings.put("spool_enabled", "false");
+        settings.put("snapshot_interval_seconds", "0");
+        settings.put("generator_rate", String.valueOf(arguments.rate));
+
+        // The GELF server needs the clock of the generator, and the uplink needs the port of the GELF server.
+        Configuration configuration = new Configuration();
+        new JadConfig(new InMemoryRepository(settings), configuration).process();
+
+        TrafficGenerator generator = new TrafficGenerator(
+                configuration.getGeneratorMix(),
+                configuration.getGeneratorAccessPoints(),
+                configuration.getGeneratorClients(),
+                configuration.getGeneratorRate(),
+                arguments.seed
+        );
+
+        FakeGelfServer server = new FakeGelfServer(generator::currentTimeMicros);
+
+        settings.put("graylog_addresses", "127.0.0.1:" + server.getPort());
+        configuration = new Configuration();
+        new JadConfig(new InMemoryRepository(settings), configuration).process();
+
+        CLIArguments cliArguments = new CLIArguments();
+        JCommander.newBuilder().addObject(cliArguments).build().parse("--config-file", arguments.config);
+
+        Statistics statistics = new Statistics();
+        NzymeImpl nzyme = new NzymeImpl(INTERFACE, ImmutableList.of(1), generator, cliArguments, configuration,
+                statistics, new DuplicateFilter(0, 0), null);
+
+        Thread loop = new Thread(nzyme.loop(), "nzyme-loop-0");
+        loop.setDaemon(true);
+        loop.start();
+
+        System.out.printf("Warming up for %d seconds. Fake GELF server listening on port %d.%n",
+                arguments.warmup, server.getPort());
+        TimeUnit.SECONDS.sleep(arguments.warmup);
+
+        Snapshot before = new Snapshot(statistics, server);
+        server.startRecording();
+        long start = System.nanoTime();
+
+        System.out.printf("Measuring for %d seconds.%n", arguments.duration);
+        TimeUnit.SECONDS.sleep(arguments.duration);
+
+        long[] latencies = server.stopRecording();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Snapshot after = new Snapshot(statistics, server);
+
+        System.out.println();
+        System.out.printf("Frames in:              %,12.0f/s (%,d malformed)%n",
+                (after.frames - before.frames) / seconds, after.malformed - before.malformed);
+        System.out.printf("GELF messages out:      %,12.0f/s (%,.1f MB/s)%n",
+                (after.messages - before.messages) / seconds, (after.bytes - before.bytes) / seconds / 1024 / 1024);
+        System.out.printf("Uplink drops:           %,12d%n", after.uplinkDropped - before.uplinkDropped);
+        for (Map.Entry<String, Long> shed : after.shed.entrySet()) {
+            long previous = before.shed.containsKey(shed.getKey()) ? before.shed.get(shed.getKey()) : 0;
+            System.out.printf("Shed (%-6s priority): %,12d%n", shed.getKey(), shed.getValue() - previous);
+        }
+
+        System.out.println();
+        System.out.printf("Latency, capture timestamp to GELF server, %,d samples:%n", latencies.length);
+        if (latencies.length > 0) {
+            System.out.printf("  p50    %,12d us%n", percentile(latencies, 50));
+            System.out.printf("  p90    %,12d us%n", percentile(latencies, 90));
+            System.out.printf("  p99    %,12d us%n", percentile(latencies, 99));
+            System.out.printf("  p99.9  %,12d us%n", percentile(latencies, 99.9));
+            System.out.printf("  max    %,12d us%n", latencies[latencies.length - 1]);
+        }
+
+        server.close();
+        System.exit(0);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static class Snapshot {
+
+        private final long frames;
+        private final long malformed;
+        private final long messages;
+        private final long bytes;
+        private final long uplinkDropped;
+        private final Map<String, Long> shed = Maps.newTreeMap();
+
+        private Snapshot(Statistics statistics, FakeGelfServer server) {
+            this.malformed = statistics.getMalformedCount().get();
+            this.frames = statistics.getFrameCount().get() + malformed;
+            this.messages = server.getMessageCount();
+            this.bytes = server.getByteCount();
+            this.uplinkDropped = statistics.getUplinkDroppedCount().get();
+
+            for (Map.Entry<String, AtomicLong> entry : statistics.getShedCounts().entrySet()) {
+                shed.put(entry.getKey(), entry.getValue().get());
+            }
+        }
+
+    }
+
+}
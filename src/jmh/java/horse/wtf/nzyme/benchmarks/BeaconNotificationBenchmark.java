@@ -0,0 +1,154 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11ManagementFrame;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.Dot11SSID;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.handlers.BeaconFrameHandler;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.Notification;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pcap4j.packet.RadiotapDataAntennaSignal;
+import org.pcap4j.packet.RadiotapDataChannel;
+import org.pcap4j.packet.RadiotapPacket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BeaconFrameHandler} compared with a copy of the previous, eagerly rendering implementation. Compare the
+ * gc.alloc.rate.norm of both in the output of the GC profiler.
+ *
+ * "dropped" means the notification is discarded by the uplink without being rendered. "rendered" means the uplink
+ * asks for the message and all fields, like the Graylog uplink does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeaconNotificationBenchmark {
+
+    @Param({"dropped", "rendered"})
+    public String uplink;
+
+    private RenderingNzyme nzyme;
+    private BeaconFrameHandler handler;
+
+    private byte[] payload;
+    private byte[] header;
+    private Dot11MetaInformation meta;
+
+    @Setup
+    public void setup() throws Exception {
+        nzyme = new RenderingNzyme(uplink.equals("rendered"));
+        handler = new BeaconFrameHandler(nzyme);
+
+        payload = beacon("nzyme-benchmark");
+        header = new byte[0];
+        meta = meta();
+    }
+
+    @Benchmark
+    public void current() {
+        handler.handle(payload, header, meta);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) throws Exception {
+        nzyme.getStatistics().tickType("beacon");
+
+        Dot11ManagementFrame beacon = Dot11ManagementFrame.newPacket(payload, 0, payload.length);
+        String ssid = Dot11SSID.extractSSID(37, 38, payload);
+        String transmitter = beacon.getHeader().getAddress2().toString();
+
+        String message = "Received beacon from " + transmitter + " for SSID " + ssid;
+        nzyme.getStatistics().tickBeaconedNetwork(ssid);
+
+        ImmutableMap.Builder<String, Object> fields = new ImmutableMap.Builder<>();
+        fields.put("_" + "channel", meta.getChannel());
+        fields.put("_" + FieldNames.TRANSMITTER, transmitter);
+        fields.put("_" + FieldNames.SSID, ssid);
+        fields.put("_" + FieldNames.SUBTYPE, "beacon");
+
+        if (nzyme.render) {
+            nzyme.consume(message, fields.build());
+        }
+
+        blackhole.consume(message);
+    }
+
+    private static class RenderingNzyme extends MockNzyme {
+
+        private final boolean render;
+        private int sink;
+
+        RenderingNzyme(boolean render) {
+            this.render = render;
+        }
+
+        @Override
+        protected void record(Event event) {
+            if (render) {
+                Notification notification = event.toNotification();
+                consume(notification.getMessage(), notification.getAdditionalFields());
+            }
+        }
+
+        void consume(String message, Map<String, Object> fields) {
+            sink += message.length() + fields.size();
+        }
+
+    }
+
+    private static byte[] beacon(String ssid) {
+        byte[] ssidBytes = ssid.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[38 + ssidBytes.length];
+
+        payload[0] = (byte) 0x80; // beacon
+        for (int i = 0; i < 6; i++) {
+            payload[4 + i] = (byte) 0xFF;               // destination: broadcast
+            payload[10 + i] = (byte) (0x10 + i);        // transmitter
+            payload[16 + i] = (byte) (0x10 + i);        // BSSID
+        }
+
+        payload[36] = 0;                                // SSID element
+        payload[37] = (byte) ssidBytes.length;
+        System.arraycopy(ssidBytes, 0, payload, 38, ssidBytes.length);
+
+        return payload;
+    }
+
+    private static Dot11MetaInformation meta() throws Exception {
+        ArrayList<RadiotapPacket.RadiotapData> fields = Lists.newArrayList();
+        fields.add(RadiotapDataChannel.newInstance(new byte[]{(byte) 0x6c, (byte) 0x09, 0, 0}, 0, 4));
+        fields.add(RadiotapDataAntennaSignal.newInstance(new byte[]{(byte) -50}, 0, 1));
+
+        return Dot11MetaInformation.parse(fields);
+    }
+
+}
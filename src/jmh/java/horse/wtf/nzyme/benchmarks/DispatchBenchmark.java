@@ -0,0 +1,73 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.benchmarks;
+
+import horse.wtf.nzyme.processing.FrameDispatcher;
+import horse.wtf.nzyme.processing.FrameProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everything the capture loop does with a frame after libpcap returned it: Decoding the radiotap packet like
+ * PcapHandle#getNextPacketEx does, then dispatching it to its handler. Frames are handled on the benchmark thread,
+ * like with a processing queue size of 0.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private CountingNzyme nzyme;
+    private FrameDispatcher dispatcher;
+
+    private byte[][] frames;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        nzyme = new CountingNzyme();
+
+        dispatcher = new FrameDispatcher(nzyme, new FrameProcessor(nzyme, 0, 0), false);
+        dispatcher.registerProvidedHandlers();
+
+        List<byte[]> corpus = new RadiotapCorpus(4096, 42).getFrames();
+        frames = corpus.toArray(new byte[corpus.size()][]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (nzyme.getStatistics().getMalformedCount().get() > 0) {
+            throw new IllegalStateException("Corpus contains frames that are considered malformed.");
+        }
+    }
+
+    @Benchmark
+    public long dispatch() {
+        index = (index + 1) % frames.length;
+        byte[] frame = frames[index];
+
+        dispatcher.dispatch(frame);
+        return nzyme.getEventCount();
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.benchmarks;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.handlers.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FrameHandler#handle(byte[], byte[], Dot11MetaInformation)} of every handler, with nothing subscribed to the
+ * published events but a counter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameHandlerBenchmark {
+
+    @Param({"beacon", "probe-req", "probe-resp", "auth", "assoc-req", "assoc-resp", "deauth", "disassoc"})
+    public String subtype;
+
+    private CountingNzyme nzyme;
+    private FrameHandler handler;
+
+    private byte[][] payloads;
+    private byte[][] headers;
+    private Dot11MetaInformation[] metas;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        nzyme = new CountingNzyme();
+        Dot11FrameSubtype frameSubtype = Dot11FrameSubtype.fromName(subtype);
+        handler = handlerFor(frameSubtype);
+
+        List<byte[]> frames = new RadiotapCorpus(1024, 42).getFrames(frameSubtype);
+        payloads = new byte[frames.size()][];
+        headers = new byte[frames.size()][];
+        metas = new Dot11MetaInformation[frames.size()];
+        for (int i = 0; i < frames.size(); i++) {
+            byte[] frame = frames.get(i);
+            metas[i] = Dot11MetaInformation.parse(frame);
+            headers[i] = Arrays.copyOf(frame, metas[i].getRadiotapLength());
+            payloads[i] = Arrays.copyOfRange(frame, metas[i].getRadiotapLength(), frame.length);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (nzyme.getStatistics().getMalformedCount().get() > 0) {
+            throw new IllegalStateException("Corpus contains frames the " + subtype + " handler considers malformed.");
+        }
+    }
+
+    @Benchmark
+    public long handle() {
+        index = (index + 1) % payloads.length;
+        handler.handle(payloads[index], headers[index], metas[index]);
+        return nzyme.getEventCount();
+    }
+
+    private FrameHandler handlerFor(Dot11FrameSubtype subtype) {
+        switch (subtype) {
+            case ASSOC_REQ:
+                return new AssociationRequestFrameHandler(nzyme);
+            case ASSOC_RESP:
+                return new AssociationResponseFrameHandler(nzyme);
+            case PROBE_REQ:
+                return new ProbeRequestFrameHandler(nzyme);
+            case PROBE_RESP:
+                return new ProbeResponseFrameHandler(nzyme);
+            case BEACON:
+                return new BeaconFrameHandler(nzyme);
+            case DISASSOC:
+                return new DisassociationFrameHandler(nzyme);
+            case AUTH:
+                return new AuthenticationFrameHandler(nzyme);
+            case DEAUTH:
+                return new DeauthenticationFrameHandler(nzyme);
+            default:
+                throw new IllegalArgumentException("No handler for [" + subtype + "].");
+        }
+    }
+
+}
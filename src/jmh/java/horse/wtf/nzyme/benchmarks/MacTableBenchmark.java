@@ -0,0 +1,99 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.benchmarks;
+
+import horse.wtf.nzyme.util.MacTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link MacTable} compared with a ConcurrentHashMap of boxed MAC addresses at 1M and 10M devices: Every
+ * operation counts a frame and updates the last seen timestamp of a random device. Compare the GC profiler output
+ * of both, the table allocates nothing once all devices were seen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@Threads(4)
+public class MacTableBenchmark {
+
+    private static final int COUNT = 0;
+    private static final int LAST_SEEN = 1;
+
+    @Param({"1000000", "10000000"})
+    private int devices;
+
+    private MacTable table;
+    private ConcurrentHashMap<Long, AtomicLongArray> map;
+
+    @State(Scope.Thread)
+    public static class Device {
+
+        private long x;
+        private long now;
+
+        @Setup
+        public void setup() {
+            x = System.identityHashCode(this) | 1;
+        }
+
+        long next(int devices) {
+            // xorshift
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            now++;
+
+            return Math.floorMod(x, devices);
+        }
+
+    }
+
+    @Setup
+    public void setup() {
+        table = new MacTable(devices, 2);
+        map = new ConcurrentHashMap<>(devices * 2);
+    }
+
+    @Benchmark
+    public int macTable(Device device) {
+        long mac = device.next(devices);
+
+        int slot = table.slot(mac);
+        table.addAndGet(slot, COUNT, 1);
+        table.max(slot, LAST_SEEN, device.now);
+        return slot;
+    }
+
+    @Benchmark
+    public AtomicLongArray concurrentHashMap(Device device) {
+        long mac = device.next(devices);
+
+        AtomicLongArray record = map.computeIfAbsent(mac, k -> new AtomicLongArray(2));
+        record.incrementAndGet(COUNT);
+        record.set(LAST_SEEN, device.now);
+        return record;
+    }
+
+}
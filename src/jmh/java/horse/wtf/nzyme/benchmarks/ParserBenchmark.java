@@ -0,0 +1,68 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.benchmarks;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.Dot11SSID;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The parsers that run for every captured frame: Radiotap meta information and the SSID of beacons.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    private List<byte[]> frames;
+    private List<byte[]> beacons;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        RadiotapCorpus corpus = new RadiotapCorpus(1024, 42);
+
+        frames = corpus.getFrames();
+
+        beacons = new ArrayList<>();
+        for (byte[] frame : corpus.getFrames(Dot11FrameSubtype.BEACON)) {
+            beacons.add(RadiotapCorpus.payloadOf(frame));
+        }
+    }
+
+    @Benchmark
+    public Dot11MetaInformation metaInformationParse() {
+        index = (index + 1) % frames.size();
+        return Dot11MetaInformation.parse(frames.get(index));
+    }
+
+    @Benchmark
+    public String extractSSID() {
+        index = (index + 1) % beacons.size();
+        return Dot11SSID.extractSSID(37, 38, beacons.get(index));
+    }
+
+}
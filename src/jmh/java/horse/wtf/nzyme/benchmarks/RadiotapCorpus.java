@@ -0,0 +1,223 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.benchmarks;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Raw radiotap frames, laid out like a Linux mac80211 driver in monitor mode delivers them: TSFT, flags, rate, channel,
+ * dBm antenna signal and RX flags in the radiotap header, followed by the 802.11 management frame. Frames come without
+ * FCS, because pcap4j would parse a trailing FCS of probe requests as an information element. The mix of subtypes
+ * follows a busy office capture: Mostly beacons, then probes and a few connections.
+ */
+public class RadiotapCorpus {
+
+    public static final int RADIOTAP_LENGTH = 26;
+
+    private static final int PRESENT = 0x402F; // TSFT, FLAGS, RATE, CHANNEL, DBM_ANTSIGNAL, RX_FLAGS
+
+    private static final int[] FREQUENCIES = {2412, 2437, 2462, 5180, 5240};
+    private static final String[] SSIDS = {"nzyme-office", "guest", "printers", "ACME Corp", "Free Public WiFi", "IoT"};
+
+    private final Random random;
+    private final List<byte[]> frames;
+
+    /**
+     * @param size Number of frames.
+     * @param seed Seed of the frame contents, so that runs are comparable.
+     */
+    public RadiotapCorpus(int size, long seed) {
+        this.random = new Random(seed);
+        this.frames = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            int roll = random.nextInt(100);
+
+            Dot11FrameSubtype subtype;
+            if (roll < 60) {
+                subtype = Dot11FrameSubtype.BEACON;
+            } else if (roll < 75) {
+                subtype = Dot11FrameSubtype.PROBE_REQ;
+            } else if (roll < 85) {
+                subtype = Dot11FrameSubtype.PROBE_RESP;
+            } else if (roll < 89) {
+                subtype = Dot11FrameSubtype.AUTH;
+            } else if (roll < 92) {
+                subtype = Dot11FrameSubtype.ASSOC_REQ;
+            } else if (roll < 95) {
+                subtype = Dot11FrameSubtype.ASSOC_RESP;
+            } else if (roll < 98) {
+                subtype = Dot11FrameSubtype.DEAUTH;
+            } else {
+                subtype = Dot11FrameSubtype.DISASSOC;
+            }
+
+            frames.add(frame(subtype));
+        }
+    }
+
+    public List<byte[]> getFrames() {
+        return Collections.unmodifiableList(frames);
+    }
+
+    /**
+     * @return the frames of one subtype. Generates a few if the mix did not produce any.
+     */
+    public List<byte[]> getFrames(Dot11FrameSubtype subtype) {
+        List<byte[]> result = new ArrayList<>();
+        for (byte[] frame : frames) {
+            if (subtypeOf(frame) == subtype.getValue()) {
+                result.add(frame);
+            }
+        }
+
+        while (result.size() < 16) {
+            result.add(frame(subtype));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the 802.11 part of a radiotap frame, like pcap4j hands it to the handlers.
+     */
+    public static byte[] payloadOf(byte[] frame) {
+        byte[] payload = new byte[frame.length - RADIOTAP_LENGTH];
+        System.arraycopy(frame, RADIOTAP_LENGTH, payload, 0, payload.length);
+        return payload;
+    }
+
+    private static int subtypeOf(byte[] frame) {
+        return (frame[RADIOTAP_LENGTH] >> 4) & 0x0F;
+    }
+
+    private byte[] frame(Dot11FrameSubtype subtype) {
+        long ap = 0x0025_9C00_0000L | random.nextInt(32);
+        long client = 0x0200_0000_0000L | random.nextInt(256);
+        String ssid = SSIDS[random.nextInt(SSIDS.length)];
+
+        ByteBuffer body = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+        switch (subtype) {
+            case BEACON:
+            case PROBE_RESP:
+                header(body, subtype, subtype == Dot11FrameSubtype.BEACON ? 0xFFFF_FFFF_FFFFL : client, ap, ap);
+                body.putLong(random.nextLong() & 0x0000_00FF_FFFF_FFFFL); // TSF
+                body.putShort((short) 100);                            // beacon interval
+                body.putShort((short) 0x0411);                         // ESS, privacy, short slot
+                ssid(body, ssid);
+                rates(body);
+                body.put((byte) 3).put((byte) 1).put((byte) 6);        // DS parameter set
+                rsn(body);
+                break;
+            case PROBE_REQ:
+                header(body, subtype, 0xFFFF_FFFF_FFFFL, client, 0xFFFF_FFFF_FFFFL);
+                ssid(body, random.nextBoolean() ? "" : ssid);
+                rates(body);
+                break;
+            case AUTH:
+                boolean request = random.nextBoolean();
+                header(body, subtype, request ? ap : client, request ? client : ap, ap);
+                body.putShort((short) 0);                              // open system
+                body.putShort((short) (request ? 1 : 2));
+                body.putShort((short) 0);                              // success
+                break;
+            case ASSOC_REQ:
+                header(body, subtype, ap, client, ap);
+                body.putShort((short) 0x0411);
+                body.putShort((short) 10);                             // listen interval
+                ssid(body, ssid);
+                rates(body);
+                rsn(body);
+                break;
+            case ASSOC_RESP:
+                header(body, subtype, client, ap, ap);
+                body.putShort((short) 0x0411);
+                body.putShort((short) 0);                              // success
+                body.putShort((short) (0xC000 | random.nextInt(64)));  // association ID
+                rates(body);
+                break;
+            case DEAUTH:
+            case DISASSOC:
+                header(body, subtype, client, ap, ap);
+                body.putShort((short) (1 + random.nextInt(8)));        // reason
+                break;
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(RADIOTAP_LENGTH + body.position()).order(ByteOrder.LITTLE_ENDIAN);
+        frame.put((byte) 0).put((byte) 0).putShort((short) RADIOTAP_LENGTH).putInt(PRESENT);
+        frame.putLong(random.nextLong() & 0x0000_00FF_FFFF_FFFFL);      // TSFT
+        frame.put((byte) 0);                                           // flags
+        frame.put((byte) 2);                                           // 1 Mb/s
+        int frequency = FREQUENCIES[random.nextInt(FREQUENCIES.length)];
+        frame.putShort((short) frequency);
+        frame.putShort((short) (frequency < 5000 ? 0x00A0 : 0x0140));  // 2 GHz CCK or 5 GHz OFDM
+        frame.put((byte) -(30 + random.nextInt(60)));                  // antenna signal
+        frame.put((byte) 0);                                           // padding
+        frame.putShort((short) 0);                                     // RX flags
+        frame.put(body.array(), 0, body.position());
+
+        return frame.array();
+    }
+
+    private void header(ByteBuffer body, Dot11FrameSubtype subtype, long destination, long source, long bssid) {
+        body.put((byte) (subtype.getValue() << 4)).put((byte) 0);
+        body.putShort((short) 0);                                      // duration
+        mac(body, destination);
+        mac(body, source);
+        mac(body, bssid);
+        body.putShort((short) (random.nextInt(4096) << 4));            // sequence control
+    }
+
+    private static void mac(ByteBuffer body, long address) {
+        for (int i = 5; i >= 0; i--) {
+            body.put((byte) (address >> (i * 8)));
+        }
+    }
+
+    private static void ssid(ByteBuffer body, String ssid) {
+        byte[] bytes = ssid.getBytes(StandardCharsets.UTF_8);
+        body.put((byte) 0).put((byte) bytes.length).put(bytes);
+    }
+
+    private static void rates(ByteBuffer body) {
+        body.put((byte) 1).put((byte) 8)
+                .put((byte) 0x82).put((byte) 0x84).put((byte) 0x8B).put((byte) 0x96)
+                .put((byte) 0x0C).put((byte) 0x12).put((byte) 0x18).put((byte) 0x24);
+    }
+
+    private static void rsn(ByteBuffer body) {
+        // Version 1, CCMP group and pairwise cipher, PSK.
+        body.put((byte) 48).put((byte) 20)
+                .putShort((short) 1)
+                .put((byte) 0x00).put((byte) 0x0F).put((byte) 0xAC).put((byte) 4)
+                .putShort((short) 1)
+                .put((byte) 0x00).put((byte) 0x0F).put((byte) 0xAC).put((byte) 4)
+                .putShort((short) 1)
+                .put((byte) 0x00).put((byte) 0x0F).put((byte) 0xAC).put((byte) 2)
+                .putShort((short) 0);
+    }
+
+}
@@ -24,16 +24,24 @@ import com.github.joschi.jadconfig.ValidationException;
 import com.github.joschi.jadconfig.repositories.PropertiesRepository;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.capture.PcapFileWriter;
+import horse.wtf.nzyme.capture.TrafficGenerator;
 import horse.wtf.nzyme.configuration.CLIArguments;
 import horse.wtf.nzyme.configuration.Configuration;
+import horse.wtf.nzyme.malformed.MalformedSampleFile;
 import horse.wtf.nzyme.periodicals.PeriodicalManager;
 import horse.wtf.nzyme.periodicals.versioncheck.VersioncheckThread;
+import horse.wtf.nzyme.processing.DuplicateFilter;
+import horse.wtf.nzyme.snapshot.SnapshotManager;
 import horse.wtf.nzyme.statistics.Statistics;
 import horse.wtf.nzyme.statistics.StatisticsPrinter;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -81,8 +89,31 @@ public class Main {
             Logging.setRootLoggerLevel(Level.TRACE);
         }
 
+        // Only write generated traffic to a pcap file if requested.
+        if (cliArguments.getWritePcap() != null) {
+            try (PcapFileWriter writer = new PcapFileWriter(Paths.get(cliArguments.getWritePcap()))) {
+                buildTrafficGenerator(configuration, 0).write(writer, cliArguments.getWritePcapFrames(),
+                        TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+            } catch (IOException e) {
+                LOG.error("Could not write pcap file.", e);
+                Runtime.getRuntime().exit(FAILURE);
+            }
+
+            LOG.info("Wrote {} generated frames to [{}].", cliArguments.getWritePcapFrames(), cliArguments.getWritePcap());
+            return;
+        }
+
         // Set up statistics printer.
-        final Statistics statistics = new Statistics();
+        final Statistics statistics = new Statistics(configuration.getStatisticsMaxDevices());
+
+        // Restore statistics from the last snapshot before any frames are counted.
+        final SnapshotManager snapshotManager = new SnapshotManager(
+                Paths.get(configuration.getSnapshotDirectory()),
+                configuration.getSnapshotIntervalSeconds(),
+                statistics
+        );
+        snapshotManager.restore();
+
         final StatisticsPrinter statisticsPrinter = new StatisticsPrinter(statistics);
         LOG.info("Printing statistics every {} seconds.", STATS_INTERVAL);
         // Statistics printer.
@@ -109,9 +140,30 @@ public class Main {
             LOG.info("Versionchecks are disabled.");
         }
 
+        // Only more than one interface can capture the same frame twice.
+        final DuplicateFilter duplicateFilter = new DuplicateFilter(
+                configuration.getChannels().size() > 1 ? configuration.getDuplicateWindowMs() : 0,
+                configuration.getDuplicateTableSize()
+        );
+
+        // One sample file for all interfaces. Opening it once per interface would truncate it every time.
+        final MalformedSampleFile malformedSampleFile = buildMalformedSampleFile(configuration);
+
         for (Map.Entry<String, ImmutableList<Integer>> config : configuration.getChannels().entrySet()) {
             try {
-                Nzyme nzyme = new NzymeImpl(config.getKey(), config.getValue(), cliArguments, configuration, statistics);
+                Nzyme nzyme;
+                if (cliArguments.isGenerate()) {
+                    LOG.info("Processing generated traffic instead of capturing on [{}].", config.getKey());
+                    nzyme = new NzymeImpl(config.getKey(), config.getValue(),
+                            buildTrafficGenerator(configuration, config.getKey().hashCode()),
+                            cliArguments, configuration, statistics, duplicateFilter, malformedSampleFile);
+                } else {
+                    nzyme = new NzymeImpl(config.getKey(), config.getValue(), cliArguments, configuration, statistics,
+                            duplicateFilter, malformedSampleFile);
+                }
+
+                snapshotManager.register(config.getKey(), nzyme.getDeviceTable());
+                snapshotManager.register(config.getKey(), nzyme.getAccessPointInventory());
                 loopExecutor.submit(nzyme.loop());
             } catch (NzymeInitializationException e) {
                 LOG.error("Boot error.", e);
@@ -119,6 +171,8 @@ public class Main {
             }
         }
 
+        snapshotManager.initialize();
+
         while(true) {
             // https://www.youtube.com/watch?v=Vmb1tqYqyII#t=47s
 
@@ -128,4 +182,32 @@ public class Main {
         }
     }
 
+    @Nullable
+    private static MalformedSampleFile buildMalformedSampleFile(Configuration configuration) {
+        String path = configuration.getMalformedSamplePcap();
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+
+        try {
+            LOG.info("Writing samples of malformed frames to [{}].", path);
+            return new MalformedSampleFile(Paths.get(path.trim()),
+                    configuration.getMalformedSampleMaxSizeMb() * 1024L * 1024L);
+        } catch (IOException e) {
+            LOG.error("Could not open malformed frame sample file [{}].", path, e);
+            Runtime.getRuntime().exit(FAILURE);
+            return null;
+        }
+    }
+
+    private static TrafficGenerator buildTrafficGenerator(Configuration configuration, long seed) {
+        return new TrafficGenerator(
+                configuration.getGeneratorMix(),
+                configuration.getGeneratorAccessPoints(),
+                configuration.getGeneratorClients(),
+                configuration.getGeneratorRate(),
+                seed
+        );
+    }
+
 }
@@ -17,11 +17,20 @@
 
 package horse.wtf.nzyme;
 
+import horse.wtf.nzyme.aggregation.FrameAggregator;
 import horse.wtf.nzyme.channels.ChannelHopper;
 import horse.wtf.nzyme.configuration.Configuration;
+import horse.wtf.nzyme.devices.AccessPointInventory;
+import horse.wtf.nzyme.devices.DeviceTable;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.EventBus;
+import horse.wtf.nzyme.malformed.MalformedFrameReporter;
 import horse.wtf.nzyme.notifications.Notification;
 import horse.wtf.nzyme.periodicals.PeriodicalManager;
+import horse.wtf.nzyme.processing.DuplicateFilter;
+import horse.wtf.nzyme.sampling.TransmitterRateLimiter;
+import horse.wtf.nzyme.sampling.TransmitterSampler;
+import horse.wtf.nzyme.sessions.SessionTracker;
 import horse.wtf.nzyme.statistics.Statistics;
 
 public interface Nzyme {
@@ -31,8 +40,18 @@ public interface Nzyme {
 
     void notify(Notification notification, Dot11MetaInformation meta);
 
+    EventBus getEventBus();
+
     Statistics getStatistics();
     ChannelHopper getChannelHopper();
+    FrameAggregator getFrameAggregator();
+    TransmitterSampler getTransmitterSampler();
+    TransmitterRateLimiter getRateLimiter();
+    DeviceTable getDeviceTable();
+    AccessPointInventory getAccessPointInventory();
+    SessionTracker getSessionTracker();
+    MalformedFrameReporter getMalformedFrameReporter();
+    DuplicateFilter getDuplicateFilter();
 
     Configuration getConfiguration();
 
@@ -20,34 +20,61 @@ package horse.wtf.nzyme;
 import com.beust.jcommander.internal.Lists;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import horse.wtf.nzyme.aggregation.FrameAggregator;
+import horse.wtf.nzyme.capture.BpfFilter;
+import horse.wtf.nzyme.capture.CaptureSource;
+import horse.wtf.nzyme.capture.PcapCaptureSource;
 import horse.wtf.nzyme.channels.ChannelHopper;
 import horse.wtf.nzyme.configuration.CLIArguments;
 import horse.wtf.nzyme.configuration.Configuration;
+import horse.wtf.nzyme.detection.BeaconClockAnalyzer;
+import horse.wtf.nzyme.detection.FloodDetector;
+import horse.wtf.nzyme.devices.AccessPointInventory;
+import horse.wtf.nzyme.devices.DeviceTable;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.events.EventBus;
+import horse.wtf.nzyme.events.NotificationEvent;
+import horse.wtf.nzyme.malformed.MalformedFrameReporter;
+import horse.wtf.nzyme.malformed.MalformedSampleFile;
 import horse.wtf.nzyme.notifications.Uplink;
+import horse.wtf.nzyme.notifications.UplinkFilter;
+import horse.wtf.nzyme.notifications.UplinkSubscriber;
 import horse.wtf.nzyme.notifications.uplinks.graylog.GraylogAddress;
 import horse.wtf.nzyme.notifications.uplinks.graylog.GraylogUplink;
 import horse.wtf.nzyme.notifications.Notification;
-import horse.wtf.nzyme.handlers.*;
+import horse.wtf.nzyme.handlers.FrameHandler;
+import horse.wtf.nzyme.notifications.spool.Spool;
 import horse.wtf.nzyme.notifications.uplinks.logger.LoggerUplink;
+import horse.wtf.nzyme.processing.DuplicateFilter;
+import horse.wtf.nzyme.processing.FrameDispatcher;
+import horse.wtf.nzyme.processing.FramePriority;
+import horse.wtf.nzyme.processing.FrameProcessor;
+import horse.wtf.nzyme.processing.OverloadFilter;
+import horse.wtf.nzyme.sampling.TransmitterRateLimiter;
+import horse.wtf.nzyme.sampling.TransmitterSampler;
+import horse.wtf.nzyme.sessions.SessionTracker;
 import horse.wtf.nzyme.statistics.Statistics;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.pcap4j.core.*;
-import org.pcap4j.packet.IllegalRawDataException;
-import org.pcap4j.packet.Packet;
-import org.pcap4j.packet.RadiotapPacket;
-import org.pcap4j.packet.namednumber.Dot11FrameType;
 
+import javax.annotation.Nullable;
 import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
-import java.util.concurrent.TimeoutException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class NzymeImpl implements Nzyme {
 
     private static final Logger LOG = LogManager.getLogger(Nzyme.class);
 
+    private static final int SPOOL_SEGMENT_SIZE = 16 * 1024 * 1024;
+
     private final String nzymeId;
 
     private final CLIArguments cliArguments;
@@ -56,185 +83,231 @@ public class NzymeImpl implements Nzyme {
 
     private final Statistics statistics;
     private final List<Uplink> uplinks;
+    private final EventBus eventBus;
     private final ChannelHopper channelHopper;
+    private final FrameAggregator frameAggregator;
+    private final TransmitterSampler transmitterSampler;
+    private final TransmitterRateLimiter rateLimiter;
+    private final DeviceTable deviceTable;
+    private final AccessPointInventory accessPointInventory;
+    private final SessionTracker sessionTracker;
+    private final MalformedFrameReporter malformedFrameReporter;
+    private final DuplicateFilter duplicateFilter;
 
-    private final PcapHandle pcap;
+    private final CaptureSource captureSource;
 
-    // Frame handlers.
-    private final ProbeRequestFrameHandler probeRequestHandler;
-    private final ProbeResponseFrameHandler probeResponseHandler;
-    private final DeauthenticationFrameHandler deauthFrameHandler;
-    private final BeaconFrameHandler beaconFrameHandler;
-    private final AssociationRequestFrameHandler associationRequestFrameHandler;
-    private final AssociationResponseFrameHandler associationResponseFrameHandler;
-    private final DisassociationFrameHandler disassociationFrameHandler;
-    private final AuthenticationFrameHandler authenticationFrameHandler;
+    private final FrameProcessor frameProcessor;
+    private final FrameDispatcher frameDispatcher;
 
     private final AtomicBoolean inLoop = new AtomicBoolean(false);
 
     public NzymeImpl(String interfaceName, ImmutableList<Integer> channels, CLIArguments cliArguments,
-                     Configuration configuration, Statistics statistics) throws NzymeInitializationException {
+                     Configuration configuration, Statistics statistics, DuplicateFilter duplicateFilter,
+                     @Nullable MalformedSampleFile malformedSampleFile) throws NzymeInitializationException {
+        this(interfaceName, channels, PcapCaptureSource.open(interfaceName), cliArguments, configuration, statistics,
+                duplicateFilter, malformedSampleFile);
+    }
+
+    /**
+     * @param duplicateFilter Shared by all interfaces, so that frames captured by more than one are handled once.
+     * @param malformedSampleFile Shared by all interfaces or null to not sample malformed frames.
+     */
+    public NzymeImpl(String interfaceName, ImmutableList<Integer> channels, CaptureSource captureSource,
+                     CLIArguments cliArguments, Configuration configuration, Statistics statistics,
+                     DuplicateFilter duplicateFilter, @Nullable MalformedSampleFile malformedSampleFile)
+            throws NzymeInitializationException {
+        this.captureSource = captureSource;
         this.cliArguments = cliArguments;
         this.configuration = configuration;
         this.statistics = statistics;
+        this.duplicateFilter = duplicateFilter;
         this.networkInterfaceName = interfaceName;
 
         this.nzymeId = getConfiguration().getNzymeId();
 
+        this.eventBus = new EventBus(interfaceName, configuration.getEventQueueSize(), statistics);
+
         // Initialize channel hopper.
         this.channelHopper = new ChannelHopper(this, channels);
-        this.channelHopper.initialize();
+        if (captureSource.isLive()) {
+            this.channelHopper.initialize();
+            LOG.info("Cycling [{}] through channels <{}>.", interfaceName, Joiner.on(",").join(channels));
+        }
+
+        // Initialize aggregation of repeated frames.
+        this.frameAggregator = new FrameAggregator(this, configuration.getAggregationWindowSeconds());
+        this.frameAggregator.initialize();
+
+        // Initialize per-transmitter sampling.
+        this.transmitterSampler = new TransmitterSampler(
+                configuration.getSamplingMinIntervalSeconds(),
+                configuration.getSamplingBudget(),
+                configuration.getSamplingMaxTransmitters()
+        );
+
+        // Initialize per-transmitter rate limiting.
+        this.rateLimiter = new TransmitterRateLimiter(this, configuration.getRateLimits(),
+                configuration.getRateLimitMaxTransmitters());
+        this.rateLimiter.initialize();
 
         // Graylog GELF sender.
         this.uplinks = Lists.newArrayList();
+        Map<String, UplinkFilter> filtersByAddress = Maps.newHashMap(this.configuration.getUplinkFilters());
+        Map<Uplink, UplinkFilter> uplinkFilters = Maps.newHashMap();
         if (this.configuration.getGraylogAddresses() == null || this.configuration.getGraylogAddresses().isEmpty()) {
             LOG.warn("No Graylog uplinks configured. Falling back to Log4j output");
-            this.uplinks.add(new LoggerUplink());
+            LoggerUplink uplink = new LoggerUplink();
+            this.uplinks.add(uplink);
+            addUplinkFilter(uplinkFilters, uplink, filtersByAddress.remove("logger"));
         } else {
             for (GraylogAddress address : this.configuration.getGraylogAddresses()) {
-                this.uplinks.add(new GraylogUplink(address.getHost(), address.getPort(), this.nzymeId, this.networkInterfaceName));
+                Spool spool = null;
+                if (this.configuration.isSpoolEnabled()) {
+                    spool = buildSpool(address);
+                }
+
+                GraylogUplink uplink = new GraylogUplink(address.getHost(), address.getPort(), this.nzymeId,
+                        this.networkInterfaceName, spool, this.configuration.getSpoolDrainRate(), this.statistics);
+                this.uplinks.add(uplink);
+                addUplinkFilter(uplinkFilters, uplink, filtersByAddress.remove(address.getHost() + ":" + address.getPort()));
             }
         }
 
-        // Get network interface for PCAP.
-        PcapNetworkInterface networkInterface;
-        try {
-            networkInterface = Pcaps.getDevByName(interfaceName);
-        } catch (PcapNativeException e) {
-            throw new NzymeInitializationException("Could not get network interface [" + interfaceName + "].", e);
+        for (String address : filtersByAddress.keySet()) {
+            LOG.warn("Ignoring uplink filter for [{}]: No such uplink configured.", address);
         }
 
-        if (networkInterface == null) {
-            throw new NzymeInitializationException("Could not get network interface [" + interfaceName + "]. Does it exist and could it be that you have to be root? Is it up?");
+        // Track access points. Subscribed before the uplinks, so it sees every frame before sampling.
+        this.accessPointInventory = new AccessPointInventory(this, configuration.getApInventoryMaxAccessPoints(),
+                configuration.getApInventoryTtlMinutes(), configuration.getApInventoryLearningMinutes());
+        this.accessPointInventory.initialize();
+
+        // Uplinks and analytics consume events on their own threads, so that a slow uplink never stalls the capture.
+        this.eventBus.subscribeQueued("uplinks", ImmutableList.of(Event.class),
+                new UplinkSubscriber(this, this.uplinks, uplinkFilters));
+
+        // Remember recently seen devices.
+        this.deviceTable = new DeviceTable(this, configuration.getDeviceTableMaxDevices(),
+                configuration.getDeviceTtlMinutes());
+        this.deviceTable.initialize();
+
+        // Detect deauthentication and disassociation floods.
+        new FloodDetector(this, configuration.getDeauthFloodThreshold(), configuration.getDeauthFloodWindowSeconds())
+                .initialize();
+
+        // Follow clients through authentication and association.
+        this.sessionTracker = new SessionTracker(this, configuration.getSessionTableMaxSessions(),
+                configuration.getSessionSetupTimeoutSeconds(), configuration.getSessionTtlMinutes());
+        this.sessionTracker.initialize();
+
+        // Summarize malformed frames instead of notifying about every single one.
+        this.malformedFrameReporter = new MalformedFrameReporter(this,
+                configuration.getMalformedReportIntervalSeconds(),
+                malformedSampleFile,
+                configuration.getMalformedSampleFrames());
+        this.malformedFrameReporter.initialize();
+
+        // Detect spoofed beacons by their timestamps.
+        new BeaconClockAnalyzer(this, configuration.getBeaconClockMaxBssids()).initialize();
+
+        // Handle frames on a separate thread so that we can shed low priority frames when falling behind.
+        this.frameProcessor = new FrameProcessor(this, configuration.getProcessingQueueSize(),
+                configuration.getProcessingMaxLatencyMs());
+        this.frameProcessor.initialize();
+
+        this.frameDispatcher = new FrameDispatcher(this, frameProcessor, cliArguments.isPacketInfo());
+        frameDispatcher.registerProvidedHandlers(configuration.getDisabledFrameSubtypes());
+
+        for (Map.Entry<Dot11FrameSubtype, FramePriority> priority : configuration.getFramePriorities().entrySet()) {
+            FrameHandler handler = frameDispatcher.handlerFor(priority.getKey().getIndex());
+            if (handler == null) {
+                LOG.warn("Ignoring priority of frame subtype [{}]: No handler registered.", priority.getKey().getName());
+            } else {
+                handler.setPriority(priority.getValue());
+            }
         }
 
-        LOG.info("Building PCAP handle on interface [{}]", interfaceName);
-
-        PcapHandle.Builder phb = new PcapHandle.Builder(networkInterface.getName())
-                .rfmon(true)
-                .snaplen(65536)
-                .promiscuousMode(PcapNetworkInterface.PromiscuousMode.PROMISCUOUS)
-                .timeoutMillis(100)
-                .bufferSize(5 * 1024 * 1024)
-                .timestampPrecision(PcapHandle.TimestampPrecision.MICRO);
+        // Let the kernel only copy frames to userspace that a handler is registered for.
+        List<Dot11FrameSubtype> handled = frameDispatcher.getHandledSubtypes();
+        if (handled.isEmpty()) {
+            throw new NzymeInitializationException("No frame handlers registered. Are all frame subtypes disabled?");
+        }
 
+        String filter = BpfFilter.forSubtypes(handled);
         try {
-            this.pcap = phb.build();
-            this.pcap.setFilter(
-                    "type mgt and (subtype deauth or subtype probe-req or subtype probe-resp or subtype beacon or subtype assoc-req or subtype assoc-resp or subtype disassoc or subtype auth)",
-                    BpfProgram.BpfCompileMode.OPTIMIZE
-            );
-        } catch (Exception e) {
-            throw new NzymeInitializationException("Could not build PCAP handle.", e);
+            captureSource.setFilter(filter);
+        } catch (IOException e) {
+            throw new NzymeInitializationException("Could not set capture filter on [" + interfaceName + "].", e);
         }
+        LOG.debug("Capture filter of [{}]: {}", interfaceName, filter);
 
-        LOG.info("PCAP handle for [{}] acquired. Cycling through channels <{}>.", interfaceName, Joiner.on(",").join(channels));
-
-        this.probeRequestHandler = new ProbeRequestFrameHandler(this);
-        this.probeResponseHandler = new ProbeResponseFrameHandler(this);
-        this.deauthFrameHandler = new DeauthenticationFrameHandler(this);
-        this.beaconFrameHandler = new BeaconFrameHandler(this);
-        this.associationRequestFrameHandler = new AssociationRequestFrameHandler(this);
-        this.associationResponseFrameHandler = new AssociationResponseFrameHandler(this);
-        this.disassociationFrameHandler = new DisassociationFrameHandler(this);
-        this.authenticationFrameHandler = new AuthenticationFrameHandler(this);
+        // Stop capturing low priority frames when shedding them in userspace is not enough.
+        Map<Dot11FrameSubtype, FramePriority> priorities = Maps.newLinkedHashMap();
+        for (Dot11FrameSubtype subtype : handled) {
+            priorities.put(subtype, frameDispatcher.handlerFor(subtype.getIndex()).getPriority());
+        }
+        new OverloadFilter(this, captureSource, frameProcessor, priorities,
+                configuration.getOverloadFilterThreshold(), configuration.getOverloadFilterHoldSeconds()).initialize();
     }
 
     public Runnable loop() {
-        final Nzyme nzyme = this;
-
         return () -> {
             LOG.info("Commencing 802.11 frame processing on [{}] ... (⌐■_■)–︻╦╤─ – – pew pew", getNetworkInterface());
 
             inLoop.set(true);
             while (true) {
 
-                Packet packet;
+                byte[] frame;
 
                 try {
-                    packet = pcap.getNextPacketEx();
-                } catch (NotOpenException | PcapNativeException | EOFException e) {
+                    frame = captureSource.next();
+                } catch (EOFException e) {
+                    LOG.info("No more frames to process on [{}].", getNetworkInterface());
+                    inLoop.set(false);
+                    return;
+                } catch (IOException e) {
                     LOG.error(e);
                     continue;
-                } catch (TimeoutException e) {
-                    // This happens all the time when waiting for packets.
-                    continue;
-                } catch (IllegalArgumentException e) {
-                    // This is a symptom of malformed data.
-                    LOG.trace(e);
-                    continue;
                 }
 
-                if (packet != null) {
-                    try {
-                        if (packet instanceof RadiotapPacket) {
-                            RadiotapPacket r = (RadiotapPacket) packet;
-                            byte[] payload = r.getPayload().getRawData();
-
-                            Dot11MetaInformation meta = Dot11MetaInformation.parse(r.getHeader().getDataFields());
-
-                            if (meta.isMalformed()) {
-                                LOG.trace("Bad checksum. Skipping malformed packet.");
-                                statistics.tickMalformedCountAndNotify(nzyme, meta);
-                                continue;
-                            }
-                            getStatistics().tickFrameCount(meta);
-
-                            Dot11FrameType type = Dot11FrameType.getInstance(
-                                    (byte) (((payload[0] << 2) & 0x30) | ((payload[0] >> 4) & 0x0F))
-                            );
-
-                            // Determine type and handler.
-                            switch (type.value()) {
-                                case 0: // assoc-req
-                                    associationRequestFrameHandler.handle(payload, r.getHeader().getRawData(), meta);
-                                    break;
-                                case 1: // assoc-resp
-                                    associationResponseFrameHandler.handle(payload, r.getHeader().getRawData(), meta);
-                                    break;
-                                case 4: // probe-req
-                                    probeRequestHandler.handle(payload, r.getHeader().getRawData(), meta);
-                                    break;
-                                case 5: // probe-resp
-                                    probeResponseHandler.handle(payload, r.getHeader().getRawData(), meta);
-                                    break;
-                                case 8: // beacon
-                                    beaconFrameHandler.handle(payload, r.getHeader().getRawData(), meta);
-                                    break;
-                                case 10: // disaasoc
-                                    disassociationFrameHandler.handle(payload, r.getHeader().getRawData(), meta);
-                                    break;
-                                case 11: // auth
-                                    authenticationFrameHandler.handle(payload, r.getHeader().getRawData(), meta);
-                                    break;
-                                case 12: // deauth
-                                    deauthFrameHandler.handle(payload, r.getHeader().getRawData(), meta);
-                                    break;
-                                default:
-                                    LOG.warn("Not handling frame type [{}].", type.value());
-                            }
-
-                            if(cliArguments.isPacketInfo()) {
-                                LOG.info("Type: {}, Header: {} bytes, Payload: {} bytes", type.value(), r.getHeader().getRawData().length, payload.length);
-                            }
-                        }
-                    } catch(IllegalArgumentException | ArrayIndexOutOfBoundsException | IllegalRawDataException e) {
-                        statistics.tickMalformedCountAndNotify(nzyme, null);
-                        LOG.debug("Illegal data received.", e);
-                    } catch(Exception e) {
-                        LOG.error("Could not process packet.", e);
-                    }
+                if (frame != null) {
+                    frameDispatcher.dispatch(frame);
                 }
             }
         };
     }
 
-    public void notify(Notification notification, Dot11MetaInformation meta) {
-        for (Uplink uplink : getUplinks()) {
-            uplink.notify(notification, meta);
+    private static void addUplinkFilter(Map<Uplink, UplinkFilter> filters, Uplink uplink, UplinkFilter filter) {
+        if (filter != null) {
+            filters.put(uplink, filter);
+        }
+    }
+
+    private Spool buildSpool(GraylogAddress address) throws NzymeInitializationException {
+        String name = networkInterfaceName + "-" + address.getHost() + "-" + address.getPort();
+
+        try {
+            return new Spool(
+                    name,
+                    Paths.get(configuration.getSpoolDirectory(), name.replaceAll("[^A-Za-z0-9.\\-]", "_")),
+                    SPOOL_SEGMENT_SIZE,
+                    configuration.getSpoolMaxSizeMb() * 1024L * 1024L,
+                    TimeUnit.MINUTES.toMillis(configuration.getSpoolMaxAgeMinutes())
+            );
+        } catch (IOException e) {
+            throw new NzymeInitializationException("Could not initialize spool [" + name + "].", e);
         }
     }
 
+    public void notify(Notification notification, Dot11MetaInformation meta) {
+        eventBus.publish(new NotificationEvent(notification, meta));
+    }
+
+    @Override
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
     public String getNzymeId() {
         return nzymeId;
     }
@@ -260,6 +333,46 @@ public class NzymeImpl implements Nzyme {
         return channelHopper;
     }
 
+    @Override
+    public FrameAggregator getFrameAggregator() {
+        return frameAggregator;
+    }
+
+    @Override
+    public TransmitterSampler getTransmitterSampler() {
+        return transmitterSampler;
+    }
+
+    @Override
+    public TransmitterRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    @Override
+    public DeviceTable getDeviceTable() {
+        return deviceTable;
+    }
+
+    @Override
+    public AccessPointInventory getAccessPointInventory() {
+        return accessPointInventory;
+    }
+
+    @Override
+    public SessionTracker getSessionTracker() {
+        return sessionTracker;
+    }
+
+    @Override
+    public MalformedFrameReporter getMalformedFrameReporter() {
+        return malformedFrameReporter;
+    }
+
+    @Override
+    public DuplicateFilter getDuplicateFilter() {
+        return duplicateFilter;
+    }
+
     public boolean isInLoop() {
         return inLoop.get();
     }
@@ -19,11 +19,11 @@ package horse.wtf.nzyme;
 
 public class NzymeInitializationException extends Exception {
 
-    NzymeInitializationException(String msg) {
+    public NzymeInitializationException(String msg) {
         super(msg);
     }
 
-    NzymeInitializationException(String msg, Throwable e) {
+    public NzymeInitializationException(String msg, Throwable e) {
         super(msg, e);
     }
 
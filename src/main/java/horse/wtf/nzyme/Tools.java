@@ -17,23 +17,71 @@
 
 package horse.wtf.nzyme;
 
-import java.nio.ByteBuffer;
-import java.nio.charset.CharacterCodingException;
-import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
-
 public class Tools {
 
     public static boolean isValidUTF8( byte[] input ) {
-        CharsetDecoder cs = Charset.forName("UTF-8").newDecoder();
+        return isValidUTF8(input, 0, input.length);
+    }
 
-        try {
-            cs.decode(ByteBuffer.wrap(input));
-            return true;
-        }
-        catch(CharacterCodingException e){
-            return false;
+    /**
+     * Validates well-formed UTF-8 as defined by RFC 3629, which is what the JDK decoder accepts, without the
+     * exception the decoder throws for the many invalid SSIDs in corrupted frames.
+     */
+    public static boolean isValidUTF8(byte[] input, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+
+        while (i < end) {
+            int b = input[i] & 0xFF;
+
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+
+            int continuations;
+            int min = 0x80;
+            int max = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuations = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuations = 2;
+                if (b == 0xE0) {
+                    min = 0xA0; // overlong
+                } else if (b == 0xED) {
+                    max = 0x9F; // surrogates
+                }
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuations = 3;
+                if (b == 0xF0) {
+                    min = 0x90; // overlong
+                } else if (b == 0xF4) {
+                    max = 0x8F; // beyond U+10FFFF
+                }
+            } else {
+                return false;
+            }
+
+            if (i + continuations >= end) {
+                return false;
+            }
+
+            // Only the first continuation byte has a restricted range.
+            int first = input[i + 1] & 0xFF;
+            if (first < min || first > max) {
+                return false;
+            }
+            for (int j = 2; j <= continuations; j++) {
+                int next = input[i + j] & 0xFF;
+                if (next < 0x80 || next > 0xBF) {
+                    return false;
+                }
+            }
+
+            i += continuations + 1;
         }
+
+        return true;
     }
 
     public static int calculateSignalQuality(int antennaSignal) {
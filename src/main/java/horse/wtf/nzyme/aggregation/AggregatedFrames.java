@@ -0,0 +1,84 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.aggregation;
+
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+
+/**
+ * Running summary of identical frames seen during one aggregation window. Not thread-safe on its own: it is only
+ * updated atomically through the map of {@link FrameAggregator} and read after it has been removed from that map.
+ */
+public class AggregatedFrames {
+
+    private long count;
+    private long firstSeen;
+    private long lastSeen;
+
+    private int signalMin;
+    private int signalMax;
+    private long signalSum;
+
+    private Dot11MetaInformation lastMeta;
+
+    public void record(Dot11MetaInformation meta, long timestamp) {
+        int signal = meta.getAntennaSignal();
+
+        if (count == 0) {
+            firstSeen = timestamp;
+            signalMin = signal;
+            signalMax = signal;
+        } else {
+            signalMin = Math.min(signalMin, signal);
+            signalMax = Math.max(signalMax, signal);
+        }
+
+        count++;
+        lastSeen = timestamp;
+        signalSum += signal;
+        lastMeta = meta;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getFirstSeen() {
+        return firstSeen;
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    public int getSignalMin() {
+        return signalMin;
+    }
+
+    public int getSignalMax() {
+        return signalMax;
+    }
+
+    public double getSignalMean() {
+        return count == 0 ? 0 : signalSum / (double) count;
+    }
+
+    public Dot11MetaInformation getLastMeta() {
+        return lastMeta;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.aggregation;
+
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Summary of identical frames seen during one aggregation window.
+ */
+public class AggregatedFramesEvent implements Event {
+
+    private final AggregationKey key;
+    private final AggregatedFrames frames;
+
+    public AggregatedFramesEvent(AggregationKey key, AggregatedFrames frames) {
+        this.key = key;
+        this.frames = frames;
+    }
+
+    public AggregationKey getKey() {
+        return key;
+    }
+
+    public AggregatedFrames getFrames() {
+        return frames;
+    }
+
+    @Override
+    public Dot11MetaInformation getMeta() {
+        return frames.getLastMeta();
+    }
+
+    @Override
+    public Notification toNotification() {
+        MessageTemplate template;
+        switch (key.getSubtype()) {
+            case BEACON:
+                template = MessageTemplate.AGGREGATED_BEACON;
+                break;
+            case PROBE_RESP:
+                template = MessageTemplate.AGGREGATED_PROBE_RESPONSE;
+                break;
+            default:
+                template = MessageTemplate.AGGREGATED;
+        }
+
+        return new Notification(template, key.getChannel())
+                .addMacField(FieldNames.TRANSMITTER, key.getTransmitter())
+                .addField(FieldNames.SSID, key.getSsid())
+                .addField(FieldNames.SUBTYPE, key.getSubtype().getName())
+                .addField(FieldNames.AGGREGATED_COUNT, frames.getCount())
+                .addField(FieldNames.FIRST_SEEN, new DateTime(frames.getFirstSeen(), DateTimeZone.UTC).toString())
+                .addField(FieldNames.LAST_SEEN, new DateTime(frames.getLastSeen(), DateTimeZone.UTC).toString())
+                .addField(FieldNames.SIGNAL_MIN, frames.getSignalMin())
+                .addField(FieldNames.SIGNAL_MAX, frames.getSignalMax())
+                .addField(FieldNames.SIGNAL_MEAN, frames.getSignalMean());
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.aggregation;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+
+import java.util.Objects;
+
+public class AggregationKey {
+
+    private final Dot11FrameSubtype subtype;
+    private final long transmitter;
+    private final String ssid;
+    private final int channel;
+
+    public AggregationKey(Dot11FrameSubtype subtype, long transmitter, String ssid, int channel) {
+        this.subtype = subtype;
+        this.transmitter = transmitter;
+        this.ssid = ssid;
+        this.channel = channel;
+    }
+
+    public Dot11FrameSubtype getSubtype() {
+        return subtype;
+    }
+
+    public long getTransmitter() {
+        return transmitter;
+    }
+
+    public String getSsid() {
+        return ssid;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        AggregationKey that = (AggregationKey) o;
+        return channel == that.channel &&
+                transmitter == that.transmitter &&
+                subtype == that.subtype &&
+                Objects.equals(ssid, that.ssid);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(subtype, transmitter, ssid, channel);
+    }
+
+}
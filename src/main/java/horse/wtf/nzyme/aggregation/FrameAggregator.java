@@ -0,0 +1,125 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.aggregation;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces identical (subtype, transmitter, SSID, channel) frames over a configurable window into a single summary
+ * {@link AggregatedFramesEvent} with count, first/last seen and signal strength min/max/mean.
+ */
+public class FrameAggregator {
+
+    private static final Logger LOG = LogManager.getLogger(FrameAggregator.class);
+
+    private static final int MAX_ENTRIES = 50000;
+
+    private final Nzyme nzyme;
+    private final long windowMillis;
+
+    private final ConcurrentMap<AggregationKey, AggregatedFrames> entries;
+
+    public FrameAggregator(Nzyme nzyme, int windowSeconds) {
+        this.nzyme = nzyme;
+        this.windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("frame-aggregator-%d")
+                .build()
+        ).scheduleWithFixedDelay(() -> {
+            try {
+                flush(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.error("Could not flush aggregated frames.", e);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return windowMillis > 0;
+    }
+
+    /**
+     * @return false if the frame could not be aggregated because the table is full. The caller should notify about
+     *         the frame directly in that case.
+     */
+    public boolean record(Dot11FrameSubtype subtype, long transmitter, String ssid, Dot11MetaInformation meta) {
+        AggregationKey key = new AggregationKey(subtype, transmitter, ssid, meta.getChannel());
+
+        if (entries.size() >= MAX_ENTRIES && !entries.containsKey(key)) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        entries.compute(key, (k, frames) -> {
+            if (frames == null) {
+                frames = new AggregatedFrames();
+            }
+
+            frames.record(meta, now);
+            return frames;
+        });
+
+        return true;
+    }
+
+    /**
+     * Publishes a summary event for every entry whose window has passed.
+     */
+    public void flush(long now) {
+        for (AggregationKey key : entries.keySet()) {
+            AggregatedFrames[] expired = new AggregatedFrames[1];
+
+            entries.computeIfPresent(key, (k, frames) -> {
+                if (now - frames.getFirstSeen() >= windowMillis) {
+                    expired[0] = frames;
+                    return null;
+                }
+
+                return frames;
+            });
+
+            if (expired[0] != null) {
+                nzyme.getEventBus().publish(new AggregatedFramesEvent(key, expired[0]));
+            }
+        }
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+}
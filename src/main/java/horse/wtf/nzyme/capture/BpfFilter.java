@@ -0,0 +1,56 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.capture;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the BPF filter of live captures from the frame subtypes that have a handler, so that the kernel does not
+ * copy any other frames to userspace.
+ */
+public class BpfFilter {
+
+    private BpfFilter() {
+    }
+
+    /**
+     * Matches the type and subtype bits of the first frame control byte. This is what libpcap compiles
+     * "type mgt subtype beacon" into, but also works for subtypes libpcap has no name for, like action frames.
+     *
+     * @throws IllegalArgumentException if there are no subtypes. An empty filter would capture everything.
+     */
+    public static String forSubtypes(Collection<Dot11FrameSubtype> subtypes) {
+        if (subtypes.isEmpty()) {
+            throw new IllegalArgumentException("No frame subtypes to capture.");
+        }
+
+        return subtypes.stream()
+                .sorted(Comparator.comparingInt(Dot11FrameSubtype::getIndex))
+                .map(subtype -> String.format("wlan[0] & 0xfc = 0x%02x", frameControl(subtype)))
+                .collect(Collectors.joining(" or "));
+    }
+
+    private static int frameControl(Dot11FrameSubtype subtype) {
+        return (subtype.getValue() << 4) | (subtype.getType() << 2);
+    }
+
+}
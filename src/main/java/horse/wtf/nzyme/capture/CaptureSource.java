@@ -0,0 +1,59 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.capture;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Where the capture loop reads its radiotap frames from: A monitor mode interface, a pcap file or the traffic
+ * generator.
+ */
+public interface CaptureSource extends Closeable {
+
+    /**
+     * @return the next raw frame, a radiotap header followed by the 802.11 frame, or null if there was none within
+     * the read timeout. Frames are not decoded here.
+     * @throws EOFException if the source has no more frames.
+     */
+    @Nullable
+    byte[] next() throws IOException;
+
+    /**
+     * @return true if frames are captured from a network interface, which is then tuned by the channel hopper.
+     */
+    boolean isLive();
+
+    /**
+     * Restricts the capture to frames that match the BPF filter. Sources that do not capture from a network interface
+     * ignore it.
+     */
+    default void setFilter(String filter) throws IOException {
+    }
+
+    /**
+     * @return the number of frames dropped by the capture source before they were read, for example because the
+     * kernel buffer was full. Sources that never drop frames return 0.
+     */
+    default long getDroppedCount() {
+        return 0;
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.capture;
+
+import horse.wtf.nzyme.NzymeInitializationException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.pcap4j.core.*;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Captures frames from a network interface in monitor mode. Until a filter is set, all frames are captured.
+ */
+public class PcapCaptureSource implements CaptureSource {
+
+    private static final Logger LOG = LogManager.getLogger(PcapCaptureSource.class);
+
+    private final PcapHandle pcap;
+
+    private volatile long droppedCount = 0;
+
+    private PcapCaptureSource(PcapHandle pcap) {
+        this.pcap = pcap;
+    }
+
+    public static PcapCaptureSource open(String interfaceName) throws NzymeInitializationException {
+        // Get network interface for PCAP.
+        PcapNetworkInterface networkInterface;
+        try {
+            networkInterface = Pcaps.getDevByName(interfaceName);
+        } catch (PcapNativeException e) {
+            throw new NzymeInitializationException("Could not get network interface [" + interfaceName + "].", e);
+        }
+
+        if (networkInterface == null) {
+            throw new NzymeInitializationException("Could not get network interface [" + interfaceName + "]. Does it exist and could it be that you have to be root? Is it up?");
+        }
+
+        LOG.info("Building PCAP handle on interface [{}]", interfaceName);
+
+        PcapHandle.Builder phb = new PcapHandle.Builder(networkInterface.getName())
+                .rfmon(true)
+                .snaplen(65536)
+                .promiscuousMode(PcapNetworkInterface.PromiscuousMode.PROMISCUOUS)
+                .timeoutMillis(100)
+                .bufferSize(5 * 1024 * 1024)
+                .timestampPrecision(PcapHandle.TimestampPrecision.MICRO);
+
+        PcapHandle pcap;
+        try {
+            pcap = phb.build();
+        } catch (Exception e) {
+            throw new NzymeInitializationException("Could not build PCAP handle.", e);
+        }
+
+        LOG.info("PCAP handle for [{}] acquired.", interfaceName);
+
+        return new PcapCaptureSource(pcap);
+    }
+
+    /**
+     * @throws java.io.EOFException never for live captures.
+     */
+    @Nullable
+    @Override
+    public byte[] next() throws IOException {
+        try {
+            return pcap.getNextRawPacketEx();
+        } catch (NotOpenException | PcapNativeException e) {
+            throw new IOException(e);
+        } catch (TimeoutException e) {
+            // This happens all the time when waiting for packets.
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isLive() {
+        return true;
+    }
+
+    @Override
+    public void setFilter(String filter) throws IOException {
+        try {
+            pcap.setFilter(filter, BpfProgram.BpfCompileMode.OPTIMIZE);
+        } catch (NotOpenException | PcapNativeException e) {
+            throw new IOException("Could not set BPF filter [" + filter + "].", e);
+        }
+    }
+
+    @Override
+    public long getDroppedCount() {
+        try {
+            PcapStat stats = pcap.getStats();
+            droppedCount = stats.getNumPacketsDropped() + stats.getNumPacketsDroppedByIf();
+        } catch (NotOpenException | PcapNativeException e) {
+            LOG.debug("Could not read capture statistics.", e);
+        }
+
+        return droppedCount;
+    }
+
+    @Override
+    public void close() {
+        pcap.close();
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.capture;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads radiotap frames from a file in the classic pcap format, in either byte order and with microsecond or
+ * nanosecond timestamps. Does not need libpcap.
+ */
+public class PcapFileReader implements CaptureSource {
+
+    private static final int MAX_RECORD_SIZE = 256 * 1024;
+
+    private final Path path;
+    private final DataInputStream in;
+    private final ByteBuffer header;
+    private final boolean nanos;
+
+    private long timestampMicros = 0;
+
+    public PcapFileReader(Path path) throws IOException {
+        this.path = path;
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024));
+        this.header = ByteBuffer.allocate(PcapFileWriter.FILE_HEADER_SIZE);
+
+        try {
+            in.readFully(header.array(), 0, PcapFileWriter.FILE_HEADER_SIZE);
+
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            int magic = header.getInt(0);
+            if (magic != PcapFileWriter.MAGIC && magic != PcapFileWriter.MAGIC_NANOS) {
+                header.order(ByteOrder.BIG_ENDIAN);
+                magic = header.getInt(0);
+            }
+
+            if (magic != PcapFileWriter.MAGIC && magic != PcapFileWriter.MAGIC_NANOS) {
+                throw new IOException("[" + path + "] is not a pcap file.");
+            }
+            this.nanos = magic == PcapFileWriter.MAGIC_NANOS;
+
+            int linkType = header.getInt(20);
+            if (linkType != PcapFileWriter.LINKTYPE_IEEE802_11_RADIOTAP) {
+                throw new IOException("[" + path + "] has link type <" + linkType + ">. Only radiotap (127) is supported.");
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the raw radiotap frame of the next record.
+     * @throws EOFException at the end of the file.
+     */
+    public byte[] nextFrame() throws IOException {
+        in.readFully(header.array(), 0, PcapFileWriter.RECORD_HEADER_SIZE);
+
+        long seconds = header.getInt(0) & 0xFFFFFFFFL;
+        long fraction = header.getInt(4) & 0xFFFFFFFFL;
+        int length = header.getInt(8);
+
+        if (length < 0 || length > MAX_RECORD_SIZE) {
+            throw new IOException("Corrupt record of <" + length + "> bytes in [" + path + "].");
+        }
+
+        timestampMicros = seconds * 1_000_000 + (nanos ? fraction / 1000 : fraction);
+
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    @Override
+    public byte[] next() throws IOException {
+        return nextFrame();
+    }
+
+    /**
+     * @return the capture timestamp of the last read frame in microseconds since the epoch.
+     */
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    @Override
+    public boolean isLive() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
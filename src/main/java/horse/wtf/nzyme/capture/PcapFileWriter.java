@@ -0,0 +1,81 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes radiotap frames to a file in the classic pcap format with microsecond timestamps, readable by tcpdump,
+ * Wireshark and {@link PcapFileReader}. Does not need libpcap.
+ */
+public class PcapFileWriter implements Closeable {
+
+    public static final int MAGIC = 0xA1B2C3D4;
+    public static final int MAGIC_NANOS = 0xA1B23C4D;
+    public static final int LINKTYPE_IEEE802_11_RADIOTAP = 127;
+    public static final int SNAPLEN = 65535;
+
+    static final int FILE_HEADER_SIZE = 24;
+    static final int RECORD_HEADER_SIZE = 16;
+
+    private final OutputStream out;
+    private final ByteBuffer header;
+
+    public PcapFileWriter(Path path) throws IOException {
+        this.out = new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024);
+        this.header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        header.putInt(MAGIC)
+                .putShort((short) 2)    // version major
+                .putShort((short) 4)    // version minor
+                .putInt(0)              // UTC
+                .putInt(0)              // timestamp accuracy
+                .putInt(SNAPLEN)
+                .putInt(LINKTYPE_IEEE802_11_RADIOTAP);
+        out.write(header.array(), 0, FILE_HEADER_SIZE);
+    }
+
+    public void write(byte[] frame, long timestampMicros) throws IOException {
+        int length = Math.min(frame.length, SNAPLEN);
+
+        header.clear();
+        header.putInt((int) (timestampMicros / 1_000_000))
+                .putInt((int) (timestampMicros % 1_000_000))
+                .putInt(length)
+                .putInt(frame.length);
+        out.write(header.array(), 0, RECORD_HEADER_SIZE);
+        out.write(frame, 0, length);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+}
@@ -0,0 +1,433 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.capture;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates valid radiotap frames of 802.11 management traffic for load testing, either as an in-process
+ * {@link CaptureSource} or into a pcap file.
+ *
+ * The traffic comes from a fixed population of access points, each with its own BSSID, SSID, channel and TSF clock,
+ * and of clients. The mix of traffic is configured as relative weights:
+ *
+ * <ul>
+ *     <li>beacon, probe-resp: From an access point.</li>
+ *     <li>probe-req: From a client or, like with MAC address randomization, from a random locally administered
+ *     address. Half of them are broadcast probes.</li>
+ *     <li>session: Authentication request and response, association request and response between a client and an
+ *     access point. One in ten associations is refused.</li>
+ *     <li>deauth, disassoc: A single frame between a client and an access point.</li>
+ *     <li>deauth-flood: A burst of broadcast deauthentication frames with the BSSID of an access point.</li>
+ *     <li>malformed: A beacon with bad FCS flag, truncated before its SSID or with an SSID longer than the frame.</li>
+ * </ul>
+ *
+ * Frames carry no FCS. Generation is deterministic for a given seed.
+ */
+public class TrafficGenerator implements CaptureSource {
+
+    public enum Kind {
+        BEACON("beacon"),
+        PROBE_REQ("probe-req"),
+        PROBE_RESP("probe-resp"),
+        SESSION("session"),
+        DEAUTH("deauth"),
+        DISASSOC("disassoc"),
+        DEAUTH_FLOOD("deauth-flood"),
+        MALFORMED("malformed");
+
+        private final String name;
+
+        Kind(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Nullable
+        public static Kind fromName(String name) {
+            for (Kind kind : values()) {
+                if (kind.name.equals(name)) {
+                    return kind;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    public static final String DEFAULT_MIX = "beacon:55,probe-req:20,probe-resp:10,session:5,deauth:3,disassoc:2,deauth-flood:0,malformed:1";
+
+    public static final int FLOOD_BURST = 50;
+
+    // Spacing of pcap file timestamps when the rate is unlimited.
+    private static final int UNLIMITED_FILE_RATE = 50_000;
+
+    private static final long PACING_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long PACING_MAX_BACKLOG_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final long BROADCAST = 0xFFFF_FFFF_FFFFL;
+    private static final int RADIOTAP_LENGTH = 26;
+    private static final int RADIOTAP_PRESENT = 0x402F; // TSFT, FLAGS, RATE, CHANNEL, DBM_ANTSIGNAL, RX_FLAGS
+    private static final byte RADIOTAP_FLAG_BAD_FCS = 0x40;
+
+    private static final long[] AP_OUIS = {0x00259CL, 0x0024A5L, 0xF09FC2L, 0x001A1EL};
+    private static final long[] CLIENT_OUIS = {0x3C0754L, 0xACBC32L, 0x28CFE9L, 0xB827EBL};
+    private static final String[] SSID_NAMES = {"Office", "Guest", "Printers", "ACME Corp", "Free Public WiFi", "IoT"};
+    private static final int[] CHANNELS = {1, 6, 11, 36, 44, 149};
+
+    private static final int MALFORMED_BAD_FCS = 1;
+    private static final int MALFORMED_TRUNCATED = 2;
+    private static final int MALFORMED_SSID_LENGTH = 3;
+
+    private final Random random;
+    private final Kind[] kinds;
+    private final int[] cumulativeWeights;
+    private final long intervalNanos;
+    private final int rate;
+
+    private final long[] apBssids;
+    private final String[] apSsids;
+    private final int[] apChannels;
+    private final long[] apTsfOffsets;
+    private final long[] clients;
+
+    private final ArrayDeque<PendingFrame> pending;
+
+    private final long startNanos;
+    private final long startMicros;
+    private long nextFrameAt;
+
+    /**
+     * @param mix Relative weight of each kind of traffic.
+     * @param accessPoints Number of access points.
+     * @param clients Number of clients.
+     * @param rate Frames per second when used as a capture source. 0 generates frames as fast as possible.
+     * @param seed Seed of the population and the traffic.
+     */
+    public TrafficGenerator(Map<Kind, Integer> mix, int accessPoints, int clients, int rate, long seed) {
+        if (accessPoints <= 0 || clients <= 0) {
+            throw new IllegalArgumentException("Need at least one access point and one client.");
+        }
+
+        this.random = new Random(seed);
+        this.rate = rate;
+        this.intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+
+        this.kinds = new Kind[mix.size()];
+        this.cumulativeWeights = new int[mix.size()];
+        int total = 0;
+        int i = 0;
+        for (Map.Entry<Kind, Integer> weight : mix.entrySet()) {
+            total += weight.getValue();
+            kinds[i] = weight.getKey();
+            cumulativeWeights[i] = total;
+            i++;
+        }
+
+        if (total <= 0) {
+            throw new IllegalArgumentException("Traffic mix has no weights.");
+        }
+
+        this.apBssids = new long[accessPoints];
+        this.apSsids = new String[accessPoints];
+        this.apChannels = new int[accessPoints];
+        this.apTsfOffsets = new long[accessPoints];
+        for (int ap = 0; ap < accessPoints; ap++) {
+            apBssids[ap] = (AP_OUIS[random.nextInt(AP_OUIS.length)] << 24) | (ap + 1);
+            apSsids[ap] = SSID_NAMES[ap % SSID_NAMES.length] + "-" + ap;
+            apChannels[ap] = CHANNELS[random.nextInt(CHANNELS.length)];
+            apTsfOffsets[ap] = (long) (random.nextDouble() * TimeUnit.DAYS.toMicros(30));
+        }
+
+        this.clients = new long[clients];
+        for (int client = 0; client < clients; client++) {
+            this.clients[client] = (CLIENT_OUIS[random.nextInt(CLIENT_OUIS.length)] << 24) | (client + 1);
+        }
+
+        this.pending = new ArrayDeque<>();
+
+        this.startNanos = System.nanoTime();
+        this.startMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.nextFrameAt = startNanos;
+    }
+
+    /**
+     * Generates the next frame, paced to the configured rate. Never runs out of frames.
+     */
+    @Override
+    public byte[] next() {
+        if (intervalNanos > 0) {
+            pace();
+        }
+
+        return nextFrame(currentTimeMicros());
+    }
+
+    /**
+     * @return the clock of the radiotap TSFT field of frames returned by {@link #next()}, in microseconds since the
+     * epoch. Monotonic, unlike the wall clock.
+     */
+    public long currentTimeMicros() {
+        return startMicros + (System.nanoTime() - startNanos) / 1000;
+    }
+
+    private void pace() {
+        long now = System.nanoTime();
+
+        if (nextFrameAt - now > PACING_SLACK_NANOS) {
+            LockSupport.parkNanos(nextFrameAt - now);
+        } else if (now - nextFrameAt > PACING_MAX_BACKLOG_NANOS) {
+            // Fell behind. Do not burst to catch up.
+            nextFrameAt = now;
+        }
+
+        nextFrameAt += intervalNanos;
+    }
+
+    /**
+     * Writes frames to a pcap file, with timestamps spaced by the configured rate or by 50,000 frames per second if
+     * the rate is unlimited.
+     */
+    public void write(PcapFileWriter writer, int frames, long startMicros) throws IOException {
+        int fileRate = rate > 0 ? rate : UNLIMITED_FILE_RATE;
+
+        for (long i = 0; i < frames; i++) {
+            long timestamp = startMicros + i * 1_000_000 / fileRate;
+            writer.write(nextFrame(timestamp), timestamp);
+        }
+    }
+
+    /**
+     * @param timestampMicros Capture time of the frame. Sets the radiotap TSFT field and the TSF of beacons.
+     * @return a raw radiotap frame.
+     */
+    public byte[] nextFrame(long timestampMicros) {
+        if (pending.isEmpty()) {
+            roll();
+        }
+
+        return build(pending.poll(), timestampMicros);
+    }
+
+    @Override
+    public boolean isLive() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release.
+    }
+
+    private void roll() {
+        int dice = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        Kind kind = kinds[kinds.length - 1];
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (dice < cumulativeWeights[i]) {
+                kind = kinds[i];
+                break;
+            }
+        }
+
+        int ap = random.nextInt(apBssids.length);
+        long bssid = apBssids[ap];
+        long client = clients[random.nextInt(clients.length)];
+
+        switch (kind) {
+            case BEACON:
+                pending.add(new PendingFrame(Dot11FrameSubtype.BEACON, ap, BROADCAST, bssid, 0));
+                break;
+            case PROBE_RESP:
+                pending.add(new PendingFrame(Dot11FrameSubtype.PROBE_RESP, ap, client, bssid, 0));
+                break;
+            case PROBE_REQ:
+                long requester = random.nextBoolean() ? client : 0x0200_0000_0000L | (random.nextLong() & 0xFF_FFFF_FFFFL);
+                PendingFrame probe = new PendingFrame(Dot11FrameSubtype.PROBE_REQ, ap, BROADCAST, requester, 0);
+                probe.broadcastProbe = random.nextBoolean();
+                pending.add(probe);
+                break;
+            case SESSION:
+                boolean refused = random.nextInt(10) == 0;
+                pending.add(new PendingFrame(Dot11FrameSubtype.AUTH, ap, bssid, client, 1));
+                pending.add(new PendingFrame(Dot11FrameSubtype.AUTH, ap, client, bssid, 2));
+                pending.add(new PendingFrame(Dot11FrameSubtype.ASSOC_REQ, ap, bssid, client, 0));
+                pending.add(new PendingFrame(Dot11FrameSubtype.ASSOC_RESP, ap, client, bssid, refused ? 17 : 0));
+                break;
+            case DEAUTH:
+                pending.add(new PendingFrame(Dot11FrameSubtype.DEAUTH, ap, client, bssid, 1 + random.nextInt(8)));
+                break;
+            case DISASSOC:
+                pending.add(new PendingFrame(Dot11FrameSubtype.DISASSOC, ap, bssid, client, 8));
+                break;
+            case DEAUTH_FLOOD:
+                for (int i = 0; i < FLOOD_BURST; i++) {
+                    pending.add(new PendingFrame(Dot11FrameSubtype.DEAUTH, ap, BROADCAST, bssid, 7));
+                }
+                break;
+            case MALFORMED:
+                PendingFrame beacon = new PendingFrame(Dot11FrameSubtype.BEACON, ap, BROADCAST, bssid, 0);
+                beacon.malformation = 1 + random.nextInt(3);
+                pending.add(beacon);
+                break;
+        }
+    }
+
+    private byte[] build(PendingFrame f, long timestampMicros) {
+        ByteBuffer body = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+        long bssid = apBssids[f.ap];
+        body.put((byte) (f.subtype.getValue() << 4)).put((byte) 0);
+        body.putShort((short) 0);                                       // duration
+        putMac(body, f.destination);
+        putMac(body, f.source);
+        putMac(body, f.subtype == Dot11FrameSubtype.PROBE_REQ ? BROADCAST : bssid);
+        body.putShort((short) (random.nextInt(4096) << 4));             // sequence control
+
+        switch (f.subtype) {
+            case BEACON:
+            case PROBE_RESP:
+                body.putLong(apTsfOffsets[f.ap] + timestampMicros);
+                body.putShort((short) 100);                             // beacon interval
+                body.putShort((short) 0x0411);                          // ESS, privacy, short slot
+                int ssidPosition = body.position();
+                putSsid(body, apSsids[f.ap]);
+                putRates(body);
+                body.put((byte) 3).put((byte) 1).put((byte) apChannels[f.ap]);
+                putRsn(body);
+
+                if (f.malformation == MALFORMED_TRUNCATED) {
+                    body.position(24 + random.nextInt(ssidPosition + 1 - 24));
+                } else if (f.malformation == MALFORMED_SSID_LENGTH) {
+                    body.put(ssidPosition + 1, (byte) 127);
+                }
+                break;
+            case PROBE_REQ:
+                putSsid(body, f.broadcastProbe ? "" : apSsids[f.ap]);
+                putRates(body);
+                break;
+            case AUTH:
+                body.putShort((short) 0);                               // open system
+                body.putShort((short) f.code);                          // transaction sequence number
+                body.putShort((short) 0);                               // success
+                break;
+            case ASSOC_REQ:
+                body.putShort((short) 0x0411);
+                body.putShort((short) 10);                              // listen interval
+                putSsid(body, apSsids[f.ap]);
+                putRates(body);
+                putRsn(body);
+                break;
+            case ASSOC_RESP:
+                body.putShort((short) 0x0411);
+                body.putShort((short) f.code);                          // status
+                body.putShort((short) (0xC000 | (1 + random.nextInt(2007))));  // association ID
+                putRates(body);
+                break;
+            case DEAUTH:
+            case DISASSOC:
+                body.putShort((short) f.code);                          // reason
+                break;
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(RADIOTAP_LENGTH + body.position()).order(ByteOrder.LITTLE_ENDIAN);
+        int frequency = frequency(apChannels[f.ap]);
+        frame.put((byte) 0).put((byte) 0).putShort((short) RADIOTAP_LENGTH).putInt(RADIOTAP_PRESENT);
+        frame.putLong(timestampMicros);                                 // TSFT
+        frame.put(f.malformation == MALFORMED_BAD_FCS ? RADIOTAP_FLAG_BAD_FCS : 0);
+        frame.put((byte) 2);                                            // 1 Mb/s
+        frame.putShort((short) frequency);
+        frame.putShort((short) (frequency < 5000 ? 0x00A0 : 0x0140));   // 2 GHz CCK or 5 GHz OFDM
+        frame.put((byte) -(30 + random.nextInt(60)));                   // antenna signal
+        frame.put((byte) 0);                                            // padding
+        frame.putShort((short) 0);                                      // RX flags
+        frame.put(body.array(), 0, body.position());
+
+        return frame.array();
+    }
+
+    private static int frequency(int channel) {
+        return channel <= 14 ? 2407 + channel * 5 : 5000 + channel * 5;
+    }
+
+    private static void putMac(ByteBuffer body, long address) {
+        for (int i = 5; i >= 0; i--) {
+            body.put((byte) (address >> (i * 8)));
+        }
+    }
+
+    private static void putSsid(ByteBuffer body, String ssid) {
+        byte[] bytes = ssid.getBytes(StandardCharsets.UTF_8);
+        body.put((byte) 0).put((byte) bytes.length).put(bytes);
+    }
+
+    private static void putRates(ByteBuffer body) {
+        body.put((byte) 1).put((byte) 8)
+                .put((byte) 0x82).put((byte) 0x84).put((byte) 0x8B).put((byte) 0x96)
+                .put((byte) 0x0C).put((byte) 0x12).put((byte) 0x18).put((byte) 0x24);
+    }
+
+    private static void putRsn(ByteBuffer body) {
+        // Version 1, CCMP group and pairwise cipher, PSK.
+        body.put((byte) 48).put((byte) 20)
+                .putShort((short) 1)
+                .put((byte) 0x00).put((byte) 0x0F).put((byte) 0xAC).put((byte) 4)
+                .putShort((short) 1)
+                .put((byte) 0x00).put((byte) 0x0F).put((byte) 0xAC).put((byte) 4)
+                .putShort((short) 1)
+                .put((byte) 0x00).put((byte) 0x0F).put((byte) 0xAC).put((byte) 2)
+                .putShort((short) 0);
+    }
+
+    private static final class PendingFrame {
+
+        private final Dot11FrameSubtype subtype;
+        private final int ap;
+        private final long destination;
+        private final long source;
+
+        // Authentication transaction sequence number, status or reason code.
+        private final int code;
+
+        private boolean broadcastProbe = false;
+        private int malformation = 0;
+
+        private PendingFrame(Dot11FrameSubtype subtype, int ap, long destination, long source, int code) {
+            this.subtype = subtype;
+            this.ap = ap;
+            this.destination = destination;
+            this.source = source;
+            this.code = code;
+        }
+
+    }
+
+}
@@ -33,6 +33,15 @@ public class CLIArguments {
     @Parameter(names={"--packet-info", "-p"})
     private boolean packetInfo;
 
+    @Parameter(names={"--generate"})
+    private boolean generate;
+
+    @Parameter(names={"--write-pcap"})
+    private String writePcap;
+
+    @Parameter(names={"--write-pcap-frames"})
+    private int writePcapFrames = 100000;
+
     public String getConfigFilePath() {
         return configFilePath;
     }
@@ -49,4 +58,16 @@ public class CLIArguments {
         return packetInfo;
     }
 
+    public boolean isGenerate() {
+        return generate;
+    }
+
+    public String getWritePcap() {
+        return writePcap;
+    }
+
+    public int getWritePcapFrames() {
+        return writePcapFrames;
+    }
+
 }
@@ -19,11 +19,20 @@ package horse.wtf.nzyme.configuration;
 
 import com.beust.jcommander.internal.Lists;
 import com.github.joschi.jadconfig.Parameter;
+import com.github.joschi.jadconfig.ValidationException;
+import com.github.joschi.jadconfig.ValidatorMethod;
 import com.github.joschi.jadconfig.validators.PositiveIntegerValidator;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import horse.wtf.nzyme.capture.TrafficGenerator;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.notifications.UplinkFilter;
 import horse.wtf.nzyme.notifications.uplinks.graylog.GraylogAddress;
+import horse.wtf.nzyme.processing.FramePriority;
+import horse.wtf.nzyme.sampling.RateLimit;
+import horse.wtf.nzyme.statistics.Statistics;
 
 import javax.annotation.Nullable;
 import java.util.AbstractMap;
@@ -37,6 +46,9 @@ public class Configuration {
     @Parameter(value = "graylog_addresses", validator = InternetAddressValidator.class, required = false)
     protected String graylogAddresses;
 
+    @Parameter(value = "uplink_filters", validator = UplinkFiltersValidator.class)
+    protected String uplinkFilters;
+
     @Parameter(value = "channels", validator = InterfacesAndChannelsValidator.class, required = true)
     protected String channels;
 
@@ -46,12 +58,143 @@ public class Configuration {
     @Parameter(value = "channel_hop_interval", validator = PositiveIntegerValidator.class, required = true)
     protected int channelHopInterval;
 
-    @Parameter(value = "beacon_frame_sampling_rate", validator = PositiveIntegerValidator.class, required = true)
-    protected int beaconSamplingRate;
+    /**
+     * @deprecated Replaced by per-transmitter sampling. See sampling_min_interval_seconds. Only read to reject
+     * configurations that still set it, see {@link #validateSampling()}.
+     */
+    @Deprecated
+    @Parameter(value = "beacon_frame_sampling_rate", validator = PositiveIntegerValidator.class)
+    protected int beaconSamplingRate = 0;
+
+    @Parameter(value = "sampling_min_interval_seconds", validator = PositiveIntegerValidator.class)
+    protected int samplingMinIntervalSeconds = 0;
+
+    @Parameter(value = "sampling_budget", validator = PositiveIntegerValidator.class)
+    protected int samplingBudget = 50;
+
+    @Parameter(value = "sampling_max_transmitters", validator = PositiveIntegerValidator.class)
+    protected int samplingMaxTransmitters = 100000;
+
+    @Parameter(value = "rate_limits", validator = RateLimitsValidator.class)
+    protected String rateLimits;
+
+    @Parameter(value = "rate_limit_max_transmitters", validator = PositiveIntegerValidator.class)
+    protected int rateLimitMaxTransmitters = 16384;
+
+    @Parameter(value = "frame_priorities", validator = FramePrioritiesValidator.class)
+    protected String framePriorities;
+
+    @Parameter(value = "disabled_frame_subtypes", validator = FrameSubtypesValidator.class)
+    protected String disabledFrameSubtypes;
+
+    @Parameter(value = "event_queue_size", validator = PositiveIntegerValidator.class)
+    protected int eventQueueSize = 10000;
+
+    @Parameter(value = "processing_queue_size", validator = PositiveIntegerValidator.class)
+    protected int processingQueueSize = 10000;
+
+    @Parameter(value = "processing_max_latency_ms", validator = PositiveIntegerValidator.class)
+    protected int processingMaxLatencyMs = 500;
+
+    @Parameter(value = "duplicate_window_ms", validator = PositiveIntegerValidator.class)
+    protected int duplicateWindowMs = 100;
+
+    @Parameter(value = "duplicate_table_size", validator = PositiveIntegerValidator.class)
+    protected int duplicateTableSize = 65536;
+
+    @Parameter(value = "statistics_max_devices", validator = PositiveIntegerValidator.class)
+    protected int statisticsMaxDevices = Statistics.DEFAULT_MAX_DEVICES;
+
+    @Parameter(value = "overload_filter_threshold", validator = PositiveIntegerValidator.class)
+    protected int overloadFilterThreshold = 0;
+
+    @Parameter(value = "overload_filter_hold_seconds", validator = PositiveIntegerValidator.class)
+    protected int overloadFilterHoldSeconds = 300;
+
+    @Parameter(value = "deauth_flood_threshold", validator = PositiveIntegerValidator.class)
+    protected int deauthFloodThreshold = 0;
+
+    @Parameter(value = "deauth_flood_window_seconds", validator = PositiveIntegerValidator.class)
+    protected int deauthFloodWindowSeconds = 10;
+
+    @Parameter(value = "device_table_max_devices", validator = PositiveIntegerValidator.class)
+    protected int deviceTableMaxDevices = 0;
+
+    @Parameter(value = "device_ttl_minutes", validator = PositiveIntegerValidator.class)
+    protected int deviceTtlMinutes = 30;
+
+    @Parameter(value = "ap_inventory_max_access_points", validator = PositiveIntegerValidator.class)
+    protected int apInventoryMaxAccessPoints = 0;
+
+    @Parameter(value = "ap_inventory_ttl_minutes", validator = PositiveIntegerValidator.class)
+    protected int apInventoryTtlMinutes = 60;
+
+    @Parameter(value = "ap_inventory_learning_minutes", validator = PositiveIntegerValidator.class)
+    protected int apInventoryLearningMinutes = 5;
+
+    @Parameter(value = "beacon_clock_max_bssids", validator = PositiveIntegerValidator.class)
+    protected int beaconClockMaxBssids = 0;
+
+    @Parameter(value = "session_table_max_sessions", validator = PositiveIntegerValidator.class)
+    protected int sessionTableMaxSessions = 0;
+
+    @Parameter(value = "session_setup_timeout_seconds", validator = PositiveIntegerValidator.class)
+    protected int sessionSetupTimeoutSeconds = 10;
+
+    @Parameter(value = "session_ttl_minutes", validator = PositiveIntegerValidator.class)
+    protected int sessionTtlMinutes = 60;
+
+    @Parameter(value = "aggregation_window_seconds", validator = PositiveIntegerValidator.class)
+    protected int aggregationWindowSeconds = 0;
+
+    @Parameter(value = "malformed_report_interval_seconds", validator = PositiveIntegerValidator.class)
+    protected int malformedReportIntervalSeconds = 60;
+
+    @Parameter(value = "malformed_sample_pcap")
+    protected String malformedSamplePcap = "";
+
+    @Parameter(value = "malformed_sample_frames", validator = PositiveIntegerValidator.class)
+    protected int malformedSampleFrames = 5;
+
+    @Parameter(value = "malformed_sample_max_size_mb", validator = PositiveIntegerValidator.class)
+    protected int malformedSampleMaxSizeMb = 100;
 
     @Parameter(value = "versionchecks_enabled")
     protected boolean versionchecksEnabled = true;
 
+    @Parameter(value = "spool_enabled")
+    protected boolean spoolEnabled = false;
+
+    @Parameter(value = "spool_directory")
+    protected String spoolDirectory = "/var/lib/nzyme/spool";
+
+    @Parameter(value = "spool_max_size_mb", validator = PositiveIntegerValidator.class)
+    protected int spoolMaxSizeMb = 512;
+
+    @Parameter(value = "spool_max_age_minutes", validator = PositiveIntegerValidator.class)
+    protected int spoolMaxAgeMinutes = 1440;
+
+    @Parameter(value = "spool_drain_rate", validator = PositiveIntegerValidator.class)
+    protected int spoolDrainRate = 500;
+
+    @Parameter(value = "snapshot_directory")
+    protected String snapshotDirectory = "/var/lib/nzyme/snapshot";
+
+    @Parameter(value = "snapshot_interval_seconds", validator = PositiveIntegerValidator.class)
+    protected int snapshotIntervalSeconds = 0;
+
+    @Parameter(value = "generator_mix", validator = GeneratorMixValidator.class)
+    protected String generatorMix = TrafficGenerator.DEFAULT_MIX;
+
+    @Parameter(value = "generator_rate", validator = PositiveIntegerValidator.class)
+    protected int generatorRate = 0;
+
+    @Parameter(value = "generator_access_points", validator = PositiveIntegerValidator.class)
+    protected int generatorAccessPoints = 50;
+
+    @Parameter(value = "generator_clients", validator = PositiveIntegerValidator.class)
+    protected int generatorClients = 500;
+
     public String getNzymeId() {
         return nzymeId;
     }
@@ -79,8 +222,246 @@ public class Configuration {
         return result;
     }
 
-    public int getBeaconSamplingRate() {
-        return beaconSamplingRate;
+    public int getSamplingMinIntervalSeconds() {
+        return samplingMinIntervalSeconds;
+    }
+
+    public int getSamplingBudget() {
+        return samplingBudget;
+    }
+
+    public int getSamplingMaxTransmitters() {
+        return samplingMaxTransmitters;
+    }
+
+    /**
+     * Rejects the old sampling setting instead of ignoring it, so that upgraded configurations do not silently stop
+     * sampling. Every Nth beacon has no equivalent in per-transmitter intervals.
+     */
+    @ValidatorMethod
+    public void validateSampling() throws ValidationException {
+        if (beaconSamplingRate != 0) {
+            throw new ValidationException("beacon_frame_sampling_rate is no longer supported. Remove it and use " +
+                    "sampling_min_interval_seconds and sampling_budget instead.");
+        }
+
+        if (samplingMinIntervalSeconds > 0 && samplingBudget == 0) {
+            throw new ValidationException("sampling_budget must be at least 1 when sampling is enabled.");
+        }
+    }
+
+    public ImmutableMap<Dot11FrameSubtype, RateLimit> getRateLimits() {
+        if (rateLimits == null) {
+            return ImmutableMap.of();
+        }
+
+        return parseRateLimits(rateLimits);
+    }
+
+    static ImmutableMap<Dot11FrameSubtype, RateLimit> parseRateLimits(String value) {
+        ImmutableMap.Builder<Dot11FrameSubtype, RateLimit> result = new ImmutableMap.Builder<>();
+
+        for (String limit : Splitter.on(",").trimResults().omitEmptyStrings().split(value)) {
+            List<String> parts = Splitter.on(":").trimResults().splitToList(limit);
+            if (parts.size() != 3) {
+                throw new IllegalArgumentException("Rate limit [" + limit + "] is not in subtype:per_second:burst format.");
+            }
+
+            Dot11FrameSubtype subtype = Dot11FrameSubtype.fromName(parts.get(0));
+            if (subtype == null) {
+                throw new IllegalArgumentException("Unknown frame subtype [" + parts.get(0) + "].");
+            }
+
+            result.put(subtype, new RateLimit(Integer.parseInt(parts.get(1)), Integer.parseInt(parts.get(2))));
+        }
+
+        return result.build();
+    }
+
+    public int getRateLimitMaxTransmitters() {
+        return rateLimitMaxTransmitters;
+    }
+
+    /**
+     * @return priority overrides by subtype. Subtypes not listed keep {@link FramePriority#defaultFor(Dot11FrameSubtype)}.
+     */
+    public ImmutableMap<Dot11FrameSubtype, FramePriority> getFramePriorities() {
+        if (framePriorities == null) {
+            return ImmutableMap.of();
+        }
+
+        return parseFramePriorities(framePriorities);
+    }
+
+    public ImmutableSet<Dot11FrameSubtype> getDisabledFrameSubtypes() {
+        if (disabledFrameSubtypes == null) {
+            return ImmutableSet.of();
+        }
+
+        return parseFrameSubtypes(disabledFrameSubtypes);
+    }
+
+    static ImmutableSet<Dot11FrameSubtype> parseFrameSubtypes(String value) {
+        ImmutableSet.Builder<Dot11FrameSubtype> result = new ImmutableSet.Builder<>();
+
+        for (String name : Splitter.on(",").trimResults().omitEmptyStrings().split(value)) {
+            Dot11FrameSubtype subtype = Dot11FrameSubtype.fromName(name);
+            if (subtype == null) {
+                throw new IllegalArgumentException("Unknown frame subtype [" + name + "].");
+            }
+
+            result.add(subtype);
+        }
+
+        return result.build();
+    }
+
+    static ImmutableMap<Dot11FrameSubtype, FramePriority> parseFramePriorities(String value) {
+        ImmutableMap.Builder<Dot11FrameSubtype, FramePriority> result = new ImmutableMap.Builder<>();
+
+        for (String entry : Splitter.on(",").trimResults().omitEmptyStrings().split(value)) {
+            List<String> parts = Splitter.on(":").trimResults().splitToList(entry);
+            if (parts.size() != 2) {
+                throw new IllegalArgumentException("Frame priority [" + entry + "] is not in subtype:priority format.");
+            }
+
+            Dot11FrameSubtype subtype = Dot11FrameSubtype.fromName(parts.get(0));
+            if (subtype == null) {
+                throw new IllegalArgumentException("Unknown frame subtype [" + parts.get(0) + "].");
+            }
+
+            FramePriority priority = FramePriority.fromName(parts.get(1));
+            if (priority == null) {
+                throw new IllegalArgumentException("Unknown frame priority [" + parts.get(1) + "].");
+            }
+
+            result.put(subtype, priority);
+        }
+
+        return result.build();
+    }
+
+    public int getProcessingQueueSize() {
+        return processingQueueSize;
+    }
+
+    public int getEventQueueSize() {
+        return eventQueueSize;
+    }
+
+    public int getProcessingMaxLatencyMs() {
+        return processingMaxLatencyMs;
+    }
+
+    public int getDuplicateWindowMs() {
+        return duplicateWindowMs;
+    }
+
+    public int getDuplicateTableSize() {
+        return duplicateTableSize;
+    }
+
+    public int getStatisticsMaxDevices() {
+        return statisticsMaxDevices;
+    }
+
+    public int getOverloadFilterThreshold() {
+        return overloadFilterThreshold;
+    }
+
+    public int getOverloadFilterHoldSeconds() {
+        return overloadFilterHoldSeconds;
+    }
+
+    public int getDeauthFloodThreshold() {
+        return deauthFloodThreshold;
+    }
+
+    public int getDeauthFloodWindowSeconds() {
+        return deauthFloodWindowSeconds;
+    }
+
+    public int getDeviceTableMaxDevices() {
+        return deviceTableMaxDevices;
+    }
+
+    public int getDeviceTtlMinutes() {
+        return deviceTtlMinutes;
+    }
+
+    public int getApInventoryMaxAccessPoints() {
+        return apInventoryMaxAccessPoints;
+    }
+
+    public int getApInventoryTtlMinutes() {
+        return apInventoryTtlMinutes;
+    }
+
+    public int getApInventoryLearningMinutes() {
+        return apInventoryLearningMinutes;
+    }
+
+    public int getBeaconClockMaxBssids() {
+        return beaconClockMaxBssids;
+    }
+
+    public int getSessionTableMaxSessions() {
+        return sessionTableMaxSessions;
+    }
+
+    public int getSessionSetupTimeoutSeconds() {
+        return sessionSetupTimeoutSeconds;
+    }
+
+    public int getSessionTtlMinutes() {
+        return sessionTtlMinutes;
+    }
+
+    public int getAggregationWindowSeconds() {
+        return aggregationWindowSeconds;
+    }
+
+    public int getMalformedReportIntervalSeconds() {
+        return malformedReportIntervalSeconds;
+    }
+
+    public String getMalformedSamplePcap() {
+        return malformedSamplePcap;
+    }
+
+    public int getMalformedSampleFrames() {
+        return malformedSampleFrames;
+    }
+
+    public int getMalformedSampleMaxSizeMb() {
+        return malformedSampleMaxSizeMb;
+    }
+
+    /**
+     * @return filters by uplink address (host:port, or "logger" for the Log4j uplink). Uplinks without a filter
+     * receive everything.
+     */
+    public ImmutableMap<String, UplinkFilter> getUplinkFilters() {
+        if (uplinkFilters == null) {
+            return ImmutableMap.of();
+        }
+
+        return parseUplinkFilters(uplinkFilters);
+    }
+
+    static ImmutableMap<String, UplinkFilter> parseUplinkFilters(String value) {
+        ImmutableMap.Builder<String, UplinkFilter> result = new ImmutableMap.Builder<>();
+
+        for (String entry : Splitter.on("|").trimResults().omitEmptyStrings().split(value)) {
+            int separator = entry.indexOf(';');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Uplink filter [" + entry + "] has no address or no rules.");
+            }
+
+            result.put(entry.substring(0, separator).trim(), UplinkFilter.parse(entry.substring(separator + 1)));
+        }
+
+        return result.build();
     }
 
     public ImmutableMap<String, ImmutableList<Integer>> getChannels() {
@@ -127,4 +508,79 @@ public class Configuration {
         return versionchecksEnabled;
     }
 
+    public boolean isSpoolEnabled() {
+        return spoolEnabled;
+    }
+
+    public String getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    public int getSpoolMaxSizeMb() {
+        return spoolMaxSizeMb;
+    }
+
+    public int getSpoolMaxAgeMinutes() {
+        return spoolMaxAgeMinutes;
+    }
+
+    public int getSpoolDrainRate() {
+        return spoolDrainRate;
+    }
+
+    public String getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    public int getSnapshotIntervalSeconds() {
+        return snapshotIntervalSeconds;
+    }
+
+    public ImmutableMap<TrafficGenerator.Kind, Integer> getGeneratorMix() {
+        return parseGeneratorMix(generatorMix);
+    }
+
+    static ImmutableMap<TrafficGenerator.Kind, Integer> parseGeneratorMix(String value) {
+        ImmutableMap.Builder<TrafficGenerator.Kind, Integer> result = new ImmutableMap.Builder<>();
+
+        int total = 0;
+        for (String entry : Splitter.on(",").trimResults().omitEmptyStrings().split(value)) {
+            List<String> parts = Splitter.on(":").trimResults().splitToList(entry);
+            if (parts.size() != 2) {
+                throw new IllegalArgumentException("Generator mix [" + entry + "] is not in kind:weight format.");
+            }
+
+            TrafficGenerator.Kind kind = TrafficGenerator.Kind.fromName(parts.get(0));
+            if (kind == null) {
+                throw new IllegalArgumentException("Unknown kind of traffic [" + parts.get(0) + "].");
+            }
+
+            int weight = Integer.parseInt(parts.get(1));
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for [" + parts.get(0) + "].");
+            }
+
+            total += weight;
+            result.put(kind, weight);
+        }
+
+        if (total == 0) {
+            throw new IllegalArgumentException("Generator mix has no weights.");
+        }
+
+        return result.build();
+    }
+
+    public int getGeneratorRate() {
+        return generatorRate;
+    }
+
+    public int getGeneratorAccessPoints() {
+        return generatorAccessPoints;
+    }
+
+    public int getGeneratorClients() {
+        return generatorClients;
+    }
+
 }
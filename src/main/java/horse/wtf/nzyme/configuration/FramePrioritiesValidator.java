@@ -0,0 +1,38 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.configuration;
+
+import com.github.joschi.jadconfig.ValidationException;
+import com.github.joschi.jadconfig.Validator;
+
+public class FramePrioritiesValidator implements Validator<String> {
+
+    @Override
+    public void validate(String name, String value) throws ValidationException {
+        if (value == null) {
+            return;
+        }
+
+        try {
+            Configuration.parseFramePriorities(value);
+        } catch(IllegalArgumentException e) {
+            throw new ValidationException("Malformed frame priorities: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.detection;
+
+/**
+ * Beacon clock of one BSSID. An access point puts its TSF timer into every beacon, and the difference between that
+ * timestamp and the time of arrival at our receiver only changes by clock drift. A second transmitter using the
+ * same BSSID has a different TSF timer, so its beacons arrive with a different offset. When beacons with both
+ * offsets keep interleaving, the BSSID is spoofed.
+ *
+ * Kept small (a few dozen bytes) so that thousands of BSSIDs can be tracked. Not thread-safe.
+ */
+class BeaconClock {
+
+    enum Result {
+        OK,
+        REGRESSION,
+        DIVERGENCE
+    }
+
+    // Inter-arrival deviations from the beacon interval, packed as 4 unsigned 16 bit microsecond values.
+    private static final int JITTER_SAMPLES = 4;
+    private static final long JITTER_MAX = 0xFFFF;
+
+    private static final long DEFAULT_BEACON_INTERVAL_MICROS = 100 * 1024;
+    private static final long TIME_UNIT_MICROS = 1024;
+
+    // Allowed offset change between two beacons, plus combined drift of both clocks. (100ppm each)
+    private static final long BASE_TOLERANCE_MICROS = 2000;
+    private static final long DRIFT_PPM = 200;
+
+    // Consecutive beacons of a new clock, without the old one showing up, after which the new clock is adopted.
+    private static final int ADOPT_AFTER = 3;
+
+    // Switches between two clocks after which the BSSID is considered spoofed.
+    static final int DIVERGENCE_INTERLEAVINGS = 2;
+
+    // Consecutive beacons of the adopted clock after which past switches are forgotten.
+    private static final int CLEAN_AFTER = 100;
+
+    private long lastTimestamp;
+    private long lastArrival;
+    private long offset;
+    private long alternateOffset;
+    private long jitter;
+    private long lastSeen;
+    private long lastAlert;
+
+    private int jitterCount;
+    private short alternateRun;
+    private short cleanRun;
+    private short interleavings;
+
+    BeaconClock(long timestamp, long arrival, long now) {
+        this.lastTimestamp = timestamp;
+        this.lastArrival = arrival;
+        this.offset = timestamp - arrival;
+        this.lastSeen = now;
+    }
+
+    /**
+     * @param timestamp TSF timer from the beacon, in microseconds.
+     * @param arrival Time of arrival at the receiver, in microseconds.
+     * @param extraToleranceMicros Uncertainty of the arrival time.
+     * @param beaconInterval Advertised beacon interval in time units or a negative value if unknown.
+     */
+    Result record(long timestamp, long arrival, long extraToleranceMicros, int beaconInterval, long now) {
+        lastSeen = now;
+
+        long gap = arrival - lastArrival;
+        if (gap < 0) {
+            // Our own clock went back. Start over.
+            lastTimestamp = timestamp;
+            lastArrival = arrival;
+            offset = timestamp - arrival;
+            alternateRun = 0;
+            interleavings = 0;
+            return Result.OK;
+        }
+
+        recordJitter(gap, beaconInterval > 0 ? beaconInterval * TIME_UNIT_MICROS : DEFAULT_BEACON_INTERVAL_MICROS);
+        lastArrival = arrival;
+
+        long current = timestamp - arrival;
+        long tolerance = BASE_TOLERANCE_MICROS + extraToleranceMicros + gap / 1_000_000 * DRIFT_PPM;
+
+        if (Math.abs(current - offset) <= tolerance) {
+            offset = current;
+            lastTimestamp = timestamp;
+
+            if (alternateRun > 0) {
+                interleavings++;
+                alternateRun = 0;
+                cleanRun = 0;
+            } else if (interleavings > 0 && ++cleanRun >= CLEAN_AFTER) {
+                interleavings = 0;
+                cleanRun = 0;
+            }
+
+            return interleavings >= DIVERGENCE_INTERLEAVINGS ? Result.DIVERGENCE : Result.OK;
+        }
+
+        if (alternateRun > 0 && Math.abs(current - alternateOffset) <= tolerance) {
+            alternateRun++;
+        } else {
+            alternateRun = 1;
+        }
+        alternateOffset = current;
+
+        // Only the first beacon of a run of the other clock counts, so that a restart is reported once.
+        boolean regression = timestamp < lastTimestamp && alternateRun == 1;
+
+        if (alternateRun >= ADOPT_AFTER && interleavings == 0) {
+            // The old clock is gone. Most likely the access point restarted and reset its TSF timer.
+            offset = current;
+            lastTimestamp = timestamp;
+            alternateRun = 0;
+        }
+
+        if (regression) {
+            return Result.REGRESSION;
+        }
+
+        return interleavings >= DIVERGENCE_INTERLEAVINGS ? Result.DIVERGENCE : Result.OK;
+    }
+
+    private void recordJitter(long gap, long interval) {
+        long beacons = Math.max(1, (gap + interval / 2) / interval);
+        long deviation = Math.min(Math.abs(gap - beacons * interval), JITTER_MAX);
+
+        int shift = (jitterCount % JITTER_SAMPLES) * 16;
+        jitter = (jitter & ~(JITTER_MAX << shift)) | (deviation << shift);
+        jitterCount++;
+    }
+
+    /**
+     * @return mean deviation of the last beacon arrivals from the beacon interval, in microseconds.
+     */
+    long getMeanJitter() {
+        int samples = Math.min(jitterCount, JITTER_SAMPLES);
+        if (samples == 0) {
+            return 0;
+        }
+
+        long sum = 0;
+        for (int i = 0; i < samples; i++) {
+            sum += (jitter >>> (i * 16)) & JITTER_MAX;
+        }
+
+        return sum / samples;
+    }
+
+    /**
+     * @return difference between the two clocks seen last, in microseconds.
+     */
+    long getSkew() {
+        return Math.abs(alternateOffset - offset);
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    long getLastSeen() {
+        return lastSeen;
+    }
+
+    int getInterleavings() {
+        return interleavings;
+    }
+
+    boolean alert(long now, long cooldownMillis) {
+        if (lastAlert != 0 && now - lastAlert < cooldownMillis) {
+            return false;
+        }
+
+        lastAlert = now;
+        return true;
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.detection;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11BeaconFields;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.BeaconEvent;
+import horse.wtf.nzyme.events.EventSubscriber;
+import horse.wtf.nzyme.util.LongObjectMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects spoofed beacons by following the TSF timestamps in the beacons of every BSSID against the time of arrival
+ * at our receiver. Publishes a {@link BeaconClockEvent} when the timestamp of a BSSID goes back or when it is sent
+ * with two different clocks. (See {@link BeaconClock})
+ *
+ * The time of arrival is the TSFT field of the radiotap header if the driver provides it. Otherwise, the wall clock
+ * is used, which is much less precise because frames can wait in the processing queue. Only large clock differences
+ * are detected then.
+ *
+ * At most maxBssids BSSIDs are tracked. BSSIDs without beacons for a while are forgotten.
+ */
+public class BeaconClockAnalyzer implements EventSubscriber<BeaconEvent> {
+
+    private static final Logger LOG = LogManager.getLogger(BeaconClockAnalyzer.class);
+
+    private static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long ALERT_COOLDOWN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    // Uncertainty of the arrival time when it has to be taken from the wall clock.
+    private static final long WALL_CLOCK_TOLERANCE_MICROS = TimeUnit.MILLISECONDS.toMicros(500);
+
+    private final Nzyme nzyme;
+    private final int maxBssids;
+
+    private final LongObjectMap<BeaconClock> clocks;
+
+    /**
+     * @param maxBssids Maximum number of BSSIDs to track. 0 disables the analyzer.
+     */
+    public BeaconClockAnalyzer(Nzyme nzyme, int maxBssids) {
+        this.nzyme = nzyme;
+        this.maxBssids = maxBssids;
+        this.clocks = new LongObjectMap<>();
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        nzyme.getEventBus().subscribeQueued("beacon-clock-analyzer", ImmutableList.of(BeaconEvent.class), this);
+
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("beacon-clock-analyzer-%d")
+                .build()
+        ).scheduleWithFixedDelay(() -> {
+            try {
+                expire(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.error("Could not expire beacon clocks.", e);
+            }
+        }, 1, 1, TimeUnit.MINUTES);
+    }
+
+    public boolean isEnabled() {
+        return maxBssids > 0;
+    }
+
+    @Override
+    public void handle(BeaconEvent event) {
+        handle(event, System.currentTimeMillis());
+    }
+
+    synchronized void handle(BeaconEvent event, long now) {
+        long bssid = event.getTransmitter();
+        long timestamp = event.getTimestamp();
+        if (bssid < 0 || timestamp == Dot11BeaconFields.UNKNOWN) {
+            return;
+        }
+
+        Dot11MetaInformation meta = event.getMeta();
+        long arrival;
+        long tolerance;
+        if (meta != null && meta.getMacTimestamp() >= 0) {
+            arrival = meta.getMacTimestamp();
+            tolerance = 0;
+        } else {
+            arrival = TimeUnit.MILLISECONDS.toMicros(now);
+            tolerance = WALL_CLOCK_TOLERANCE_MICROS;
+        }
+
+        BeaconClock clock = clocks.get(bssid);
+        if (clock == null) {
+            if (clocks.size() < maxBssids) {
+                clocks.put(bssid, new BeaconClock(timestamp, arrival, now));
+            }
+            return;
+        }
+
+        long previousTimestamp = clock.getLastTimestamp();
+        BeaconClock.Result result = clock.record(timestamp, arrival, tolerance, event.getBeaconInterval(), now);
+        if (result == BeaconClock.Result.OK || !clock.alert(now, ALERT_COOLDOWN_MILLIS)) {
+            return;
+        }
+
+        BeaconClockEvent.Anomaly anomaly;
+        long skew;
+        if (result == BeaconClock.Result.REGRESSION) {
+            anomaly = BeaconClockEvent.Anomaly.REGRESSION;
+            skew = previousTimestamp - timestamp;
+        } else {
+            anomaly = BeaconClockEvent.Anomaly.DIVERGENCE;
+            skew = clock.getSkew();
+        }
+
+        nzyme.getEventBus().publish(new BeaconClockEvent(anomaly, bssid, event.getSsid(),
+                meta == null ? 0 : meta.getChannel(), skew, clock.getMeanJitter()));
+    }
+
+    /**
+     * Forgets all BSSIDs without beacons for a while.
+     */
+    synchronized void expire(long now) {
+        for (long bssid : clocks.keys()) {
+            if (now - clocks.get(bssid).getLastSeen() >= IDLE_MILLIS) {
+                clocks.remove(bssid);
+            }
+        }
+    }
+
+    public synchronized int getTrackedBssids() {
+        return clocks.size();
+    }
+
+}
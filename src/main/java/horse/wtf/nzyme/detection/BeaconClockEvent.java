@@ -0,0 +1,106 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.detection;
+
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+import javax.annotation.Nullable;
+
+/**
+ * Beacons of a BSSID went back in time or carry the timestamps of two different clocks. (See {@link BeaconClock})
+ */
+public class BeaconClockEvent implements Event {
+
+    public enum Anomaly {
+        REGRESSION("timestamp_regression", MessageTemplate.BEACON_TIMESTAMP_REGRESSION),
+        DIVERGENCE("clock_divergence", MessageTemplate.BEACON_CLOCK_DIVERGENCE);
+
+        private final String name;
+        private final MessageTemplate template;
+
+        Anomaly(String name, MessageTemplate template) {
+            this.name = name;
+            this.template = template;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Anomaly anomaly;
+    private final long bssid;
+    private final String ssid;
+    private final int channel;
+    private final long skewMicros;
+    private final long jitterMicros;
+
+    BeaconClockEvent(Anomaly anomaly, long bssid, @Nullable String ssid, int channel, long skewMicros,
+                     long jitterMicros) {
+        this.anomaly = anomaly;
+        this.bssid = bssid;
+        this.ssid = ssid;
+        this.channel = channel;
+        this.skewMicros = skewMicros;
+        this.jitterMicros = jitterMicros;
+    }
+
+    public Anomaly getAnomaly() {
+        return anomaly;
+    }
+
+    public long getBssid() {
+        return bssid;
+    }
+
+    @Nullable
+    public String getSsid() {
+        return ssid;
+    }
+
+    /**
+     * @return how far the timestamp went back for regressions, the difference between both clocks for divergences.
+     */
+    public long getSkewMicros() {
+        return skewMicros;
+    }
+
+    public long getJitterMicros() {
+        return jitterMicros;
+    }
+
+    @Override
+    public Dot11MetaInformation getMeta() {
+        return null;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return new Notification(anomaly.template, channel)
+                .addField(FieldNames.BEACON_CLOCK_ANOMALY, anomaly.getName())
+                .addMacField(FieldNames.BSSID, bssid)
+                .addField(FieldNames.SSID, ssid == null ? "[no SSID]" : ssid)
+                .addField(FieldNames.BEACON_CLOCK_SKEW_MICROS, skewMicros)
+                .addField(FieldNames.BEACON_JITTER_MICROS, jitterMicros);
+    }
+
+}
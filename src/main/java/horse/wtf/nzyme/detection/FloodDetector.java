@@ -0,0 +1,192 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.detection;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.events.DeauthenticationEvent;
+import horse.wtf.nzyme.events.DisassociationEvent;
+import horse.wtf.nzyme.events.EventSubscriber;
+import horse.wtf.nzyme.events.FrameEvent;
+import horse.wtf.nzyme.util.LongObjectMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects deauthentication and disassociation floods. Keeps a {@link FloodTracker} per targeted BSSID and per
+ * targeted destination and publishes a single {@link FloodEvent} when the rate over the sliding window crosses the
+ * threshold. Another one is published when the rate drops below half of the threshold again, which is checked once
+ * per second so that it also happens when no frames arrive anymore.
+ *
+ * At most MAX_TARGETS targets per kind are tracked. Idle targets are forgotten.
+ */
+public class FloodDetector implements EventSubscriber<FrameEvent> {
+
+    private static final Logger LOG = LogManager.getLogger(FloodDetector.class);
+
+    private static final int MAX_TARGETS = 1024;
+
+    private final Nzyme nzyme;
+    private final int thresholdPerSecond;
+    private final int windowSeconds;
+
+    // Keyed by subtype in the upper and target MAC address in the lower 48 bits.
+    private final LongObjectMap<FloodTracker> bssids;
+    private final LongObjectMap<FloodTracker> destinations;
+
+    /**
+     * @param thresholdPerSecond Frames per second to one target that are considered a flood. 0 disables detection.
+     */
+    public FloodDetector(Nzyme nzyme, int thresholdPerSecond, int windowSeconds) {
+        this.nzyme = nzyme;
+        this.thresholdPerSecond = thresholdPerSecond;
+        this.windowSeconds = Math.max(windowSeconds, 1);
+
+        this.bssids = new LongObjectMap<>();
+        this.destinations = new LongObjectMap<>();
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        nzyme.getEventBus().subscribeQueued("flood-detector",
+                ImmutableList.of(DeauthenticationEvent.class, DisassociationEvent.class), this);
+
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("flood-detector-%d")
+                .build()
+        ).scheduleWithFixedDelay(() -> {
+            try {
+                sweep(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.error("Could not check for stopped floods.", e);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return thresholdPerSecond > 0;
+    }
+
+    @Override
+    public void handle(FrameEvent event) {
+        handle(event, System.currentTimeMillis());
+    }
+
+    synchronized void handle(FrameEvent event, long now) {
+        long bssid;
+        long destination;
+        short reasonCode;
+
+        if (event instanceof DeauthenticationEvent) {
+            DeauthenticationEvent deauth = (DeauthenticationEvent) event;
+            bssid = deauth.getBssid();
+            destination = deauth.getDestination();
+            reasonCode = deauth.getReasonCode();
+        } else if (event instanceof DisassociationEvent) {
+            DisassociationEvent disassoc = (DisassociationEvent) event;
+            bssid = disassoc.getBssid();
+            destination = disassoc.getDestination();
+            reasonCode = disassoc.getReasonCode();
+        } else {
+            return;
+        }
+
+        int channel = event.getMeta() == null ? 0 : event.getMeta().getChannel();
+        record(bssids, FloodEvent.TargetType.BSSID, event.getSubtype(), bssid, event.getTransmitter(), reasonCode, channel, now);
+        record(destinations, FloodEvent.TargetType.DESTINATION, event.getSubtype(), destination, event.getTransmitter(), reasonCode, channel, now);
+    }
+
+    private void record(LongObjectMap<FloodTracker> trackers, FloodEvent.TargetType targetType, Dot11FrameSubtype subtype,
+                        long target, long source, short reasonCode, int channel, long now) {
+        if (target < 0) {
+            return;
+        }
+
+        long key = ((long) subtype.ordinal() << 48) | target;
+        FloodTracker tracker = trackers.get(key);
+        if (tracker == null) {
+            if (trackers.size() >= MAX_TARGETS) {
+                return;
+            }
+
+            tracker = new FloodTracker(windowSeconds);
+            trackers.put(key, tracker);
+        }
+
+        tracker.record(source, reasonCode, channel, now);
+
+        if (!tracker.isAlerting() && tracker.rate(now) >= thresholdPerSecond) {
+            tracker.startAlert(now);
+            publish(true, targetType, key, tracker, now);
+        }
+    }
+
+    /**
+     * Publishes events for floods that stopped and forgets idle targets.
+     */
+    synchronized void sweep(long now) {
+        sweep(bssids, FloodEvent.TargetType.BSSID, now);
+        sweep(destinations, FloodEvent.TargetType.DESTINATION, now);
+    }
+
+    private void sweep(LongObjectMap<FloodTracker> trackers, FloodEvent.TargetType targetType, long now) {
+        for (long key : trackers.keys()) {
+            FloodTracker tracker = trackers.get(key);
+
+            if (tracker.isAlerting()) {
+                if (tracker.rate(now) < thresholdPerSecond / 2.0) {
+                    publish(false, targetType, key, tracker, now);
+                    tracker.reset();
+                }
+            } else if (tracker.isIdle(now)) {
+                trackers.remove(key);
+            }
+        }
+    }
+
+    private void publish(boolean started, FloodEvent.TargetType targetType, long key, FloodTracker tracker, long now) {
+        Dot11FrameSubtype subtype = Dot11FrameSubtype.values()[(int) (key >>> 48)];
+
+        nzyme.getEventBus().publish(new FloodEvent(
+                started,
+                subtype,
+                targetType,
+                key & ((1L << 48) - 1),
+                tracker.getChannel(),
+                tracker.rate(now),
+                tracker.getFrames(),
+                TimeUnit.MILLISECONDS.toSeconds(now - tracker.getAlertStarted()),
+                tracker.describeSources(),
+                tracker.describeReasonCodes()
+        ));
+    }
+
+    public synchronized int getTrackedTargets() {
+        return bssids.size() + destinations.size();
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.detection;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+/**
+ * A deauthentication or disassociation flood against a BSSID or destination started or stopped.
+ */
+public class FloodEvent implements Event {
+
+    public enum TargetType {
+        BSSID("bssid"),
+        DESTINATION("destination");
+
+        private final String name;
+
+        TargetType(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final boolean started;
+    private final Dot11FrameSubtype subtype;
+    private final TargetType targetType;
+    private final long target;
+    private final int channel;
+    private final double rate;
+    private final long frames;
+    private final long durationSeconds;
+    private final String sources;
+    private final String reasonCodes;
+
+    FloodEvent(boolean started, Dot11FrameSubtype subtype, TargetType targetType, long target, int channel,
+               double rate, long frames, long durationSeconds, String sources, String reasonCodes) {
+        this.started = started;
+        this.subtype = subtype;
+        this.targetType = targetType;
+        this.target = target;
+        this.channel = channel;
+        this.rate = rate;
+        this.frames = frames;
+        this.durationSeconds = durationSeconds;
+        this.sources = sources;
+        this.reasonCodes = reasonCodes;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public Dot11FrameSubtype getSubtype() {
+        return subtype;
+    }
+
+    public TargetType getTargetType() {
+        return targetType;
+    }
+
+    public long getTarget() {
+        return target;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    @Override
+    public Dot11MetaInformation getMeta() {
+        return null;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return new Notification(started ? MessageTemplate.FLOOD_STARTED : MessageTemplate.FLOOD_STOPPED, channel)
+                .addField(FieldNames.SUBTYPE, subtype.getName())
+                .addField(FieldNames.FLOOD_TARGET_TYPE, targetType.getName())
+                .addMacField(FieldNames.FLOOD_TARGET, target)
+                .addField(FieldNames.FLOOD_RATE, Math.round(rate * 10) / 10.0)
+                .addField(FieldNames.FLOOD_FRAMES, frames)
+                .addField(FieldNames.FLOOD_DURATION_SECONDS, durationSeconds)
+                .addField(FieldNames.FLOOD_SOURCES, sources)
+                .addField(FieldNames.FLOOD_REASON_CODES, reasonCodes);
+    }
+
+}
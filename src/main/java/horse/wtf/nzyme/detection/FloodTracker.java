@@ -0,0 +1,170 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.detection;
+
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window rate, most frequent sources and reason code histogram of the deauth or disassoc frames sent to one
+ * target. Recording a frame does not allocate.
+ */
+class FloodTracker {
+
+    private static final int TOP_SOURCES = 8;
+    private static final int REASON_CODES = 64;
+    private static final int REPORTED_REASON_CODES = 5;
+
+    private final SlidingWindowCounter window;
+
+    // Approximate top sources. (Space-Saving algorithm)
+    private final long[] sources = new long[TOP_SOURCES];
+    private final long[] sourceCounts = new long[TOP_SOURCES];
+
+    // Reason codes 0-63 and one bucket for all others.
+    private final long[] reasonCodes = new long[REASON_CODES + 1];
+
+    private long frames;
+    private int channel;
+
+    private boolean alerting;
+    private long alertStarted;
+
+    FloodTracker(int windowSeconds) {
+        this.window = new SlidingWindowCounter(windowSeconds);
+    }
+
+    void record(long source, short reasonCode, int channel, long now) {
+        window.add(now);
+        frames++;
+        this.channel = channel;
+
+        reasonCodes[reasonCode >= 0 && reasonCode < REASON_CODES ? reasonCode : REASON_CODES]++;
+        recordSource(source);
+    }
+
+    private void recordSource(long source) {
+        int min = 0;
+        for (int i = 0; i < TOP_SOURCES; i++) {
+            if (sourceCounts[i] > 0 && sources[i] == source) {
+                sourceCounts[i]++;
+                return;
+            }
+
+            if (sourceCounts[i] < sourceCounts[min]) {
+                min = i;
+            }
+        }
+
+        // Replace the least frequent source. Its count is inherited as an upper bound of the error.
+        sources[min] = source;
+        sourceCounts[min]++;
+    }
+
+    double rate(long now) {
+        return window.rate(now);
+    }
+
+    boolean isIdle(long now) {
+        return window.sum(now) == 0;
+    }
+
+    boolean isAlerting() {
+        return alerting;
+    }
+
+    void startAlert(long now) {
+        alerting = true;
+        alertStarted = now;
+    }
+
+    long getAlertStarted() {
+        return alertStarted;
+    }
+
+    /**
+     * Forgets everything but the sliding window, so that the next alert only reports its own sources and reasons.
+     */
+    void reset() {
+        alerting = false;
+        frames = 0;
+        Arrays.fill(sourceCounts, 0);
+        Arrays.fill(reasonCodes, 0);
+    }
+
+    long getFrames() {
+        return frames;
+    }
+
+    int getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return sources by descending frame count, like "00:11:22:33:44:55 (1200), 00:11:22:33:44:66 (3)"
+     */
+    String describeSources() {
+        Integer[] order = new Integer[TOP_SOURCES];
+        for (int i = 0; i < TOP_SOURCES; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(sourceCounts[b], sourceCounts[a]));
+
+        StringBuilder sb = new StringBuilder();
+        for (int i : order) {
+            if (sourceCounts[i] == 0) {
+                break;
+            }
+
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(Dot11MacAddress.toString(sources[i])).append(" (").append(sourceCounts[i]).append(")");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @return the most frequent reason codes by descending frame count, like "7 (1200), 3 (12)"
+     */
+    String describeReasonCodes() {
+        Integer[] order = new Integer[reasonCodes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(reasonCodes[b], reasonCodes[a]));
+
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < REPORTED_REASON_CODES; n++) {
+            int i = order[n];
+            if (reasonCodes[i] == 0) {
+                break;
+            }
+
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(i == REASON_CODES ? "other" : String.valueOf(i)).append(" (").append(reasonCodes[i]).append(")");
+        }
+
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.detection;
+
+/**
+ * Counts events over the last n seconds in n circular one-second buckets. Does not allocate. Not thread-safe.
+ */
+public class SlidingWindowCounter {
+
+    private final long[] counts;
+    private final long[] seconds;
+
+    public SlidingWindowCounter(int windowSeconds) {
+        this.counts = new long[windowSeconds];
+        this.seconds = new long[windowSeconds];
+    }
+
+    public void add(long nowMillis) {
+        long second = nowMillis / 1000;
+        int i = (int) (second % counts.length);
+
+        if (seconds[i] != second) {
+            seconds[i] = second;
+            counts[i] = 0;
+        }
+
+        counts[i]++;
+    }
+
+    public long sum(long nowMillis) {
+        long second = nowMillis / 1000;
+
+        long sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            long age = second - seconds[i];
+            if (age >= 0 && age < counts.length) {
+                sum += counts[i];
+            }
+        }
+
+        return sum;
+    }
+
+    public double rate(long nowMillis) {
+        return sum(nowMillis) / (double) counts.length;
+    }
+
+}
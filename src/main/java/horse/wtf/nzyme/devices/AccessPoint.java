@@ -0,0 +1,198 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.devices;
+
+import horse.wtf.nzyme.dot11.Dot11BeaconFields;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Everything we know about one access point. Instances held by the {@link AccessPointInventory} are updated in place
+ * and must only be touched while holding its lock. Use {@link AccessPointInventory#get(long)} to get a copy.
+ */
+public class AccessPoint {
+
+    /**
+     * Longest SSID in bytes that is written to snapshots. Access points with longer SSIDs are written without SSID.
+     */
+    public static final int MAX_SNAPSHOT_SSID_LENGTH = 128;
+
+    /**
+     * Maximum size of a snapshot record written by {@link #writeTo(ByteBuffer)}.
+     */
+    public static final int MAX_SNAPSHOT_RECORD_SIZE = 8 * 4 + 4 * 3 + 2 + MAX_SNAPSHOT_SSID_LENGTH;
+
+    private static final int NO_SSID = 0xFFFF;
+
+    private final long bssid;
+    private final long firstSeen;
+    private long lastSeen;
+    private long frames;
+
+    @Nullable
+    private String ssid;
+    private int channel;
+    private int beaconInterval;
+    private int security;
+
+    AccessPoint(long bssid, @Nullable String ssid, int channel, int beaconInterval, int security, long now) {
+        this.bssid = bssid;
+        this.ssid = ssid;
+        this.channel = channel;
+        this.beaconInterval = beaconInterval;
+        this.security = security;
+        this.firstSeen = now;
+        this.lastSeen = now;
+        this.frames = 1;
+    }
+
+    private AccessPoint(AccessPoint ap) {
+        this.bssid = ap.bssid;
+        this.firstSeen = ap.firstSeen;
+        this.lastSeen = ap.lastSeen;
+        this.frames = ap.frames;
+        this.ssid = ap.ssid;
+        this.channel = ap.channel;
+        this.beaconInterval = ap.beaconInterval;
+        this.security = ap.security;
+    }
+
+    private AccessPoint(long bssid, long firstSeen) {
+        this.bssid = bssid;
+        this.firstSeen = firstSeen;
+    }
+
+    AccessPoint copy() {
+        return new AccessPoint(this);
+    }
+
+    void writeTo(ByteBuffer target) {
+        target.putLong(bssid);
+        target.putLong(firstSeen);
+        target.putLong(lastSeen);
+        target.putLong(frames);
+        target.putInt(channel);
+        target.putInt(beaconInterval);
+        target.putInt(security);
+
+        byte[] bytes = ssid == null ? null : ssid.getBytes(StandardCharsets.UTF_8);
+        if (bytes == null || bytes.length > MAX_SNAPSHOT_SSID_LENGTH) {
+            target.putShort((short) NO_SSID);
+        } else {
+            target.putShort((short) bytes.length);
+            target.put(bytes);
+        }
+    }
+
+    static AccessPoint readFrom(ByteBuffer source) {
+        long bssid = source.getLong();
+        AccessPoint ap = new AccessPoint(bssid, source.getLong());
+        ap.lastSeen = source.getLong();
+        ap.frames = source.getLong();
+        ap.channel = source.getInt();
+        ap.beaconInterval = source.getInt();
+        ap.security = source.getInt();
+
+        int length = source.getShort() & 0xFFFF;
+        if (length != NO_SSID) {
+            byte[] bytes = new byte[length];
+            source.get(bytes);
+            ap.ssid = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return ap;
+    }
+
+    void seen(long now) {
+        lastSeen = now;
+        frames++;
+    }
+
+    void setSsid(@Nullable String ssid) {
+        this.ssid = ssid;
+    }
+
+    void setChannel(int channel) {
+        this.channel = channel;
+    }
+
+    void setBeaconInterval(int beaconInterval) {
+        this.beaconInterval = beaconInterval;
+    }
+
+    void setSecurity(int security) {
+        this.security = security;
+    }
+
+    public long getBssid() {
+        return bssid;
+    }
+
+    public String getBssidString() {
+        return Dot11MacAddress.toString(bssid);
+    }
+
+    public long getFirstSeen() {
+        return firstSeen;
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    /**
+     * @return number of beacons and probe responses received from this access point.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return the SSID or null if the access point only sent beacons with a hidden SSID so far.
+     */
+    @Nullable
+    public String getSsid() {
+        return ssid;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return the beacon interval in time units or Dot11BeaconFields.UNKNOWN.
+     */
+    public int getBeaconInterval() {
+        return beaconInterval;
+    }
+
+    /**
+     * @return the packed security information (See Dot11BeaconFields) or Dot11BeaconFields.UNKNOWN.
+     */
+    public int getSecurity() {
+        return security;
+    }
+
+    public String getSecurityString() {
+        return Dot11BeaconFields.securityToString(security);
+    }
+
+}
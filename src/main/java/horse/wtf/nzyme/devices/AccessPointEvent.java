@@ -0,0 +1,128 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.devices;
+
+import horse.wtf.nzyme.dot11.Dot11BeaconFields;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+/**
+ * An access point showed up or changed in a way that could indicate an evil twin or a spoofed access point.
+ */
+public class AccessPointEvent implements Event {
+
+    public enum Change {
+        NEW_BSSID("new_bssid", MessageTemplate.AP_NEW_BSSID),
+        CHANNEL("channel", MessageTemplate.AP_CHANNEL_CHANGED),
+        SECURITY("security", MessageTemplate.AP_SECURITY_CHANGED);
+
+        private final String name;
+        private final MessageTemplate template;
+
+        Change(String name, MessageTemplate template) {
+            this.name = name;
+            this.template = template;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Change change;
+    private final long bssid;
+    private final String ssid;
+    private final int channel;
+    private final int security;
+
+    // Previous channel and security for changes, the ones of the already known BSSIDs for new BSSIDs.
+    private final int previousChannel;
+    private final int previousSecurity;
+    private final String knownBssids;
+
+    AccessPointEvent(Change change, long bssid, String ssid, int channel, int security,
+                     int previousChannel, int previousSecurity, String knownBssids) {
+        this.change = change;
+        this.bssid = bssid;
+        this.ssid = ssid;
+        this.channel = channel;
+        this.security = security;
+        this.previousChannel = previousChannel;
+        this.previousSecurity = previousSecurity;
+        this.knownBssids = knownBssids;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    public long getBssid() {
+        return bssid;
+    }
+
+    public String getSsid() {
+        return ssid;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    public int getSecurity() {
+        return security;
+    }
+
+    public int getPreviousChannel() {
+        return previousChannel;
+    }
+
+    public int getPreviousSecurity() {
+        return previousSecurity;
+    }
+
+    /**
+     * @return true if the security differs from what was known before. For new BSSIDs, this compares against
+     *         the first BSSID that was seen advertising the same SSID.
+     */
+    public boolean isSecurityMismatch() {
+        return security != Dot11BeaconFields.UNKNOWN && previousSecurity != Dot11BeaconFields.UNKNOWN
+                && security != previousSecurity;
+    }
+
+    @Override
+    public Dot11MetaInformation getMeta() {
+        return null;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return new Notification(change.template, channel)
+                .addField(FieldNames.AP_CHANGE, change.getName())
+                .addMacField(FieldNames.BSSID, bssid)
+                .addField(FieldNames.SSID, ssid)
+                .addField(FieldNames.AP_SECURITY, Dot11BeaconFields.securityToString(security))
+                .addField(FieldNames.AP_PREVIOUS_CHANNEL, previousChannel)
+                .addField(FieldNames.AP_PREVIOUS_SECURITY, Dot11BeaconFields.securityToString(previousSecurity))
+                .addField(FieldNames.AP_SECURITY_MISMATCH, isSecurityMismatch())
+                .addField(FieldNames.AP_KNOWN_BSSIDS, knownBssids);
+    }
+
+}
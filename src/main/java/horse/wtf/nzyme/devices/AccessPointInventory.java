@@ -0,0 +1,358 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.devices;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11BeaconFields;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
+import horse.wtf.nzyme.events.BeaconEvent;
+import horse.wtf.nzyme.events.EventSubscriber;
+import horse.wtf.nzyme.events.FrameEvent;
+import horse.wtf.nzyme.events.ProbeResponseEvent;
+import horse.wtf.nzyme.util.LongObjectMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inventory of access points, learned from beacons and probe responses. Indexed by BSSID and by SSID, so that every
+ * frame of a known access point is handled with a single hash lookup. It runs on every frame, independent of sampling
+ * and rate limiting of uplink notifications, and publishes an {@link AccessPointEvent} when
+ *
+ * <ul>
+ *     <li>a new BSSID advertises an SSID that is already known from another BSSID,</li>
+ *     <li>a known BSSID changes its channel or</li>
+ *     <li>a known BSSID changes its security. (See {@link Dot11BeaconFields#readSecurity(byte[])})</li>
+ * </ul>
+ *
+ * New BSSIDs are not reported during the learning period after startup, when all access points are new. At most
+ * maxAccessPoints access points are tracked. Access points not seen for the TTL are forgotten.
+ */
+public class AccessPointInventory implements EventSubscriber<FrameEvent> {
+
+    private static final Logger LOG = LogManager.getLogger(AccessPointInventory.class);
+
+    private static final int MAX_KNOWN_BSSIDS_LISTED = 8;
+
+    private final Nzyme nzyme;
+    private final int maxAccessPoints;
+    private final long ttlMillis;
+    private final long learningMillis;
+
+    private final LongObjectMap<AccessPoint> bssids;
+    private final Map<String, List<AccessPoint>> ssids;
+
+    private long startedAt = -1;
+    private long ignored;
+
+    /**
+     * @param maxAccessPoints Maximum number of access points to track. 0 disables the inventory.
+     */
+    public AccessPointInventory(Nzyme nzyme, int maxAccessPoints, int ttlMinutes, int learningMinutes) {
+        this.nzyme = nzyme;
+        this.maxAccessPoints = maxAccessPoints;
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(Math.max(ttlMinutes, 1));
+        this.learningMillis = TimeUnit.MINUTES.toMillis(learningMinutes);
+
+        this.bssids = new LongObjectMap<>();
+        this.ssids = Maps.newHashMap();
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        nzyme.getEventBus().subscribeQueued("ap-inventory",
+                ImmutableList.of(BeaconEvent.class, ProbeResponseEvent.class), this);
+
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("ap-inventory-%d")
+                .build()
+        ).scheduleWithFixedDelay(() -> {
+            try {
+                expire(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.error("Could not expire access points.", e);
+            }
+        }, 1, 1, TimeUnit.MINUTES);
+    }
+
+    public boolean isEnabled() {
+        return maxAccessPoints > 0;
+    }
+
+    @Override
+    public void handle(FrameEvent event) {
+        handle(event, System.currentTimeMillis());
+    }
+
+    synchronized void handle(FrameEvent event, long now) {
+        int advertisedChannel;
+        int beaconInterval;
+        int security;
+
+        if (event instanceof BeaconEvent) {
+            BeaconEvent beacon = (BeaconEvent) event;
+            advertisedChannel = beacon.getAdvertisedChannel();
+            beaconInterval = beacon.getBeaconInterval();
+            security = beacon.getSecurity();
+        } else if (event instanceof ProbeResponseEvent) {
+            ProbeResponseEvent response = (ProbeResponseEvent) event;
+            advertisedChannel = response.getAdvertisedChannel();
+            beaconInterval = response.getBeaconInterval();
+            security = response.getSecurity();
+        } else {
+            return;
+        }
+
+        if (startedAt < 0) {
+            startedAt = now;
+        }
+
+        int channel = advertisedChannel;
+        if (channel == Dot11BeaconFields.UNKNOWN && event.getMeta() != null) {
+            channel = event.getMeta().getChannel();
+        }
+
+        record(event.getTransmitter(), normalize(event.getSsid()), channel, beaconInterval, security, now);
+    }
+
+    private void record(long bssid, @Nullable String ssid, int channel, int beaconInterval, int security, long now) {
+        if (bssid < 0) {
+            return;
+        }
+
+        AccessPoint ap = bssids.get(bssid);
+        if (ap == null) {
+            if (bssids.size() >= maxAccessPoints) {
+                ignored++;
+                return;
+            }
+
+            ap = new AccessPoint(bssid, ssid, channel, beaconInterval, security, now);
+            bssids.put(bssid, ap);
+            index(ap, now);
+            return;
+        }
+
+        ap.seen(now);
+
+        // Hidden networks send beacons without SSID and probe responses with it. Only learn, never forget an SSID.
+        if (ssid != null && !ssid.equals(ap.getSsid())) {
+            unindex(ap);
+            ap.setSsid(ssid);
+            index(ap, now);
+        }
+
+        if (beaconInterval != Dot11BeaconFields.UNKNOWN) {
+            ap.setBeaconInterval(beaconInterval);
+        }
+
+        if (channel != Dot11BeaconFields.UNKNOWN && channel != ap.getChannel()) {
+            int previous = ap.getChannel();
+            ap.setChannel(channel);
+
+            if (previous != Dot11BeaconFields.UNKNOWN) {
+                publish(AccessPointEvent.Change.CHANNEL, ap, previous, ap.getSecurity(), "");
+            }
+        }
+
+        if (security != Dot11BeaconFields.UNKNOWN && security != ap.getSecurity()) {
+            int previous = ap.getSecurity();
+            ap.setSecurity(security);
+
+            if (previous != Dot11BeaconFields.UNKNOWN) {
+                publish(AccessPointEvent.Change.SECURITY, ap, ap.getChannel(), previous, "");
+            }
+        }
+    }
+
+    private void index(AccessPoint ap, long now) {
+        if (ap.getSsid() == null) {
+            return;
+        }
+
+        List<AccessPoint> siblings = siblings(ap.getSsid());
+        if (!siblings.isEmpty() && now - startedAt >= learningMillis) {
+            StringBuilder known = new StringBuilder();
+            for (int i = 0; i < Math.min(siblings.size(), MAX_KNOWN_BSSIDS_LISTED); i++) {
+                known.append(i > 0 ? "," : "").append(siblings.get(i).getBssidString());
+            }
+            if (siblings.size() > MAX_KNOWN_BSSIDS_LISTED) {
+                known.append(",...");
+            }
+
+            AccessPoint first = siblings.get(0);
+            publish(AccessPointEvent.Change.NEW_BSSID, ap, first.getChannel(), first.getSecurity(), known.toString());
+        }
+
+        siblings.add(ap);
+    }
+
+    private List<AccessPoint> siblings(String ssid) {
+        List<AccessPoint> siblings = ssids.get(ssid);
+        if (siblings == null) {
+            siblings = Lists.newArrayListWithCapacity(1);
+            ssids.put(ssid, siblings);
+        }
+
+        return siblings;
+    }
+
+    private void unindex(AccessPoint ap) {
+        if (ap.getSsid() == null) {
+            return;
+        }
+
+        List<AccessPoint> siblings = ssids.get(ap.getSsid());
+        if (siblings != null) {
+            siblings.remove(ap);
+            if (siblings.isEmpty()) {
+                ssids.remove(ap.getSsid());
+            }
+        }
+    }
+
+    private void publish(AccessPointEvent.Change change, AccessPoint ap, int previousChannel, int previousSecurity,
+                         String knownBssids) {
+        LOG.debug("Access point [{}] of SSID [{}]: {}", Dot11MacAddress.toString(ap.getBssid()), ap.getSsid(),
+                change.getName());
+
+        nzyme.getEventBus().publish(new AccessPointEvent(change, ap.getBssid(), ap.getSsid(), ap.getChannel(),
+                ap.getSecurity(), previousChannel, previousSecurity, knownBssids));
+    }
+
+    /**
+     * Forgets all access points not seen for the TTL.
+     */
+    synchronized void expire(long now) {
+        for (long bssid : bssids.keys()) {
+            AccessPoint ap = bssids.get(bssid);
+            if (now - ap.getLastSeen() >= ttlMillis) {
+                unindex(ap);
+                bssids.remove(bssid);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the access point or null if it is not in the inventory.
+     */
+    @Nullable
+    public synchronized AccessPoint get(long bssid) {
+        AccessPoint ap = bssids.get(bssid);
+        return ap == null ? null : ap.copy();
+    }
+
+    /**
+     * @return copies of all access points advertising the given SSID.
+     */
+    public synchronized List<AccessPoint> getBySsid(String ssid) {
+        List<AccessPoint> siblings = ssids.get(ssid);
+        if (siblings == null) {
+            return ImmutableList.of();
+        }
+
+        List<AccessPoint> copies = Lists.newArrayListWithCapacity(siblings.size());
+        for (AccessPoint ap : siblings) {
+            copies.add(ap.copy());
+        }
+
+        return copies;
+    }
+
+    public synchronized int size() {
+        return bssids.size();
+    }
+
+    /**
+     * @return when the learning period started or -1 if no access point was seen yet.
+     */
+    public synchronized long getLearningStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Writes as many access points as fit into the target, as records of {@link AccessPoint#writeTo(ByteBuffer)}.
+     *
+     * @return number of access points written.
+     */
+    public synchronized int writeTo(ByteBuffer target) {
+        int written = 0;
+        for (long bssid : bssids.keys()) {
+            if (target.remaining() < AccessPoint.MAX_SNAPSHOT_RECORD_SIZE) {
+                break;
+            }
+
+            bssids.get(bssid).writeTo(target);
+            written++;
+        }
+
+        return written;
+    }
+
+    /**
+     * Adds access points from records written by {@link #writeTo(ByteBuffer)}. Access points whose TTL passed are
+     * skipped. The learning period continues from the given start if any access point was restored, so that a
+     * restart does not learn all access points again.
+     */
+    public synchronized void readFrom(ByteBuffer source, int count, long learningStartedAt, long now) {
+        for (int i = 0; i < count; i++) {
+            AccessPoint ap = AccessPoint.readFrom(source);
+            if (now - ap.getLastSeen() >= ttlMillis || bssids.size() >= maxAccessPoints
+                    || bssids.get(ap.getBssid()) != null) {
+                continue;
+            }
+
+            // Restored access points were known before, no matter which other BSSIDs advertise the same SSID.
+            bssids.put(ap.getBssid(), ap);
+            if (ap.getSsid() != null) {
+                siblings(ap.getSsid()).add(ap);
+            }
+        }
+
+        if (!bssids.isEmpty() && learningStartedAt >= 0 && (startedAt < 0 || learningStartedAt < startedAt)) {
+            startedAt = learningStartedAt;
+        }
+    }
+
+    /**
+     * @return number of frames of new access points ignored because the inventory was full.
+     */
+    public synchronized long getIgnoredCount() {
+        return ignored;
+    }
+
+    @Nullable
+    private static String normalize(@Nullable String ssid) {
+        return ssid == null || ssid.trim().isEmpty() || ssid.equals("[no SSID]") ? null : ssid;
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.devices;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
+import horse.wtf.nzyme.util.TimingWheel;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Everything we know about one transmitter. Instances held by the {@link DeviceTable} are updated in place and must
+ * only be touched while holding its lock. Use {@link DeviceTable#get(long)} to get a copy.
+ */
+public class Device extends TimingWheel.Entry<Device> {
+
+    public static final int MAX_PROBED_SSIDS = 16;
+
+    /**
+     * Number of frame counts in a snapshot record, one per management frame subtype value. Fixed, so that the record
+     * layout does not depend on the subtypes nzyme handles. Bump Snapshot.VERSION when this changes.
+     */
+    public static final int SNAPSHOT_SUBTYPES = 16;
+
+    /**
+     * Size of the fixed width snapshot record written by {@link #writeTo(ByteBuffer)}. Probed SSIDs are not included.
+     */
+    public static final int SNAPSHOT_RECORD_SIZE = 8 * (4 + SNAPSHOT_SUBTYPES + 4);
+
+    private static final double RSSI_EWMA_ALPHA = 0.2;
+
+    private final long mac;
+    private final long firstSeen;
+    private long lastSeen;
+
+    private final long[] frameCounts;
+    private double rssiEwma;
+    private boolean hasRssi;
+    private final long[] channels;
+
+    private final String[] probedSsids;
+    private int probedSsidCount;
+
+    Device(long mac, long now) {
+        this.mac = mac;
+        this.firstSeen = now;
+        this.lastSeen = now;
+        this.frameCounts = new long[Dot11FrameSubtype.values().length];
+        this.channels = new long[4];
+        this.probedSsids = new String[MAX_PROBED_SSIDS];
+    }
+
+    private Device(Device device) {
+        this.mac = device.mac;
+        this.firstSeen = device.firstSeen;
+        this.lastSeen = device.lastSeen;
+        this.frameCounts = device.frameCounts.clone();
+        this.rssiEwma = device.rssiEwma;
+        this.hasRssi = device.hasRssi;
+        this.channels = device.channels.clone();
+        this.probedSsids = device.probedSsids.clone();
+        this.probedSsidCount = device.probedSsidCount;
+    }
+
+    void record(Dot11FrameSubtype subtype, int channel, int rssi, boolean hasSignal, long now) {
+        lastSeen = now;
+        frameCounts[subtype.ordinal()]++;
+
+        if (channel >= 0 && channel < channels.length * 64) {
+            channels[channel >>> 6] |= 1L << (channel & 63);
+        }
+
+        if (hasSignal) {
+            rssiEwma = hasRssi ? rssiEwma + RSSI_EWMA_ALPHA * (rssi - rssiEwma) : rssi;
+            hasRssi = true;
+        }
+    }
+
+    void recordProbedSsid(String ssid) {
+        for (int i = 0; i < probedSsidCount; i++) {
+            if (probedSsids[i].equals(ssid)) {
+                return;
+            }
+        }
+
+        if (probedSsidCount < MAX_PROBED_SSIDS) {
+            probedSsids[probedSsidCount++] = ssid;
+        }
+    }
+
+    Device copy() {
+        return new Device(this);
+    }
+
+    void writeTo(ByteBuffer target) {
+        target.putLong(mac);
+        target.putLong(firstSeen);
+        target.putLong(lastSeen);
+
+        int counts = target.position();
+        for (int i = 0; i < SNAPSHOT_SUBTYPES; i++) {
+            target.putLong(0);
+        }
+        for (Dot11FrameSubtype subtype : Dot11FrameSubtype.values()) {
+            if (subtype.getType() == Dot11FrameSubtype.Type.MANAGEMENT) {
+                target.putLong(counts + subtype.getValue() * 8, frameCounts[subtype.ordinal()]);
+            }
+        }
+
+        target.putDouble(getRssiEwma());
+        for (long channel : channels) {
+            target.putLong(channel);
+        }
+    }
+
+    static Device readFrom(ByteBuffer source) {
+        long mac = source.getLong();
+        Device device = new Device(mac, source.getLong());
+        device.lastSeen = source.getLong();
+
+        int counts = source.position();
+        for (Dot11FrameSubtype subtype : Dot11FrameSubtype.values()) {
+            if (subtype.getType() == Dot11FrameSubtype.Type.MANAGEMENT) {
+                device.frameCounts[subtype.ordinal()] = source.getLong(counts + subtype.getValue() * 8);
+            }
+        }
+        ((Buffer) source).position(counts + SNAPSHOT_SUBTYPES * 8);
+
+        double rssi = source.getDouble();
+        device.hasRssi = !Double.isNaN(rssi);
+        device.rssiEwma = device.hasRssi ? rssi : 0;
+
+        for (int i = 0; i < device.channels.length; i++) {
+            device.channels[i] = source.getLong();
+        }
+
+        return device;
+    }
+
+    public long getMac() {
+        return mac;
+    }
+
+    public String getMacString() {
+        return Dot11MacAddress.toString(mac);
+    }
+
+    public long getFirstSeen() {
+        return firstSeen;
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    public long getFrameCount(Dot11FrameSubtype subtype) {
+        return frameCounts[subtype.ordinal()];
+    }
+
+    public long getTotalFrameCount() {
+        long total = 0;
+        for (long count : frameCounts) {
+            total += count;
+        }
+
+        return total;
+    }
+
+    /**
+     * @return exponentially weighted moving average of the signal strength in dBm or NaN if unknown.
+     */
+    public double getRssiEwma() {
+        return hasRssi ? rssiEwma : Double.NaN;
+    }
+
+    public boolean wasSeenOnChannel(int channel) {
+        return channel >= 0 && channel < channels.length * 64 && (channels[channel >>> 6] & (1L << (channel & 63))) != 0;
+    }
+
+    /**
+     * @return the first MAX_PROBED_SSIDS different SSIDs this device probed for.
+     */
+    public String[] getProbedSsids() {
+        return Arrays.copyOf(probedSsids, probedSsidCount);
+    }
+
+}
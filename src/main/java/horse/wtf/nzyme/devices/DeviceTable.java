@@ -0,0 +1,224 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.devices;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.EventSubscriber;
+import horse.wtf.nzyme.events.FrameEvent;
+import horse.wtf.nzyme.events.ProbeRequestEvent;
+import horse.wtf.nzyme.util.LongObjectMap;
+import horse.wtf.nzyme.util.TimingWheel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded table of all transmitters seen recently, keyed by MAC address. Fed by the frame events on the event bus.
+ *
+ * Devices that were not seen for the TTL are evicted by a hashed {@link TimingWheel} with one second ticks: Every
+ * device is linked into the wheel slot of its expiry time. When the wheel reaches a slot, devices that were seen
+ * again in the meantime are moved to the slot of their new expiry time instead of being evicted. Updating a device
+ * therefore never touches the wheel and expiring only visits the devices of one slot per tick instead of the whole
+ * table.
+ *
+ * When the table is full, a device from the next non-empty wheel slot (approximately the one closest to expiry) is
+ * evicted to make room.
+ */
+public class DeviceTable implements EventSubscriber<FrameEvent>, TimingWheel.Handler<Device> {
+
+    private static final Logger LOG = LogManager.getLogger(DeviceTable.class);
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 512;
+
+    // Devices copied per lock acquisition when writing a snapshot, to keep the frame handlers from waiting long.
+    private static final int SNAPSHOT_CHUNK = 1024;
+
+    private final Nzyme nzyme;
+    private final int maxDevices;
+    private final long ttlMillis;
+
+    private final LongObjectMap<Device> devices;
+    private final TimingWheel<Device> wheel;
+
+    private long evicted = 0;
+
+    public DeviceTable(Nzyme nzyme, int maxDevices, int ttlMinutes) {
+        this.nzyme = nzyme;
+        this.maxDevices = maxDevices;
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+
+        this.devices = new LongObjectMap<>();
+        this.wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SLOTS, this);
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        nzyme.getEventBus().subscribeQueued("device-table", ImmutableList.of(FrameEvent.class), this);
+
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("device-table-%d")
+                .build()
+        ).scheduleWithFixedDelay(() -> {
+            try {
+                advance(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.error("Could not expire devices.", e);
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return maxDevices > 0;
+    }
+
+    @Override
+    public void handle(FrameEvent event) {
+        record(event, System.currentTimeMillis());
+    }
+
+    synchronized void record(FrameEvent event, long now) {
+        long mac = event.getTransmitter();
+        if (mac < 0) {
+            return;
+        }
+
+        Device device = devices.get(mac);
+        if (device == null) {
+            if (devices.size() >= maxDevices) {
+                evictOne();
+            }
+
+            device = new Device(mac, now);
+            devices.put(mac, device);
+            wheel.schedule(device, now + ttlMillis);
+        }
+
+        Dot11MetaInformation meta = event.getMeta();
+        if (meta == null) {
+            device.record(event.getSubtype(), -1, 0, false, now);
+        } else {
+            device.record(event.getSubtype(), meta.getChannel(), meta.getAntennaSignal(), true, now);
+        }
+
+        if (event instanceof ProbeRequestEvent && !((ProbeRequestEvent) event).isNullProbe()) {
+            device.recordProbedSsid(event.getSsid());
+        }
+    }
+
+    /**
+     * @return a copy of the device or null if it is not in the table.
+     */
+    @Nullable
+    public synchronized Device get(long mac) {
+        Device device = devices.get(mac);
+        return device == null ? null : device.copy();
+    }
+
+    public synchronized int size() {
+        return devices.size();
+    }
+
+    public synchronized long getEvictedCount() {
+        return evicted;
+    }
+
+    /**
+     * Writes fixed width records of all devices to the target buffer, as long as they fit. The table is only locked
+     * for small chunks of devices at a time, so frames can be handled while the snapshot is written.
+     *
+     * @return number of devices written.
+     */
+    public int writeTo(ByteBuffer target) {
+        long[] macs;
+        synchronized (this) {
+            macs = devices.keys();
+        }
+
+        int written = 0;
+        for (int chunk = 0; chunk < macs.length; chunk += SNAPSHOT_CHUNK) {
+            synchronized (this) {
+                for (int i = chunk; i < Math.min(chunk + SNAPSHOT_CHUNK, macs.length); i++) {
+                    Device device = devices.get(macs[i]);
+                    if (device == null || target.remaining() < Device.SNAPSHOT_RECORD_SIZE) {
+                        continue;
+                    }
+
+                    device.writeTo(target);
+                    written++;
+                }
+            }
+        }
+
+        return written;
+    }
+
+    /**
+     * Adds devices from records written by {@link #writeTo(ByteBuffer)}. Devices whose TTL passed are skipped.
+     */
+    public synchronized void readFrom(ByteBuffer source, int count, long now) {
+        for (int i = 0; i < count; i++) {
+            Device device = Device.readFrom(source);
+            if (now - device.getLastSeen() >= ttlMillis || devices.size() >= maxDevices
+                    || devices.get(device.getMac()) != null) {
+                continue;
+            }
+
+            devices.put(device.getMac(), device);
+            wheel.schedule(device, device.getLastSeen() + ttlMillis);
+        }
+    }
+
+    /**
+     * Advances the timing wheel to the given time, evicting all devices whose TTL passed.
+     */
+    synchronized void advance(long now) {
+        wheel.advance(now);
+    }
+
+    @Override
+    public long deadline(Device device) {
+        return device.getLastSeen() + ttlMillis;
+    }
+
+    @Override
+    public void expired(Device device, long now) {
+        devices.remove(device.getMac());
+        evicted++;
+    }
+
+    private void evictOne() {
+        Device device = wheel.poll();
+        if (device != null) {
+            devices.remove(device.getMac());
+            evicted++;
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.dot11;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Categories of 802.11 action frames. (IEEE 802.11-2016, 9.4.1.11)
+ */
+public class Dot11ActionCategory {
+
+    // Set in the category of action frames that are returned to their sender because they were not understood.
+    public static final int ERROR_BIT = 0x80;
+
+    private static final ImmutableMap<Integer, String> CATEGORIES = new ImmutableMap.Builder<Integer, String>()
+            .put(0, "Spectrum management")
+            .put(1, "QoS")
+            .put(2, "DLS")
+            .put(3, "Block Ack")
+            .put(4, "Public")
+            .put(5, "Radio measurement")
+            .put(6, "Fast BSS transition")
+            .put(7, "HT")
+            .put(8, "SA Query")
+            .put(9, "Protected Dual of Public Action")
+            .put(10, "WNM")
+            .put(11, "Unprotected WNM")
+            .put(12, "TDLS")
+            .put(13, "Mesh")
+            .put(14, "Multihop")
+            .put(15, "Self-protected")
+            .put(16, "DMG")
+            .put(18, "Fast session transfer")
+            .put(19, "Robust AV streaming")
+            .put(20, "Unprotected DMG")
+            .put(21, "VHT")
+            .put(126, "Vendor-specific protected")
+            .put(127, "Vendor-specific")
+            .build();
+
+    public static String lookup(int category) {
+        if (category < 0) {
+            return "Protected";
+        }
+
+        String name = CATEGORIES.get(category & ~ERROR_BIT);
+        if (name == null) {
+            name = "Unknown category (" + (category & ~ERROR_BIT) + ")";
+        }
+
+        return (category & ERROR_BIT) != 0 ? name + " (error)" : name;
+    }
+
+}
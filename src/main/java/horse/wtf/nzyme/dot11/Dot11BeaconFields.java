@@ -0,0 +1,242 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.dot11;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * Reads the fixed fields and information elements that beacons and probe responses share, without allocations.
+ */
+public class Dot11BeaconFields {
+
+    // Offsets of the fixed fields in beacon and probe response frames.
+    public static final int TIMESTAMP_POSITION = 24;
+    public static final int BEACON_INTERVAL_POSITION = 32;
+    public static final int CAPABILITIES_POSITION = 34;
+    public static final int TAGGED_PARAMETERS_POSITION = 36;
+
+    public static final int UNKNOWN = -1;
+
+    // Packed security information as returned by readSecurity().
+    public static final int SECURITY_PRIVACY = 1;
+    public static final int SECURITY_WPA = 1 << 1;
+    public static final int SECURITY_RSN = 1 << 2;
+    private static final int SECURITY_AKM_SHIFT = 8;
+    private static final int SECURITY_RSN_CAPABILITIES_SHIFT = 16;
+
+    private static final int CAPABILITY_PRIVACY = 1 << 4;
+
+    private static final int RSN_CAPABILITY_MFP_REQUIRED = 1 << 6;
+    private static final int RSN_CAPABILITY_MFP_CAPABLE = 1 << 7;
+
+    private static final int ELEMENT_DS_PARAMETER_SET = 3;
+    private static final int ELEMENT_RSN = 48;
+    private static final int ELEMENT_VENDOR_SPECIFIC = 221;
+
+    private static final String[] AKM_SUITES = {
+            "802.1X", "PSK", "FT-802.1X", "FT-PSK", "802.1X-SHA256", "PSK-SHA256", "TDLS", "SAE"
+    };
+
+    /**
+     * @return the TSF timer of the transmitter in microseconds or UNKNOWN if the payload is too short.
+     */
+    public static long readTimestamp(byte[] payload) {
+        if (payload.length < TIMESTAMP_POSITION + 8) {
+            return UNKNOWN;
+        }
+
+        long timestamp = 0;
+        for (int i = 7; i >= 0; i--) {
+            timestamp = timestamp << 8 | (payload[TIMESTAMP_POSITION + i] & 0xFF);
+        }
+
+        return timestamp;
+    }
+
+    /**
+     * @return the beacon interval in time units (1024 microseconds) or UNKNOWN if the payload is too short.
+     */
+    public static int readBeaconInterval(byte[] payload) {
+        if (payload.length < BEACON_INTERVAL_POSITION + 2) {
+            return UNKNOWN;
+        }
+
+        return readShort(payload, BEACON_INTERVAL_POSITION);
+    }
+
+    /**
+     * @return the channel from the DS parameter set element or UNKNOWN if the frame does not advertise one.
+     */
+    public static int readChannel(byte[] payload) {
+        int position = TAGGED_PARAMETERS_POSITION;
+        while (position + 2 <= payload.length) {
+            int id = payload[position] & 0xFF;
+            int length = payload[position + 1] & 0xFF;
+            int body = position + 2;
+
+            if (body + length > payload.length) {
+                break;
+            }
+
+            if (id == ELEMENT_DS_PARAMETER_SET && length >= 1) {
+                return payload[body] & 0xFF;
+            }
+
+            position = body + length;
+        }
+
+        return UNKNOWN;
+    }
+
+    /**
+     * Packs the privacy capability, presence of WPA and RSN elements, advertised AKM suites and RSN capabilities into
+     * an int. Two frames advertise the same security if the returned values are equal.
+     *
+     * @return the packed security information or UNKNOWN if the payload has no tagged parameters or the last one is
+     * truncated, because a missing RSN or WPA element would look like a downgrade.
+     */
+    public static int readSecurity(byte[] payload) {
+        if (payload.length < TAGGED_PARAMETERS_POSITION + 2) {
+            return UNKNOWN;
+        }
+
+        int security = 0;
+        if ((readShort(payload, CAPABILITIES_POSITION) & CAPABILITY_PRIVACY) != 0) {
+            security |= SECURITY_PRIVACY;
+        }
+
+        int position = TAGGED_PARAMETERS_POSITION;
+        while (position + 2 <= payload.length) {
+            int id = payload[position] & 0xFF;
+            int length = payload[position + 1] & 0xFF;
+            int body = position + 2;
+            int end = body + length;
+
+            if (end > payload.length) {
+                return UNKNOWN;
+            }
+
+            if (id == ELEMENT_RSN) {
+                // Version, then the suites.
+                security |= SECURITY_RSN | readSuites(payload, body + 2, end, true);
+            } else if (id == ELEMENT_VENDOR_SPECIFIC && length >= 6
+                    && payload[body] == 0x00 && payload[body + 1] == 0x50 && payload[body + 2] == (byte) 0xF2
+                    && payload[body + 3] == 0x01) {
+                // Microsoft WPA element: OUI, type and version, then the suites.
+                security |= SECURITY_WPA | readSuites(payload, body + 6, end, false);
+            }
+
+            position = end;
+        }
+
+        return security;
+    }
+
+    public static boolean isEncrypted(int security) {
+        return security != UNKNOWN && (security & (SECURITY_PRIVACY | SECURITY_WPA | SECURITY_RSN)) != 0;
+    }
+
+    /**
+     * @return a short description like "WPA2/PSK+SAE (MFP capable)", "WEP" or "open".
+     */
+    public static String securityToString(int security) {
+        if (security == UNKNOWN) {
+            return "unknown";
+        }
+
+        if ((security & (SECURITY_WPA | SECURITY_RSN)) == 0) {
+            return (security & SECURITY_PRIVACY) != 0 ? "WEP" : "open";
+        }
+
+        List<String> akms = Lists.newArrayList();
+        for (int i = 0; i < AKM_SUITES.length; i++) {
+            if ((security & (1 << (SECURITY_AKM_SHIFT + i))) != 0) {
+                akms.add(AKM_SUITES[i]);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if ((security & SECURITY_WPA) != 0) {
+            sb.append("WPA");
+        }
+        if ((security & SECURITY_RSN) != 0) {
+            sb.append(sb.length() > 0 ? "+" : "").append("WPA2");
+        }
+        if (!akms.isEmpty()) {
+            sb.append('/').append(Joiner.on('+').join(akms));
+        }
+
+        int capabilities = security >>> SECURITY_RSN_CAPABILITIES_SHIFT;
+        if ((capabilities & RSN_CAPABILITY_MFP_REQUIRED) != 0) {
+            sb.append(" (MFP required)");
+        } else if ((capabilities & RSN_CAPABILITY_MFP_CAPABLE) != 0) {
+            sb.append(" (MFP capable)");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Reads group cipher, pairwise cipher suites, AKM suites and, for RSN elements, the RSN capabilities. Stops at
+     * the first field that does not fit into the element, as all fields after the version are optional.
+     */
+    private static int readSuites(byte[] payload, int position, int end, boolean rsn) {
+        // Group cipher suite.
+        position += 4;
+
+        // Pairwise cipher suites.
+        if (position + 2 > end) {
+            return 0;
+        }
+        position += 2 + 4 * readShort(payload, position);
+
+        // AKM suites.
+        if (position + 2 > end) {
+            return 0;
+        }
+        int akmCount = readShort(payload, position);
+        position += 2;
+
+        int security = 0;
+        for (int i = 0; i < akmCount; i++, position += 4) {
+            if (position + 4 > end) {
+                return security;
+            }
+
+            int type = payload[position + 3] & 0xFF;
+            if (type >= 1 && type <= AKM_SUITES.length) {
+                security |= 1 << (SECURITY_AKM_SHIFT + type - 1);
+            }
+        }
+
+        if (rsn && position + 2 <= end) {
+            // Only the lower 15 bits are defined and this keeps the packed value positive.
+            security |= (readShort(payload, position) & 0x7FFF) << SECURITY_RSN_CAPABILITIES_SHIFT;
+        }
+
+        return security;
+    }
+
+    private static int readShort(byte[] payload, int position) {
+        return (payload[position] & 0xFF) | (payload[position + 1] & 0xFF) << 8;
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.dot11;
+
+import javax.annotation.Nullable;
+
+/**
+ * 802.11 frame subtypes handled by nzyme.
+ */
+public enum Dot11FrameSubtype {
+
+    ASSOC_REQ(Type.MANAGEMENT, 0, "assoc-req"),
+    ASSOC_RESP(Type.MANAGEMENT, 1, "assoc-resp"),
+    PROBE_REQ(Type.MANAGEMENT, 4, "probe-req"),
+    PROBE_RESP(Type.MANAGEMENT, 5, "probe-resp"),
+    BEACON(Type.MANAGEMENT, 8, "beacon"),
+    DISASSOC(Type.MANAGEMENT, 10, "disassoc"),
+    AUTH(Type.MANAGEMENT, 11, "auth"),
+    DEAUTH(Type.MANAGEMENT, 12, "deauth"),
+    REASSOC_REQ(Type.MANAGEMENT, 2, "reassoc-req"),
+    REASSOC_RESP(Type.MANAGEMENT, 3, "reassoc-resp"),
+    ACTION(Type.MANAGEMENT, 13, "action");
+
+    /**
+     * 802.11 frame types, by the value of the type bits of the frame control field.
+     */
+    public static final class Type {
+        public static final int MANAGEMENT = 0;
+        public static final int CONTROL = 1;
+        public static final int DATA = 2;
+        public static final int EXTENSION = 3;
+
+        private Type() {
+        }
+    }
+
+    // Number of distinct (type, subtype) combinations.
+    public static final int INDEX_COUNT = 64;
+
+    private final int type;
+    private final int value;
+    private final String name;
+
+    Dot11FrameSubtype(int type, int value, String name) {
+        this.type = type;
+        this.value = value;
+        this.name = name;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * @return the type in the upper and the subtype in the lower 4 bits. Unique across all frame types.
+     */
+    public int getIndex() {
+        return (type << 4) | value;
+    }
+
+    /**
+     * @return the index of a frame, like {@link #getIndex()}, from the first byte of its frame control field.
+     */
+    public static int indexOf(byte frameControl) {
+        return ((frameControl << 2) & 0x30) | ((frameControl >> 4) & 0x0F);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the subtype with the given name (like "probe-req") or null if there is none.
+     */
+    @Nullable
+    public static Dot11FrameSubtype fromName(String name) {
+        for (Dot11FrameSubtype subtype : values()) {
+            if (subtype.name.equals(name)) {
+                return subtype;
+            }
+        }
+
+        return null;
+    }
+
+}
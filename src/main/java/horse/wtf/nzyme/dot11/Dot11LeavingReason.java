@@ -100,7 +100,7 @@ public class Dot11LeavingReason {
     }
 
     public static short extract(byte[] payload, byte[] header) {
-        if(payload.length < DEAUTH_CONTENT_LENGTH+1) {
+        if(payload.length < DEAUTH_CONTENT_LENGTH+2) {
             return -1;
         }
 
@@ -0,0 +1,73 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.dot11;
+
+/**
+ * MAC addresses packed into the lower 48 bits of a long so they can be carried around without allocations.
+ */
+public class Dot11MacAddress {
+
+    // Offsets of the address fields in an 802.11 management frame header.
+    public static final int ADDRESS1_POSITION = 4;
+    public static final int ADDRESS2_POSITION = 10;
+    public static final int ADDRESS3_POSITION = 16;
+
+    public static final int MANAGEMENT_HEADER_LENGTH = 24;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * @return the address at the given offset or -1 if the payload is too short.
+     */
+    public static long read(byte[] payload, int offset) {
+        if (payload.length < offset + 6) {
+            return -1;
+        }
+
+        return (payload[offset] & 0xFFL) << 40
+                | (payload[offset + 1] & 0xFFL) << 32
+                | (payload[offset + 2] & 0xFFL) << 24
+                | (payload[offset + 3] & 0xFFL) << 16
+                | (payload[offset + 4] & 0xFFL) << 8
+                | (payload[offset + 5] & 0xFFL);
+    }
+
+    /**
+     * @return the address in the usual lowercase, colon separated notation. Empty string for addresses read
+     *         from a too short payload.
+     */
+    public static String toString(long address) {
+        if (address < 0) {
+            return "";
+        }
+
+        char[] chars = new char[17];
+        for (int i = 0; i < 6; i++) {
+            int b = (int) (address >>> (40 - i * 8)) & 0xFF;
+            chars[i * 3] = HEX[b >>> 4];
+            chars[i * 3 + 1] = HEX[b & 0x0F];
+
+            if (i < 5) {
+                chars[i * 3 + 2] = ':';
+            }
+        }
+
+        return new String(chars);
+    }
+
+}
@@ -20,24 +20,53 @@ package horse.wtf.nzyme.dot11;
 import horse.wtf.nzyme.channels.Frequencies;
 import org.pcap4j.packet.*;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class Dot11MetaInformation {
 
+    private static final int RADIOTAP_MIN_LENGTH = 8;
+
+    private static final int PRESENT_TSFT = 0;
+    private static final int PRESENT_FLAGS = 1;
+    private static final int PRESENT_CHANNEL = 3;
+    private static final int PRESENT_ANTENNA_SIGNAL = 5;
+    private static final int PRESENT_RX_FLAGS = 14;
+    private static final int PRESENT_AMPDU_STATUS = 20;
+    private static final int PRESENT_EXT = 31;
+
+    // Alignment and size of the radiotap fields by present bit, up to the last one defined in the first namespace.
+    private static final int[] FIELD_ALIGNMENTS = {8, 1, 1, 2, 1, 1, 1, 2, 2, 2, 1, 1, 1, 1, 2, 2, 1, 1, 4, 1, 4, 2, 8, 2, 2, 2, 1, 2};
+    private static final int[] FIELD_SIZES = {8, 1, 1, 4, 2, 1, 1, 2, 2, 2, 1, 1, 1, 1, 2, 2, 1, 1, 8, 3, 8, 12, 12, 12, 12, 6, 1, 4};
+
+    private static final int FLAG_WEP = 0x04;
+    private static final int FLAG_FCS = 0x10;
+    private static final int FLAG_BAD_FCS = 0x40;
+    private static final int RX_FLAG_BAD_PLCP_CRC = 0x0002;
+    private static final int AMPDU_DELIMITER_CRC_ERROR = 0x0010;
+
     private final boolean malformed;
     private final int antennaSignal;
     private final int frequency;
     private final int channel;
     private final long macTimestamp;
     private final boolean isWep;
+    private final int radiotapLength;
+    private final boolean hasFcs;
+    private final int flagsOffset;
 
-    private Dot11MetaInformation(boolean malformed, int antennaSignal, int frequency, int channel, long macTimestamp, boolean isWep) {
+    private Dot11MetaInformation(boolean malformed, int antennaSignal, int frequency, int channel, long macTimestamp,
+                                 boolean isWep, int radiotapLength, boolean hasFcs, int flagsOffset) {
         this.malformed = malformed;
         this.antennaSignal = antennaSignal;
         this.channel = channel;
         this.frequency = frequency;
         this.macTimestamp = macTimestamp;
         this.isWep = isWep;
+        this.radiotapLength = radiotapLength;
+        this.hasFcs = hasFcs;
+        this.flagsOffset = flagsOffset;
     }
 
     public boolean isMalformed() {
@@ -64,6 +93,126 @@ public class Dot11MetaInformation {
         return isWep;
     }
 
+    /**
+     * @return the length of the radiotap header in front of the 802.11 frame.
+     */
+    public int getRadiotapLength() {
+        return radiotapLength;
+    }
+
+    /**
+     * @return true if the 4 byte frame check sequence is included at the end of the 802.11 frame.
+     */
+    public boolean hasFcs() {
+        return hasFcs;
+    }
+
+    /**
+     * Rebuilds a captured frame from its radiotap header and the 802.11 frame the FCS was stripped from. Clears the FCS
+     * flag in the copied header so that the result decodes like the original frame.
+     */
+    public byte[] reassemble(byte[] header, byte[] payload) {
+        byte[] frame = Arrays.copyOf(header, header.length + payload.length);
+        System.arraycopy(payload, 0, frame, header.length, payload.length);
+
+        if (hasFcs && flagsOffset >= 0 && flagsOffset < header.length) {
+            frame[flagsOffset] &= ~FLAG_FCS;
+        }
+
+        return frame;
+    }
+
+    /**
+     * Parses the radiotap header of a captured frame without decoding it into pcap4j packets first.
+     *
+     * @return the meta information or null if the radiotap header is invalid or truncated.
+     */
+    @Nullable
+    public static Dot11MetaInformation parse(byte[] frame) {
+        if (frame.length < RADIOTAP_MIN_LENGTH || frame[0] != 0) {
+            return null;
+        }
+
+        int length = readShort(frame, 2);
+        if (length < RADIOTAP_MIN_LENGTH || length > frame.length) {
+            return null;
+        }
+
+        int present = readInt(frame, 4);
+
+        // Skip extended present bitmaps. Fields of other namespaces are not used.
+        int offset = 8;
+        int word = present;
+        while ((word & (1 << PRESENT_EXT)) != 0) {
+            if (offset + 4 > length) {
+                return null;
+            }
+            word = readInt(frame, offset);
+            offset += 4;
+        }
+
+        int antennaSignal = 0;
+        int frequency = 0;
+        int channel = -1;
+        int flags = 0;
+        int flagsOffset = -1;
+        int rxFlags = 0;
+        int ampduFlags = 0;
+        long macTimestamp = -1;
+
+        for (int bit = 0; bit < FIELD_SIZES.length; bit++) {
+            if ((present & (1 << bit)) == 0) {
+                continue;
+            }
+
+            int alignment = FIELD_ALIGNMENTS[bit];
+            offset = (offset + alignment - 1) & ~(alignment - 1);
+            if (offset + FIELD_SIZES[bit] > length) {
+                return null;
+            }
+
+            switch (bit) {
+                case PRESENT_TSFT:
+                    macTimestamp = readInt(frame, offset) & 0xFFFFFFFFL | ((long) readInt(frame, offset + 4) << 32);
+                    break;
+                case PRESENT_FLAGS:
+                    flags = frame[offset] & 0xFF;
+                    flagsOffset = offset;
+                    break;
+                case PRESENT_CHANNEL:
+                    frequency = readShort(frame, offset);
+                    channel = Frequencies.frequencyToChannel(frequency);
+                    break;
+                case PRESENT_ANTENNA_SIGNAL:
+                    antennaSignal = frame[offset];
+                    break;
+                case PRESENT_RX_FLAGS:
+                    rxFlags = readShort(frame, offset);
+                    break;
+                case PRESENT_AMPDU_STATUS:
+                    ampduFlags = readShort(frame, offset + 4);
+                    break;
+            }
+
+            offset += FIELD_SIZES[bit];
+        }
+
+        boolean malformed = (flags & FLAG_BAD_FCS) != 0
+                || (rxFlags & RX_FLAG_BAD_PLCP_CRC) != 0
+                || (ampduFlags & AMPDU_DELIMITER_CRC_ERROR) != 0;
+
+        return new Dot11MetaInformation(malformed, antennaSignal, frequency, channel, macTimestamp,
+                (flags & FLAG_WEP) != 0, length, (flags & FLAG_FCS) != 0, flagsOffset);
+    }
+
+    private static int readShort(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int readInt(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8 | (b[offset + 2] & 0xFF) << 16 | (b[offset + 3] & 0xFF) << 24;
+    }
+
     public static Dot11MetaInformation parse(ArrayList<RadiotapPacket.RadiotapData> dataFields) {
         int antennaSignal = 0;
         int frequency = 0;
@@ -93,7 +242,7 @@ public class Dot11MetaInformation {
             }
         }
 
-        return new Dot11MetaInformation( delimiterCrcError || badPlcpCrc || badFcs, antennaSignal, frequency, channel, macTimestamp, isWep);
+        return new Dot11MetaInformation( delimiterCrcError || badPlcpCrc || badFcs, antennaSignal, frequency, channel, macTimestamp, isWep, 0, false, -1);
     }
 
 }
@@ -0,0 +1,44 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.dot11;
+
+/**
+ * Why a frame was counted as malformed. Parsers return these instead of throwing, because malformed frames are
+ * common on noisy channels.
+ */
+public enum MalformedReason {
+
+    BAD_RADIOTAP("bad_radiotap"),
+    BAD_CHECKSUM("bad_checksum"),
+    TRUNCATED("truncated"),
+    INVALID_SSID("invalid_ssid"),
+    INVALID_ELEMENTS("invalid_elements"),
+    INVALID_FIELD("invalid_field"),
+    UNDECODABLE("undecodable");
+
+    private final String name;
+
+    MalformedReason(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import horse.wtf.nzyme.dot11.Dot11ActionCategory;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+public class ActionEvent extends FrameEvent {
+
+    private final long destination;
+    private final long bssid;
+    private final short category;
+    private final short action;
+
+    /**
+     * @param category The action category or -1 if the frame body is encrypted.
+     * @param action The action within the category or -1 if the frame has none or its body is encrypted.
+     */
+    public ActionEvent(Dot11MetaInformation meta, long transmitter, long destination, long bssid, short category,
+                       short action) {
+        super(meta, transmitter);
+        this.destination = destination;
+        this.bssid = bssid;
+        this.category = category;
+        this.action = action;
+    }
+
+    public long getDestination() {
+        return destination;
+    }
+
+    public long getBssid() {
+        return bssid;
+    }
+
+    public short getCategory() {
+        return category;
+    }
+
+    public short getAction() {
+        return action;
+    }
+
+    @Override
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.ACTION;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return buildNotification(MessageTemplate.ACTION)
+                .addMacField(FieldNames.DESTINATION, destination)
+                .addMacField(FieldNames.BSSID, bssid)
+                .addField(FieldNames.ACTION_CATEGORY_CODE, category)
+                .addField(FieldNames.ACTION_CATEGORY, Dot11ActionCategory.lookup(category))
+                .addField(FieldNames.ACTION_CODE, action);
+    }
+
+}
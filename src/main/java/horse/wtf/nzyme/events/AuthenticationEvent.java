@@ -0,0 +1,108 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+public class AuthenticationEvent extends FrameEvent {
+
+    public enum Algorithm {
+        OPEN_SYSTEM, SHARED_KEY
+    }
+
+    private final long destination;
+    private final Algorithm algorithm;
+    private final short transactionSequence;
+    private final short statusCode;
+
+    public AuthenticationEvent(Dot11MetaInformation meta, long transmitter, long destination, Algorithm algorithm,
+                               short transactionSequence, short statusCode) {
+        super(meta, transmitter);
+        this.destination = destination;
+        this.algorithm = algorithm;
+        this.transactionSequence = transactionSequence;
+        this.statusCode = statusCode;
+    }
+
+    public long getDestination() {
+        return destination;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public short getTransactionSequence() {
+        return transactionSequence;
+    }
+
+    public short getStatusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.AUTH;
+    }
+
+    @Override
+    public Notification toNotification() {
+        String status;
+        switch(statusCode) {
+            case 0:
+                status = "SUCCESS";
+                break;
+            case 1:
+                status = "FAILURE";
+                break;
+            default:
+                status = "Invalid/Unknown (" + statusCode + ")";
+                break;
+        }
+
+        return buildNotification(template())
+                .addMacField(FieldNames.DESTINATION, destination)
+                .addField(FieldNames.RESPONSE_CODE, statusCode)
+                .addField(FieldNames.RESPONSE_STRING, status)
+                .addField(FieldNames.AUTH_ALGORITHM, algorithm == Algorithm.OPEN_SYSTEM ? "open_system" : "shared_key")
+                .addField(FieldNames.TRANSACTION_SEQUENCE_NUMBER, transactionSequence)
+                .addField(FieldNames.IS_WEP, algorithm == Algorithm.SHARED_KEY);
+    }
+
+    private MessageTemplate template() {
+        if (algorithm == Algorithm.OPEN_SYSTEM) {
+            return transactionSequence == 1 ? MessageTemplate.AUTH_OPEN_REQUEST : MessageTemplate.AUTH_OPEN_RESPONSE;
+        }
+
+        switch (transactionSequence) {
+            case 1:
+                return MessageTemplate.AUTH_WEP_REQUEST;
+            case 2:
+                return MessageTemplate.AUTH_WEP_CHALLENGE;
+            case 3:
+                return MessageTemplate.AUTH_WEP_CHALLENGE_RESPONSE;
+            default:
+                return MessageTemplate.AUTH_WEP_RESPONSE;
+        }
+    }
+
+}
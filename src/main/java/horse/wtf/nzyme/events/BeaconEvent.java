@@ -0,0 +1,106 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import horse.wtf.nzyme.dot11.Dot11BeaconFields;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+import javax.annotation.Nullable;
+
+public class BeaconEvent extends FrameEvent {
+
+    @Nullable
+    private final String ssid;
+
+    private final long timestamp;
+    private final int beaconInterval;
+    private final int advertisedChannel;
+    private final int security;
+
+    public BeaconEvent(Dot11MetaInformation meta, long transmitter, @Nullable String ssid) {
+        this(meta, transmitter, ssid, Dot11BeaconFields.UNKNOWN, Dot11BeaconFields.UNKNOWN,
+                Dot11BeaconFields.UNKNOWN, Dot11BeaconFields.UNKNOWN);
+    }
+
+    public BeaconEvent(Dot11MetaInformation meta, long transmitter, @Nullable String ssid, long timestamp,
+                       int beaconInterval, int advertisedChannel, int security) {
+        super(meta, transmitter);
+        this.ssid = ssid;
+        this.timestamp = timestamp;
+        this.beaconInterval = beaconInterval;
+        this.advertisedChannel = advertisedChannel;
+        this.security = security;
+    }
+
+    /**
+     * @return the SSID or null for broadcast beacons and beacons with malformed SSIDs.
+     */
+    @Nullable
+    @Override
+    public String getSsid() {
+        return ssid;
+    }
+
+    /**
+     * @return the TSF timer of the transmitter in microseconds or Dot11BeaconFields.UNKNOWN.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the beacon interval in time units or Dot11BeaconFields.UNKNOWN.
+     */
+    public int getBeaconInterval() {
+        return beaconInterval;
+    }
+
+    /**
+     * @return the channel from the DS parameter set or Dot11BeaconFields.UNKNOWN.
+     */
+    public int getAdvertisedChannel() {
+        return advertisedChannel;
+    }
+
+    /**
+     * @return the packed security information (See Dot11BeaconFields) or Dot11BeaconFields.UNKNOWN.
+     */
+    public int getSecurity() {
+        return security;
+    }
+
+    public boolean isBroadcast() {
+        return ssid == null || ssid.trim().isEmpty();
+    }
+
+    @Override
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.BEACON;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return buildNotification(isBroadcast() ? MessageTemplate.BEACON_BROADCAST : MessageTemplate.BEACON)
+                .addField(FieldNames.SSID, ssid == null ? "[no SSID]" : ssid);
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11LeavingReason;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+public class DeauthenticationEvent extends FrameEvent {
+
+    private final long destination;
+    private final long bssid;
+    private final short reasonCode;
+
+    public DeauthenticationEvent(Dot11MetaInformation meta, long transmitter, long destination, long bssid, short reasonCode) {
+        super(meta, transmitter);
+        this.destination = destination;
+        this.bssid = bssid;
+        this.reasonCode = reasonCode;
+    }
+
+    public long getDestination() {
+        return destination;
+    }
+
+    public long getBssid() {
+        return bssid;
+    }
+
+    public short getReasonCode() {
+        return reasonCode;
+    }
+
+    @Override
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.DEAUTH;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return buildNotification(MessageTemplate.DEAUTH)
+                .addMacField(FieldNames.DESTINATION, destination)
+                .addMacField(FieldNames.BSSID, bssid)
+                .addField(FieldNames.REASON_CODE, reasonCode)
+                .addField(FieldNames.REASON_STRING, Dot11LeavingReason.lookup(reasonCode));
+    }
+
+}
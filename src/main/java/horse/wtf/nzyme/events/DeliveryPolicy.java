@@ -0,0 +1,33 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+public enum DeliveryPolicy {
+
+    /**
+     * Events are handed to the subscriber on the publishing thread. Use only for cheap, non-blocking subscribers.
+     */
+    SYNCHRONOUS,
+
+    /**
+     * Events are put into a bounded queue that is drained by a dedicated thread of the subscriber. Events are
+     * dropped and counted if the queue is full, so a slow subscriber never blocks the capture thread.
+     */
+    QUEUED
+
+}
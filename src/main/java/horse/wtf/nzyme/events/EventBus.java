@@ -0,0 +1,203 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.statistics.Statistics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process publish/subscribe of {@link Event}s. Handlers publish typed events and never need to know who consumes
+ * them. Every subscriber chooses its own {@link DeliveryPolicy}.
+ */
+public class EventBus {
+
+    private static final Logger LOG = LogManager.getLogger(EventBus.class);
+
+    private final String name;
+    private final int queueSize;
+    @Nullable
+    private final Statistics statistics;
+    private final List<Subscription<?>> subscriptions;
+
+    public EventBus(String name) {
+        this(name, 0, null);
+    }
+
+    /**
+     * @param queueSize Queue capacity of subscribers that subscribe with {@link #subscribeQueued}. 0 delivers their
+     *                  events synchronously instead.
+     * @param statistics Counts events dropped because the queue of a subscriber was full.
+     */
+    public EventBus(String name, int queueSize, @Nullable Statistics statistics) {
+        this.name = name;
+        this.queueSize = queueSize;
+        this.statistics = statistics;
+        this.subscriptions = Lists.newCopyOnWriteArrayList();
+    }
+
+    /**
+     * Subscribes to all events of the given type and its subtypes, delivered synchronously.
+     */
+    public <T extends Event> void subscribe(String subscriberName, Class<T> type, EventSubscriber<? super T> subscriber) {
+        subscribe(subscriberName, type, DeliveryPolicy.SYNCHRONOUS, 0, subscriber);
+    }
+
+    /**
+     * Subscribes to all events of the given type and its subtypes.
+     *
+     * @param queueSize Capacity of the queue of QUEUED subscribers. Ignored for SYNCHRONOUS subscribers.
+     */
+    public <T extends Event> void subscribe(String subscriberName, Class<T> type, DeliveryPolicy policy, int queueSize,
+                                            EventSubscriber<? super T> subscriber) {
+        subscribe(subscriberName, ImmutableList.of(type), policy, queueSize, subscriber);
+    }
+
+    /**
+     * Subscribes to all events of the given types and their subtypes through a single queue and thread, so that the
+     * subscriber sees them in the order they were published. Uses the queue size of the bus and falls back to
+     * synchronous delivery if it is 0.
+     */
+    public <T extends Event> void subscribeQueued(String subscriberName, List<Class<? extends T>> types,
+                                                  EventSubscriber<? super T> subscriber) {
+        if (queueSize > 0) {
+            subscribe(subscriberName, types, DeliveryPolicy.QUEUED, queueSize, subscriber);
+        } else {
+            subscribe(subscriberName, types, DeliveryPolicy.SYNCHRONOUS, 0, subscriber);
+        }
+    }
+
+    private <T extends Event> void subscribe(String subscriberName, List<Class<? extends T>> types, DeliveryPolicy policy,
+                                             int queueSize, EventSubscriber<? super T> subscriber) {
+        Subscription<T> subscription = new Subscription<>(subscriberName, types, policy, queueSize, subscriber, statistics);
+        if (policy == DeliveryPolicy.QUEUED) {
+            subscription.start(name);
+        }
+
+        subscriptions.add(subscription);
+    }
+
+    public void publish(Event event) {
+        for (Subscription<?> subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * @return number of events dropped because the queue of the given subscriber was full.
+     */
+    public long getDroppedCount(String subscriberName) {
+        long dropped = 0;
+        for (Subscription<?> subscription : subscriptions) {
+            if (subscription.name.equals(subscriberName)) {
+                dropped += subscription.dropped.get();
+            }
+        }
+
+        return dropped;
+    }
+
+    private static final class Subscription<T extends Event> {
+
+        private final String name;
+        private final List<Class<? extends T>> types;
+        private final DeliveryPolicy policy;
+        private final EventSubscriber<? super T> subscriber;
+        @Nullable
+        private final Statistics statistics;
+
+        private final BlockingQueue<T> queue;
+        private final AtomicLong dropped;
+
+        private Subscription(String name, List<Class<? extends T>> types, DeliveryPolicy policy, int queueSize,
+                             EventSubscriber<? super T> subscriber, @Nullable Statistics statistics) {
+            this.name = name;
+            this.types = ImmutableList.copyOf(types);
+            this.policy = policy;
+            this.subscriber = subscriber;
+            this.statistics = statistics;
+
+            this.queue = policy == DeliveryPolicy.QUEUED ? new ArrayBlockingQueue<>(queueSize) : null;
+            this.dropped = new AtomicLong(0);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void offer(Event event) {
+            if (!accepts(event)) {
+                return;
+            }
+
+            // Every subscribed type is a subtype of T.
+            T typed = (T) event;
+            if (policy == DeliveryPolicy.SYNCHRONOUS) {
+                deliver(typed);
+            } else if (!queue.offer(typed)) {
+                dropped.incrementAndGet();
+                if (statistics != null) {
+                    statistics.tickEventDropped(name);
+                }
+            }
+        }
+
+        private boolean accepts(Event event) {
+            for (Class<? extends T> type : types) {
+                if (type.isInstance(event)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private void deliver(T event) {
+            try {
+                subscriber.handle(event);
+            } catch (Exception e) {
+                LOG.error("Subscriber [{}] could not handle event.", name, e);
+            }
+        }
+
+        private void start(String busName) {
+            Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("eventbus-" + busName + "-" + name + "-%d")
+                    .build()
+            ).submit(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        deliver(queue.take());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+    }
+
+}
@@ -15,7 +15,11 @@
  *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-package horse.wtf.nzyme.dot11;
+package horse.wtf.nzyme.events;
+
+@FunctionalInterface
+public interface EventSubscriber<T extends Event> {
+
+    void handle(T event);
 
-public class MalformedFrameException extends Throwable {
 }
@@ -0,0 +1,66 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+import javax.annotation.Nullable;
+
+/**
+ * A parsed 802.11 management frame. MAC addresses are packed into longs. (See Dot11MacAddress)
+ */
+public abstract class FrameEvent implements Event {
+
+    private final Dot11MetaInformation meta;
+    private final long transmitter;
+
+    protected FrameEvent(Dot11MetaInformation meta, long transmitter) {
+        this.meta = meta;
+        this.transmitter = transmitter;
+    }
+
+    public abstract Dot11FrameSubtype getSubtype();
+
+    public long getTransmitter() {
+        return transmitter;
+    }
+
+    /**
+     * @return the SSID for frames that carry one, null otherwise.
+     */
+    @Nullable
+    public String getSsid() {
+        return null;
+    }
+
+    @Override
+    public Dot11MetaInformation getMeta() {
+        return meta;
+    }
+
+    protected Notification buildNotification(MessageTemplate template) {
+        return new Notification(template, meta.getChannel())
+                .addMacField(FieldNames.TRANSMITTER, transmitter)
+                .addField(FieldNames.SUBTYPE, getSubtype().getName());
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.Notification;
+
+import javax.annotation.Nullable;
+
+/**
+ * A notification that is not about a single frame, like aggregated summaries or malformed frames.
+ */
+public class NotificationEvent implements Event {
+
+    private final Notification notification;
+
+    @Nullable
+    private final Dot11MetaInformation meta;
+
+    public NotificationEvent(Notification notification, @Nullable Dot11MetaInformation meta) {
+        this.notification = notification;
+        this.meta = meta;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return notification;
+    }
+
+    @Nullable
+    @Override
+    public Dot11MetaInformation getMeta() {
+        return meta;
+    }
+
+}
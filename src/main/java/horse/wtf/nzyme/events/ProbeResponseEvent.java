@@ -0,0 +1,93 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import horse.wtf.nzyme.dot11.Dot11BeaconFields;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+public class ProbeResponseEvent extends FrameEvent {
+
+    private final long destination;
+    private final String ssid;
+
+    private final int beaconInterval;
+    private final int advertisedChannel;
+    private final int security;
+
+    public ProbeResponseEvent(Dot11MetaInformation meta, long transmitter, long destination, String ssid) {
+        this(meta, transmitter, destination, ssid,
+                Dot11BeaconFields.UNKNOWN, Dot11BeaconFields.UNKNOWN, Dot11BeaconFields.UNKNOWN);
+    }
+
+    public ProbeResponseEvent(Dot11MetaInformation meta, long transmitter, long destination, String ssid,
+                              int beaconInterval, int advertisedChannel, int security) {
+        super(meta, transmitter);
+        this.destination = destination;
+        this.ssid = ssid;
+        this.beaconInterval = beaconInterval;
+        this.advertisedChannel = advertisedChannel;
+        this.security = security;
+    }
+
+    public long getDestination() {
+        return destination;
+    }
+
+    @Override
+    public String getSsid() {
+        return ssid;
+    }
+
+    /**
+     * @return the beacon interval in time units or Dot11BeaconFields.UNKNOWN.
+     */
+    public int getBeaconInterval() {
+        return beaconInterval;
+    }
+
+    /**
+     * @return the channel from the DS parameter set or Dot11BeaconFields.UNKNOWN.
+     */
+    public int getAdvertisedChannel() {
+        return advertisedChannel;
+    }
+
+    /**
+     * @return the packed security information (See Dot11BeaconFields) or Dot11BeaconFields.UNKNOWN.
+     */
+    public int getSecurity() {
+        return security;
+    }
+
+    @Override
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.PROBE_RESP;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return buildNotification(MessageTemplate.PROBE_RESPONSE)
+                .addMacField(FieldNames.DESTINATION, destination)
+                .addField(FieldNames.SSID, ssid);
+    }
+
+}
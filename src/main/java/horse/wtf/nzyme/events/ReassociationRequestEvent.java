@@ -0,0 +1,60 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+/**
+ * A client roaming to another access point of the same network. Subscribers of association requests receive these,
+ * too.
+ */
+public class ReassociationRequestEvent extends AssociationRequestEvent {
+
+    private final long currentAp;
+
+    public ReassociationRequestEvent(Dot11MetaInformation meta, long transmitter, long destination, String ssid,
+                                     long currentAp) {
+        super(meta, transmitter, destination, ssid);
+        this.currentAp = currentAp;
+    }
+
+    /**
+     * @return the access point the client is currently associated with.
+     */
+    public long getCurrentAp() {
+        return currentAp;
+    }
+
+    @Override
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.REASSOC_REQ;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return buildNotification(MessageTemplate.REASSOC_REQUEST)
+                .addMacField(FieldNames.DESTINATION, getDestination())
+                .addField(FieldNames.SSID, getSsid())
+                .addMacField(FieldNames.CURRENT_AP, currentAp);
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+/**
+ * Subscribers of association responses receive these, too.
+ */
+public class ReassociationResponseEvent extends AssociationResponseEvent {
+
+    public ReassociationResponseEvent(Dot11MetaInformation meta, long transmitter, long destination, short responseCode) {
+        super(meta, transmitter, destination, responseCode);
+    }
+
+    @Override
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.REASSOC_RESP;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return buildNotification(isSuccess() ? MessageTemplate.REASSOC_RESPONSE_SUCCESS : MessageTemplate.REASSOC_RESPONSE_REFUSED)
+                .addMacField(FieldNames.DESTINATION, getDestination())
+                .addField(FieldNames.RESPONSE_CODE, getResponseCode())
+                .addField(FieldNames.RESPONSE_STRING, isSuccess() ? "success" : "refused");
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.handlers;
+
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.events.ActionEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Action frames carry roaming (fast BSS transition, BSS transition management), spectrum management (channel switch
+ * announcements), block ack agreements and more. Only the category and action are parsed.
+ */
+public class ActionFrameHandler extends FrameHandler {
+
+    private static final Logger LOG = LogManager.getLogger(ActionFrameHandler.class);
+
+    private static final int PROTECTED_FLAG = 0x40;
+    private static final int CATEGORY_POSITION = 24;
+    private static final int ACTION_POSITION = 25;
+
+    public ActionFrameHandler(Nzyme nzyme) {
+        super(nzyme);
+    }
+
+    @Override
+    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) {
+        tick();
+
+        // The body of protected action frames is encrypted.
+        boolean isProtected = payload.length > 1 && (payload[1] & PROTECTED_FLAG) != 0;
+
+        if (payload.length < (isProtected ? Dot11MacAddress.MANAGEMENT_HEADER_LENGTH : CATEGORY_POSITION + 1)) {
+            malformed(payload, header, meta, MalformedReason.TRUNCATED);
+            LOG.trace("Skipping truncated action frame.");
+            return;
+        }
+
+        short category = -1;
+        short action = -1;
+        if (!isProtected) {
+            category = (short) (payload[CATEGORY_POSITION] & 0xFF);
+
+            if (payload.length > ACTION_POSITION) {
+                action = (short) (payload[ACTION_POSITION] & 0xFF);
+            }
+        }
+
+        long destination = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS1_POSITION);
+        long transmitter = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS2_POSITION);
+        long bssid = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS3_POSITION);
+
+        publish(new ActionEvent(meta, transmitter, destination, bssid, category, action));
+    }
+
+    @Override
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.ACTION;
+    }
+
+}
@@ -18,15 +18,14 @@
 package horse.wtf.nzyme.handlers;
 
 import horse.wtf.nzyme.Nzyme;
-import horse.wtf.nzyme.dot11.Dot11ManagementFrame;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.events.AssociationRequestEvent;
 import horse.wtf.nzyme.dot11.Dot11SSID;
-import horse.wtf.nzyme.dot11.MalformedFrameException;
-import horse.wtf.nzyme.notifications.FieldNames;
-import horse.wtf.nzyme.notifications.Notification;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.pcap4j.packet.IllegalRawDataException;
 
 public class AssociationRequestFrameHandler extends FrameHandler {
 
@@ -40,50 +39,31 @@ public class AssociationRequestFrameHandler extends FrameHandler {
     }
 
     @Override
-    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) throws IllegalRawDataException {
+    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) {
         tick();
 
-        Dot11ManagementFrame associationRequest = Dot11ManagementFrame.newPacket(payload, 0, payload.length);
-
-        String destination = "";
-        if(associationRequest.getHeader().getAddress1() != null) {
-            destination = associationRequest.getHeader().getAddress1().toString();
-        }
-
-        String transmitter = "";
-        if(associationRequest.getHeader().getAddress2() != null) {
-            transmitter = associationRequest.getHeader().getAddress2().toString();
+        if (payload.length < Dot11MacAddress.MANAGEMENT_HEADER_LENGTH) {
+            malformed(payload, header, meta, MalformedReason.TRUNCATED);
+            LOG.trace("Skipping truncated assoc-req frame.");
+            return;
         }
 
-        String ssid = null;
-        try {
-            ssid = Dot11SSID.extractSSID(SSID_LENGTH_POSITION, SSID_POSITION, payload);
-        } catch (MalformedFrameException e) {
-            malformed(meta);
-            LOG.trace("Skipping malformed assoc-req frame.");
-        }
+        long destination = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS1_POSITION);
+        long transmitter = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS2_POSITION);
 
+        String ssid = Dot11SSID.extractSSID(SSID_LENGTH_POSITION, SSID_POSITION, payload);
         if (ssid == null) {
-            ssid = "[no SSID]";
+            malformed(payload, header, meta, MalformedReason.INVALID_SSID);
+            LOG.trace("Skipping malformed assoc-req frame.");
+            return;
         }
 
-        String message = transmitter + " is requesting to associate with " + ssid + " at " + destination;
-
-        nzyme.notify(
-                new Notification(message, meta.getChannel())
-                        .addField(FieldNames.TRANSMITTER, transmitter)
-                        .addField(FieldNames.DESTINATION, destination)
-                        .addField(FieldNames.SSID, ssid)
-                        .addField(FieldNames.SUBTYPE, "assoc-req"),
-                meta
-        );
-
-        LOG.debug(message);
+        publish(new AssociationRequestEvent(meta, transmitter, destination, ssid));
     }
 
     @Override
-    public String getName() {
-        return "assoc-req";
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.ASSOC_REQ;
     }
 
 }
@@ -18,13 +18,13 @@
 package horse.wtf.nzyme.handlers;
 
 import horse.wtf.nzyme.Nzyme;
-import horse.wtf.nzyme.dot11.Dot11ManagementFrame;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
-import horse.wtf.nzyme.notifications.FieldNames;
-import horse.wtf.nzyme.notifications.Notification;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.events.AssociationResponseEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.pcap4j.packet.IllegalRawDataException;
 import org.pcap4j.util.ByteArrays;
 
 import java.nio.ByteOrder;
@@ -41,61 +41,40 @@ public class AssociationResponseFrameHandler extends FrameHandler {
     }
 
     @Override
-    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) throws IllegalRawDataException {
+    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) {
         tick();
 
-        Dot11ManagementFrame associationResponse = Dot11ManagementFrame.newPacket(payload, 0, payload.length);
-
         // Check bounds for response code field.
-        try {
-            ByteArrays.validateBounds(payload, 0, STATUS_CODE_POSITION+STATUS_CODE_LENGTH-1);
-        } catch(Exception e) {
-            malformed(meta);
+        if (payload.length < STATUS_CODE_POSITION+STATUS_CODE_LENGTH) {
+            malformed(payload, header, meta, MalformedReason.TRUNCATED);
             LOG.trace("Payload out of bounds. (1) Ignoring.");
             return;
         }
 
         // Parse the response code. 0 means success any other value means failure.
-        short responseCode = ByteArrays.getShort(new byte[]{payload[26], payload[27]}, 0, ByteOrder.LITTLE_ENDIAN);
+        short responseCode = ByteArrays.getShort(payload, STATUS_CODE_POSITION, ByteOrder.LITTLE_ENDIAN);
 
         if(responseCode < 0) {
             LOG.trace("Invalid response code <{}>.", responseCode);
             return;
         }
 
-        String response = "refused";
-        if (responseCode == 0) {
-            response = "success";
-        }
-
-        String destination = "";
-        if(associationResponse.getHeader().getAddress1() != null) {
-            destination = associationResponse.getHeader().getAddress1().toString();
-        }
-
-        String transmitter = "";
-        if(associationResponse.getHeader().getAddress2() != null) {
-            transmitter = associationResponse.getHeader().getAddress2().toString();
-        }
-
-        String message = transmitter + " answered association request from " + destination
-                + ". Response: " + response.toUpperCase() + " (" + responseCode + ")";
+        long destination = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS1_POSITION);
+        long transmitter = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS2_POSITION);
 
-        nzyme.notify(
-                new Notification(message, meta.getChannel())
-                        .addField(FieldNames.TRANSMITTER, transmitter)
-                        .addField(FieldNames.DESTINATION, destination)
-                        .addField(FieldNames.RESPONSE_CODE, responseCode)
-                        .addField(FieldNames.RESPONSE_STRING, response)
-                        .addField(FieldNames.SUBTYPE, "assoc-resp"),
-                meta
-        );
+        publish(buildEvent(meta, transmitter, destination, responseCode));
+    }
 
-        LOG.debug(message);
+    /**
+     * Reassociation responses look the same and only differ in their event.
+     */
+    protected AssociationResponseEvent buildEvent(Dot11MetaInformation meta, long transmitter, long destination,
+                                                  short responseCode) {
+        return new AssociationResponseEvent(meta, transmitter, destination, responseCode);
     }
 
     @Override
-    public String getName() {
-        return "assoc-resp";
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.ASSOC_RESP;
     }
 }
@@ -17,85 +17,63 @@
 
 package horse.wtf.nzyme.handlers;
 
-import horse.wtf.nzyme.*;
-import horse.wtf.nzyme.dot11.Dot11ManagementFrame;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11BeaconFields;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.events.BeaconEvent;
 import horse.wtf.nzyme.dot11.Dot11SSID;
-import horse.wtf.nzyme.dot11.MalformedFrameException;
-import horse.wtf.nzyme.notifications.FieldNames;
-import horse.wtf.nzyme.notifications.Notification;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.pcap4j.packet.IllegalRawDataException;
-
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class BeaconFrameHandler extends FrameHandler {
 
     private static final int SSID_LENGTH_POSITION = 37;
     private static final int SSID_POSITION = 38;
 
-    private final AtomicInteger sampleCount;
-
     private static final Logger LOG = LogManager.getLogger(BeaconFrameHandler.class);
 
     public BeaconFrameHandler(Nzyme nzyme) {
         super(nzyme);
-
-        this.sampleCount = new AtomicInteger(0);
     }
 
     @Override
-    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) throws IllegalRawDataException {
+    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) {
         tick();
-        if(nzyme.getConfiguration().getBeaconSamplingRate() != 0) { // skip this completely if sampling is disabled
-            if (sampleCount.getAndIncrement() == nzyme.getConfiguration().getBeaconSamplingRate()) {
-                sampleCount.set(0);
-            } else {
-                return;
-            }
-        }
 
-        Dot11ManagementFrame beacon = Dot11ManagementFrame.newPacket(payload, 0, payload.length);
+        if (payload.length < Dot11MacAddress.MANAGEMENT_HEADER_LENGTH) {
+            malformed(payload, header, meta, MalformedReason.TRUNCATED);
+            LOG.trace("Skipping truncated beacon frame.");
+            return;
+        }
 
-        String ssid = null;
-        try {
-            ssid = Dot11SSID.extractSSID(SSID_LENGTH_POSITION, SSID_POSITION, payload);
-        } catch (MalformedFrameException e) {
-            malformed(meta);
+        String ssid = Dot11SSID.extractSSID(SSID_LENGTH_POSITION, SSID_POSITION, payload);
+        if (ssid == null) {
+            malformed(payload, header, meta, MalformedReason.INVALID_SSID);
             LOG.trace("Skipping malformed beacon frame.");
+            return;
         }
 
-        String transmitter = "";
-        if(beacon.getHeader().getAddress2() != null) {
-            transmitter = beacon.getHeader().getAddress2().toString();
-        }
+        long transmitter = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS2_POSITION);
 
-        String message;
-        if (ssid != null && !ssid.trim().isEmpty()) {
-            message = "Received beacon from " + transmitter + " for SSID " + ssid;
+        if (!ssid.trim().isEmpty()) {
             nzyme.getStatistics().tickBeaconedNetwork(ssid);
-        } else {
-            // Broadcast beacon.
-            message = "Received broadcast beacon from " + transmitter;
         }
 
         nzyme.getStatistics().tickAccessPoint(transmitter);
 
-        nzyme.notify(
-                new Notification(message, meta.getChannel())
-                        .addField(FieldNames.TRANSMITTER, transmitter)
-                        .addField(FieldNames.SSID, ssid == null ? "[no SSID]" : ssid)
-                        .addField(FieldNames.SUBTYPE, "beacon"),
-                meta
-        );
-
-        LOG.debug(message);
+        publish(new BeaconEvent(meta, transmitter, ssid,
+                Dot11BeaconFields.readTimestamp(payload),
+                Dot11BeaconFields.readBeaconInterval(payload),
+                Dot11BeaconFields.readChannel(payload),
+                Dot11BeaconFields.readSecurity(payload)));
     }
 
     @Override
-    public String getName() {
-        return "beacon";
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.BEACON;
     }
 
 }
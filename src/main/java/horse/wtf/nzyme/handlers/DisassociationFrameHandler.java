@@ -19,13 +19,13 @@ package horse.wtf.nzyme.handlers;
 
 import horse.wtf.nzyme.Nzyme;
 import horse.wtf.nzyme.dot11.Dot11LeavingReason;
-import horse.wtf.nzyme.dot11.Dot11ManagementFrame;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
-import horse.wtf.nzyme.notifications.FieldNames;
-import horse.wtf.nzyme.notifications.Notification;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.events.DisassociationEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.pcap4j.packet.IllegalRawDataException;
 
 public class DisassociationFrameHandler extends FrameHandler {
 
@@ -36,43 +36,25 @@ public class DisassociationFrameHandler extends FrameHandler {
     }
 
     @Override
-    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) throws IllegalRawDataException {
+    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) {
         tick();
 
-        Dot11ManagementFrame disassociationRequest = Dot11ManagementFrame.newPacket(payload, 0, payload.length);
-
-        String destination = "";
-        if(disassociationRequest.getHeader().getAddress1() != null) {
-            destination = disassociationRequest.getHeader().getAddress1().toString();
-        }
-
-        String transmitter = "";
-        if(disassociationRequest.getHeader().getAddress2() != null) {
-            transmitter = disassociationRequest.getHeader().getAddress2().toString();
+        if (payload.length < Dot11MacAddress.MANAGEMENT_HEADER_LENGTH) {
+            malformed(payload, header, meta, MalformedReason.TRUNCATED);
+            LOG.trace("Skipping truncated disassoc frame.");
+            return;
         }
 
-        // Reason.
-        short reasonCode = Dot11LeavingReason.extract(payload, header);
-        String reasonString = Dot11LeavingReason.lookup(reasonCode);
-
-        String message = transmitter + " is disassociating from " + destination + " (" + reasonString + ")";
-
-        nzyme.notify(
-                new Notification(message, meta.getChannel())
-                        .addField(FieldNames.TRANSMITTER, transmitter)
-                        .addField(FieldNames.DESTINATION, destination)
-                        .addField(FieldNames.REASON_CODE, reasonCode)
-                        .addField(FieldNames.REASON_STRING, reasonString)
-                        .addField(FieldNames.SUBTYPE, "disassoc"),
-                meta
-        );
+        long destination = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS1_POSITION);
+        long transmitter = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS2_POSITION);
+        long bssid = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS3_POSITION);
 
-        LOG.debug(message);
+        publish(new DisassociationEvent(meta, transmitter, destination, bssid, Dot11LeavingReason.extract(payload, header)));
     }
 
     @Override
-    public String getName() {
-        return "disassoc";
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.DISASSOC;
     }
 
 }
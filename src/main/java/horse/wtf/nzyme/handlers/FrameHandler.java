@@ -18,15 +18,25 @@
 package horse.wtf.nzyme.handlers;
 
 import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
-import org.pcap4j.packet.IllegalRawDataException;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.events.FrameEvent;
+import horse.wtf.nzyme.processing.FramePriority;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 public abstract class FrameHandler {
 
+    private static final Logger LOG = LogManager.getLogger(FrameHandler.class);
+
     protected final Nzyme nzyme;
 
+    private FramePriority priority;
+
     protected FrameHandler(Nzyme nzyme) {
         this.nzyme = nzyme;
+        this.priority = FramePriority.defaultFor(getSubtype());
     }
 
     protected void tick() {
@@ -34,11 +44,38 @@ public abstract class FrameHandler {
 
     }
 
-    public void malformed(Dot11MetaInformation meta) {
-        nzyme.getStatistics().tickMalformedCountAndNotify(nzyme, meta);
+    protected void publish(FrameEvent event) {
+        nzyme.getEventBus().publish(event);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(event.toNotification().getMessage());
+        }
+    }
+
+    public void malformed(byte[] payload, byte[] header, Dot11MetaInformation meta, MalformedReason reason) {
+        nzyme.getMalformedFrameReporter().report(header, payload, meta, reason);
     }
 
-    public abstract void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) throws IllegalRawDataException;
-    public abstract String getName();
+    /**
+     * Parses and publishes a frame. Must not throw for malformed frames but report them with
+     * {@link #malformed(byte[], byte[], Dot11MetaInformation, MalformedReason)}.
+     */
+    public abstract void handle(byte[] payload, byte[] header, Dot11MetaInformation meta);
+    public abstract Dot11FrameSubtype getSubtype();
+
+    public String getName() {
+        return getSubtype().getName();
+    }
+
+    /**
+     * @return the priority class of this handler's frames when the sensor is overloaded and has to shed load.
+     */
+    public FramePriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(FramePriority priority) {
+        this.priority = priority;
+    }
 
 }
@@ -0,0 +1,33 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.handlers;
+
+import horse.wtf.nzyme.Nzyme;
+
+import java.util.List;
+
+/**
+ * Supplies frame handlers to the {@link horse.wtf.nzyme.processing.FrameDispatcher}. Implementations are found with
+ * {@link java.util.ServiceLoader}: list them in META-INF/services/horse.wtf.nzyme.handlers.FrameHandlerProvider of a
+ * jar on the classpath to add handlers for more frame subtypes without changing nzyme itself.
+ */
+public interface FrameHandlerProvider {
+
+    List<FrameHandler> create(Nzyme nzyme);
+
+}
@@ -0,0 +1,47 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.handlers;
+
+import com.google.common.collect.ImmutableList;
+import horse.wtf.nzyme.Nzyme;
+
+import java.util.List;
+
+/**
+ * The management frame handlers that ship with nzyme.
+ */
+public class ManagementFrameHandlers implements FrameHandlerProvider {
+
+    @Override
+    public List<FrameHandler> create(Nzyme nzyme) {
+        return ImmutableList.of(
+                new AssociationRequestFrameHandler(nzyme),
+                new AssociationResponseFrameHandler(nzyme),
+                new ProbeRequestFrameHandler(nzyme),
+                new ProbeResponseFrameHandler(nzyme),
+                new BeaconFrameHandler(nzyme),
+                new DisassociationFrameHandler(nzyme),
+                new AuthenticationFrameHandler(nzyme),
+                new DeauthenticationFrameHandler(nzyme),
+                new ReassociationRequestFrameHandler(nzyme),
+                new ReassociationResponseFrameHandler(nzyme),
+                new ActionFrameHandler(nzyme)
+        );
+    }
+
+}
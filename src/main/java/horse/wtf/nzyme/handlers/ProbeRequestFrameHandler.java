@@ -17,91 +17,98 @@
 
 package horse.wtf.nzyme.handlers;
 
-import horse.wtf.nzyme.*;
+import horse.wtf.nzyme.Main;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.Tools;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
-import horse.wtf.nzyme.notifications.FieldNames;
-import horse.wtf.nzyme.notifications.Notification;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.events.ProbeRequestEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.pcap4j.packet.Dot11ProbeRequestPacket;
-import org.pcap4j.packet.IllegalRawDataException;
 
+import java.nio.charset.StandardCharsets;
 import java.text.Normalizer;
 
 public class ProbeRequestFrameHandler extends FrameHandler {
 
     private static final Logger LOG = LogManager.getLogger(Main.class);
 
+    private static final int ORDER_FLAG = 0x80;
+    private static final int HT_CONTROL_LENGTH = 4;
+    private static final byte SSID_ELEMENT_ID = 0;
+    private static final int MAX_SSID_LENGTH = 32;
+
     public ProbeRequestFrameHandler(Nzyme nzyme) {
         super(nzyme);
     }
 
     @Override
-    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) throws IllegalRawDataException  {
+    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) {
         tick();
 
-        Dot11ProbeRequestPacket probeRequest = Dot11ProbeRequestPacket.newPacket(payload, 0, payload.length);
-
-        if (probeRequest.getHeader() == null) {
-            malformed(meta);
-            LOG.trace("Malformed header in probe request packet. Skipping.");
+        if (payload.length < Dot11MacAddress.MANAGEMENT_HEADER_LENGTH) {
+            malformed(payload, header, meta, MalformedReason.TRUNCATED);
+            LOG.trace("Skipping truncated probe-req frame.");
             return;
         }
 
-        String ssid;
-        boolean nullProbe = false;
-        if (probeRequest.getHeader().getSsid() != null) {
-            // Check if the SSID is valid UTF-8 (might me malformed frame)
-            if(!Tools.isValidUTF8(probeRequest.getHeader().getSsid().getRawData())) {
-                malformed(meta);
-                LOG.trace("Malformed SSID in probe request packet. Skipping.");
-                return;
-            }
-
-            ssid = Normalizer.normalize(probeRequest.getHeader().getSsid().getSsid(), Normalizer.Form.NFD);
-
-            if (ssid.trim().isEmpty()) {
-                ssid = "NULL";
-                nullProbe = true;
-            }
-        } else {
-            malformed(meta);
+        // Probe requests have no fixed fields. The SSID is the first element after the header and its HT control field.
+        int ssidElement = Dot11MacAddress.MANAGEMENT_HEADER_LENGTH + ((payload[1] & ORDER_FLAG) != 0 ? HT_CONTROL_LENGTH : 0);
+        if (payload.length < ssidElement + 2 || payload[ssidElement] != SSID_ELEMENT_ID) {
+            malformed(payload, header, meta, MalformedReason.INVALID_SSID);
             LOG.trace("Malformed SSID in probe request packet. Skipping.");
             return;
         }
 
-        String requester;
-        if (probeRequest.getHeader().getAddress2() != null) {
-            requester = Normalizer.normalize(probeRequest.getHeader().getAddress2().toString(), Normalizer.Form.NFD);
-        } else {
-            malformed(meta);
+        if (!validElements(payload, ssidElement)) {
+            malformed(payload, header, meta, MalformedReason.INVALID_ELEMENTS);
+            LOG.trace("Malformed information elements in probe request packet. Skipping.");
+            return;
+        }
+
+        int ssidLength = payload[ssidElement + 1] & 0xFF;
+        if (ssidLength > MAX_SSID_LENGTH || !Tools.isValidUTF8(payload, ssidElement + 2, ssidLength)) {
+            malformed(payload, header, meta, MalformedReason.INVALID_SSID);
             LOG.trace("Malformed SSID in probe request packet. Skipping.");
             return;
         }
 
-        String message;
-        if(!nullProbe) {
-            message = "Probe request: " + requester + " is looking for " + ssid;
-        } else {
-            message = "Probe request: " + requester + " is looking for any network. (null probe request)";
+        String ssid = Normalizer.normalize(new String(payload, ssidElement + 2, ssidLength, StandardCharsets.UTF_8),
+                Normalizer.Form.NFD);
+
+        boolean nullProbe = false;
+        if (ssid.trim().isEmpty()) {
+            ssid = "NULL";
+            nullProbe = true;
         }
 
+        long requester = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS2_POSITION);
+
         nzyme.getStatistics().tickProbingDevice(requester);
 
-        nzyme.notify(
-                new Notification(message, meta.getChannel())
-                        .addField(FieldNames.SSID, ssid)
-                        .addField(FieldNames.TRANSMITTER, requester)
-                        .addField(FieldNames.SUBTYPE, "probe-req"),
-                meta
-        );
+        publish(new ProbeRequestEvent(meta, requester, ssid, nullProbe));
+    }
+
+    /**
+     * @return true if the information elements from the given position on exactly fill the rest of the payload.
+     */
+    private static boolean validElements(byte[] payload, int position) {
+        while (position < payload.length) {
+            if (position + 2 > payload.length) {
+                return false;
+            }
+
+            position += 2 + (payload[position + 1] & 0xFF);
+        }
 
-        LOG.debug(message);
+        return position == payload.length;
     }
 
     @Override
-    public String getName() {
-        return "probe-req";
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.PROBE_REQ;
     }
 
 }
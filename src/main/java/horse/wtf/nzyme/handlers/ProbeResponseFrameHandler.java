@@ -18,15 +18,15 @@
 package horse.wtf.nzyme.handlers;
 
 import horse.wtf.nzyme.Nzyme;
-import horse.wtf.nzyme.dot11.Dot11ManagementFrame;
+import horse.wtf.nzyme.dot11.Dot11BeaconFields;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.events.ProbeResponseEvent;
 import horse.wtf.nzyme.dot11.Dot11SSID;
-import horse.wtf.nzyme.dot11.MalformedFrameException;
-import horse.wtf.nzyme.notifications.FieldNames;
-import horse.wtf.nzyme.notifications.Notification;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.pcap4j.packet.IllegalRawDataException;
 
 public class ProbeResponseFrameHandler extends FrameHandler {
 
@@ -40,50 +40,34 @@ public class ProbeResponseFrameHandler extends FrameHandler {
     }
 
     @Override
-    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) throws IllegalRawDataException {
+    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) {
         tick();
 
-        Dot11ManagementFrame probeReponse = Dot11ManagementFrame.newPacket(payload, 0, payload.length);
-
-        String ssid = null;
-        try {
-            ssid = Dot11SSID.extractSSID(SSID_LENGTH_POSITION, SSID_POSITION, payload);
-        } catch (MalformedFrameException e) {
-            malformed(meta);
-            LOG.trace("Skipping malformed probe-resp frame.");
+        if (payload.length < Dot11MacAddress.MANAGEMENT_HEADER_LENGTH) {
+            malformed(payload, header, meta, MalformedReason.TRUNCATED);
+            LOG.trace("Skipping truncated probe-resp frame.");
+            return;
         }
 
+        String ssid = Dot11SSID.extractSSID(SSID_LENGTH_POSITION, SSID_POSITION, payload);
         if (ssid == null) {
-            ssid = "[no SSID]";
-        }
-
-        String destination = "";
-        if (probeReponse.getHeader().getAddress1() != null) {
-            destination = probeReponse.getHeader().getAddress1().toString();
-        }
-
-        String transmitter = "";
-        if (probeReponse.getHeader().getAddress2() != null) {
-            transmitter = probeReponse.getHeader().getAddress2().toString();
+            malformed(payload, header, meta, MalformedReason.INVALID_SSID);
+            LOG.trace("Skipping malformed probe-resp frame.");
+            return;
         }
 
-        String message = transmitter + " responded to probe request from " + destination + " for " + ssid;
-
-        nzyme.notify(
-                new Notification(message, meta.getChannel())
-                        .addField(FieldNames.DESTINATION, destination)
-                        .addField(FieldNames.TRANSMITTER, transmitter)
-                        .addField(FieldNames.SSID, ssid)
-                        .addField(FieldNames.SUBTYPE, "probe-resp"),
-                meta
-        );
+        long destination = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS1_POSITION);
+        long transmitter = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS2_POSITION);
 
-        LOG.debug(message);
+        publish(new ProbeResponseEvent(meta, transmitter, destination, ssid,
+                Dot11BeaconFields.readBeaconInterval(payload),
+                Dot11BeaconFields.readChannel(payload),
+                Dot11BeaconFields.readSecurity(payload)));
     }
 
     @Override
-    public String getName() {
-        return "probe-resp";
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.PROBE_RESP;
     }
 
 }
@@ -0,0 +1,72 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.handlers;
+
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.Dot11SSID;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.events.ReassociationRequestEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+public class ReassociationRequestFrameHandler extends FrameHandler {
+
+    private static final Logger LOG = LogManager.getLogger(ReassociationRequestFrameHandler.class);
+
+    // After capability information and listen interval.
+    private static final int CURRENT_AP_POSITION = 28;
+    private static final int SSID_LENGTH_POSITION = 35;
+    private static final int SSID_POSITION = 36;
+
+    public ReassociationRequestFrameHandler(Nzyme nzyme) {
+        super(nzyme);
+    }
+
+    @Override
+    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) {
+        tick();
+
+        if (payload.length < CURRENT_AP_POSITION + 6) {
+            malformed(payload, header, meta, MalformedReason.TRUNCATED);
+            LOG.trace("Skipping truncated reassoc-req frame.");
+            return;
+        }
+
+        long destination = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS1_POSITION);
+        long transmitter = Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS2_POSITION);
+        long currentAp = Dot11MacAddress.read(payload, CURRENT_AP_POSITION);
+
+        String ssid = Dot11SSID.extractSSID(SSID_LENGTH_POSITION, SSID_POSITION, payload);
+        if (ssid == null) {
+            malformed(payload, header, meta, MalformedReason.INVALID_SSID);
+            LOG.trace("Skipping malformed reassoc-req frame.");
+            return;
+        }
+
+        publish(new ReassociationRequestEvent(meta, transmitter, destination, ssid, currentAp));
+    }
+
+    @Override
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.REASSOC_REQ;
+    }
+
+}
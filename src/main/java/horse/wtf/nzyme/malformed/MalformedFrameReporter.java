@@ -0,0 +1,182 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.malformed;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts malformed frames per channel and {@link MalformedReason} and publishes one {@link MalformedFramesEvent} per
+ * channel and report interval instead of a notification per frame. Noisy channels produce mostly malformed frames.
+ *
+ * Optionally writes the first raw frames of every reason and interval to a {@link MalformedSampleFile} for
+ * debugging. Without a report interval, only the first frames of every reason are written.
+ */
+public class MalformedFrameReporter {
+
+    private static final Logger LOG = LogManager.getLogger(MalformedFrameReporter.class);
+
+    private static final int REASONS = MalformedReason.values().length;
+
+    // Frames without radiotap information are counted on this channel, like in the statistics.
+    private static final int NO_CHANNEL = 0;
+
+    private final Nzyme nzyme;
+    private final long intervalMillis;
+
+    // Counts of the current interval by channel, indexed by reason.
+    private final ConcurrentMap<Integer, AtomicLongArray> counts;
+    private volatile long intervalStarted;
+
+    @Nullable
+    private final MalformedSampleFile sampleFile;
+    private final int sampleFrames;
+
+    // Frames sampled during the current interval, indexed by reason.
+    private final AtomicIntegerArray sampled;
+
+    /**
+     * @param intervalSeconds Interval of summary notifications. 0 disables them, malformed frames are only counted in
+     *                        the statistics then.
+     * @param sampleFile File to write sampled raw frames to or null to not sample frames.
+     * @param sampleFrames Number of frames per reason and interval to write to the sample file.
+     */
+    public MalformedFrameReporter(Nzyme nzyme, int intervalSeconds, @Nullable MalformedSampleFile sampleFile,
+                                  int sampleFrames) {
+        this.nzyme = nzyme;
+        this.intervalMillis = TimeUnit.SECONDS.toMillis(intervalSeconds);
+        this.counts = new ConcurrentHashMap<>();
+        this.intervalStarted = System.currentTimeMillis();
+
+        this.sampleFile = sampleFile;
+        this.sampleFrames = sampleFrames;
+        this.sampled = new AtomicIntegerArray(REASONS);
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("malformed-reporter-%d")
+                .build()
+        ).scheduleWithFixedDelay(() -> {
+            try {
+                flush(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.error("Could not report malformed frames.", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return intervalMillis > 0;
+    }
+
+    /**
+     * Reports a frame that was rejected before it reached a frame handler.
+     *
+     * @param frame The captured frame, radiotap header included.
+     * @param meta Radiotap information or null if the radiotap header could not be parsed.
+     */
+    public void report(byte[] frame, @Nullable Dot11MetaInformation meta, MalformedReason reason) {
+        count(meta, reason);
+
+        if (shouldSample(reason)) {
+            sampleFile.write(frame);
+        }
+    }
+
+    /**
+     * Reports a frame that a frame handler rejected.
+     *
+     * @param header The radiotap header.
+     * @param payload The 802.11 frame without FCS.
+     */
+    public void report(byte[] header, byte[] payload, Dot11MetaInformation meta, MalformedReason reason) {
+        count(meta, reason);
+
+        if (shouldSample(reason)) {
+            sampleFile.write(meta.reassemble(header, payload));
+        }
+    }
+
+    private void count(@Nullable Dot11MetaInformation meta, MalformedReason reason) {
+        nzyme.getStatistics().tickMalformedCount(meta, reason);
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        int channel = meta == null ? NO_CHANNEL : meta.getChannel();
+        AtomicLongArray channelCounts = counts.get(channel);
+        if (channelCounts == null) {
+            channelCounts = counts.computeIfAbsent(channel, c -> new AtomicLongArray(REASONS));
+        }
+
+        channelCounts.incrementAndGet(reason.ordinal());
+    }
+
+    private boolean shouldSample(MalformedReason reason) {
+        return sampleFile != null
+                && sampled.get(reason.ordinal()) < sampleFrames
+                && sampled.getAndIncrement(reason.ordinal()) < sampleFrames;
+    }
+
+    /**
+     * Publishes a summary event for every channel that saw malformed frames since the last flush and starts a new
+     * interval.
+     */
+    public void flush(long now) {
+        long started = intervalStarted;
+        intervalStarted = now;
+
+        for (Map.Entry<Integer, AtomicLongArray> channel : counts.entrySet()) {
+            long[] channelCounts = new long[REASONS];
+            long total = 0;
+            for (int i = 0; i < REASONS; i++) {
+                channelCounts[i] = channel.getValue().getAndSet(i, 0);
+                total += channelCounts[i];
+            }
+
+            if (total > 0) {
+                nzyme.getEventBus().publish(new MalformedFramesEvent(channel.getKey(), channelCounts, started, now));
+            }
+        }
+
+        for (int i = 0; i < REASONS; i++) {
+            sampled.set(i, 0);
+        }
+    }
+
+}
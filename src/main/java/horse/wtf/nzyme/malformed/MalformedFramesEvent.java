@@ -0,0 +1,105 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.malformed;
+
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import javax.annotation.Nullable;
+
+/**
+ * Summary of the malformed frames seen on one channel during one report interval.
+ */
+public class MalformedFramesEvent implements Event {
+
+    private final int channel;
+    private final long[] counts;
+    private final long intervalStarted;
+    private final long intervalEnded;
+
+    /**
+     * @param counts Number of malformed frames, indexed by {@link MalformedReason} ordinal.
+     */
+    MalformedFramesEvent(int channel, long[] counts, long intervalStarted, long intervalEnded) {
+        this.channel = channel;
+        this.counts = counts;
+        this.intervalStarted = intervalStarted;
+        this.intervalEnded = intervalEnded;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    public long getCount(MalformedReason reason) {
+        return counts[reason.ordinal()];
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+
+        return total;
+    }
+
+    public MalformedReason getMostCommonReason() {
+        MalformedReason[] reasons = MalformedReason.values();
+
+        int most = 0;
+        for (int i = 1; i < counts.length; i++) {
+            if (counts[i] > counts[most]) {
+                most = i;
+            }
+        }
+
+        return reasons[most];
+    }
+
+    @Nullable
+    @Override
+    public Dot11MetaInformation getMeta() {
+        return null;
+    }
+
+    @Override
+    public Notification toNotification() {
+        Notification notification = new Notification(MessageTemplate.MALFORMED_SUMMARY, channel)
+                .addField(FieldNames.SUBTYPE, "malformed")
+                .addField(FieldNames.AGGREGATED_COUNT, getTotal())
+                .addField(FieldNames.MALFORMED_REASON, getMostCommonReason().getName())
+                .addField(FieldNames.FIRST_SEEN, new DateTime(intervalStarted, DateTimeZone.UTC).toString())
+                .addField(FieldNames.LAST_SEEN, new DateTime(intervalEnded, DateTimeZone.UTC).toString());
+
+        for (MalformedReason reason : MalformedReason.values()) {
+            if (counts[reason.ordinal()] > 0) {
+                notification.addField(FieldNames.MALFORMED_COUNT_PREFIX + reason.getName(), counts[reason.ordinal()]);
+            }
+        }
+
+        return notification;
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.malformed;
+
+import horse.wtf.nzyme.capture.PcapFileWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pcap file that samples of malformed frames are written to. There is one for all interfaces, shared by their
+ * {@link MalformedFrameReporter}s, because every interface opening the same file would truncate it. Stops writing
+ * once the file reached its maximum size.
+ */
+public class MalformedSampleFile {
+
+    private static final Logger LOG = LogManager.getLogger(MalformedSampleFile.class);
+
+    private final PcapFileWriter writer;
+    private final long maxBytes;
+
+    // Guarded by this.
+    private long bytes;
+    private boolean full;
+
+    /**
+     * Creates or truncates the file at the given path.
+     */
+    public MalformedSampleFile(Path path, long maxBytes) throws IOException {
+        this(new PcapFileWriter(path), maxBytes);
+    }
+
+    MalformedSampleFile(PcapFileWriter writer, long maxBytes) {
+        this.writer = writer;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param frame The captured frame, radiotap header included.
+     */
+    public synchronized void write(byte[] frame) {
+        if (full) {
+            return;
+        }
+
+        if (bytes + frame.length > maxBytes) {
+            LOG.warn("Malformed frame sample file reached its maximum size. Not sampling any more frames.");
+            full = true;
+            return;
+        }
+
+        // Samples are rare. Flush every one of them, so the file can be read while nzyme is running.
+        try {
+            writer.write(frame, TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+            writer.flush();
+            bytes += frame.length;
+        } catch (IOException e) {
+            LOG.warn("Could not write malformed frame sample. Not sampling any more frames.", e);
+            full = true;
+        }
+    }
+
+}
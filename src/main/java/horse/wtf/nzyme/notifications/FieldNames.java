@@ -25,15 +25,66 @@ public class FieldNames {
     public static final String TRANSMITTER = "transmitter";
     public static final String DESTINATION = "destination";
     public static final String BSSID = "bssid";
+    public static final String CLIENT = "client";
+    public static final String CURRENT_AP = "current_ap";
 
     public static final String RESPONSE_CODE = "response_code";
     public static final String RESPONSE_STRING = "response_string";
     public static final String REASON_CODE = "reason_code";
     public static final String REASON_STRING = "reason_string";
 
+    public static final String MALFORMED_REASON = "malformed_reason";
+    // Followed by the name of the reason, like malformed_bad_checksum.
+    public static final String MALFORMED_COUNT_PREFIX = "malformed_";
+
     public static final String IS_WEP = "is_wep";
     public static final String TRANSACTION_SEQUENCE_NUMBER = "transaction_sequence_number";
 
     public static final String AUTH_ALGORITHM = "authentication_algorithm";
 
+    public static final String ACTION_CATEGORY = "action_category";
+    public static final String ACTION_CATEGORY_CODE = "action_category_code";
+    public static final String ACTION_CODE = "action_code";
+
+    public static final String AGGREGATED_COUNT = "aggregated_count";
+    public static final String FIRST_SEEN = "first_seen";
+    public static final String LAST_SEEN = "last_seen";
+    public static final String SIGNAL_MIN = "signal_min";
+    public static final String SIGNAL_MAX = "signal_max";
+    public static final String SIGNAL_MEAN = "signal_mean";
+
+    public static final String SUPPRESSED_COUNT = "suppressed_count";
+
+    public static final String FLOOD_TARGET = "flood_target";
+    public static final String FLOOD_TARGET_TYPE = "flood_target_type";
+    public static final String FLOOD_RATE = "flood_rate";
+    public static final String FLOOD_FRAMES = "flood_frames";
+    public static final String FLOOD_DURATION_SECONDS = "flood_duration_seconds";
+    public static final String FLOOD_SOURCES = "flood_sources";
+    public static final String FLOOD_REASON_CODES = "flood_reason_codes";
+
+    public static final String OVERLOAD_LEVEL = "overload_level";
+    public static final String OVERLOAD_CHANGED_SUBTYPES = "overload_changed_subtypes";
+    public static final String OVERLOAD_EXCLUDED_SUBTYPES = "overload_excluded_subtypes";
+    public static final String OVERLOAD_DROPPED_RATE = "overload_dropped_rate";
+
+    public static final String AP_CHANGE = "ap_change";
+    public static final String AP_SECURITY = "ap_security";
+    public static final String AP_PREVIOUS_CHANNEL = "ap_previous_channel";
+    public static final String AP_PREVIOUS_SECURITY = "ap_previous_security";
+    public static final String AP_SECURITY_MISMATCH = "ap_security_mismatch";
+    public static final String AP_KNOWN_BSSIDS = "ap_known_bssids";
+
+    public static final String BEACON_CLOCK_ANOMALY = "beacon_clock_anomaly";
+    public static final String BEACON_CLOCK_SKEW_MICROS = "beacon_clock_skew_micros";
+    public static final String BEACON_JITTER_MICROS = "beacon_jitter_micros";
+
+    public static final String SESSION_OUTCOME = "session_outcome";
+    public static final String SESSION_STATE = "session_state";
+    public static final String SESSION_REASON = "session_reason";
+    public static final String SESSION_AUTH_MILLIS = "session_auth_millis";
+    public static final String SESSION_ASSOCIATION_MILLIS = "session_association_millis";
+    public static final String SESSION_SETUP_MILLIS = "session_setup_millis";
+    public static final String SESSION_DURATION_SECONDS = "session_duration_seconds";
+
 }
@@ -0,0 +1,128 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.notifications;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * Human readable notification messages. Placeholders like {transmitter} reference fields of the notification and are
+ * only resolved when an uplink actually renders the message.
+ */
+public enum MessageTemplate {
+
+    // Free text, passed in as-is. Not used on any hot path.
+    TEXT(null),
+
+    MALFORMED_SUMMARY("Received {aggregated_count} malformed frames on channel {channel}. Most common reason: {malformed_reason}"),
+
+    BEACON("Received beacon from {transmitter} for SSID {ssid}"),
+    BEACON_BROADCAST("Received broadcast beacon from {transmitter}"),
+
+    PROBE_REQUEST("Probe request: {transmitter} is looking for {ssid}"),
+    PROBE_REQUEST_NULL("Probe request: {transmitter} is looking for any network. (null probe request)"),
+    PROBE_RESPONSE("{transmitter} responded to probe request from {destination} for {ssid}"),
+
+    ASSOC_REQUEST("{transmitter} is requesting to associate with {ssid} at {destination}"),
+    ASSOC_RESPONSE_SUCCESS("{transmitter} answered association request from {destination}. Response: SUCCESS ({response_code})"),
+    ASSOC_RESPONSE_REFUSED("{transmitter} answered association request from {destination}. Response: REFUSED ({response_code})"),
+
+    REASSOC_REQUEST("{transmitter} is requesting to reassociate with {ssid} at {destination}, coming from {current_ap}"),
+    REASSOC_RESPONSE_SUCCESS("{transmitter} answered reassociation request from {destination}. Response: SUCCESS ({response_code})"),
+    REASSOC_RESPONSE_REFUSED("{transmitter} answered reassociation request from {destination}. Response: REFUSED ({response_code})"),
+
+    ACTION("{transmitter} sent {action_category} action frame to {destination}"),
+
+    DISASSOC("{transmitter} is disassociating from {destination} ({reason_string})"),
+    DEAUTH("Deauth: Transmitter {transmitter} is deauthenticating {destination} from BSSID {bssid} ({reason_string})"),
+
+    AUTH_OPEN_REQUEST("{transmitter} is requesting to authenticate with Open System (WPA, WPA2, ...) at {destination}"),
+    AUTH_OPEN_RESPONSE("{transmitter} is responding to Open System (WPA, WPA2, ...) authentication request from {destination}. ({response_string})"),
+    AUTH_WEP_REQUEST("{transmitter} is requesting to authenticate using WEP at {destination}"),
+    AUTH_WEP_CHALLENGE("{transmitter} is responding to WEP authentication request at {destination} with clear text challenge."),
+    AUTH_WEP_CHALLENGE_RESPONSE("{transmitter} is responding to WEP authentication request clear text challenge from {destination}"),
+    AUTH_WEP_RESPONSE("{transmitter} is responding to WEP authentication request from {destination}. ({response_string})"),
+
+    AGGREGATED_BEACON("Received {aggregated_count} beacons from {transmitter} for SSID {ssid}"),
+    AGGREGATED_PROBE_RESPONSE("{transmitter} responded {aggregated_count} times to probe requests for {ssid}"),
+    AGGREGATED("Received {aggregated_count} {subtype} frames from {transmitter}"),
+
+    SUPPRESSED("Suppressed {suppressed_count} {subtype} frames from {transmitter} because of rate limiting"),
+    SUPPRESSED_NEW_TRANSMITTERS("Suppressed {suppressed_count} {subtype} frames from new transmitters because of rate limiting"),
+
+    FLOOD_STARTED("{subtype} flood against {flood_target_type} {flood_target}: {flood_rate} frames per second from {flood_sources}. Reason codes: {flood_reason_codes}"),
+    FLOOD_STOPPED("{subtype} flood against {flood_target_type} {flood_target} stopped after {flood_duration_seconds} seconds and {flood_frames} frames"),
+
+    OVERLOAD_NARROWED("Sensor is overloaded with {overload_dropped_rate} dropped frames per second. Stopped capturing {overload_changed_subtypes} frames"),
+    OVERLOAD_WIDENED("Sensor load decreased. Capturing {overload_changed_subtypes} frames again. Not captured: {overload_excluded_subtypes}"),
+
+    AP_NEW_BSSID("New BSSID {bssid} is advertising known SSID {ssid} ({ap_security}). Known BSSIDs: {ap_known_bssids}"),
+    AP_CHANNEL_CHANGED("BSSID {bssid} of SSID {ssid} moved from channel {ap_previous_channel} to {channel}"),
+    AP_SECURITY_CHANGED("BSSID {bssid} of SSID {ssid} changed security from {ap_previous_security} to {ap_security}"),
+
+    BEACON_TIMESTAMP_REGRESSION("Beacon timestamp of BSSID {bssid} ({ssid}) went back by {beacon_clock_skew_micros} microseconds. Spoofed beacon or restarted access point."),
+    BEACON_CLOCK_DIVERGENCE("BSSID {bssid} ({ssid}) is sending beacons from two clocks {beacon_clock_skew_micros} microseconds apart. Likely spoofed."),
+
+    SESSION_CONNECTED("{client} connected to {bssid} ({ssid}) in {session_setup_millis}ms"),
+    SESSION_FAILED("{client} failed to connect to {bssid} ({ssid}) during {session_state}: {session_reason}"),
+    SESSION_TIMEOUT("{client} did not finish connecting to {bssid} ({ssid}). Last step: {session_state}"),
+    SESSION_DISCONNECTED("{client} disconnected from {bssid} ({ssid}) after {session_duration_seconds} seconds. {session_reason}");
+
+    // Alternating literal text and field names, starting with literal text.
+    private final String[] parts;
+
+    MessageTemplate(String template) {
+        this.parts = template == null ? new String[0] : parse(template);
+    }
+
+    public String render(Notification notification) {
+        StringBuilder sb = new StringBuilder(64);
+
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 0) {
+                sb.append(parts[i]);
+            } else {
+                notification.appendField(parts[i], sb);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static String[] parse(String template) {
+        List<String> parts = Lists.newArrayList();
+
+        int position = 0;
+        while (true) {
+            int open = template.indexOf('{', position);
+            if (open < 0) {
+                parts.add(template.substring(position));
+                break;
+            }
+
+            int close = template.indexOf('}', open);
+            parts.add(template.substring(position, open));
+            parts.add(template.substring(open + 1, close));
+            position = close + 1;
+        }
+
+        return parts.toArray(new String[parts.size()]);
+    }
+
+}
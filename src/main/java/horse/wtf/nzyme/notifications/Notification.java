@@ -1,36 +1,76 @@
 /*
- *  This file is part of Nzyme.
+ *  This file is part of nzyme.
  *
- *  Nzyme is free software: you can redistribute it and/or modify
+ *  nzyme is free software: you can redistribute it and/or modify
  *  it under the terms of the GNU General Public License as published by
  *  the Free Software Foundation, either version 3 of the License, or
  *  (at your option) any later version.
  *
- *  Nzyme is distributed in the hope that it will be useful,
+ *  nzyme is distributed in the hope that it will be useful,
  *  but WITHOUT ANY WARRANTY; without even the implied warranty of
  *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
  *  GNU General Public License for more details.
  *
  *  You should have received a copy of the GNU General Public License
- *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ *  along with nzyme.  If not, see <http://www.gnu.org/licenses/>.
  */
 
 package horse.wtf.nzyme.notifications;
 
 import com.google.common.base.Joiner;
-import com.google.common.base.Splitter;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * A notification about a frame. Fields are stored in typed arrays and both the message and the GELF field map are
+ * only built when an uplink asks for them. Many notifications are never rendered because they are dropped by sampling
+ * or a full uplink.
+ */
 public class Notification {
 
-    private final ImmutableMap.Builder<String, Object> fields;
-    private final String message;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final byte TYPE_OBJECT = 0;
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_MAC = 3;
+
+    // "_" prefixed field names. There is only a small, fixed set of field names.
+    private static final ConcurrentMap<String, String> PREFIXED_KEYS = Maps.newConcurrentMap();
+
+    private final MessageTemplate template;
+    @Nullable
+    private final String text;
+    private final int channel;
+
+    private String[] keys;
+    private byte[] types;
+    private long[] primitives;
+    private Object[] objects;
+    private int size;
+
+    public Notification(MessageTemplate template, int channel) {
+        this(template, null, channel);
+    }
 
     public Notification(String message, int channel) {
-        this.fields = new ImmutableMap.Builder<>();
-        this.message = message;
+        this(MessageTemplate.TEXT, message, channel);
+    }
+
+    private Notification(MessageTemplate template, @Nullable String text, int channel) {
+        this.template = template;
+        this.text = text;
+        this.channel = channel;
+
+        this.keys = new String[INITIAL_CAPACITY];
+        this.types = new byte[INITIAL_CAPACITY];
+        this.primitives = new long[INITIAL_CAPACITY];
+        this.objects = new Object[INITIAL_CAPACITY];
 
         addField("channel", channel);
     }
@@ -40,23 +80,128 @@ public class Notification {
             return this;
         }
 
-        fields.put("_" + key, value);
+        int i = next(key, TYPE_OBJECT);
+        objects[i] = value;
 
         return this;
     }
 
+    public Notification addField(String key, long value) {
+        int i = next(key, TYPE_LONG);
+        primitives[i] = value;
+
+        return this;
+    }
+
+    public Notification addField(String key, boolean value) {
+        int i = next(key, TYPE_BOOLEAN);
+        primitives[i] = value ? 1 : 0;
+
+        return this;
+    }
+
+    /**
+     * Adds a MAC address as packed by {@link Dot11MacAddress}. It is only formatted when the notification is rendered.
+     */
+    public Notification addMacField(String key, long address) {
+        int i = next(key, TYPE_MAC);
+        primitives[i] = address;
+
+        return this;
+    }
+
+    private int next(String key, byte type) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            types = Arrays.copyOf(types, capacity);
+            primitives = Arrays.copyOf(primitives, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+
+        keys[size] = key;
+        types[size] = type;
+
+        return size++;
+    }
+
+    public MessageTemplate getTemplate() {
+        return template;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return the field value as it would be serialized or null if the field does not exist.
+     */
+    @Nullable
+    public Object getField(String key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                return value(i);
+            }
+        }
+
+        return null;
+    }
+
+    void appendField(String key, StringBuilder sb) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                switch (types[i]) {
+                    case TYPE_LONG:
+                        sb.append(primitives[i]);
+                        return;
+                    case TYPE_BOOLEAN:
+                        sb.append(primitives[i] == 1);
+                        return;
+                    case TYPE_MAC:
+                        sb.append(Dot11MacAddress.toString(primitives[i]));
+                        return;
+                    default:
+                        sb.append(objects[i]);
+                        return;
+                }
+            }
+        }
+    }
+
+    private Object value(int i) {
+        switch (types[i]) {
+            case TYPE_LONG:
+                return primitives[i];
+            case TYPE_BOOLEAN:
+                return primitives[i] == 1;
+            case TYPE_MAC:
+                return Dot11MacAddress.toString(primitives[i]);
+            default:
+                return objects[i];
+        }
+    }
+
     public Map<String, Object> getAdditionalFields() {
-        return fields.build();
+        Map<String, Object> fields = Maps.newLinkedHashMapWithExpectedSize(size);
+        for (int i = 0; i < size; i++) {
+            fields.put(PREFIXED_KEYS.computeIfAbsent(keys[i], k -> "_" + k), value(i));
+        }
+
+        return fields;
     }
 
     public String getMessage() {
-        return message;
+        if (template == MessageTemplate.TEXT) {
+            return text;
+        }
+
+        return template.render(this);
     }
 
     public String toString() {
         StringBuilder sb = new StringBuilder();
 
-        sb.append("802.11 frame: ").append(message)
+        sb.append("802.11 frame: ").append(getMessage())
                 .append(" - Details: ")
                 .append(Joiner.on(", ").join(getAdditionalFields().entrySet()));
 
@@ -0,0 +1,286 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.notifications;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import horse.wtf.nzyme.aggregation.AggregatedFramesEvent;
+import horse.wtf.nzyme.aggregation.AggregationKey;
+import horse.wtf.nzyme.detection.BeaconClockEvent;
+import horse.wtf.nzyme.detection.FloodEvent;
+import horse.wtf.nzyme.devices.AccessPointEvent;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.events.FrameEvent;
+import horse.wtf.nzyme.malformed.MalformedFramesEvent;
+import horse.wtf.nzyme.sampling.SuppressedFramesEvent;
+import horse.wtf.nzyme.sessions.SessionEvent;
+import horse.wtf.nzyme.util.LongHashSet;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Decides which events an uplink receives. Compiled once from rules like
+ *
+ * <pre>subtypes=deauth,disassoc,auth;channels=1-11,36;min_signal=-80;deny_transmitters=00:11:22:33:44:55</pre>
+ *
+ * into bitmasks and hash sets so that it can be evaluated for every frame before any serialization work is done.
+ *
+ * <ul>
+ *     <li><b>subtypes</b>: frame subtypes (beacon, probe-req, deauth, ...) and <i>malformed</i> for all other
+ *     notifications.</li>
+ *     <li><b>channels</b>: channels and channel ranges.</li>
+ *     <li><b>min_signal</b>: minimum signal strength in dBm.</li>
+ *     <li><b>allow_transmitters</b>, <b>deny_transmitters</b>: transmitter MAC addresses.</li>
+ *     <li><b>allow_ssids</b>, <b>deny_ssids</b>: SSIDs. Only applied to events that carry an SSID.</li>
+ * </ul>
+ *
+ * Events without channel information are not filtered by channel or signal strength.
+ */
+public class UplinkFilter {
+
+    public static final UplinkFilter ALL = new UplinkFilter();
+
+    private static final int MAX_CHANNEL = 255;
+    private static final int MALFORMED_BIT = 16;
+
+    // Events that are not about a single transmitter are not filtered by transmitter.
+    private static final long NO_TRANSMITTER = -1;
+
+    private int subtypes = ~0;
+
+    @Nullable
+    private long[] channels;
+
+    private int minSignal = Integer.MIN_VALUE;
+
+    @Nullable
+    private LongHashSet allowTransmitters;
+    @Nullable
+    private LongHashSet denyTransmitters;
+
+    @Nullable
+    private ImmutableSet<String> allowSsids;
+    @Nullable
+    private ImmutableSet<String> denySsids;
+
+    private UplinkFilter() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the rules are malformed.
+     */
+    public static UplinkFilter parse(String rules) {
+        UplinkFilter filter = new UplinkFilter();
+
+        for (String rule : Splitter.on(";").trimResults().omitEmptyStrings().split(rules)) {
+            int separator = rule.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Malformed uplink filter rule [" + rule + "].");
+            }
+
+            String key = rule.substring(0, separator).trim();
+            List<String> values = Splitter.on(",").trimResults().omitEmptyStrings().splitToList(rule.substring(separator + 1));
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("Uplink filter rule [" + key + "] has no values.");
+            }
+
+            switch (key) {
+                case "subtypes":
+                    filter.subtypes = parseSubtypes(values);
+                    break;
+                case "channels":
+                    filter.channels = parseChannels(values);
+                    break;
+                case "min_signal":
+                    filter.minSignal = Integer.parseInt(values.get(0));
+                    break;
+                case "allow_transmitters":
+                    filter.allowTransmitters = parseAddresses(values);
+                    break;
+                case "deny_transmitters":
+                    filter.denyTransmitters = parseAddresses(values);
+                    break;
+                case "allow_ssids":
+                    filter.allowSsids = ImmutableSet.copyOf(values);
+                    break;
+                case "deny_ssids":
+                    filter.denySsids = ImmutableSet.copyOf(values);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown uplink filter rule [" + key + "].");
+            }
+        }
+
+        return filter;
+    }
+
+    public boolean accepts(Event event) {
+        if (event instanceof FrameEvent) {
+            FrameEvent frame = (FrameEvent) event;
+            return accepts(frame.getSubtype().getValue(), frame.getMeta(), frame.getTransmitter(), frame.getSsid());
+        }
+
+        if (event instanceof AggregatedFramesEvent) {
+            AggregationKey key = ((AggregatedFramesEvent) event).getKey();
+            return accepts(key.getSubtype().getValue(), event.getMeta(), key.getTransmitter(), key.getSsid());
+        }
+
+        if (event instanceof SuppressedFramesEvent) {
+            SuppressedFramesEvent suppressed = (SuppressedFramesEvent) event;
+            return accepts(suppressed.getSubtype().getValue(), null, suppressed.getTransmitter(), null);
+        }
+
+        if (event instanceof AccessPointEvent) {
+            AccessPointEvent ap = (AccessPointEvent) event;
+            return accepts(Dot11FrameSubtype.BEACON.getValue(), null, ap.getBssid(), ap.getSsid());
+        }
+
+        if (event instanceof BeaconClockEvent) {
+            BeaconClockEvent clock = (BeaconClockEvent) event;
+            return accepts(Dot11FrameSubtype.BEACON.getValue(), null, clock.getBssid(), clock.getSsid());
+        }
+
+        if (event instanceof SessionEvent) {
+            SessionEvent session = (SessionEvent) event;
+            return accepts(Dot11FrameSubtype.AUTH.getValue(), null, session.getClient(), session.getSsid());
+        }
+
+        if (event instanceof FloodEvent) {
+            return accepts(((FloodEvent) event).getSubtype().getValue(), null, NO_TRANSMITTER, null);
+        }
+
+        if (event instanceof MalformedFramesEvent) {
+            return (subtypes & (1 << MALFORMED_BIT)) != 0 && acceptsChannel(((MalformedFramesEvent) event).getChannel());
+        }
+
+        return (subtypes & (1 << MALFORMED_BIT)) != 0 && acceptsMeta(event.getMeta());
+    }
+
+    private boolean accepts(int subtype, @Nullable Dot11MetaInformation meta, long transmitter, @Nullable String ssid) {
+        if ((subtypes & (1 << subtype)) == 0 || !acceptsMeta(meta)) {
+            return false;
+        }
+
+        if (transmitter != NO_TRANSMITTER) {
+            if (allowTransmitters != null && !allowTransmitters.contains(transmitter)) {
+                return false;
+            }
+
+            if (denyTransmitters != null && denyTransmitters.contains(transmitter)) {
+                return false;
+            }
+        }
+
+        if (ssid != null) {
+            if (allowSsids != null && !allowSsids.contains(ssid)) {
+                return false;
+            }
+
+            if (denySsids != null && denySsids.contains(ssid)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean acceptsMeta(@Nullable Dot11MetaInformation meta) {
+        if (meta == null) {
+            return true;
+        }
+
+        if (meta.getAntennaSignal() < minSignal) {
+            return false;
+        }
+
+        return acceptsChannel(meta.getChannel());
+    }
+
+    private boolean acceptsChannel(int channel) {
+        if (channels != null) {
+            return channel >= 0 && channel <= MAX_CHANNEL && (channels[channel >>> 6] & (1L << (channel & 63))) != 0;
+        }
+
+        return true;
+    }
+
+    private static int parseSubtypes(List<String> names) {
+        int mask = 0;
+
+        for (String name : names) {
+            if (name.equals("malformed")) {
+                mask |= 1 << MALFORMED_BIT;
+                continue;
+            }
+
+            Dot11FrameSubtype subtype = Dot11FrameSubtype.fromName(name);
+            if (subtype == null) {
+                throw new IllegalArgumentException("Unknown frame subtype [" + name + "] in uplink filter.");
+            }
+
+            mask |= 1 << subtype.getValue();
+        }
+
+        return mask;
+    }
+
+    private static long[] parseChannels(List<String> values) {
+        long[] mask = new long[(MAX_CHANNEL + 1) / 64];
+
+        for (String value : values) {
+            int from;
+            int to;
+            int range = value.indexOf('-');
+            if (range > 0) {
+                from = Integer.parseInt(value.substring(0, range).trim());
+                to = Integer.parseInt(value.substring(range + 1).trim());
+            } else {
+                from = to = Integer.parseInt(value);
+            }
+
+            if (from < 0 || to > MAX_CHANNEL || from > to) {
+                throw new IllegalArgumentException("Invalid channel or channel range [" + value + "] in uplink filter.");
+            }
+
+            for (int channel = from; channel <= to; channel++) {
+                mask[channel >>> 6] |= 1L << (channel & 63);
+            }
+        }
+
+        return mask;
+    }
+
+    private static LongHashSet parseAddresses(List<String> values) {
+        LongHashSet addresses = new LongHashSet(values.size());
+
+        for (String value : values) {
+            String hex = value.replace(":", "").replace("-", "");
+            if (hex.length() != 12) {
+                throw new IllegalArgumentException("Invalid MAC address [" + value + "] in uplink filter.");
+            }
+
+            addresses.add(Long.parseLong(hex, 16));
+        }
+
+        return addresses;
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.notifications;
+
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.events.AssociationRequestEvent;
+import horse.wtf.nzyme.events.AssociationResponseEvent;
+import horse.wtf.nzyme.events.AuthenticationEvent;
+import horse.wtf.nzyme.events.BeaconEvent;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.events.EventSubscriber;
+import horse.wtf.nzyme.events.FrameEvent;
+import horse.wtf.nzyme.events.ProbeRequestEvent;
+import horse.wtf.nzyme.events.ProbeResponseEvent;
+import horse.wtf.nzyme.sampling.TransmitterRateLimiter;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends events to all uplinks whose {@link UplinkFilter} accepts them. Filters are evaluated first so that events
+ * no uplink wants are neither aggregated nor rendered into a notification. Frames of transmitters that exceed the
+ * rate limit of their subtype are dropped. Beacons and probe responses are aggregated and beacons, probe requests
+ * and probe responses are sampled if configured, because the uplinks would be flooded otherwise. This happens here
+ * and not in the frame handlers so that other subscribers still see every frame.
+ */
+public class UplinkSubscriber implements EventSubscriber<Event> {
+
+    private final Nzyme nzyme;
+    private final Uplink[] uplinks;
+    private final UplinkFilter[] filters;
+
+    public UplinkSubscriber(Nzyme nzyme, List<Uplink> uplinks) {
+        this(nzyme, uplinks, null);
+    }
+
+    /**
+     * @param filters Filters by uplink. Uplinks without a filter receive everything.
+     */
+    public UplinkSubscriber(Nzyme nzyme, List<Uplink> uplinks, @Nullable Map<Uplink, UplinkFilter> filters) {
+        if (uplinks.size() > Integer.SIZE) {
+            throw new IllegalArgumentException("More than " + Integer.SIZE + " uplinks are not supported.");
+        }
+
+        this.nzyme = nzyme;
+        this.uplinks = uplinks.toArray(new Uplink[0]);
+        this.filters = new UplinkFilter[this.uplinks.length];
+
+        for (int i = 0; i < this.uplinks.length; i++) {
+            UplinkFilter filter = filters == null ? null : filters.get(this.uplinks[i]);
+            this.filters[i] = filter == null ? UplinkFilter.ALL : filter;
+        }
+    }
+
+    @Override
+    public void handle(Event event) {
+        int accepted = 0;
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i].accepts(event)) {
+                accepted |= 1 << i;
+            }
+        }
+
+        if (accepted == 0) {
+            return;
+        }
+
+        if (event instanceof FrameEvent && (!rateLimit((FrameEvent) event) || !reduce((FrameEvent) event))) {
+            return;
+        }
+
+        Notification notification = event.toNotification();
+        for (int i = 0; i < uplinks.length; i++) {
+            if ((accepted & (1 << i)) != 0) {
+                uplinks[i].notify(notification, event.getMeta());
+            }
+        }
+    }
+
+    /**
+     * @return false if the transmitter exceeded the rate limit of the frame subtype.
+     */
+    private boolean rateLimit(FrameEvent event) {
+        TransmitterRateLimiter rateLimiter = nzyme.getRateLimiter();
+        if (!rateLimiter.isEnabled()) {
+            return true;
+        }
+
+        int channel = event.getMeta() == null ? 0 : event.getMeta().getChannel();
+        return rateLimiter.allow(event.getSubtype(), event.getTransmitter(), channel);
+    }
+
+    /**
+     * @return false if the frame was aggregated or sampled out and should not be sent.
+     */
+    private boolean reduce(FrameEvent event) {
+        String aggregatedSsid;
+        if (event instanceof BeaconEvent) {
+            String ssid = ((BeaconEvent) event).getSsid();
+            aggregatedSsid = ssid == null ? "[no SSID]" : ssid;
+        } else if (event instanceof ProbeResponseEvent) {
+            aggregatedSsid = ((ProbeResponseEvent) event).getSsid();
+        } else if (event instanceof ProbeRequestEvent) {
+            aggregatedSsid = null;
+        } else if (event instanceof AuthenticationEvent || event instanceof AssociationRequestEvent
+                || event instanceof AssociationResponseEvent) {
+            // Replaced by the events of the session tracker.
+            return !nzyme.getSessionTracker().isEnabled();
+        } else {
+            return true;
+        }
+
+        if (aggregatedSsid != null && nzyme.getFrameAggregator().isEnabled()) {
+            // Sampling is pointless if frames are aggregated anyways.
+            return !nzyme.getFrameAggregator().record(event.getSubtype(), event.getTransmitter(), aggregatedSsid, event.getMeta());
+        }
+
+        return nzyme.getTransmitterSampler().sample(event.getSubtype(), event.getTransmitter());
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.notifications.spool;
+
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only, segmented store-and-forward spool on local disk. Records are appended to the newest segment and
+ * read back in order from the oldest one. Fully consumed segments are deleted. Retention is enforced by total size
+ * (oldest segments are dropped first) and by age (records older than the maximum age are skipped on read).
+ */
+public class Spool {
+
+    private static final Logger LOG = LogManager.getLogger(Spool.class);
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private final String name;
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxSize;
+    private final long maxAgeMillis;
+
+    private final Deque<SpoolSegment> segments;
+
+    private final AtomicLong depth;
+    private final AtomicLong dropped;
+
+    public Spool(String name, Path directory, int segmentSize, long maxSize, long maxAgeMillis) throws IOException {
+        if (segmentSize <= SpoolSegment.HEADER_LENGTH + SpoolSegment.RECORD_OVERHEAD) {
+            throw new IllegalArgumentException("Spool segment size too small.");
+        }
+
+        this.name = name;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        this.maxAgeMillis = maxAgeMillis;
+
+        this.segments = new ArrayDeque<>();
+        this.depth = new AtomicLong(0);
+        this.dropped = new AtomicLong(0);
+
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * Appends a record to the spool.
+     *
+     * @return false if the record is larger than a whole segment and could not be spooled.
+     */
+    public synchronized boolean append(byte[] record) throws IOException {
+        if (SpoolSegment.HEADER_LENGTH + SpoolSegment.RECORD_OVERHEAD + record.length > segmentSize) {
+            return false;
+        }
+
+        SpoolSegment head = segments.peekLast();
+        if (head == null || !head.fits(record.length)) {
+            head = newSegment();
+        }
+
+        head.append(record, System.currentTimeMillis());
+        depth.incrementAndGet();
+
+        enforceSizeRetention();
+
+        return true;
+    }
+
+    /**
+     * @return the oldest pending record without consuming it or null if the spool is empty. Call {@link #commit()}
+     *         once the record has been handed off successfully.
+     */
+    @Nullable
+    public synchronized byte[] peek() throws IOException {
+        long oldestAllowed = System.currentTimeMillis() - maxAgeMillis;
+
+        while (!segments.isEmpty()) {
+            SpoolSegment tail = segments.peekFirst();
+
+            if (tail.hasNext()) {
+                if (tail.peekTimestamp() < oldestAllowed) {
+                    tail.consume();
+                    depth.decrementAndGet();
+                    dropped.incrementAndGet();
+                    continue;
+                }
+
+                return tail.peek();
+            }
+
+            if (segments.size() == 1) {
+                // Never remove the segment that is currently written to.
+                return null;
+            }
+
+            segments.pollFirst().delete();
+        }
+
+        return null;
+    }
+
+    /**
+     * Marks the record returned by the last call to {@link #peek()} as consumed.
+     */
+    public synchronized void commit() {
+        SpoolSegment tail = segments.peekFirst();
+        if (tail != null && tail.hasNext()) {
+            tail.consume();
+            depth.decrementAndGet();
+        }
+    }
+
+    public synchronized void close() {
+        for (SpoolSegment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of pending records.
+     */
+    public long getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * @return number of records dropped because of size or age retention.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public synchronized long getSize() {
+        long size = 0;
+        for (SpoolSegment segment : segments) {
+            size += segment.getWrittenBytes();
+        }
+
+        return size;
+    }
+
+    private void enforceSizeRetention() throws IOException {
+        while (segments.size() > 1 && getSize() > maxSize) {
+            SpoolSegment oldest = segments.pollFirst();
+
+            LOG.warn("Spool [{}] exceeds maximum size. Dropping segment <{}> with <{}> pending records.",
+                    name, oldest.getId(), oldest.getPending());
+
+            depth.addAndGet(-oldest.getPending());
+            dropped.addAndGet(oldest.getPending());
+            oldest.delete();
+        }
+    }
+
+    private SpoolSegment newSegment() throws IOException {
+        SpoolSegment head = segments.peekLast();
+        long id = head == null ? 0 : head.getId() + 1;
+
+        SpoolSegment segment = SpoolSegment.create(segmentPath(id), id, segmentSize);
+        segments.addLast(segment);
+
+        return segment;
+    }
+
+    private void recover() throws IOException {
+        List<Long> ids = Lists.newArrayList();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                try {
+                    ids.add(Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    LOG.warn("Ignoring unexpected file [{}] in spool directory.", file);
+                }
+            }
+        }
+
+        Collections.sort(ids);
+
+        for (Long id : ids) {
+            Path path = segmentPath(id);
+            try {
+                SpoolSegment segment = SpoolSegment.open(path, id, segmentSize);
+                segments.addLast(segment);
+                depth.addAndGet(segment.getPending());
+            } catch (IOException e) {
+                LOG.error("Could not recover spool segment [{}]. Deleting it.", path, e);
+                Files.deleteIfExists(path);
+            }
+        }
+
+        if (!segments.isEmpty()) {
+            LOG.info("Recovered spool [{}] with <{}> pending records in <{}> segments.",
+                    name, depth.get(), segments.size());
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+}
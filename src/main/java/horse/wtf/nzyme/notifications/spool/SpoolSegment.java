@@ -0,0 +1,238 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.notifications.spool;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A single memory-mapped, append-only spool file.
+ *
+ * Layout: a 16 byte header (magic, version, creation time) followed by records of the form
+ * [length:int][crc32:int][timestamp:long][state:byte][payload]. The length is written last so a torn write
+ * leaves a zero length behind, which marks the end of the segment when it is scanned again after a restart.
+ */
+class SpoolSegment {
+
+    private static final Logger LOG = LogManager.getLogger(SpoolSegment.class);
+
+    static final int MAGIC = 0x4E5A5350; // "NZSP"
+    static final int VERSION = 1;
+
+    static final int HEADER_LENGTH = 16;
+    static final int RECORD_OVERHEAD = 17;
+
+    private static final byte STATE_PENDING = 0;
+    private static final byte STATE_CONSUMED = 1;
+
+    private final long id;
+    private final Path path;
+    private final int capacity;
+
+    private MappedByteBuffer buffer;
+
+    private int writePosition;
+    private int readPosition;
+    private long pending;
+
+    private SpoolSegment(long id, Path path, int capacity, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.capacity = capacity;
+        this.buffer = buffer;
+    }
+
+    static SpoolSegment create(Path path, long id, int capacity) throws IOException {
+        MappedByteBuffer buffer = map(path, capacity);
+
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, System.currentTimeMillis());
+
+        SpoolSegment segment = new SpoolSegment(id, path, capacity, buffer);
+        segment.writePosition = HEADER_LENGTH;
+        segment.readPosition = HEADER_LENGTH;
+
+        return segment;
+    }
+
+    /**
+     * Maps an existing segment file and scans it to recover the read and write positions. Scanning stops at the
+     * first record with a zero length or a CRC mismatch. Everything after that point will be overwritten.
+     */
+    static SpoolSegment open(Path path, long id, int capacity) throws IOException {
+        MappedByteBuffer buffer = map(path, capacity);
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Spool segment [" + path + "] has an unknown format.");
+        }
+
+        SpoolSegment segment = new SpoolSegment(id, path, capacity, buffer);
+
+        int position = HEADER_LENGTH;
+        int firstPending = -1;
+        while (position + RECORD_OVERHEAD <= capacity) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_OVERHEAD + length > capacity) {
+                break;
+            }
+
+            if (buffer.getInt(position + 4) != segment.checksum(position, length)) {
+                LOG.warn("CRC mismatch in spool segment [{}] at position <{}>. Discarding the remainder of the segment.",
+                        path, position);
+                break;
+            }
+
+            if (buffer.get(position + 16) == STATE_PENDING) {
+                segment.pending++;
+                if (firstPending == -1) {
+                    firstPending = position;
+                }
+            }
+
+            position += RECORD_OVERHEAD + length;
+        }
+
+        segment.writePosition = position;
+        segment.readPosition = firstPending == -1 ? position : firstPending;
+
+        return segment;
+    }
+
+    boolean append(byte[] payload, long timestamp) {
+        if (!fits(payload.length)) {
+            return false;
+        }
+
+        int position = writePosition;
+
+        view(position + RECORD_OVERHEAD, position + RECORD_OVERHEAD + payload.length).put(payload);
+
+        buffer.putLong(position + 8, timestamp);
+        buffer.put(position + 16, STATE_PENDING);
+        buffer.putInt(position + 4, checksum(position, payload.length));
+
+        // Terminate the segment after this record before publishing the length of the record itself.
+        if (position + RECORD_OVERHEAD + payload.length + 4 <= capacity) {
+            buffer.putInt(position + RECORD_OVERHEAD + payload.length, 0);
+        }
+        buffer.putInt(position, payload.length);
+
+        writePosition = position + RECORD_OVERHEAD + payload.length;
+        pending++;
+
+        return true;
+    }
+
+    boolean fits(int payloadLength) {
+        return writePosition + RECORD_OVERHEAD + payloadLength <= capacity;
+    }
+
+    /**
+     * @return true if there is a pending record at the read position. Consumed records are skipped.
+     */
+    boolean hasNext() {
+        while (readPosition < writePosition) {
+            if (buffer.get(readPosition + 16) == STATE_PENDING) {
+                return true;
+            }
+
+            readPosition += RECORD_OVERHEAD + buffer.getInt(readPosition);
+        }
+
+        return false;
+    }
+
+    long peekTimestamp() {
+        return buffer.getLong(readPosition + 8);
+    }
+
+    byte[] peek() {
+        int length = buffer.getInt(readPosition);
+        byte[] payload = new byte[length];
+
+        view(readPosition + RECORD_OVERHEAD, readPosition + RECORD_OVERHEAD + length).get(payload);
+
+        return payload;
+    }
+
+    void consume() {
+        buffer.put(readPosition + 16, STATE_CONSUMED);
+        readPosition += RECORD_OVERHEAD + buffer.getInt(readPosition);
+        pending--;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    long getPending() {
+        return pending;
+    }
+
+    int getWrittenBytes() {
+        return writePosition;
+    }
+
+    void close() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+    }
+
+    void delete() throws IOException {
+        buffer = null;
+        Files.deleteIfExists(path);
+    }
+
+    private int checksum(int position, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(view(position + 8, position + 16));
+        crc.update(view(position + RECORD_OVERHEAD, position + RECORD_OVERHEAD + length));
+
+        return (int) crc.getValue();
+    }
+
+    private ByteBuffer view(int position, int limit) {
+        // Go through Buffer to stay binary compatible with Java 8 when compiled on newer JDKs.
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).limit(limit);
+        ((Buffer) view).position(position);
+
+        return view;
+    }
+
+    private static MappedByteBuffer map(Path path, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.notifications.uplinks.graylog;
+
+import org.graylog2.gelfclient.GelfMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of GELF messages for the disk spool.
+ */
+public class GelfMessageCodec {
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_SHORT = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_DOUBLE = 6;
+
+    public static byte[] encode(GelfMessage message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeUTF(message.getMessage());
+        out.writeUTF(message.getHost());
+        out.writeDouble(message.getTimestamp());
+
+        Map<String, Object> fields = message.getAdditionalFields();
+        out.writeShort(fields.size());
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            out.writeUTF(field.getKey());
+
+            Object value = field.getValue();
+            if (value instanceof Integer) {
+                out.writeByte(TYPE_INTEGER);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(TYPE_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Short) {
+                out.writeByte(TYPE_SHORT);
+                out.writeShort((Short) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(TYPE_BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Number) {
+                out.writeByte(TYPE_DOUBLE);
+                out.writeDouble(((Number) value).doubleValue());
+            } else {
+                out.writeByte(TYPE_STRING);
+                out.writeUTF(String.valueOf(value));
+            }
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static GelfMessage decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+
+        GelfMessage message = new GelfMessage(in.readUTF(), in.readUTF());
+        message.setTimestamp(in.readDouble());
+
+        int fieldCount = in.readShort();
+        for (int i = 0; i < fieldCount; i++) {
+            String key = in.readUTF();
+
+            byte type = in.readByte();
+            switch (type) {
+                case TYPE_STRING:
+                    message.addAdditionalField(key, in.readUTF());
+                    break;
+                case TYPE_INTEGER:
+                    message.addAdditionalField(key, in.readInt());
+                    break;
+                case TYPE_LONG:
+                    message.addAdditionalField(key, in.readLong());
+                    break;
+                case TYPE_SHORT:
+                    message.addAdditionalField(key, in.readShort());
+                    break;
+                case TYPE_BOOLEAN:
+                    message.addAdditionalField(key, in.readBoolean());
+                    break;
+                case TYPE_DOUBLE:
+                    message.addAdditionalField(key, in.readDouble());
+                    break;
+                default:
+                    throw new IOException("Unknown field type <" + type + "> in spooled GELF message.");
+            }
+        }
+
+        return message;
+    }
+
+}
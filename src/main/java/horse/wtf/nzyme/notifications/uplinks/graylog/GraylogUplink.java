@@ -17,31 +17,61 @@
 
 package horse.wtf.nzyme.notifications.uplinks.graylog;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
 import horse.wtf.nzyme.notifications.Notification;
 import horse.wtf.nzyme.notifications.Uplink;
+import horse.wtf.nzyme.notifications.spool.Spool;
+import horse.wtf.nzyme.statistics.Statistics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.graylog2.gelfclient.GelfConfiguration;
 import org.graylog2.gelfclient.GelfMessage;
 import org.graylog2.gelfclient.GelfTransports;
 import org.graylog2.gelfclient.transport.GelfTransport;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static horse.wtf.nzyme.Tools.calculateSignalQuality;
 
+/**
+ * Sends notifications to Graylog as GELF over TCP.
+ *
+ * When the in-memory queue of the GELF transport is full, notifications are written to the optional spool and sent
+ * again at a limited rate once the transport accepts them. While spooled notifications are pending, new ones are
+ * spooled as well, so that they do not overtake older ones or take the queue space the spool needs to drain.
+ *
+ * GELF over TCP has no delivery acknowledgements. A spooled notification is removed from the spool once it was handed
+ * to the transport queue, so it can still be lost if the connection drops before the queue was flushed. The spool
+ * only guarantees at-most-once delivery past that queue.
+ */
 public class GraylogUplink implements Uplink {
 
+    private static final Logger LOG = LogManager.getLogger(GraylogUplink.class);
+
     private static final String SOURCE = "nzyme";
 
+    private static final int DRAIN_INTERVAL_MS = 100;
+
     private final String nzymeId;
     private final String networkInterfaceName;
 
     private final GelfTransport gelfTransport;
 
-    public GraylogUplink(String hostname, int port, String nzymeId, String networkInterfaceName) {
+    @Nullable
+    private final Spool spool;
+    private final Statistics statistics;
+
+    public GraylogUplink(String hostname, int port, String nzymeId, String networkInterfaceName,
+                         @Nullable Spool spool, int spoolDrainRate, Statistics statistics) {
         this.nzymeId = nzymeId;
         this.networkInterfaceName = networkInterfaceName;
+        this.spool = spool;
+        this.statistics = statistics;
 
         this.gelfTransport = GelfTransports.create(new GelfConfiguration(new InetSocketAddress(hostname, port))
                 .transport(GelfTransports.TCP)
@@ -50,6 +80,16 @@ public class GraylogUplink implements Uplink {
                 .reconnectDelay(1000)
                 .tcpNoDelay(true)
                 .sendBufferSize(32768));
+
+        if (spool != null) {
+            final int batchSize = Math.max(1, spoolDrainRate * DRAIN_INTERVAL_MS / 1000);
+
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("graylog-spool-" + networkInterfaceName + "-%d")
+                    .build()
+            ).scheduleWithFixedDelay(() -> drainSpool(batchSize), DRAIN_INTERVAL_MS, DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
@@ -80,7 +120,62 @@ public class GraylogUplink implements Uplink {
             }
         }
 
-        this.gelfTransport.trySend(gelf);
+        if (spool != null && spool.getDepth() > 0) {
+            // Keep the order and leave the transport queue to the spool until it is drained.
+            spool(gelf);
+        } else if (!this.gelfTransport.trySend(gelf)) {
+            // The transport queue is full. Most likely the Graylog destination is unavailable.
+            if (spool != null) {
+                spool(gelf);
+            } else {
+                statistics.tickUplinkDropped();
+            }
+        }
+    }
+
+    private void spool(GelfMessage gelf) {
+        try {
+            if (spool.append(GelfMessageCodec.encode(gelf))) {
+                statistics.tickSpooled();
+            } else {
+                LOG.debug("Message too large for spool [{}]. Dropping.", spool.getName());
+            }
+        } catch (IOException e) {
+            LOG.error("Could not write to spool [{}].", spool.getName(), e);
+        }
+    }
+
+    private void drainSpool(int batchSize) {
+        try {
+            for (int i = 0; i < batchSize; i++) {
+                byte[] record = spool.peek();
+                if (record == null) {
+                    break;
+                }
+
+                GelfMessage gelf;
+                try {
+                    gelf = GelfMessageCodec.decode(record);
+                } catch (IOException e) {
+                    LOG.warn("Skipping undecodable record in spool [{}].", spool.getName(), e);
+                    spool.commit();
+                    continue;
+                }
+
+                if (!gelfTransport.trySend(gelf)) {
+                    // Still unavailable. Try again later.
+                    break;
+                }
+
+                // Only queued, not delivered. See the class comment.
+                spool.commit();
+                statistics.tickSpoolDrained();
+            }
+        } catch (Exception e) {
+            LOG.error("Could not drain spool [{}].", spool.getName(), e);
+        } finally {
+            statistics.setSpoolDepth(spool.getName(), spool.getDepth());
+        }
     }
 
 }
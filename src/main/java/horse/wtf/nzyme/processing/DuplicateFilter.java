@@ -0,0 +1,200 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recognizes frames that were already captured within a short window by another interface, for example on an
+ * overlapping or adjacent channel. Shared by all interfaces, each of which {@link #register() registers} first.
+ * Identical frames captured again by the same interface are no duplicates: They were transmitted more than once, for
+ * example by a deauthentication flood that does not increment the sequence number.
+ *
+ * Frames are keyed by transmitter, sequence number, subtype and a hash of the whole frame. Keys are remembered in a
+ * fixed-size table of 4-way sets that is updated with compare-and-set only, so the capture threads never block each
+ * other. Every slot packs 40 bits of the key with the interface that captured the frame and the time bucket it was
+ * last seen in. Buckets are a quarter of the window, so entries expire after between three quarters of and the full
+ * window. When a set is full, its oldest entry is replaced, which at worst lets a duplicate through.
+ */
+public class DuplicateFilter {
+
+    private static final int WAYS = 4;
+    private static final int BUCKETS_PER_WINDOW = 4;
+    private static final int MAX_ATTEMPTS = 4;
+
+    private static final long BUCKET_MASK = 0xFFFF;
+    private static final int INTERFACE_SHIFT = 16;
+    private static final long INTERFACE_MASK = 0xFFL << INTERFACE_SHIFT;
+    private static final int MAX_INTERFACES = 256;
+    private static final int SEQUENCE_CONTROL_POSITION = 22;
+
+    private static final long EMPTY = 0;
+
+    private final long bucketNanos;
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final AtomicInteger interfaces;
+
+    /**
+     * @param windowMillis Time after which the same frame is no longer considered a duplicate. 0 disables the filter.
+     * @param size Number of remembered frames. Rounded up to a power of two.
+     */
+    public DuplicateFilter(int windowMillis, int size) {
+        this.bucketNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(windowMillis) / BUCKETS_PER_WINDOW, 1);
+
+        int capacity = windowMillis > 0 ? Integer.highestOneBit(Math.max(size, WAYS) - 1) << 1 : 0;
+        this.slots = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.interfaces = new AtomicInteger(0);
+    }
+
+    /**
+     * @return the ID of a new interface, to pass to {@link #isDuplicate(byte[], int, int)}.
+     */
+    public int register() {
+        if (!isEnabled()) {
+            return 0;
+        }
+
+        int id = interfaces.getAndIncrement();
+        if (id >= MAX_INTERFACES) {
+            throw new IllegalStateException("Cannot filter duplicates of more than " + MAX_INTERFACES + " interfaces.");
+        }
+
+        return id;
+    }
+
+    public boolean isEnabled() {
+        return slots.length() > 0;
+    }
+
+    /**
+     * Remembers the frame if another interface did not capture it within the window.
+     *
+     * @param payload The 802.11 frame without FCS.
+     * @param index Frame type and subtype, see {@link horse.wtf.nzyme.dot11.Dot11FrameSubtype#getIndex()}
+     * @param interfaceId The capturing interface, as returned by {@link #register()}.
+     * @return true if another interface captured the same frame within the window.
+     */
+    public boolean isDuplicate(byte[] payload, int index, int interfaceId) {
+        return isDuplicate(payload, 0, payload.length, index, interfaceId);
+    }
+
+    /**
+     * Like {@link #isDuplicate(byte[], int, int)}, for a frame that was not copied out of its buffer yet.
+     *
+     * @param frame Holds the 802.11 frame without FCS from offset to end, for example a captured radiotap frame.
+     */
+    public boolean isDuplicate(byte[] frame, int offset, int end, int index, int interfaceId) {
+        return isEnabled() && isDuplicate(key(frame, offset, end, index), interfaceId, System.nanoTime());
+    }
+
+    boolean isDuplicate(long key, int interfaceId, long nanos) {
+        // The lower bits of the key pick the set, the upper 40 bits identify the frame within it.
+        long fingerprint = (key & ~(INTERFACE_MASK | BUCKET_MASK)) | Long.MIN_VALUE;
+        long capturedBy = ((long) interfaceId << INTERFACE_SHIFT) & INTERFACE_MASK;
+        long bucket = (nanos / bucketNanos) & BUCKET_MASK;
+        int set = (int) key & mask & ~(WAYS - 1);
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int victim = set;
+            long victimValue = EMPTY;
+            int victimAge = -1;
+
+            for (int i = set; i < set + WAYS; i++) {
+                long value = slots.get(i);
+                int age = age(value, bucket);
+
+                if ((value & ~(INTERFACE_MASK | BUCKET_MASK)) == fingerprint && age < BUCKETS_PER_WINDOW) {
+                    if ((value & INTERFACE_MASK) != capturedBy) {
+                        return true;
+                    }
+
+                    // Transmitted again. Keep recognizing copies of it that other interfaces capture.
+                    slots.compareAndSet(i, value, fingerprint | capturedBy | bucket);
+                    return false;
+                }
+
+                if (age > victimAge) {
+                    victim = i;
+                    victimValue = value;
+                    victimAge = age;
+                }
+            }
+
+            // Fails if another thread changed the slot, possibly by remembering the same frame. Look again.
+            if (slots.compareAndSet(victim, victimValue, fingerprint | capturedBy | bucket)) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    private static int age(long value, long bucket) {
+        if (value == EMPTY) {
+            return Integer.MAX_VALUE;
+        }
+
+        // Buckets wrap around. An entry that seems to be from the future is so old that its bucket wrapped.
+        int age = (short) (bucket - (value & BUCKET_MASK));
+        return age < 0 ? Integer.MAX_VALUE : age;
+    }
+
+    static long key(byte[] payload, int index) {
+        return key(payload, 0, payload.length, index);
+    }
+
+    static long key(byte[] frame, int offset, int end, int index) {
+        int length = end - offset;
+        long transmitter = length >= Dot11MacAddress.ADDRESS2_POSITION + 6
+                ? Dot11MacAddress.read(frame, offset + Dot11MacAddress.ADDRESS2_POSITION)
+                : -1;
+        int sequence = length >= SEQUENCE_CONTROL_POSITION + 2
+                ? (frame[offset + SEQUENCE_CONTROL_POSITION] & 0xFF)
+                        | (frame[offset + SEQUENCE_CONTROL_POSITION + 1] & 0xFF) << 8
+                : -1;
+
+        // FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int i = offset; i < end; i++) {
+            hash ^= frame[i] & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= transmitter * 0x9E3779B97F4A7C15L;
+        hash ^= ((long) sequence << 8 | index) * 0xC2B2AE3D27D4EB4FL;
+
+        return mix(hash);
+    }
+
+    // Finalizer of MurmurHash3, so that every bit of the key depends on every input bit.
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
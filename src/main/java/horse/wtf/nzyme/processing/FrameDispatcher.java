@@ -0,0 +1,172 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.handlers.FrameHandler;
+import horse.wtf.nzyme.handlers.FrameHandlerProvider;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Routes captured radiotap frames to the {@link FrameHandler} of their frame type and subtype. This is everything the
+ * capture loop does with a frame after it was read from the capture source. Frames without a handler are only counted.
+ */
+public class FrameDispatcher {
+
+    private static final Logger LOG = LogManager.getLogger(FrameDispatcher.class);
+
+    private static final int FCS_LENGTH = 4;
+    private static final int FRAME_CONTROL_LENGTH = 2;
+
+    private final Nzyme nzyme;
+    private final FrameProcessor processor;
+    private final boolean packetInfo;
+
+    // Frames this dispatcher already handled are no duplicates if they are captured again. See DuplicateFilter.
+    private final int interfaceId;
+
+    // Frame handlers, indexed by type and subtype. See Dot11FrameSubtype#getIndex()
+    private final FrameHandler[] handlers;
+
+    /**
+     * @param packetInfo Log type and size of every dispatched frame.
+     */
+    public FrameDispatcher(Nzyme nzyme, FrameProcessor processor, boolean packetInfo) {
+        this.nzyme = nzyme;
+        this.processor = processor;
+        this.packetInfo = packetInfo;
+        this.interfaceId = nzyme.getDuplicateFilter().register();
+        this.handlers = new FrameHandler[Dot11FrameSubtype.INDEX_COUNT];
+    }
+
+    /**
+     * Registers the handlers of all {@link FrameHandlerProvider}s on the classpath.
+     */
+    public void registerProvidedHandlers() {
+        registerProvidedHandlers(Collections.emptySet());
+    }
+
+    /**
+     * Registers the handlers of all {@link FrameHandlerProvider}s on the classpath, except those of disabled subtypes.
+     */
+    public void registerProvidedHandlers(Set<Dot11FrameSubtype> disabled) {
+        for (FrameHandlerProvider provider : ServiceLoader.load(FrameHandlerProvider.class)) {
+            for (FrameHandler handler : provider.create(nzyme)) {
+                if (!disabled.contains(handler.getSubtype())) {
+                    register(handler);
+                }
+            }
+        }
+    }
+
+    public void register(FrameHandler handler) {
+        int index = handler.getSubtype().getIndex();
+
+        if (handlers[index] != null) {
+            LOG.warn("Replacing handler [{}] of frame subtype [{}] with [{}].",
+                    handlers[index].getClass().getName(), handler.getName(), handler.getClass().getName());
+        }
+
+        handlers[index] = handler;
+    }
+
+    /**
+     * @return the subtypes that have a handler.
+     */
+    public List<Dot11FrameSubtype> getHandledSubtypes() {
+        List<Dot11FrameSubtype> subtypes = Lists.newArrayList();
+        for (FrameHandler handler : handlers) {
+            if (handler != null) {
+                subtypes.add(handler.getSubtype());
+            }
+        }
+
+        return subtypes;
+    }
+
+    /**
+     * @param index Frame type and subtype, see {@link Dot11FrameSubtype#getIndex()}
+     */
+    @Nullable
+    public FrameHandler handlerFor(int index) {
+        return index >= 0 && index < handlers.length ? handlers[index] : null;
+    }
+
+    /**
+     * @param frame A captured frame: Radiotap header followed by the 802.11 frame.
+     */
+    public void dispatch(byte[] frame) {
+        try {
+            Dot11MetaInformation meta = Dot11MetaInformation.parse(frame);
+
+            if (meta == null) {
+                LOG.trace("Invalid radiotap header. Skipping malformed packet.");
+                nzyme.getMalformedFrameReporter().report(frame, null, MalformedReason.BAD_RADIOTAP);
+                return;
+            }
+
+            if (meta.isMalformed()) {
+                LOG.trace("Bad checksum. Skipping malformed packet.");
+                nzyme.getMalformedFrameReporter().report(frame, meta, MalformedReason.BAD_CHECKSUM);
+                return;
+            }
+
+            int end = frame.length - (meta.hasFcs() ? FCS_LENGTH : 0);
+            if (end - meta.getRadiotapLength() < FRAME_CONTROL_LENGTH) {
+                LOG.trace("No 802.11 frame after radiotap header. Skipping malformed packet.");
+                nzyme.getMalformedFrameReporter().report(frame, meta, MalformedReason.TRUNCATED);
+                return;
+            }
+            nzyme.getStatistics().tickFrameCount(meta);
+
+            int start = meta.getRadiotapLength();
+            int type = Dot11FrameSubtype.indexOf(frame[start]);
+
+            // Determine handler. Only frames that are handled are copied out of the captured frame.
+            FrameHandler handler = handlers[type];
+            if (handler == null) {
+                nzyme.getStatistics().tickUnhandled(type);
+            } else if (nzyme.getDuplicateFilter().isDuplicate(frame, start, end, type, interfaceId)) {
+                nzyme.getStatistics().tickDuplicate();
+            } else {
+                byte[] header = Arrays.copyOf(frame, start);
+                byte[] payload = Arrays.copyOfRange(frame, start, end);
+                processor.submit(handler, payload, header, meta);
+            }
+
+            if (packetInfo) {
+                LOG.info("Type: {}, Header: {} bytes, Payload: {} bytes", type, start, end - start);
+            }
+        } catch(Exception e) {
+            LOG.error("Could not process packet.", e);
+        }
+    }
+
+}
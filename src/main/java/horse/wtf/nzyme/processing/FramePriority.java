@@ -0,0 +1,73 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+
+import javax.annotation.Nullable;
+
+/**
+ * Priority classes of frames, highest first. When the sensor falls behind, lower classes are shed first.
+ */
+public enum FramePriority {
+
+    HIGH("high"),
+    NORMAL("normal"),
+    LOW("low");
+
+    private final String name;
+
+    FramePriority(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Frames we alert on are the most important. Beacons, probe responses and action frames are the most frequent and
+     * least interesting ones.
+     */
+    public static FramePriority defaultFor(Dot11FrameSubtype subtype) {
+        switch (subtype) {
+            case DEAUTH:
+            case DISASSOC:
+            case AUTH:
+                return HIGH;
+            case BEACON:
+            case PROBE_RESP:
+            case ACTION:
+                return LOW;
+            default:
+                return NORMAL;
+        }
+    }
+
+    @Nullable
+    public static FramePriority fromName(String name) {
+        for (FramePriority priority : values()) {
+            if (priority.name.equals(name)) {
+                return priority;
+            }
+        }
+
+        return null;
+    }
+
+}
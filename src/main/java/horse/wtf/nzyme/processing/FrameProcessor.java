@@ -0,0 +1,210 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.handlers.FrameHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decouples frame handling from the capture thread. Frames are put into one bounded queue per {@link FramePriority}
+ * and handled by a worker thread that always drains higher priority queues first.
+ *
+ * When the worker falls behind, lower priority frames are shed before they are queued:
+ *
+ * <ul>
+ *     <li>Low priority frames are shed once a quarter of the queue capacity is used or the queueing latency
+ *     exceeds the configured maximum.</li>
+ *     <li>Normal priority frames are shed once half of the queue capacity is used or the queueing latency exceeds
+ *     twice the configured maximum.</li>
+ *     <li>High priority frames are only shed if their queue is full.</li>
+ * </ul>
+ *
+ * Every shed frame is counted per priority class in the statistics, which are shared by all interfaces, and in a
+ * total of this processor only. With a queue size of 0, frames are handled directly on the capture thread and
+ * nothing is shed.
+ */
+public class FrameProcessor {
+
+    private static final Logger LOG = LogManager.getLogger(FrameProcessor.class);
+
+    private final Nzyme nzyme;
+    private final int queueSize;
+    private final long maxLatencyNanos;
+
+    private final ArrayBlockingQueue<QueuedFrame>[] queues;
+    private final Semaphore available;
+    private final AtomicInteger depth;
+    private final AtomicLong shed;
+
+    // Queueing latency of the last frame handled by the worker. 0 if the worker is idle.
+    private volatile long latencyNanos = 0;
+
+    @SuppressWarnings("unchecked")
+    public FrameProcessor(Nzyme nzyme, int queueSize, int maxLatencyMillis) {
+        this.nzyme = nzyme;
+        this.queueSize = queueSize;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+
+        this.queues = new ArrayBlockingQueue[FramePriority.values().length];
+        if (isEnabled()) {
+            for (int i = 0; i < queues.length; i++) {
+                queues[i] = new ArrayBlockingQueue<>(queueSize);
+            }
+        }
+
+        this.available = new Semaphore(0);
+        this.depth = new AtomicInteger(0);
+        this.shed = new AtomicLong(0);
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Thread worker = new Thread(this::work, "frame-processor-" + nzyme.getNetworkInterface());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public boolean isEnabled() {
+        return queueSize > 0;
+    }
+
+    /**
+     * Hands the frame to its handler, either directly or through the queue of its priority class.
+     *
+     * @return false if the frame was shed.
+     */
+    public boolean submit(FrameHandler handler, byte[] payload, byte[] header, Dot11MetaInformation meta) {
+        if (!isEnabled()) {
+            process(handler, payload, header, meta);
+            return true;
+        }
+
+        FramePriority priority = handler.getPriority();
+        if (shouldShed(priority) || !queues[priority.ordinal()].offer(new QueuedFrame(handler, payload, header, meta))) {
+            nzyme.getStatistics().tickShed(priority);
+            shed.incrementAndGet();
+            return false;
+        }
+
+        depth.incrementAndGet();
+        available.release();
+        return true;
+    }
+
+    boolean shouldShed(FramePriority priority) {
+        int level = 0;
+
+        long latency = latencyNanos;
+        int queued = depth.get();
+        if (queued >= queueSize / 2 || latency >= maxLatencyNanos * 2) {
+            level = 2;
+        } else if (queued >= queueSize / 4 || latency >= maxLatencyNanos) {
+            level = 1;
+        }
+
+        // HIGH is never shed here, NORMAL at level 2 and LOW at level 1 and above.
+        return priority.ordinal() + level > FramePriority.LOW.ordinal();
+    }
+
+    private void work() {
+        while (true) {
+            try {
+                if (!available.tryAcquire()) {
+                    latencyNanos = 0;
+                    available.acquire();
+                }
+
+                QueuedFrame frame = poll();
+                depth.decrementAndGet();
+                latencyNanos = System.nanoTime() - frame.queuedAt;
+
+                process(frame.handler, frame.payload, frame.header, frame.meta);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.error("Could not process frame.", e);
+            }
+        }
+    }
+
+    private QueuedFrame poll() {
+        // Every permit stands for one queued frame, so one of the queues must have one.
+        while (true) {
+            for (ArrayBlockingQueue<QueuedFrame> queue : queues) {
+                QueuedFrame frame = queue.poll();
+                if (frame != null) {
+                    return frame;
+                }
+            }
+        }
+    }
+
+    private void process(FrameHandler handler, byte[] payload, byte[] header, Dot11MetaInformation meta) {
+        try {
+            handler.handle(payload, header, meta);
+        } catch(IllegalArgumentException | IndexOutOfBoundsException e) {
+            // Handlers report malformed frames without throwing. This is a frame a handler did not expect.
+            nzyme.getMalformedFrameReporter().report(header, payload, meta, MalformedReason.UNDECODABLE);
+            LOG.debug("Illegal data received.", e);
+        }
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * @return number of frames this processor shed so far, of all priority classes.
+     */
+    public long getShedCount() {
+        return shed.get();
+    }
+
+    private static final class QueuedFrame {
+
+        private final FrameHandler handler;
+        private final byte[] payload;
+        private final byte[] header;
+        private final Dot11MetaInformation meta;
+        private final long queuedAt;
+
+        private QueuedFrame(FrameHandler handler, byte[] payload, byte[] header, Dot11MetaInformation meta) {
+            this.handler = handler;
+            this.payload = payload;
+            this.header = header;
+            this.meta = meta;
+            this.queuedAt = System.nanoTime();
+        }
+
+    }
+
+}
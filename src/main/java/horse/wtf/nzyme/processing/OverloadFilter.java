@@ -0,0 +1,225 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.capture.BpfFilter;
+import horse.wtf.nzyme.capture.CaptureSource;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Protects an overloaded sensor by narrowing the BPF filter of the capture, so that the kernel stops copying frames
+ * that would only be shed in userspace anyway. Checked once per second:
+ *
+ * <ul>
+ *     <li>When more than the threshold of frames per second were dropped for ENGAGE_SECONDS seconds in a row, the
+ *     filter stops capturing the lowest {@link FramePriority} class that is still captured. High priority frames are
+ *     always captured.</li>
+ *     <li>When fewer than half of the threshold were dropped for the hold time, the last excluded class is captured
+ *     again. One class at a time, so that the sensor does not flap between the widest and the narrowest filter.</li>
+ * </ul>
+ *
+ * Dropped frames are frames shed by the {@link FrameProcessor} of the same interface, which includes frames that waited too long, plus
+ * frames the capture source dropped before they reached userspace. A {@link OverloadFilterEvent} is published every
+ * time the filter changes.
+ */
+public class OverloadFilter {
+
+    private static final Logger LOG = LogManager.getLogger(OverloadFilter.class);
+
+    private static final int ENGAGE_SECONDS = 3;
+
+    private final Nzyme nzyme;
+    private final CaptureSource captureSource;
+    private final FrameProcessor frameProcessor;
+    private final int thresholdPerSecond;
+    private final long holdMillis;
+
+    // Captured subtypes per level. Level 0 captures everything that is handled.
+    private final List<ImmutableList<Dot11FrameSubtype>> levels;
+
+    private int level = 0;
+    private long lastDropped = -1;
+    private long lastCheck;
+    private int overloadedChecks = 0;
+    private long calmSince = -1;
+
+    /**
+     * @param subtypes Captured frame subtypes and their priority class.
+     * @param thresholdPerSecond Dropped frames per second that narrow the filter. 0 disables overload protection.
+     * @param holdSeconds Time without overload before the filter is widened again.
+     */
+    public OverloadFilter(Nzyme nzyme, CaptureSource captureSource, FrameProcessor frameProcessor,
+                          Map<Dot11FrameSubtype, FramePriority> subtypes, int thresholdPerSecond, int holdSeconds) {
+        this.nzyme = nzyme;
+        this.captureSource = captureSource;
+        this.frameProcessor = frameProcessor;
+        this.thresholdPerSecond = thresholdPerSecond;
+        this.holdMillis = TimeUnit.SECONDS.toMillis(holdSeconds);
+        this.levels = buildLevels(subtypes);
+    }
+
+    private static List<ImmutableList<Dot11FrameSubtype>> buildLevels(Map<Dot11FrameSubtype, FramePriority> subtypes) {
+        List<ImmutableList<Dot11FrameSubtype>> levels = Lists.newArrayList();
+
+        // Lowest priority first. HIGH is never excluded.
+        for (int excluded = FramePriority.values().length; excluded > FramePriority.HIGH.ordinal(); excluded--) {
+            ImmutableList.Builder<Dot11FrameSubtype> captured = ImmutableList.builder();
+            for (Map.Entry<Dot11FrameSubtype, FramePriority> subtype : subtypes.entrySet()) {
+                if (subtype.getValue().ordinal() < excluded) {
+                    captured.add(subtype.getKey());
+                }
+            }
+
+            ImmutableList<Dot11FrameSubtype> level = captured.build();
+            if (level.isEmpty()) {
+                break;
+            }
+
+            if (levels.isEmpty() || levels.get(levels.size() - 1).size() != level.size()) {
+                levels.add(level);
+            }
+        }
+
+        return levels;
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (levels.size() < 2) {
+            LOG.info("Not protecting [{}] from overload: No low or normal priority frames to stop capturing.",
+                    nzyme.getNetworkInterface());
+            return;
+        }
+
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("overload-filter-%d")
+                .build()
+        ).scheduleWithFixedDelay(() -> {
+            try {
+                check(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.error("Could not check for overload.", e);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return thresholdPerSecond > 0;
+    }
+
+    void check(long now) {
+        // Not the shed counts of the statistics. Those are shared by all interfaces.
+        check(captureSource.getDroppedCount() + frameProcessor.getShedCount(), now);
+    }
+
+    /**
+     * @param dropped Total number of dropped frames so far.
+     */
+    synchronized void check(long dropped, long now) {
+        if (lastDropped < 0 || now <= lastCheck) {
+            lastDropped = dropped;
+            lastCheck = now;
+            return;
+        }
+
+        double rate = (dropped - lastDropped) * 1000.0 / (now - lastCheck);
+        lastDropped = dropped;
+        lastCheck = now;
+
+        if (rate >= thresholdPerSecond) {
+            calmSince = -1;
+            if (++overloadedChecks >= ENGAGE_SECONDS && level < levels.size() - 1) {
+                overloadedChecks = 0;
+                apply(level + 1, rate, now);
+            }
+            return;
+        }
+
+        overloadedChecks = 0;
+        if (level == 0 || rate >= thresholdPerSecond / 2.0) {
+            calmSince = -1;
+            return;
+        }
+
+        if (calmSince < 0) {
+            calmSince = now;
+        } else if (now - calmSince >= holdMillis) {
+            calmSince = now;
+            apply(level - 1, rate, now);
+        }
+    }
+
+    private void apply(int next, double rate, long now) {
+        ImmutableList<Dot11FrameSubtype> captured = levels.get(next);
+        String filter = BpfFilter.forSubtypes(captured);
+
+        try {
+            captureSource.setFilter(filter);
+        } catch (IOException e) {
+            LOG.error("Could not change capture filter of [{}].", nzyme.getNetworkInterface(), e);
+            return;
+        }
+
+        ImmutableList<Dot11FrameSubtype> changed = difference(levels.get(Math.min(level, next)), levels.get(Math.max(level, next)));
+        boolean narrowed = next > level;
+        level = next;
+
+        if (narrowed) {
+            LOG.warn("[{}] is overloaded with {} dropped frames per second. Stopped capturing {}.",
+                    nzyme.getNetworkInterface(), Math.round(rate), changed);
+        } else {
+            LOG.info("Load on [{}] decreased. Capturing {} again.", nzyme.getNetworkInterface(), changed);
+        }
+        LOG.debug("Capture filter of [{}]: {}", nzyme.getNetworkInterface(), filter);
+
+        nzyme.getEventBus().publish(new OverloadFilterEvent(narrowed, level, changed,
+                difference(levels.get(0), captured), rate));
+    }
+
+    private static ImmutableList<Dot11FrameSubtype> difference(List<Dot11FrameSubtype> wider, List<Dot11FrameSubtype> narrower) {
+        ImmutableList.Builder<Dot11FrameSubtype> result = ImmutableList.builder();
+        for (Dot11FrameSubtype subtype : wider) {
+            if (!narrower.contains(subtype)) {
+                result.add(subtype);
+            }
+        }
+
+        return result.build();
+    }
+
+    public synchronized int getLevel() {
+        return level;
+    }
+
+}
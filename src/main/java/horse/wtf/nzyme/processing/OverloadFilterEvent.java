@@ -0,0 +1,95 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link OverloadFilter} stopped or resumed capturing a priority class of frames.
+ */
+public class OverloadFilterEvent implements Event {
+
+    private final boolean narrowed;
+    private final int level;
+    private final ImmutableList<Dot11FrameSubtype> changed;
+    private final ImmutableList<Dot11FrameSubtype> excluded;
+    private final double droppedRate;
+
+    OverloadFilterEvent(boolean narrowed, int level, ImmutableList<Dot11FrameSubtype> changed,
+                        ImmutableList<Dot11FrameSubtype> excluded, double droppedRate) {
+        this.narrowed = narrowed;
+        this.level = level;
+        this.changed = changed;
+        this.excluded = excluded;
+        this.droppedRate = droppedRate;
+    }
+
+    /**
+     * @return true if frames are no longer captured, false if they are captured again.
+     */
+    public boolean isNarrowed() {
+        return narrowed;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return the subtypes that are no longer or again captured.
+     */
+    public List<Dot11FrameSubtype> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return all subtypes that are not captured after the change.
+     */
+    public List<Dot11FrameSubtype> getExcluded() {
+        return excluded;
+    }
+
+    @Override
+    public Dot11MetaInformation getMeta() {
+        return null;
+    }
+
+    @Override
+    public Notification toNotification() {
+        return new Notification(narrowed ? MessageTemplate.OVERLOAD_NARROWED : MessageTemplate.OVERLOAD_WIDENED, 0)
+                .addField(FieldNames.OVERLOAD_LEVEL, level)
+                .addField(FieldNames.OVERLOAD_CHANGED_SUBTYPES, names(changed))
+                .addField(FieldNames.OVERLOAD_EXCLUDED_SUBTYPES, excluded.isEmpty() ? "none" : names(excluded))
+                .addField(FieldNames.OVERLOAD_DROPPED_RATE, Math.round(droppedRate * 10) / 10.0);
+    }
+
+    private static String names(List<Dot11FrameSubtype> subtypes) {
+        return Joiner.on(",").join(subtypes.stream().map(Dot11FrameSubtype::getName).collect(Collectors.toList()));
+    }
+
+}
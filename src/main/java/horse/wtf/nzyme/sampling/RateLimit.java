@@ -0,0 +1,47 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.sampling;
+
+/**
+ * Token bucket parameters of one frame subtype.
+ */
+public class RateLimit {
+
+    public static final int MAX_BURST = 1000;
+
+    private final int perSecond;
+    private final int burst;
+
+    public RateLimit(int perSecond, int burst) {
+        if (perSecond <= 0 || burst <= 0 || burst > MAX_BURST) {
+            throw new IllegalArgumentException("Rate limit must be positive and burst must be between 1 and " + MAX_BURST + ".");
+        }
+
+        this.perSecond = perSecond;
+        this.burst = burst;
+    }
+
+    public int getPerSecond() {
+        return perSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.sampling;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+/**
+ * Number of frames of one transmitter that were dropped by the {@link TransmitterRateLimiter} since its last
+ * notification. Or, with {@link #NEW_TRANSMITTERS} as transmitter, the number of frames of transmitters that were
+ * dropped because too many new transmitters showed up.
+ */
+public class SuppressedFramesEvent implements Event {
+
+    public static final long NEW_TRANSMITTERS = -1;
+
+    private final Dot11FrameSubtype subtype;
+    private final long transmitter;
+    private final int channel;
+    private final long count;
+
+    public SuppressedFramesEvent(Dot11FrameSubtype subtype, long transmitter, int channel, long count) {
+        this.subtype = subtype;
+        this.transmitter = transmitter;
+        this.channel = channel;
+        this.count = count;
+    }
+
+    public Dot11FrameSubtype getSubtype() {
+        return subtype;
+    }
+
+    public long getTransmitter() {
+        return transmitter;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public Dot11MetaInformation getMeta() {
+        return null;
+    }
+
+    @Override
+    public Notification toNotification() {
+        if (transmitter == NEW_TRANSMITTERS) {
+            return new Notification(MessageTemplate.SUPPRESSED_NEW_TRANSMITTERS, channel)
+                    .addField(FieldNames.SUBTYPE, subtype.getName())
+                    .addField(FieldNames.SUPPRESSED_COUNT, count);
+        }
+
+        return new Notification(MessageTemplate.SUPPRESSED, channel)
+                .addMacField(FieldNames.TRANSMITTER, transmitter)
+                .addField(FieldNames.SUBTYPE, subtype.getName())
+                .addField(FieldNames.SUPPRESSED_COUNT, count);
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.sampling;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket per (subtype, transmitter) pair, with the rate and burst configured per subtype. Frames that find an
+ * empty bucket are dropped and counted. The count is published as a {@link SuppressedFramesEvent} as soon as the
+ * bucket has refilled: With the next frame that is let through, or by the periodic sweep if the transmitter went
+ * quiet.
+ *
+ * All state lives in a fixed size table of {@link AtomicLongArray} slots and is only updated with CAS, so checking a
+ * frame never locks or allocates. Transmitters that hash to the same slot take it over from each other. Their
+ * pending suppressed count is published and the new transmitter starts with an empty bucket, unless the slot was
+ * unused.
+ *
+ * Taking over a slot needs a token from a second bucket per subtype with the same rate and burst, so that floods
+ * from randomized MAC addresses, or from addresses that keep evicting each other, are limited as a whole. Frames
+ * rejected by it are published as suppressed frames without a transmitter. Under contention the counts are
+ * approximate.
+ */
+public class TransmitterRateLimiter {
+
+    private static final Logger LOG = LogManager.getLogger(TransmitterRateLimiter.class);
+
+    // Slot layout: key, bucket, suppressed count, channel of the last suppressed frame.
+    private static final int STRIDE = 4;
+    private static final int BUCKET = 1;
+    private static final int SUPPRESSED = 2;
+    private static final int CHANNEL = 3;
+
+    // Tokens are counted in thousandths so that a rate of n per second refills n of them per millisecond.
+    private static final long TOKEN = 1000;
+
+    // Bucket layout: tokens in the upper 20 bits, time of the last update in milliseconds in the lower 44 bits.
+    private static final int TIME_BITS = 44;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private static final long MAC_MASK = (1L << 48) - 1;
+
+    private final Nzyme nzyme;
+
+    // Indexed by subtype ordinal. A rate of 0 means unlimited.
+    private final long[] rates;
+    private final long[] bursts;
+
+    private final AtomicLongArray slots;
+    private final int shift;
+
+    // Same layout as the slots, indexed by subtype ordinal. The key is not used.
+    private final AtomicLongArray admissions;
+
+    private final LongAdder suppressed;
+
+    /**
+     * @param limits Rate limits by subtype. Subtypes without a limit are never limited.
+     * @param maxTransmitters Number of (subtype, transmitter) pairs to keep buckets for. Rounded up to a power of two.
+     */
+    public TransmitterRateLimiter(Nzyme nzyme, Map<Dot11FrameSubtype, RateLimit> limits, int maxTransmitters) {
+        this.nzyme = nzyme;
+
+        Dot11FrameSubtype[] subtypes = Dot11FrameSubtype.values();
+        this.rates = new long[subtypes.length];
+        this.bursts = new long[subtypes.length];
+        for (Map.Entry<Dot11FrameSubtype, RateLimit> limit : limits.entrySet()) {
+            rates[limit.getKey().ordinal()] = limit.getValue().getPerSecond();
+            bursts[limit.getKey().ordinal()] = limit.getValue().getBurst() * TOKEN;
+        }
+
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(maxTransmitters, 2) - 1));
+        this.shift = 64 - bits;
+        this.slots = new AtomicLongArray(limits.isEmpty() ? 0 : (1 << bits) * STRIDE);
+        this.admissions = new AtomicLongArray(subtypes.length * STRIDE);
+
+        this.suppressed = new LongAdder();
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("rate-limiter-%d")
+                .build()
+        ).scheduleWithFixedDelay(() -> {
+            try {
+                sweep(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.error("Could not publish suppressed frame counts.", e);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return slots.length() > 0;
+    }
+
+    /**
+     * @return true if the frame should be notified about, false if it was rate limited.
+     */
+    public boolean allow(Dot11FrameSubtype subtype, long transmitter, int channel) {
+        return allow(subtype, transmitter, channel, System.currentTimeMillis());
+    }
+
+    boolean allow(Dot11FrameSubtype subtype, long transmitter, int channel, long now) {
+        int ordinal = subtype.ordinal();
+        long rate = rates[ordinal];
+        if (rate == 0) {
+            return true;
+        }
+
+        long key = ((long) (ordinal + 1) << 48) | (transmitter & MAC_MASK);
+        int base = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift) * STRIDE;
+
+        while (true) {
+            long owner = slots.get(base);
+            if (owner != key) {
+                int admission = ordinal * STRIDE;
+                if (!take(admissions, admission, rate, bursts[ordinal], channel, now)) {
+                    return false;
+                }
+
+                if (!slots.compareAndSet(base, owner, key)) {
+                    continue;
+                }
+
+                long pending = slots.getAndSet(base + SUPPRESSED, 0);
+                int previousChannel = (int) slots.getAndSet(base + CHANNEL, channel);
+                slots.set(base + BUCKET, bucket(owner == 0 ? bursts[ordinal] - TOKEN : 0, now));
+
+                if (owner != 0 && pending > 0) {
+                    publish(owner, previousChannel, pending);
+                }
+
+                return true;
+            }
+
+            return take(slots, base, rate, bursts[ordinal], channel, now);
+        }
+    }
+
+    /**
+     * Takes a token from the bucket at base. Publishes the pending suppressed count if there was one, or counts the
+     * frame as suppressed if the bucket is empty.
+     */
+    private boolean take(AtomicLongArray buckets, int base, long rate, long burst, int channel, long now) {
+        while (true) {
+            long bucket = buckets.get(base + BUCKET);
+            long tokens = tokens(bucket, rate, burst, now);
+            if (tokens < TOKEN) {
+                buckets.incrementAndGet(base + SUPPRESSED);
+                buckets.set(base + CHANNEL, channel);
+                suppressed.increment();
+                return false;
+            }
+
+            if (buckets.compareAndSet(base + BUCKET, bucket, bucket(tokens - TOKEN, now))) {
+                long pending = buckets.getAndSet(base + SUPPRESSED, 0);
+                if (pending > 0) {
+                    publish(buckets, base, pending);
+                }
+
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Publishes the suppressed counts of all transmitters whose bucket has refilled.
+     */
+    void sweep(long now) {
+        for (int base = 0; base < slots.length(); base += STRIDE) {
+            long key = slots.get(base);
+            if (key != 0) {
+                sweep(slots, base, (int) (key >>> 48) - 1, now);
+            }
+        }
+
+        for (int ordinal = 0; ordinal < rates.length; ordinal++) {
+            sweep(admissions, ordinal * STRIDE, ordinal, now);
+        }
+    }
+
+    private void sweep(AtomicLongArray buckets, int base, int ordinal, long now) {
+        if (buckets.get(base + SUPPRESSED) == 0
+                || tokens(buckets.get(base + BUCKET), rates[ordinal], bursts[ordinal], now) < TOKEN) {
+            return;
+        }
+
+        long pending = buckets.getAndSet(base + SUPPRESSED, 0);
+        if (pending > 0) {
+            publish(buckets, base, pending);
+        }
+    }
+
+    private void publish(AtomicLongArray buckets, int base, long count) {
+        int channel = (int) buckets.get(base + CHANNEL);
+        if (buckets == admissions) {
+            Dot11FrameSubtype subtype = Dot11FrameSubtype.values()[base / STRIDE];
+            nzyme.getEventBus().publish(new SuppressedFramesEvent(subtype, SuppressedFramesEvent.NEW_TRANSMITTERS,
+                    channel, count));
+        } else {
+            publish(buckets.get(base), channel, count);
+        }
+    }
+
+    private void publish(long key, int channel, long count) {
+        Dot11FrameSubtype subtype = Dot11FrameSubtype.values()[(int) (key >>> 48) - 1];
+        nzyme.getEventBus().publish(new SuppressedFramesEvent(subtype, key & MAC_MASK, channel, count));
+    }
+
+    private static long tokens(long bucket, long rate, long burst, long now) {
+        long elapsed = Math.max(0, now - (bucket & TIME_MASK));
+        return Math.min(burst, (bucket >>> TIME_BITS) + elapsed * rate);
+    }
+
+    private static long bucket(long tokens, long now) {
+        return (tokens << TIME_BITS) | (now & TIME_MASK);
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.sampling;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which frames of a (subtype, transmitter) pair are notified about when sampling is enabled. All notifications
+ * are charged against a global budget of notifications per second, which is never exceeded. Within the budget:
+ *
+ * <ul>
+ *     <li>The first frame of a transmitter that is not tracked yet is notified about first.</li>
+ *     <li>Every transmitter is due to be notified about once per minimum interval, no matter how loud its neighbors
+ *     are. Due frames go first as well.</li>
+ *     <li>All other frames are notified about with what is left. They cannot use the last quarter of the budget's
+ *     burst, which is reserved for first seen and due frames.</li>
+ * </ul>
+ *
+ * A first seen or due frame that does not fit into the budget is not notified about, and the transmitter stays due.
+ * Per-transmitter state is kept in a bounded cache. Evicted transmitters are treated as first seen again.
+ */
+public class TransmitterSampler {
+
+    private static final long BUDGET_BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long UNRESERVED_BURST_NANOS = BUDGET_BURST_NANOS / 4 * 3;
+
+    private static final long NEVER_EMITTED = Long.MIN_VALUE;
+
+    private final long minIntervalMillis;
+    private final long budgetIntervalNanos;
+
+    // Keyed by subtype in the upper and transmitter MAC address in the lower 48 bits.
+    private final Cache<Long, AtomicLong> lastEmitted;
+
+    // Theoretical arrival time of the next frame that fits into the global budget. (GCRA)
+    private final AtomicLong budgetArrival;
+
+    private final LongAdder suppressed;
+
+    /**
+     * @param minIntervalSeconds Guaranteed interval of notifications per transmitter. 0 disables sampling.
+     * @param budgetPerSecond Global number of notifications per second, including first seen and due ones.
+     * @param maxTransmitters Maximum number of transmitters to keep state for.
+     */
+    public TransmitterSampler(int minIntervalSeconds, int budgetPerSecond, int maxTransmitters) {
+        this.minIntervalMillis = TimeUnit.SECONDS.toMillis(minIntervalSeconds);
+        this.budgetIntervalNanos = budgetPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / budgetPerSecond : 0;
+
+        this.lastEmitted = CacheBuilder.newBuilder()
+                .maximumSize(maxTransmitters)
+                .expireAfterAccess(Math.max(minIntervalSeconds, 1) * 10L, TimeUnit.SECONDS)
+                .build();
+
+        this.budgetArrival = new AtomicLong(Long.MIN_VALUE);
+        this.suppressed = new LongAdder();
+    }
+
+    public boolean isEnabled() {
+        return minIntervalMillis > 0;
+    }
+
+    /**
+     * @return true if the frame should be notified about, false if it should be dropped.
+     */
+    public boolean sample(Dot11FrameSubtype subtype, long transmitter) {
+        return sample(subtype, transmitter, System.currentTimeMillis());
+    }
+
+    boolean sample(Dot11FrameSubtype subtype, long transmitter, long now) {
+        if (!isEnabled()) {
+            return true;
+        }
+
+        Long key = ((long) subtype.ordinal() << 48) | transmitter;
+        AtomicLong last = lastEmitted.getIfPresent(key);
+        if (last == null) {
+            AtomicLong created = new AtomicLong(NEVER_EMITTED);
+            last = lastEmitted.asMap().putIfAbsent(key, created);
+            if (last == null) {
+                last = created;
+            }
+        }
+
+        long nowNanos = TimeUnit.MILLISECONDS.toNanos(now);
+        long previous = last.get();
+        if (previous == NEVER_EMITTED || now - previous >= minIntervalMillis) {
+            // First seen or due. Only one thread claims it.
+            if (!last.compareAndSet(previous, now)) {
+                return sampled(takeBudget(nowNanos, UNRESERVED_BURST_NANOS));
+            }
+
+            if (takeBudget(nowNanos, BUDGET_BURST_NANOS)) {
+                return true;
+            }
+
+            // Over the budget. Stays due.
+            last.compareAndSet(now, previous);
+            return sampled(false);
+        }
+
+        return sampled(takeBudget(nowNanos, UNRESERVED_BURST_NANOS));
+    }
+
+    private boolean sampled(boolean sampled) {
+        if (!sampled) {
+            suppressed.increment();
+        }
+
+        return sampled;
+    }
+
+    /**
+     * @param burstNanos Maximum time the budget may be used ahead of the current time.
+     */
+    private boolean takeBudget(long nowNanos, long burstNanos) {
+        if (budgetIntervalNanos == 0) {
+            return false;
+        }
+
+        while (true) {
+            long arrival = budgetArrival.get();
+            long next = Math.max(arrival, nowNanos) + budgetIntervalNanos;
+
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+
+            if (budgetArrival.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    public long getTrackedTransmitters() {
+        return lastEmitted.size();
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.sessions;
+
+import horse.wtf.nzyme.util.TimingWheel;
+
+import javax.annotation.Nullable;
+
+/**
+ * Connection of one client to one BSSID. Held by the {@link SessionTracker} and only touched while holding its lock.
+ */
+class Session extends TimingWheel.Entry<Session> {
+
+    enum State {
+        AUTHENTICATING("authentication"),
+        AUTHENTICATED("authenticated"),
+        ASSOCIATING("association"),
+        CONNECTED("connected");
+
+        private final String name;
+
+        State(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final long client;
+    private final long bssid;
+    private final long started;
+
+    private State state;
+    @Nullable
+    private String ssid;
+    private String algorithm;
+    private int channel;
+
+    private long authenticatedAt = -1;
+    private long associationRequestedAt = -1;
+    private long connectedAt = -1;
+    private long deadline;
+
+    Session(long client, long bssid, State state, int channel, long now) {
+        this.client = client;
+        this.bssid = bssid;
+        this.state = state;
+        this.channel = channel;
+        this.started = now;
+    }
+
+    long getClient() {
+        return client;
+    }
+
+    long getBssid() {
+        return bssid;
+    }
+
+    long getStarted() {
+        return started;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+    @Nullable
+    String getSsid() {
+        return ssid;
+    }
+
+    void setSsid(@Nullable String ssid) {
+        this.ssid = ssid;
+    }
+
+    @Nullable
+    String getAlgorithm() {
+        return algorithm;
+    }
+
+    void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    int getChannel() {
+        return channel;
+    }
+
+    void setChannel(int channel) {
+        this.channel = channel;
+    }
+
+    long getAuthenticatedAt() {
+        return authenticatedAt;
+    }
+
+    void setAuthenticatedAt(long authenticatedAt) {
+        this.authenticatedAt = authenticatedAt;
+    }
+
+    long getAssociationRequestedAt() {
+        return associationRequestedAt;
+    }
+
+    void setAssociationRequestedAt(long associationRequestedAt) {
+        this.associationRequestedAt = associationRequestedAt;
+    }
+
+    long getConnectedAt() {
+        return connectedAt;
+    }
+
+    void setConnectedAt(long connectedAt) {
+        this.connectedAt = connectedAt;
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.sessions;
+
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.notifications.FieldNames;
+import horse.wtf.nzyme.notifications.MessageTemplate;
+import horse.wtf.nzyme.notifications.Notification;
+
+import javax.annotation.Nullable;
+
+/**
+ * Outcome of a connection attempt or end of a connection, consolidating the authentication, association and
+ * deauthentication/disassociation frames of a session.
+ */
+public class SessionEvent implements Event {
+
+    public enum Outcome {
+        CONNECTED("connected", MessageTemplate.SESSION_CONNECTED),
+        FAILED("failed", MessageTemplate.SESSION_FAILED),
+        TIMEOUT("timeout", MessageTemplate.SESSION_TIMEOUT),
+        DISCONNECTED("disconnected", MessageTemplate.SESSION_DISCONNECTED);
+
+        private final String name;
+        private final MessageTemplate template;
+
+        Outcome(String name, MessageTemplate template) {
+            this.name = name;
+            this.template = template;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Outcome outcome;
+    private final long client;
+    private final long bssid;
+    private final String ssid;
+    private final String state;
+    private final String algorithm;
+    private final String reason;
+    private final int channel;
+    private final long authMillis;
+    private final long associationMillis;
+    private final long setupMillis;
+    private final long durationSeconds;
+
+    SessionEvent(Outcome outcome, Session session, @Nullable String reason, long now) {
+        this.outcome = outcome;
+        this.client = session.getClient();
+        this.bssid = session.getBssid();
+        this.ssid = session.getSsid();
+        this.state = session.getState().getName();
+        this.algorithm = session.getAlgorithm();
+        this.reason = reason;
+        this.channel = session.getChannel();
+
+        this.authMillis = session.getAuthenticatedAt() < 0 ? -1 : session.getAuthenticatedAt() - session.getStarted();
+        this.associationMillis = session.getAssociationRequestedAt() < 0 || session.getConnectedAt() < 0
+                ? -1 : session.getConnectedAt() - session.getAssociationRequestedAt();
+        this.setupMillis = session.getConnectedAt() < 0 ? -1 : session.getConnectedAt() - session.getStarted();
+        this.durationSeconds = session.getConnectedAt() < 0 ? -1 : (now - session.getConnectedAt()) / 1000;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public long getClient() {
+        return client;
+    }
+
+    public long getBssid() {
+        return bssid;
+    }
+
+    @Nullable
+    public String getSsid() {
+        return ssid;
+    }
+
+    /**
+     * @return milliseconds from the first frame of the session until the association succeeded or -1.
+     */
+    public long getSetupMillis() {
+        return setupMillis;
+    }
+
+    /**
+     * @return seconds the client was connected for DISCONNECTED sessions or -1.
+     */
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    @Override
+    public Dot11MetaInformation getMeta() {
+        return null;
+    }
+
+    @Override
+    public Notification toNotification() {
+        Notification notification = new Notification(outcome.template, channel)
+                .addField(FieldNames.SESSION_OUTCOME, outcome.getName())
+                .addMacField(FieldNames.CLIENT, client)
+                .addMacField(FieldNames.BSSID, bssid)
+                .addField(FieldNames.SSID, ssid == null ? "[unknown SSID]" : ssid)
+                .addField(FieldNames.SESSION_STATE, state)
+                .addField(FieldNames.SESSION_REASON, reason)
+                .addField(FieldNames.AUTH_ALGORITHM, algorithm);
+
+        if (authMillis >= 0) {
+            notification.addField(FieldNames.SESSION_AUTH_MILLIS, authMillis);
+        }
+        if (associationMillis >= 0) {
+            notification.addField(FieldNames.SESSION_ASSOCIATION_MILLIS, associationMillis);
+        }
+        if (setupMillis >= 0) {
+            notification.addField(FieldNames.SESSION_SETUP_MILLIS, setupMillis);
+        }
+        if (outcome == Outcome.DISCONNECTED && durationSeconds >= 0) {
+            notification.addField(FieldNames.SESSION_DURATION_SECONDS, durationSeconds);
+        }
+
+        return notification;
+    }
+
+}
@@ -0,0 +1,300 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.sessions;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11LeavingReason;
+import horse.wtf.nzyme.events.AssociationRequestEvent;
+import horse.wtf.nzyme.events.AssociationResponseEvent;
+import horse.wtf.nzyme.events.AuthenticationEvent;
+import horse.wtf.nzyme.events.DeauthenticationEvent;
+import horse.wtf.nzyme.events.DisassociationEvent;
+import horse.wtf.nzyme.events.EventSubscriber;
+import horse.wtf.nzyme.events.FrameEvent;
+import horse.wtf.nzyme.util.LongObjectMap;
+import horse.wtf.nzyme.util.TimingWheel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows clients through authentication, association and deauthentication/disassociation and publishes a single
+ * {@link SessionEvent} when a connection attempt succeeds, fails or times out, and another one when a connected
+ * client leaves. These replace the notifications of the individual authentication and association frames.
+ *
+ * Sessions are keyed by client. A client is only connected to one BSSID at a time, so a frame of the client for
+ * another BSSID starts a new session. Half-open sessions expire after the setup timeout and connected sessions after
+ * the TTL, both using a {@link TimingWheel} with one second ticks. Connected clients mostly send data frames, which
+ * we do not capture, so connected sessions expire silently.
+ *
+ * When the table is full, the session closest to expiry is dropped to make room.
+ */
+public class SessionTracker implements EventSubscriber<FrameEvent>, TimingWheel.Handler<Session> {
+
+    private static final Logger LOG = LogManager.getLogger(SessionTracker.class);
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 512;
+
+    private static final long BROADCAST = 0xFFFFFFFFFFFFL;
+
+    private final Nzyme nzyme;
+    private final int maxSessions;
+    private final long setupTimeoutMillis;
+    private final long ttlMillis;
+
+    private final LongObjectMap<Session> sessions;
+    private final TimingWheel<Session> wheel;
+
+    private long dropped = 0;
+
+    /**
+     * @param maxSessions Maximum number of sessions to track. 0 disables session tracking.
+     */
+    public SessionTracker(Nzyme nzyme, int maxSessions, int setupTimeoutSeconds, int ttlMinutes) {
+        this.nzyme = nzyme;
+        this.maxSessions = maxSessions;
+        this.setupTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(setupTimeoutSeconds, 1));
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(Math.max(ttlMinutes, 1));
+
+        this.sessions = new LongObjectMap<>();
+        this.wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SLOTS, this);
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        nzyme.getEventBus().subscribeQueued("session-tracker", ImmutableList.of(
+                AuthenticationEvent.class,
+                AssociationRequestEvent.class,
+                AssociationResponseEvent.class,
+                DeauthenticationEvent.class,
+                DisassociationEvent.class
+        ), this);
+
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("session-tracker-%d")
+                .build()
+        ).scheduleWithFixedDelay(() -> {
+            try {
+                advance(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.error("Could not expire sessions.", e);
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return maxSessions > 0;
+    }
+
+    @Override
+    public void handle(FrameEvent event) {
+        handle(event, System.currentTimeMillis());
+    }
+
+    synchronized void handle(FrameEvent event, long now) {
+        int channel = event.getMeta() == null ? 0 : event.getMeta().getChannel();
+
+        if (event instanceof AuthenticationEvent) {
+            authentication((AuthenticationEvent) event, channel, now);
+        } else if (event instanceof AssociationRequestEvent) {
+            AssociationRequestEvent request = (AssociationRequestEvent) event;
+            Session session = session(request.getTransmitter(), request.getDestination(), Session.State.ASSOCIATING,
+                    channel, now);
+            if (session != null) {
+                session.setState(Session.State.ASSOCIATING);
+                session.setAssociationRequestedAt(now);
+                session.setSsid(request.getSsid());
+                update(session, now);
+            }
+        } else if (event instanceof AssociationResponseEvent) {
+            AssociationResponseEvent response = (AssociationResponseEvent) event;
+            Session session = session(response.getDestination(), response.getTransmitter(), Session.State.ASSOCIATING,
+                    channel, now);
+            if (session == null) {
+                return;
+            }
+
+            if (response.isSuccess()) {
+                session.setState(Session.State.CONNECTED);
+                session.setConnectedAt(now);
+                update(session, now);
+                publish(SessionEvent.Outcome.CONNECTED, session, null, now);
+            } else {
+                close(SessionEvent.Outcome.FAILED, session,
+                        "Association refused (status " + response.getResponseCode() + ")", now);
+            }
+        } else if (event instanceof DeauthenticationEvent) {
+            DeauthenticationEvent deauth = (DeauthenticationEvent) event;
+            leave(deauth.getTransmitter(), deauth.getDestination(), deauth.getBssid(),
+                    "Deauthenticated: " + Dot11LeavingReason.lookup(deauth.getReasonCode()), now);
+        } else if (event instanceof DisassociationEvent) {
+            DisassociationEvent disassoc = (DisassociationEvent) event;
+            leave(disassoc.getTransmitter(), disassoc.getDestination(), disassoc.getBssid(),
+                    "Disassociated: " + Dot11LeavingReason.lookup(disassoc.getReasonCode()), now);
+        }
+    }
+
+    private void authentication(AuthenticationEvent auth, int channel, long now) {
+        // Odd transaction sequence numbers are sent by the client, even ones by the access point.
+        boolean fromClient = auth.getTransactionSequence() % 2 == 1;
+        long client = fromClient ? auth.getTransmitter() : auth.getDestination();
+        long bssid = fromClient ? auth.getDestination() : auth.getTransmitter();
+
+        Session existing = sessions.get(client);
+        if (auth.getTransactionSequence() == 1 && existing != null
+                && !(existing.getBssid() == bssid && existing.getState() == Session.State.AUTHENTICATING)) {
+            // A new attempt. Retransmissions of the first frame keep the session.
+            drop(existing);
+        }
+
+        Session session = session(client, bssid, Session.State.AUTHENTICATING, channel, now);
+        if (session == null) {
+            return;
+        }
+
+        boolean open = auth.getAlgorithm() == AuthenticationEvent.Algorithm.OPEN_SYSTEM;
+        session.setAlgorithm(open ? "open_system" : "shared_key");
+
+        boolean last = open ? auth.getTransactionSequence() == 2 : auth.getTransactionSequence() == 4;
+        if (!last) {
+            update(session, now);
+            return;
+        }
+
+        if (auth.getStatusCode() == 0) {
+            session.setState(Session.State.AUTHENTICATED);
+            session.setAuthenticatedAt(now);
+            update(session, now);
+        } else {
+            close(SessionEvent.Outcome.FAILED, session,
+                    "Authentication refused (status " + auth.getStatusCode() + ")", now);
+        }
+    }
+
+    private void leave(long transmitter, long destination, long bssid, String reason, long now) {
+        if (destination == BROADCAST) {
+            return;
+        }
+
+        long client = transmitter == bssid ? destination : transmitter;
+        Session session = sessions.get(client);
+        if (session == null || session.getBssid() != bssid) {
+            return;
+        }
+
+        close(session.getState() == Session.State.CONNECTED
+                ? SessionEvent.Outcome.DISCONNECTED : SessionEvent.Outcome.FAILED, session, reason, now);
+    }
+
+    /**
+     * @return the session of the client with the BSSID, started in the given state if there is none.
+     *         Null if the client or BSSID are invalid.
+     */
+    @Nullable
+    private Session session(long client, long bssid, Session.State initial, int channel, long now) {
+        if (client < 0 || bssid < 0 || client == BROADCAST) {
+            return null;
+        }
+
+        Session session = sessions.get(client);
+        if (session != null && session.getBssid() != bssid) {
+            // Roamed to another BSSID.
+            drop(session);
+            session = null;
+        }
+
+        if (session == null) {
+            if (sessions.size() >= maxSessions) {
+                Session oldest = wheel.poll();
+                if (oldest != null) {
+                    sessions.remove(oldest.getClient());
+                    dropped++;
+                }
+            }
+
+            session = new Session(client, bssid, initial, channel, now);
+            sessions.put(client, session);
+        }
+
+        session.setChannel(channel);
+        return session;
+    }
+
+    private void update(Session session, long now) {
+        long deadline = now + (session.getState() == Session.State.CONNECTED ? ttlMillis : setupTimeoutMillis);
+        session.setDeadline(deadline);
+        wheel.schedule(session, deadline);
+    }
+
+    private void close(SessionEvent.Outcome outcome, Session session, String reason, long now) {
+        drop(session);
+        publish(outcome, session, reason, now);
+    }
+
+    private void drop(Session session) {
+        wheel.cancel(session);
+        sessions.remove(session.getClient());
+    }
+
+    private void publish(SessionEvent.Outcome outcome, Session session, @Nullable String reason, long now) {
+        nzyme.getEventBus().publish(new SessionEvent(outcome, session, reason, now));
+    }
+
+    /**
+     * Advances the timing wheel to the given time, expiring half-open and idle connected sessions.
+     */
+    synchronized void advance(long now) {
+        wheel.advance(now);
+    }
+
+    @Override
+    public long deadline(Session session) {
+        return session.getDeadline();
+    }
+
+    @Override
+    public void expired(Session session, long now) {
+        sessions.remove(session.getClient());
+
+        if (session.getState() != Session.State.CONNECTED) {
+            publish(SessionEvent.Outcome.TIMEOUT, session, null, now);
+        }
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    /**
+     * @return number of sessions dropped because the table was full.
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+}
@@ -0,0 +1,405 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.snapshot;
+
+import com.google.common.collect.Maps;
+import horse.wtf.nzyme.devices.AccessPoint;
+import horse.wtf.nzyme.devices.AccessPointInventory;
+import horse.wtf.nzyme.devices.Device;
+import horse.wtf.nzyme.devices.DeviceTable;
+import horse.wtf.nzyme.statistics.Statistics;
+import horse.wtf.nzyme.util.MacTable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A memory-mapped snapshot of analytic state, used to warm restart after nzyme was stopped.
+ *
+ * Layout: a 24 byte header (magic, version, creation time, number of sections) followed by sections of the form
+ * [type:int][name length:short][name][body length:long][body]. Counters are stored as name/value pairs, MAC
+ * tables as a copy of their records, device tables as fixed width records and access point inventories as the
+ * start of their learning period followed by records, so loading a snapshot is mostly bulk copying from the mapped
+ * file.
+ *
+ * A snapshot is written to a temporary file next to the target and moved into place once it is complete, so a
+ * crash while writing leaves the previous snapshot intact.
+ */
+public class Snapshot {
+
+    private static final Logger LOG = LogManager.getLogger(Snapshot.class);
+
+    static final int MAGIC = 0x4E5A534E; // "NZSN"
+    static final int VERSION = 3;
+
+    static final int HEADER_LENGTH = 24;
+
+    private static final int SECTION_COUNTERS = 1;
+    private static final int SECTION_MAC_TABLE = 2;
+    private static final int SECTION_DEVICES = 3;
+    private static final int SECTION_ACCESS_POINTS = 4;
+
+    private static final String STATISTICS = "statistics";
+    private static final String PROBING_DEVICES = "probing_devices";
+    private static final String ACCESS_POINTS = "access_points";
+
+    private static final String FRAMES = "frames";
+    private static final String MALFORMED = "malformed";
+    private static final String DUPLICATES = "duplicates";
+    private static final String TYPE_PREFIX = "type.";
+    private static final String CHANNEL_PREFIX = "channel.";
+    private static final String MALFORMED_CHANNEL_PREFIX = "malformed_channel.";
+    private static final String SHED_PREFIX = "shed.";
+    private static final String UNHANDLED_PREFIX = "unhandled.";
+
+    // Room for devices that show up while the device table snapshot is written.
+    private static final int DEVICE_HEADROOM = 1024;
+    private static final int ACCESS_POINT_HEADROOM = 128;
+
+    private final long createdAt;
+    private final Map<String, ByteBuffer> sections;
+
+    private Snapshot(long createdAt, Map<String, ByteBuffer> sections) {
+        this.createdAt = createdAt;
+        this.sections = sections;
+    }
+
+    /**
+     * Writes a snapshot of the statistics and the given device tables and access point inventories. Does not stop the
+     * frame loops: all tables are copied while they are written to, so the snapshot is not a consistent point in time
+     * across sections.
+     */
+    public static void write(Path path, Statistics statistics, Map<String, DeviceTable> deviceTables,
+                             Map<String, AccessPointInventory> inventories) throws IOException {
+        Map<String, Long> counters = counters(statistics);
+
+        long size = HEADER_LENGTH;
+        size += sectionLength(STATISTICS) + 4;
+        for (String name : counters.keySet()) {
+            size += 2 + name.getBytes(StandardCharsets.UTF_8).length + 8;
+        }
+        size += sectionLength(PROBING_DEVICES) + 8 + statistics.getProbingDevices().getByteSize();
+        size += sectionLength(ACCESS_POINTS) + 8 + statistics.getAccessPoints().getByteSize();
+        for (Map.Entry<String, DeviceTable> table : deviceTables.entrySet()) {
+            size += sectionLength(table.getKey()) + 8
+                    + (long) (table.getValue().size() + DEVICE_HEADROOM) * Device.SNAPSHOT_RECORD_SIZE;
+        }
+        for (Map.Entry<String, AccessPointInventory> inventory : inventories.entrySet()) {
+            size += sectionLength(inventory.getKey()) + 12
+                    + (long) (inventory.getValue().size() + ACCESS_POINT_HEADROOM) * AccessPoint.MAX_SNAPSHOT_RECORD_SIZE;
+        }
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot would be larger than 2 GB.");
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(temporary);
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putInt(3 + deviceTables.size() + inventories.size());
+        buffer.putInt(0);
+
+        int body = beginSection(buffer, SECTION_COUNTERS, STATISTICS);
+        buffer.putInt(counters.size());
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            putName(buffer, counter.getKey());
+            buffer.putLong(counter.getValue());
+        }
+        endSection(buffer, body);
+
+        writeTable(buffer, PROBING_DEVICES, statistics.getProbingDevices());
+        writeTable(buffer, ACCESS_POINTS, statistics.getAccessPoints());
+
+        for (Map.Entry<String, DeviceTable> table : deviceTables.entrySet()) {
+            body = beginSection(buffer, SECTION_DEVICES, table.getKey());
+            buffer.putInt(Device.SNAPSHOT_RECORD_SIZE);
+            int countPosition = buffer.position();
+            buffer.putInt(0);
+            buffer.putInt(countPosition, table.getValue().writeTo(buffer));
+            endSection(buffer, body);
+        }
+
+        for (Map.Entry<String, AccessPointInventory> inventory : inventories.entrySet()) {
+            body = beginSection(buffer, SECTION_ACCESS_POINTS, inventory.getKey());
+            buffer.putLong(inventory.getValue().getLearningStartedAt());
+            int countPosition = buffer.position();
+            buffer.putInt(0);
+            buffer.putInt(countPosition, inventory.getValue().writeTo(buffer));
+            endSection(buffer, body);
+        }
+
+        buffer.force();
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the snapshot or null if there is no snapshot or it was written by an incompatible version of nzyme.
+     */
+    @Nullable
+    public static Snapshot load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.limit() < HEADER_LENGTH || buffer.getInt() != MAGIC) {
+            LOG.warn("Ignoring snapshot [{}]: Not a snapshot file.", path);
+            return null;
+        }
+
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            LOG.warn("Ignoring snapshot [{}]: Unsupported version <{}>.", path, version);
+            return null;
+        }
+
+        long createdAt = buffer.getLong();
+        int sectionCount = buffer.getInt();
+        ((Buffer) buffer).position(HEADER_LENGTH);
+
+        Map<String, ByteBuffer> sections = Maps.newHashMap();
+        for (int i = 0; i < sectionCount; i++) {
+            int type = buffer.getInt();
+            String name = getName(buffer);
+            long length = buffer.getLong();
+
+            if (length < 0 || length > buffer.remaining()) {
+                LOG.warn("Ignoring snapshot [{}]: Section [{}] is truncated.", path, name);
+                return null;
+            }
+
+            ByteBuffer section = buffer.slice();
+            ((Buffer) section).limit((int) length);
+            sections.put(key(type, name), section);
+
+            ((Buffer) buffer).position(buffer.position() + (int) length);
+        }
+
+        return new Snapshot(createdAt, sections);
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Restores counters and MAC tables. Must be called before any frames are counted.
+     */
+    public void restore(Statistics statistics) {
+        ByteBuffer counters = section(SECTION_COUNTERS, STATISTICS);
+        if (counters != null) {
+            int count = counters.getInt();
+            for (int i = 0; i < count; i++) {
+                restoreCounter(statistics, getName(counters), counters.getLong());
+            }
+        }
+
+        restoreTable(PROBING_DEVICES, statistics.getProbingDevices());
+        restoreTable(ACCESS_POINTS, statistics.getAccessPoints());
+    }
+
+    /**
+     * Restores the devices of the device table with the given name. Devices whose TTL passed in the meantime are
+     * skipped.
+     */
+    public void restore(String name, DeviceTable table, long now) {
+        ByteBuffer devices = section(SECTION_DEVICES, name);
+        if (devices == null) {
+            return;
+        }
+
+        int recordSize = devices.getInt();
+        if (recordSize != Device.SNAPSHOT_RECORD_SIZE) {
+            LOG.warn("Not restoring devices of [{}]: Snapshot record size <{}> does not match <{}>.",
+                    name, recordSize, Device.SNAPSHOT_RECORD_SIZE);
+            return;
+        }
+
+        table.readFrom(devices, devices.getInt(), now);
+    }
+
+    /**
+     * Restores the access points and the learning period of the access point inventory with the given name. Access
+     * points whose TTL passed in the meantime are skipped.
+     */
+    public void restore(String name, AccessPointInventory inventory, long now) {
+        ByteBuffer accessPoints = section(SECTION_ACCESS_POINTS, name);
+        if (accessPoints == null) {
+            return;
+        }
+
+        long learningStartedAt = accessPoints.getLong();
+        inventory.readFrom(accessPoints, accessPoints.getInt(), learningStartedAt, now);
+    }
+
+    private static Map<String, Long> counters(Statistics statistics) {
+        Map<String, Long> counters = Maps.newLinkedHashMap();
+        counters.put(FRAMES, statistics.getFrameCount().get());
+        counters.put(MALFORMED, statistics.getMalformedCount().get());
+        counters.put(DUPLICATES, statistics.getDuplicateCount().get());
+
+        for (Map.Entry<String, AtomicLong> type : statistics.getFrameTypes().entrySet()) {
+            counters.put(TYPE_PREFIX + type.getKey(), type.getValue().get());
+        }
+
+        for (Map.Entry<Integer, AtomicLong> channel : statistics.getChannelCounts().entrySet()) {
+            counters.put(CHANNEL_PREFIX + channel.getKey(), channel.getValue().get());
+        }
+
+        for (Map.Entry<Integer, AtomicLong> channel : statistics.getChannelMalformedCounts().entrySet()) {
+            counters.put(MALFORMED_CHANNEL_PREFIX + channel.getKey(), channel.getValue().get());
+        }
+
+        for (Map.Entry<String, AtomicLong> shed : statistics.getShedCounts().entrySet()) {
+            counters.put(SHED_PREFIX + shed.getKey(), shed.getValue().get());
+        }
+
+        AtomicLongArray unhandled = statistics.getUnhandledFrames();
+        for (int i = 0; i < unhandled.length(); i++) {
+            if (unhandled.get(i) > 0) {
+                counters.put(UNHANDLED_PREFIX + i, unhandled.get(i));
+            }
+        }
+
+        return counters;
+    }
+
+    private static void restoreCounter(Statistics statistics, String name, long value) {
+        try {
+            if (name.equals(FRAMES)) {
+                statistics.getFrameCount().set(value);
+            } else if (name.equals(MALFORMED)) {
+                statistics.getMalformedCount().set(value);
+            } else if (name.equals(DUPLICATES)) {
+                statistics.getDuplicateCount().set(value);
+            } else if (name.startsWith(TYPE_PREFIX)) {
+                statistics.getFrameTypes().put(name.substring(TYPE_PREFIX.length()), new AtomicLong(value));
+            } else if (name.startsWith(CHANNEL_PREFIX)) {
+                statistics.getChannelCounts().put(
+                        Integer.parseInt(name.substring(CHANNEL_PREFIX.length())), new AtomicLong(value));
+            } else if (name.startsWith(MALFORMED_CHANNEL_PREFIX)) {
+                statistics.getChannelMalformedCounts().put(
+                        Integer.parseInt(name.substring(MALFORMED_CHANNEL_PREFIX.length())), new AtomicLong(value));
+            } else if (name.startsWith(SHED_PREFIX)) {
+                AtomicLong shed = statistics.getShedCounts().get(name.substring(SHED_PREFIX.length()));
+                if (shed != null) {
+                    shed.set(value);
+                }
+            } else if (name.startsWith(UNHANDLED_PREFIX)) {
+                int index = Integer.parseInt(name.substring(UNHANDLED_PREFIX.length()));
+                if (index >= 0 && index < statistics.getUnhandledFrames().length()) {
+                    statistics.getUnhandledFrames().set(index, value);
+                }
+            } else {
+                LOG.debug("Skipping unknown snapshot counter [{}].", name);
+            }
+        } catch (NumberFormatException e) {
+            LOG.debug("Skipping invalid snapshot counter [{}].", name);
+        }
+    }
+
+    private void restoreTable(String name, MacTable table) {
+        ByteBuffer raw = section(SECTION_MAC_TABLE, name);
+        if (raw == null) {
+            return;
+        }
+
+        int capacity = raw.getInt();
+        int fields = raw.getInt();
+        if (capacity != table.getCapacity() || fields != table.getFields()) {
+            LOG.warn("Not restoring table [{}]: Snapshot layout <{}x{}> does not match <{}x{}>.",
+                    name, capacity, fields, table.getCapacity(), table.getFields());
+            return;
+        }
+
+        table.readFrom(raw);
+    }
+
+    private static void writeTable(ByteBuffer buffer, String name, MacTable table) {
+        int body = beginSection(buffer, SECTION_MAC_TABLE, name);
+        buffer.putInt(table.getCapacity());
+        buffer.putInt(table.getFields());
+        table.writeTo(buffer);
+        endSection(buffer, body);
+    }
+
+    @Nullable
+    private ByteBuffer section(int type, String name) {
+        ByteBuffer section = sections.get(key(type, name));
+        return section == null ? null : section.duplicate();
+    }
+
+    private static int beginSection(ByteBuffer buffer, int type, String name) {
+        buffer.putInt(type);
+        putName(buffer, name);
+        buffer.putLong(0);
+        return buffer.position();
+    }
+
+    private static void endSection(ByteBuffer buffer, int body) {
+        buffer.putLong(body - 8, buffer.position() - body);
+    }
+
+    private static long sectionLength(String name) {
+        return 4 + 2 + name.getBytes(StandardCharsets.UTF_8).length + 8;
+    }
+
+    private static void putName(ByteBuffer buffer, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getName(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String key(int type, String name) {
+        return type + ":" + name;
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.snapshot;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import horse.wtf.nzyme.devices.AccessPointInventory;
+import horse.wtf.nzyme.devices.DeviceTable;
+import horse.wtf.nzyme.statistics.Statistics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restores analytic state from the last snapshot on startup and periodically writes new snapshots.
+ */
+public class SnapshotManager {
+
+    private static final Logger LOG = LogManager.getLogger(SnapshotManager.class);
+
+    private static final String FILE_NAME = "nzyme.snapshot";
+
+    private final Path path;
+    private final int intervalSeconds;
+    private final Statistics statistics;
+
+    private final Map<String, DeviceTable> deviceTables;
+    private final Map<String, AccessPointInventory> inventories;
+
+    @Nullable
+    private Snapshot restored;
+
+    /**
+     * @param intervalSeconds Interval between snapshots. 0 disables snapshots.
+     */
+    public SnapshotManager(Path directory, int intervalSeconds, Statistics statistics) {
+        this.path = directory.resolve(FILE_NAME);
+        this.intervalSeconds = intervalSeconds;
+        this.statistics = statistics;
+        this.deviceTables = Maps.newLinkedHashMap();
+        this.inventories = Maps.newLinkedHashMap();
+    }
+
+    public boolean isEnabled() {
+        return intervalSeconds > 0;
+    }
+
+    /**
+     * Loads the last snapshot, if there is one, and restores the statistics from it.
+     */
+    public void restore() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            restored = Snapshot.load(path);
+        } catch (IOException e) {
+            LOG.warn("Could not load snapshot [{}]. Starting without it.", path, e);
+            return;
+        }
+
+        if (restored == null) {
+            LOG.info("No snapshot found at [{}].", path);
+            return;
+        }
+
+        restored.restore(statistics);
+        LOG.info("Restored statistics from snapshot [{}] written at {}.", path, new DateTime(restored.getCreatedAt()));
+    }
+
+    /**
+     * Restores the device table from the last snapshot and includes it in all future snapshots.
+     */
+    public synchronized void register(String name, DeviceTable table) {
+        if (!isEnabled() || !table.isEnabled()) {
+            return;
+        }
+
+        if (restored != null) {
+            restored.restore(name, table, System.currentTimeMillis());
+            LOG.info("Restored <{}> devices of [{}] from snapshot.", table.size(), name);
+        }
+
+        deviceTables.put(name, table);
+    }
+
+    /**
+     * Restores the access point inventory from the last snapshot and includes it in all future snapshots.
+     */
+    public synchronized void register(String name, AccessPointInventory inventory) {
+        if (!isEnabled() || !inventory.isEnabled()) {
+            return;
+        }
+
+        if (restored != null) {
+            restored.restore(name, inventory, System.currentTimeMillis());
+            LOG.info("Restored <{}> access points of [{}] from snapshot.", inventory.size(), name);
+        }
+
+        inventories.put(name, inventory);
+    }
+
+    public void initialize() {
+        if (!isEnabled()) {
+            LOG.info("Snapshots are disabled.");
+            return;
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+        } catch (IOException e) {
+            LOG.error("Could not create snapshot directory [{}]. Snapshots are disabled.", path.getParent(), e);
+            return;
+        }
+
+        LOG.info("Writing snapshots to [{}] every {} seconds.", path, intervalSeconds);
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("snapshot-%d")
+                .build()
+        ).scheduleAtFixedRate(this::write, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    void write() {
+        Map<String, DeviceTable> tables;
+        Map<String, AccessPointInventory> accessPoints;
+        synchronized (this) {
+            tables = ImmutableMap.copyOf(deviceTables);
+            accessPoints = ImmutableMap.copyOf(inventories);
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            Snapshot.write(path, statistics, tables, accessPoints);
+            LOG.debug("Wrote snapshot [{}] in {}ms.", path, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Could not write snapshot [{}].", path, e);
+        }
+    }
+
+}
@@ -18,45 +18,95 @@
 package horse.wtf.nzyme.statistics;
 
 import com.google.common.collect.Maps;
-import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
-import horse.wtf.nzyme.notifications.FieldNames;
-import horse.wtf.nzyme.notifications.Notification;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.processing.FramePriority;
+import horse.wtf.nzyme.util.MacTable;
 
+import javax.annotation.Nullable;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class Statistics {
 
     private final AtomicLong frameCount;
     private final AtomicLong malformedCount;
+    private final Map<String, AtomicLong> malformedReasons;
     private final Map<String, AtomicLong> frameTypes;
+    private final AtomicLongArray unhandledFrames;
 
     private final Map<Integer, AtomicLong> channelCounts;
     private final Map<Integer, AtomicLong> channelMalformedCounts;
 
+    private final Map<String, AtomicLong> spoolDepths;
+    private final AtomicLong spooledCount;
+    private final AtomicLong spoolDrainedCount;
+    private final AtomicLong uplinkDroppedCount;
+
+    private final Map<String, AtomicLong> shedCounts;
+    private final AtomicLong duplicateCount;
+    private final Map<String, AtomicLong> eventDroppedCounts;
+
+    // Per-device frame counts are kept in MAC tables so that busy places do not add millions of objects to the heap.
+    public static final int DEFAULT_MAX_DEVICES = 1 << 17;
+    private static final int FRAME_COUNT = 0;
+
     // Remember to reset these in resetStats()
-    private final Map<String, AtomicLong> probingDevices;
-    private final Map<String, AtomicLong> accessPoints;
+    private final DeviceCounts probingDevices;
+    private final DeviceCounts accessPoints;
     private final Map<String, AtomicLong> beaconedNetworks;
 
+    private final AtomicLong uncountedDevicesCount;
+
     public Statistics() {
+        this(DEFAULT_MAX_DEVICES);
+    }
+
+    /**
+     * @param maxDevices Maximum number of probing devices and of access points counted per interval.
+     */
+    public Statistics(int maxDevices) {
         this.frameCount = new AtomicLong(0);
         this.malformedCount = new AtomicLong(0);
 
-        this.channelCounts = Maps.newHashMap();
-        this.channelMalformedCounts = Maps.newHashMap();
+        this.malformedReasons = Maps.newLinkedHashMap();
+        for (MalformedReason reason : MalformedReason.values()) {
+            this.malformedReasons.put(reason.getName(), new AtomicLong(0));
+        }
+
+        // Counted by the frame processor threads and read by the snapshot writer.
+        this.channelCounts = Maps.newConcurrentMap();
+        // Malformed frames are counted by both the capture and the frame processor threads.
+        this.channelMalformedCounts = Maps.newConcurrentMap();
+
+        this.spoolDepths = Maps.newConcurrentMap();
+        this.spooledCount = new AtomicLong(0);
+        this.spoolDrainedCount = new AtomicLong(0);
+        this.uplinkDroppedCount = new AtomicLong(0);
 
-        this.frameTypes = Maps.newHashMap();
-        this.probingDevices = Maps.newHashMap();
-        this.accessPoints = Maps.newHashMap();
-        this.beaconedNetworks = Maps.newHashMap();
+        this.shedCounts = Maps.newLinkedHashMap();
+        for (FramePriority priority : FramePriority.values()) {
+            this.shedCounts.put(priority.getName(), new AtomicLong(0));
+        }
+        this.duplicateCount = new AtomicLong(0);
+        this.eventDroppedCounts = Maps.newConcurrentMap();
+
+        this.frameTypes = Maps.newConcurrentMap();
+        this.unhandledFrames = new AtomicLongArray(Dot11FrameSubtype.INDEX_COUNT);
+        this.probingDevices = new DeviceCounts(maxDevices);
+        this.accessPoints = new DeviceCounts(maxDevices);
+        this.beaconedNetworks = Maps.newConcurrentMap();
+        this.uncountedDevicesCount = new AtomicLong(0);
     }
 
     public void resetAccumulativeTicks() {
-        probingDevices.clear();
-        accessPoints.clear();
+        probingDevices.swap();
+        accessPoints.swap();
         beaconedNetworks.clear();
+        spooledCount.set(0);
+        spoolDrainedCount.set(0);
     }
 
     public void tickFrameCount(Dot11MetaInformation meta) {
@@ -64,17 +114,14 @@ public class Statistics {
         tickInMap(meta.getChannel(), channelCounts);
     }
 
-    public void tickMalformedCountAndNotify(Nzyme nzyme, Dot11MetaInformation meta) {
+    public void tickMalformedCount(@Nullable Dot11MetaInformation meta, MalformedReason reason) {
         int channel = 0;
         if(meta != null) {
             channel = meta.getChannel();
         }
 
-        nzyme.notify(
-                new Notification("Malformed frame received.", channel)
-                        .addField(FieldNames.SUBTYPE, "malformed"), meta);
-
         malformedCount.incrementAndGet();
+        malformedReasons.get(reason.getName()).incrementAndGet();
 
         tickInMap(channel, channelMalformedCounts);
     }
@@ -83,24 +130,76 @@ public class Statistics {
         tickInMap(type, frameTypes);
     }
 
-    public void tickProbingDevice(String bssid) {
-        tickInMap(bssid, probingDevices);
+    /**
+     * @param index Frame type and subtype of a frame without handler, see {@link Dot11FrameSubtype#getIndex()}
+     */
+    public void tickUnhandled(int index) {
+        unhandledFrames.incrementAndGet(index);
+    }
+
+    public void tickProbingDevice(long address) {
+        tickInTable(address, probingDevices);
     }
 
-    public void tickAccessPoint(String bssid) {
-        tickInMap(bssid, accessPoints);
+    public void tickAccessPoint(long address) {
+        tickInTable(address, accessPoints);
     }
 
     public void tickBeaconedNetwork(String ssid) {
         tickInMap(ssid, beaconedNetworks);
     }
 
-    public Map<String, AtomicLong> getProbingDevices() {
-        return probingDevices;
+    public void tickSpooled() {
+        spooledCount.incrementAndGet();
+    }
+
+    public void tickSpoolDrained() {
+        spoolDrainedCount.incrementAndGet();
     }
 
-    public Map<String, AtomicLong> getAccessPoints() {
-        return accessPoints;
+    public void tickUplinkDropped() {
+        uplinkDroppedCount.incrementAndGet();
+    }
+
+    /**
+     * @param subscriber Name of the event bus subscriber whose queue was full.
+     */
+    public void tickEventDropped(String subscriber) {
+        tickInMap(subscriber, eventDroppedCounts);
+    }
+
+    public void tickDuplicate() {
+        duplicateCount.incrementAndGet();
+    }
+
+    public void tickShed(FramePriority priority) {
+        shedCounts.get(priority.getName()).incrementAndGet();
+    }
+
+    public void setSpoolDepth(String spool, long depth) {
+        AtomicLong gauge = spoolDepths.get(spool);
+        if (gauge == null) {
+            spoolDepths.putIfAbsent(spool, new AtomicLong());
+            gauge = spoolDepths.get(spool);
+        }
+
+        gauge.set(depth);
+    }
+
+    public MacTable getProbingDevices() {
+        return probingDevices.current;
+    }
+
+    public MacTable getAccessPoints() {
+        return accessPoints.current;
+    }
+
+    /**
+     * @return number of frames of probing devices and access points that were not counted because the device table
+     * of the interval was full.
+     */
+    public AtomicLong getUncountedDevicesCount() {
+        return uncountedDevicesCount;
     }
 
     public Map<String, AtomicLong> getBeaconedNetworks() {
@@ -115,10 +214,24 @@ public class Statistics {
         return malformedCount;
     }
 
+    /**
+     * @return number of malformed frames by {@link MalformedReason}.
+     */
+    public Map<String, AtomicLong> getMalformedReasons() {
+        return malformedReasons;
+    }
+
     public Map<String, AtomicLong> getFrameTypes() {
         return frameTypes;
     }
 
+    /**
+     * @return number of frames without handler, indexed by frame type and subtype.
+     */
+    public AtomicLongArray getUnhandledFrames() {
+        return unhandledFrames;
+    }
+
     public Map<Integer, AtomicLong> getChannelCounts() {
         return channelCounts;
     }
@@ -127,20 +240,100 @@ public class Statistics {
         return channelMalformedCounts;
     }
 
+    public Map<String, AtomicLong> getSpoolDepths() {
+        return spoolDepths;
+    }
+
+    public AtomicLong getSpooledCount() {
+        return spooledCount;
+    }
+
+    public AtomicLong getSpoolDrainedCount() {
+        return spoolDrainedCount;
+    }
+
+    /**
+     * @return number of notifications an uplink could not send and had no spool for.
+     */
+    public AtomicLong getUplinkDroppedCount() {
+        return uplinkDroppedCount;
+    }
+
+    public Map<String, AtomicLong> getShedCounts() {
+        return shedCounts;
+    }
+
+    /**
+     * @return number of frames that were not handled because another interface already captured them.
+     */
+    public AtomicLong getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * @return number of events dropped per event bus subscriber, summed over all interfaces.
+     */
+    public Map<String, AtomicLong> getEventDroppedCounts() {
+        return eventDroppedCounts;
+    }
+
     private void tickInMap(String key, Map<String, AtomicLong> map) {
-        if(map.containsKey(key)) {
-            map.get(key).incrementAndGet();
-        } else {
-            map.put(key, new AtomicLong(1));
+        AtomicLong counter = map.get(key);
+        if(counter == null) {
+            counter = map.putIfAbsent(key, new AtomicLong(1));
+            if(counter == null) {
+                return;
+            }
         }
+
+        counter.incrementAndGet();
     }
 
     private void tickInMap(int key, Map<Integer, AtomicLong> map) {
-        if(map.containsKey(key)) {
-            map.get(key).incrementAndGet();
+        AtomicLong counter = map.get(key);
+        if(counter == null) {
+            counter = map.putIfAbsent(key, new AtomicLong(1));
+            if(counter == null) {
+                return;
+            }
+        }
+
+        counter.incrementAndGet();
+    }
+
+    private void tickInTable(long address, DeviceCounts counts) {
+        MacTable table = counts.current;
+
+        int slot = table.slot(address);
+        if (slot >= 0) {
+            table.addAndGet(slot, FRAME_COUNT, 1);
         } else {
-            map.put(key, new AtomicLong(1));
+            uncountedDevicesCount.incrementAndGet();
         }
     }
 
+    /**
+     * Frame counts per device of the current interval. A new interval swaps in the table of the interval before the
+     * last one instead of clearing the current table while frame processor threads are still counting in it. That
+     * table has not been written to for a whole interval and can be cleared safely.
+     */
+    private static class DeviceCounts {
+
+        private volatile MacTable current;
+        private MacTable spare;
+
+        private DeviceCounts(int maxDevices) {
+            this.current = new MacTable(maxDevices, 1);
+            this.spare = new MacTable(maxDevices, 1);
+        }
+
+        private synchronized void swap() {
+            MacTable previous = current;
+            spare.clear();
+            current = spare;
+            spare = previous;
+        }
+
+    }
+
 }
@@ -22,9 +22,13 @@ import horse.wtf.nzyme.Main;
 import java.text.DecimalFormat;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class StatisticsPrinter {
 
+    // By the type bits of the frame control field.
+    private static final String[] FRAME_TYPES = {"mgmt", "ctrl", "data", "ext"};
+
     private final DecimalFormat df;
     private final DecimalFormat percentDf;
 
@@ -57,6 +61,23 @@ public class StatisticsPrinter {
         sb.append("Malformed Frames per channel:      ");
         sb.append(printMalformedStatistics(statistics.getChannelCounts(), statistics.getChannelMalformedCounts()));
 
+        sb.append("\n");
+        sb.append("Malformed frames by reason:        ");
+        int reasons = 0;
+        for (Map.Entry<String, AtomicLong> reason : statistics.getMalformedReasons().entrySet()) {
+            sb.append(reason.getKey()).append(": ").append(df.format(reason.getValue().get()));
+
+            if (reasons+1 != statistics.getMalformedReasons().size()) {
+                sb.append(", ");
+            }
+
+            reasons++;
+        }
+
+        sb.append("\n");
+        sb.append("Unhandled frames by type/subtype:  ");
+        sb.append(printUnhandledStatistics(statistics.getUnhandledFrames()));
+
         sb.append("\n");
         sb.append("Probing devices:                   ").append(df.format(statistics.getProbingDevices().size()))
                 .append(" (last ").append(Main.STATS_INTERVAL).append("s)");
@@ -66,6 +87,66 @@ public class StatisticsPrinter {
         sb.append("\n");
         sb.append("Beaconing networks:                ").append(df.format(statistics.getBeaconedNetworks().size()))
                 .append(" (last ").append(Main.STATS_INTERVAL).append("s)");
+        if (statistics.getUncountedDevicesCount().get() > 0) {
+            sb.append("\n");
+            sb.append("Uncounted device frames:           ").append(df.format(statistics.getUncountedDevicesCount().get()))
+                    .append(" (device table full, raise statistics_max_devices)");
+        }
+
+        sb.append("\n");
+        sb.append("Shed frames:                       ");
+        int shed = 0;
+        for (Map.Entry<String, AtomicLong> priority : statistics.getShedCounts().entrySet()) {
+            sb.append(priority.getKey()).append(": ").append(df.format(priority.getValue().get()));
+
+            if (shed+1 != statistics.getShedCounts().size()) {
+                sb.append(", ");
+            }
+
+            shed++;
+        }
+
+        sb.append("\n");
+        sb.append("Duplicate frames:                  ").append(df.format(statistics.getDuplicateCount().get()));
+
+        sb.append("\n");
+        sb.append("Dropped notifications:             ").append(df.format(statistics.getUplinkDroppedCount().get()));
+
+        if (!statistics.getEventDroppedCounts().isEmpty()) {
+            sb.append("\n");
+            sb.append("Dropped events by subscriber:      ");
+            int i = 0;
+            for (Map.Entry<String, AtomicLong> subscriber : statistics.getEventDroppedCounts().entrySet()) {
+                sb.append(subscriber.getKey()).append(": ").append(df.format(subscriber.getValue().get()));
+
+                if (i+1 != statistics.getEventDroppedCounts().size()) {
+                    sb.append(", ");
+                }
+
+                i++;
+            }
+        }
+
+        if (!statistics.getSpoolDepths().isEmpty()) {
+            sb.append("\n");
+            sb.append("Spool depth:                       ");
+            int i = 0;
+            for (Map.Entry<String, AtomicLong> spool : statistics.getSpoolDepths().entrySet()) {
+                sb.append(spool.getKey()).append(": ").append(df.format(spool.getValue().get()));
+
+                if (i+1 != statistics.getSpoolDepths().size()) {
+                    sb.append(", ");
+                }
+
+                i++;
+            }
+
+            sb.append("\n");
+            sb.append("Spool written / drained:           ").append(df.format(statistics.getSpooledCount().get()))
+                    .append(" / ").append(df.format(statistics.getSpoolDrainedCount().get()))
+                    .append(" (").append(df.format(statistics.getSpoolDrainedCount().get() / Main.STATS_INTERVAL))
+                    .append("/s drain rate, last ").append(Main.STATS_INTERVAL).append("s)");
+        }
 
         return sb.toString();
     }
@@ -87,6 +168,25 @@ public class StatisticsPrinter {
         return sb.toString();
     }
 
+    private String printUnhandledStatistics(AtomicLongArray unhandled) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < unhandled.length(); i++) {
+            long count = unhandled.get(i);
+            if (count == 0) {
+                continue;
+            }
+
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+
+            sb.append(FRAME_TYPES[i >> 4]).append("/").append(i & 0x0F).append(": ").append(df.format(count));
+        }
+
+        return sb.toString();
+    }
+
     private String printMalformedStatistics(Map<Integer, AtomicLong> channels, Map<Integer, AtomicLong> malformed) {
         StringBuilder sb = new StringBuilder();
 
@@ -0,0 +1,116 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of primitive longs, for example packed MAC addresses. Lookups do not allocate. Not
+ * thread-safe for writes: build it once and only read it afterwards when sharing it between threads.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] slots;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        this.slots = new long[capacityFor(expectedSize)];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * @throws IllegalArgumentException if value is Long.MIN_VALUE, which is reserved.
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            throw new IllegalArgumentException("Long.MIN_VALUE cannot be stored.");
+        }
+
+        if ((size + 1) * 2 > slots.length) {
+            grow();
+        }
+
+        int mask = slots.length - 1;
+        int i = index(value, mask);
+        while (slots[i] != EMPTY) {
+            if (slots[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        slots[i] = value;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        int mask = slots.length - 1;
+        int i = index(value, mask);
+        while (slots[i] != EMPTY) {
+            if (slots[i] == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void grow() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+
+        for (long value : old) {
+            if (value != EMPTY) {
+                add(value);
+            }
+        }
+    }
+
+    static int index(long value, int mask) {
+        // Fibonacci hashing spreads sequential MAC addresses over the table.
+        return (int) ((value * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from primitive longs to objects, for example from packed MAC addresses to per-device
+ * state. Lookups do not allocate. Not thread-safe.
+ */
+public class LongObjectMap<V> {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = keys.length - 1;
+        int i = LongHashSet.index(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the previous value or null if there was none.
+     * @throws IllegalArgumentException if key is Long.MIN_VALUE, which is reserved.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Long.MIN_VALUE cannot be stored.");
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+
+        int mask = keys.length - 1;
+        int i = LongHashSet.index(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * @return the removed value or null if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        int i = LongHashSet.index(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                shiftBack(i, mask);
+                size--;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return a copy of all keys, for example to iterate while removing entries.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+
+        int n = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Closes the gap at the given slot so that lookups do not stop early at it.
+    private void shiftBack(int gap, int mask) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (keys[i] == EMPTY) {
+                break;
+            }
+
+            int home = LongHashSet.index(keys[i], mask);
+            // Move the entry into the gap unless its home slot lies cyclically in (gap, i].
+            if (gap <= i ? (home <= gap || home > i) : (home <= gap && home > i)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+
+        keys[gap] = EMPTY;
+        values[gap] = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,273 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed capacity open addressing hash table of per-device records keyed by 48 bit MAC address. All records live in a
+ * single array of primitive longs, so millions of devices cost no per-device objects and nothing for the garbage
+ * collector to trace.
+ *
+ * Every record is one key word followed by a fixed number of 64 bit fields. All operations are lock-free: Keys are
+ * claimed and fields are updated with compare-and-set on the single word they change. Records cannot be removed
+ * individually, only the whole table can be cleared. Inserts fail once the table is full.
+ */
+public class MacTable {
+
+    // Marks a used key word, so that MAC address 00:00:00:00:00:00 can be stored.
+    private static final long USED = 1L << 62;
+    private static final long MAC_MASK = (1L << 48) - 1;
+
+    private final int fields;
+    private final int stride;
+    private final int capacity;
+    private final int mask;
+    private final int maxSize;
+
+    private final AtomicInteger size;
+    private final AtomicLongArray records;
+
+    /**
+     * @param expectedSize Maximum number of records. The table reserves twice as many slots, rounded up to a power of two.
+     * @param fields Number of 64 bit fields per record.
+     */
+    public MacTable(int expectedSize, int fields) {
+        long capacity = 16;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+
+        this.fields = fields;
+        if (capacity * (fields + 1) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Table of " + expectedSize + " records with " + fields + " fields is too large.");
+        }
+
+        this.stride = fields + 1;
+        this.capacity = (int) capacity;
+        this.mask = this.capacity - 1;
+        this.maxSize = this.capacity / 4 * 3;
+        this.size = new AtomicInteger(0);
+
+        // Zeroed, which marks all slots as empty.
+        this.records = new AtomicLongArray(this.capacity * stride);
+    }
+
+    /**
+     * Finds the record of the given MAC address and creates it if it does not exist yet.
+     *
+     * @return the slot of the record or -1 if the table is full.
+     */
+    public int slot(long mac) {
+        long key = (mac & MAC_MASK) | USED;
+
+        int i = LongHashSet.index(key, mask);
+        for (int probes = 0; probes < capacity; probes++) {
+            long current = records.get(i * stride);
+
+            if (current == key) {
+                return i;
+            }
+
+            if (current == 0) {
+                // Reserve room before claiming the slot, so that concurrent inserts cannot overfill the table.
+                if (size.incrementAndGet() > maxSize) {
+                    size.decrementAndGet();
+                    return -1;
+                }
+
+                if (records.compareAndSet(i * stride, 0, key)) {
+                    return i;
+                }
+
+                // Another thread claimed the slot first, possibly for the same MAC address.
+                size.decrementAndGet();
+                if (records.get(i * stride) == key) {
+                    return i;
+                }
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the slot of the record of the given MAC address or -1 if there is none.
+     */
+    public int find(long mac) {
+        long key = (mac & MAC_MASK) | USED;
+
+        int i = LongHashSet.index(key, mask);
+        for (int probes = 0; probes < capacity; probes++) {
+            long current = records.get(i * stride);
+
+            if (current == key) {
+                return i;
+            }
+
+            if (current == 0) {
+                return -1;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    public long get(int slot, int field) {
+        return records.get(fieldIndex(slot, field));
+    }
+
+    public void set(int slot, int field, long value) {
+        records.set(fieldIndex(slot, field), value);
+    }
+
+    public long addAndGet(int slot, int field, long delta) {
+        return records.addAndGet(fieldIndex(slot, field), delta);
+    }
+
+    public boolean compareAndSet(int slot, int field, long expected, long value) {
+        return records.compareAndSet(fieldIndex(slot, field), expected, value);
+    }
+
+    /**
+     * Sets the field to the given value if it is larger than the current one, for example for last seen timestamps.
+     */
+    public void max(int slot, int field, long value) {
+        int index = fieldIndex(slot, field);
+
+        long current = records.get(index);
+        while (current < value && !records.compareAndSet(index, current, value)) {
+            current = records.get(index);
+        }
+    }
+
+    /**
+     * Removes all records. Must not be called while other threads use the table: Updates running concurrently
+     * could land in records that were already cleared. Swap in another table instead if the table is still in use.
+     */
+    public void clear() {
+        for (int i = 0; i < records.length(); i++) {
+            records.set(i, 0);
+        }
+        size.set(0);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getFields() {
+        return fields;
+    }
+
+    /**
+     * @return size of the table in bytes, as written by {@link #writeTo(ByteBuffer)}.
+     */
+    public int getByteSize() {
+        return records.length() * 8;
+    }
+
+    /**
+     * Copies the table to the target buffer, for example a memory-mapped snapshot file. Does not block writers,
+     * so records updated during the copy may be copied in an intermediate state.
+     */
+    public void writeTo(ByteBuffer target) {
+        for (int i = 0; i < records.length(); i++) {
+            target.putLong(records.get(i));
+        }
+    }
+
+    /**
+     * Replaces the table with a copy written by {@link #writeTo(ByteBuffer)} of a table with the same capacity
+     * and number of fields. Must not be called while other threads use the table.
+     */
+    public void readFrom(ByteBuffer source) {
+        int used = 0;
+        for (int i = 0; i < records.length(); i++) {
+            long value = source.getLong();
+            records.set(i, value);
+
+            if (i % stride == 0 && value != 0) {
+                used++;
+            }
+        }
+        size.set(used);
+    }
+
+    /**
+     * @return a cursor over all records. It sees records that were inserted before it was created and may or may
+     * not see records inserted while iterating.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private int fieldIndex(int slot, int field) {
+        if (field < 0 || field >= fields) {
+            throw new IndexOutOfBoundsException("Field " + field + " of " + fields);
+        }
+
+        return slot * stride + field + 1;
+    }
+
+    public class Cursor {
+
+        private int slot = -1;
+        private long mac;
+
+        /**
+         * @return false if there are no more records.
+         */
+        public boolean next() {
+            while (++slot < capacity) {
+                long key = records.get(slot * stride);
+
+                if (key != 0) {
+                    mac = key & MAC_MASK;
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        public long mac() {
+            return mac;
+        }
+
+        public int slot() {
+            return slot;
+        }
+
+        public long get(int field) {
+            return MacTable.this.get(slot, field);
+        }
+
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.util;
+
+/**
+ * Hashed timing wheel for expiring entries of large tables with a fixed tick resolution.
+ *
+ * Entries are linked into the slot of the tick of their deadline. When the wheel reaches a slot, the deadline of
+ * every entry in it is asked for again: expired entries are removed and handed to the {@link Handler}, entries whose
+ * deadline moved in the meantime are linked into the slot of their new deadline. Entries can therefore push out their
+ * deadline without touching the wheel, and advancing only visits the entries of one slot per tick.
+ *
+ * Deadlines further away than one revolution are fine, entries are just visited once per revolution until they
+ * expire. Not thread-safe.
+ */
+public class TimingWheel<E extends TimingWheel.Entry<E>> {
+
+    /**
+     * Intrusive links of an entry. An entry can only be in one wheel.
+     */
+    public static abstract class Entry<E extends Entry<E>> {
+        E previous;
+        E next;
+        int slot = -1;
+
+        public boolean isScheduled() {
+            return slot >= 0;
+        }
+    }
+
+    public interface Handler<E> {
+        /**
+         * @return the current deadline of the entry, in milliseconds.
+         */
+        long deadline(E entry);
+
+        /**
+         * Called for entries whose deadline passed. The entry is already removed from the wheel.
+         */
+        void expired(E entry, long now);
+    }
+
+    private final long tickMillis;
+    private final Entry<E>[] slots;
+    private final Handler<E> handler;
+
+    private long lastTick = -1;
+
+    /**
+     * @param slots Number of slots. Must be a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slots, Handler<E> handler) {
+        if (Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Number of slots must be a power of two.");
+        }
+
+        this.tickMillis = tickMillis;
+        this.slots = new Entry[slots];
+        this.handler = handler;
+    }
+
+    /**
+     * Links the entry into the slot of the given deadline. Moves it if it is scheduled already.
+     */
+    public void schedule(E entry, long deadline) {
+        if (entry.isScheduled()) {
+            cancel(entry);
+        }
+
+        link(entry, slotOf(tickOf(deadline)));
+    }
+
+    public void cancel(E entry) {
+        if (!entry.isScheduled()) {
+            return;
+        }
+
+        if (entry.previous == null) {
+            slots[entry.slot] = entry.next;
+        } else {
+            entry.previous.next = entry.next;
+        }
+
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+
+        entry.previous = null;
+        entry.next = null;
+        entry.slot = -1;
+    }
+
+    /**
+     * Advances the wheel to the given time, handing all expired entries to the handler.
+     */
+    public void advance(long now) {
+        long tick = now / tickMillis;
+        if (lastTick < 0) {
+            lastTick = tick;
+            return;
+        }
+
+        for (long t = Math.max(lastTick + 1, tick - slots.length + 1); t <= tick; t++) {
+            expire(slotOf(t), now);
+        }
+
+        lastTick = tick;
+    }
+
+    /**
+     * Removes an entry from the next non-empty slot, which is approximately the one closest to its deadline.
+     *
+     * @return the removed entry or null if the wheel is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long start = lastTick < 0 ? 0 : lastTick + 1;
+        for (int i = 0; i < slots.length; i++) {
+            E entry = (E) slots[slotOf(start + i)];
+            if (entry != null) {
+                cancel(entry);
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expire(int slot, long now) {
+        E entry = (E) slots[slot];
+        while (entry != null) {
+            E next = entry.next;
+
+            long deadline = handler.deadline(entry);
+            if (now >= deadline) {
+                cancel(entry);
+                handler.expired(entry, now);
+            } else {
+                int target = slotOf(tickOf(deadline));
+                if (target != slot) {
+                    cancel(entry);
+                    link(entry, target);
+                }
+            }
+
+            entry = next;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void link(E entry, int slot) {
+        E head = (E) slots[slot];
+        entry.previous = null;
+        entry.next = head;
+        entry.slot = slot;
+
+        if (head != null) {
+            head.previous = entry;
+        }
+        slots[slot] = entry;
+    }
+
+    private long tickOf(long deadline) {
+        return (deadline + tickMillis - 1) / tickMillis;
+    }
+
+    private int slotOf(long tick) {
+        return (int) (tick & (slots.length - 1));
+    }
+
+}
@@ -17,16 +17,47 @@
 
 package horse.wtf.nzyme;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.aggregation.FrameAggregator;
 import horse.wtf.nzyme.channels.ChannelHopper;
 import horse.wtf.nzyme.configuration.Configuration;
+import horse.wtf.nzyme.devices.AccessPointInventory;
+import horse.wtf.nzyme.devices.DeviceTable;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.events.EventBus;
+import horse.wtf.nzyme.events.NotificationEvent;
+import horse.wtf.nzyme.malformed.MalformedFrameReporter;
+import horse.wtf.nzyme.processing.DuplicateFilter;
 import horse.wtf.nzyme.notifications.Notification;
+import horse.wtf.nzyme.sampling.TransmitterRateLimiter;
+import horse.wtf.nzyme.sampling.TransmitterSampler;
+import horse.wtf.nzyme.sessions.SessionTracker;
 import horse.wtf.nzyme.statistics.Statistics;
 
+import java.util.List;
+
 public class MockNzyme implements Nzyme {
 
     private boolean inLoop = false;
 
+    private final List<Notification> notifications = Lists.newCopyOnWriteArrayList();
+    private final Statistics statistics = new Statistics();
+    private final FrameAggregator frameAggregator = new FrameAggregator(this, 0);
+    private final TransmitterSampler transmitterSampler = new TransmitterSampler(0, 0, 1);
+    private final TransmitterRateLimiter rateLimiter = new TransmitterRateLimiter(this, ImmutableMap.of(), 1);
+    private final DeviceTable deviceTable = new DeviceTable(this, 0, 1);
+    private final AccessPointInventory accessPointInventory = new AccessPointInventory(this, 0, 1, 0);
+    private final SessionTracker sessionTracker = new SessionTracker(this, 0, 1, 1);
+    private final MalformedFrameReporter malformedFrameReporter = new MalformedFrameReporter(this, 0, null, 0);
+    private final DuplicateFilter duplicateFilter = new DuplicateFilter(0, 0);
+    private final EventBus eventBus = new EventBus("mock");
+
+    public MockNzyme() {
+        eventBus.subscribe("mock", Event.class, this::record);
+    }
+
     @Override
     public Runnable loop() throws NzymeInitializationException {
         inLoop = true;
@@ -41,12 +72,25 @@ public class MockNzyme implements Nzyme {
 
     @Override
     public void notify(Notification notification, Dot11MetaInformation meta) {
-        // noop
+        eventBus.publish(new NotificationEvent(notification, meta));
+    }
+
+    protected void record(Event event) {
+        notifications.add(event.toNotification());
+    }
+
+    @Override
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    public List<Notification> getNotifications() {
+        return notifications;
     }
 
     @Override
     public Statistics getStatistics() {
-        return null;
+        return statistics;
     }
 
     @Override
@@ -54,6 +98,46 @@ public class MockNzyme implements Nzyme {
         return null;
     }
 
+    @Override
+    public FrameAggregator getFrameAggregator() {
+        return frameAggregator;
+    }
+
+    @Override
+    public TransmitterSampler getTransmitterSampler() {
+        return transmitterSampler;
+    }
+
+    @Override
+    public TransmitterRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    @Override
+    public DeviceTable getDeviceTable() {
+        return deviceTable;
+    }
+
+    @Override
+    public AccessPointInventory getAccessPointInventory() {
+        return accessPointInventory;
+    }
+
+    @Override
+    public SessionTracker getSessionTracker() {
+        return sessionTracker;
+    }
+
+    @Override
+    public MalformedFrameReporter getMalformedFrameReporter() {
+        return malformedFrameReporter;
+    }
+
+    @Override
+    public DuplicateFilter getDuplicateFilter() {
+        return duplicateFilter;
+    }
+
     @Override
     public Configuration getConfiguration() {
         return null;
@@ -0,0 +1,107 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.aggregation;
+
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.Notification;
+import org.pcap4j.packet.RadiotapDataAntennaSignal;
+import org.pcap4j.packet.RadiotapDataChannel;
+import org.pcap4j.packet.RadiotapPacket;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class FrameAggregatorTest {
+
+    @Test
+    public void testCoalescesIdenticalFrames() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameAggregator aggregator = new FrameAggregator(nzyme, 10);
+
+        assertTrue(aggregator.record(Dot11FrameSubtype.BEACON, 0x001122334455L, "foo", meta(2412, -40)));
+        assertTrue(aggregator.record(Dot11FrameSubtype.BEACON, 0x001122334455L, "foo", meta(2412, -60)));
+        assertTrue(aggregator.record(Dot11FrameSubtype.BEACON, 0x001122334455L, "foo", meta(2412, -50)));
+
+        assertEquals(aggregator.getSize(), 1);
+
+        aggregator.flush(System.currentTimeMillis() + 10000);
+
+        assertEquals(aggregator.getSize(), 0);
+        assertEquals(nzyme.getNotifications().size(), 1);
+
+        Notification notification = nzyme.getNotifications().get(0);
+        assertEquals(notification.getMessage(), "Received 3 beacons from 00:11:22:33:44:55 for SSID foo");
+
+        Map<String, Object> fields = notification.getAdditionalFields();
+        assertEquals(fields.get("_aggregated_count"), 3L);
+        assertEquals(fields.get("_signal_min"), -60L);
+        assertEquals(fields.get("_signal_max"), -40L);
+        assertEquals(fields.get("_signal_mean"), -50.0);
+        assertEquals(fields.get("_channel"), 1L);
+        assertEquals(fields.get("_subtype"), "beacon");
+        assertEquals(fields.get("_transmitter"), "00:11:22:33:44:55");
+    }
+
+    @Test
+    public void testSeparatesDifferentKeys() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameAggregator aggregator = new FrameAggregator(nzyme, 10);
+
+        aggregator.record(Dot11FrameSubtype.BEACON, 0x001122334455L, "foo", meta(2412, -40));
+        aggregator.record(Dot11FrameSubtype.BEACON, 0x001122334455L, "bar", meta(2412, -40));
+        aggregator.record(Dot11FrameSubtype.BEACON, 0x001122334455L, "foo", meta(2437, -40));
+        aggregator.record(Dot11FrameSubtype.PROBE_RESP, 0x001122334455L, "foo", meta(2412, -40));
+        aggregator.record(Dot11FrameSubtype.BEACON, 0x001122334466L, "foo", meta(2412, -40));
+
+        assertEquals(aggregator.getSize(), 5);
+    }
+
+    @Test
+    public void testDoesNotFlushBeforeWindowPassed() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameAggregator aggregator = new FrameAggregator(nzyme, 10);
+
+        aggregator.record(Dot11FrameSubtype.BEACON, 0x001122334455L, "foo", meta(2412, -40));
+        aggregator.flush(System.currentTimeMillis());
+
+        assertEquals(aggregator.getSize(), 1);
+        assertTrue(nzyme.getNotifications().isEmpty());
+    }
+
+    @Test
+    public void testDisabledWithZeroWindow() throws Exception {
+        assertFalse(new FrameAggregator(new MockNzyme(), 0).isEnabled());
+        assertTrue(new FrameAggregator(new MockNzyme(), 1).isEnabled());
+    }
+
+    private static Dot11MetaInformation meta(int frequency, int signal) throws Exception {
+        ArrayList<RadiotapPacket.RadiotapData> fields = Lists.newArrayList();
+        fields.add(RadiotapDataChannel.newInstance(
+                new byte[]{(byte) (frequency & 0xFF), (byte) (frequency >> 8), 0, 0}, 0, 4));
+        fields.add(RadiotapDataAntennaSignal.newInstance(new byte[]{(byte) signal}, 0, 1));
+
+        return Dot11MetaInformation.parse(fields);
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.capture;
+
+import com.google.common.collect.ImmutableList;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import org.pcap4j.core.BpfProgram;
+import org.pcap4j.core.PcapNativeException;
+import org.pcap4j.core.Pcaps;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+
+import static org.testng.Assert.*;
+
+public class BpfFilterTest {
+
+    @Test
+    public void testForSubtypes() throws Exception {
+        assertEquals(
+                BpfFilter.forSubtypes(ImmutableList.of(Dot11FrameSubtype.ACTION, Dot11FrameSubtype.BEACON, Dot11FrameSubtype.REASSOC_REQ)),
+                "wlan[0] & 0xfc = 0x20 or wlan[0] & 0xfc = 0x80 or wlan[0] & 0xfc = 0xd0"
+        );
+    }
+
+    @Test
+    public void testCompilesWithLibpcap() throws Exception {
+        String filter = BpfFilter.forSubtypes(ImmutableList.of(Dot11FrameSubtype.ACTION, Dot11FrameSubtype.BEACON,
+                Dot11FrameSubtype.REASSOC_REQ));
+
+        BpfProgram program;
+        try {
+            program = Pcaps.compileFilter(PcapFileWriter.SNAPLEN, DataLinkType.IEEE802_11_RADIO, filter,
+                    BpfProgram.BpfCompileMode.OPTIMIZE, (Inet4Address) InetAddress.getByName("0.0.0.0"));
+        } catch (UnsatisfiedLinkError | NoClassDefFoundError | PcapNativeException e) {
+            throw new SkipException("libpcap is not available.", e);
+        }
+
+        try {
+            assertEquals(program.getExpression(), filter);
+            assertTrue(program.applyFilter(radiotap(Dot11FrameSubtype.BEACON)));
+            assertTrue(program.applyFilter(radiotap(Dot11FrameSubtype.REASSOC_REQ)));
+            assertTrue(program.applyFilter(radiotap(Dot11FrameSubtype.ACTION)));
+            assertFalse(program.applyFilter(radiotap(Dot11FrameSubtype.PROBE_REQ)));
+            assertFalse(program.applyFilter(radiotap(Dot11FrameSubtype.REASSOC_RESP)));
+        } finally {
+            program.free();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsEmptySubtypes() throws Exception {
+        BpfFilter.forSubtypes(ImmutableList.of());
+    }
+
+    /**
+     * @return an empty radiotap header followed by a management frame of the given subtype.
+     */
+    private static byte[] radiotap(Dot11FrameSubtype subtype) {
+        byte[] frame = new byte[8 + 24];
+        frame[2] = 8;
+        frame[8] = (byte) (subtype.getValue() << 4 | subtype.getType() << 2);
+
+        return frame;
+    }
+
+}
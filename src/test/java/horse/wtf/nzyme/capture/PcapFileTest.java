@@ -0,0 +1,100 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.capture;
+
+import com.google.common.collect.ImmutableMap;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.*;
+
+public class PcapFileTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Path file = Files.createTempFile("nzyme-test", ".pcap");
+
+        try {
+            TrafficGenerator generator = new TrafficGenerator(ImmutableMap.of(TrafficGenerator.Kind.BEACON, 1), 10, 10, 1000, 1);
+            try (PcapFileWriter writer = new PcapFileWriter(file)) {
+                generator.write(writer, 100, 1_500_000_000_000_000L);
+            }
+
+            TrafficGenerator expected = new TrafficGenerator(ImmutableMap.of(TrafficGenerator.Kind.BEACON, 1), 10, 10, 1000, 1);
+            try (PcapFileReader reader = new PcapFileReader(file)) {
+                assertFalse(reader.isLive());
+
+                for (int i = 0; i < 100; i++) {
+                    long timestamp = 1_500_000_000_000_000L + i * 1000;
+
+                    assertEquals(reader.nextFrame(), expected.nextFrame(timestamp));
+                    assertEquals(reader.getTimestampMicros(), timestamp);
+                }
+
+                try {
+                    reader.next();
+                    fail("Expected end of file.");
+                } catch (EOFException e) {
+                    // expected
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDecodesRadiotap() throws Exception {
+        Path file = Files.createTempFile("nzyme-test", ".pcap");
+
+        try {
+            TrafficGenerator generator = new TrafficGenerator(ImmutableMap.of(TrafficGenerator.Kind.DEAUTH, 1), 10, 10, 0, 1);
+            try (PcapFileWriter writer = new PcapFileWriter(file)) {
+                generator.write(writer, 1, 0);
+            }
+
+            try (PcapFileReader reader = new PcapFileReader(file)) {
+                Dot11MetaInformation meta = Dot11MetaInformation.parse(reader.next());
+
+                assertNotNull(meta);
+                assertEquals(meta.getRadiotapLength(), 26);
+                assertEquals(meta.getMacTimestamp(), 0);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testRejectsOtherFiles() throws Exception {
+        Path file = Files.createTempFile("nzyme-test", ".pcap");
+
+        try {
+            Files.write(file, new byte[64]);
+            new PcapFileReader(file).close();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.capture;
+
+import com.google.common.collect.ImmutableMap;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MacAddress;
+import horse.wtf.nzyme.processing.FrameDispatcher;
+import horse.wtf.nzyme.processing.FrameProcessor;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class TrafficGeneratorTest {
+
+    private static final int RADIOTAP_LENGTH = 26;
+
+    @Test
+    public void testGeneratesFramesTheHandlersAccept() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameDispatcher dispatcher = dispatcher(nzyme);
+
+        TrafficGenerator generator = new TrafficGenerator(
+                ImmutableMap.of(TrafficGenerator.Kind.BEACON, 50, TrafficGenerator.Kind.PROBE_REQ, 20,
+                        TrafficGenerator.Kind.PROBE_RESP, 10, TrafficGenerator.Kind.SESSION, 10,
+                        TrafficGenerator.Kind.DEAUTH, 5),
+                10, 100, 0, 1);
+
+        for (int i = 0; i < 2000; i++) {
+            byte[] frame = generator.next();
+            assertNotNull(frame);
+            dispatcher.dispatch(frame);
+        }
+
+        assertEquals(nzyme.getStatistics().getFrameCount().get(), 2000);
+        assertEquals(nzyme.getStatistics().getMalformedCount().get(), 0);
+
+        Map<String, ?> types = nzyme.getStatistics().getFrameTypes();
+        for (String type : new String[]{"beacon", "probe-req", "probe-resp", "auth", "assoc-req", "assoc-resp", "deauth"}) {
+            assertTrue(types.containsKey(type), type);
+        }
+        assertFalse(types.containsKey("disassoc"));
+    }
+
+    @Test
+    public void testMalformedFramesAreCounted() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameDispatcher dispatcher = dispatcher(nzyme);
+
+        TrafficGenerator generator = new TrafficGenerator(ImmutableMap.of(TrafficGenerator.Kind.MALFORMED, 1), 10, 10, 0, 1);
+        for (int i = 0; i < 300; i++) {
+            dispatcher.dispatch(generator.next());
+        }
+
+        assertEquals(nzyme.getStatistics().getMalformedCount().get(), 300);
+    }
+
+    @Test
+    public void testSessionIsAuthenticationThenAssociation() throws Exception {
+        TrafficGenerator generator = new TrafficGenerator(ImmutableMap.of(TrafficGenerator.Kind.SESSION, 1), 10, 10, 0, 1);
+
+        byte[] authRequest = payload(generator.nextFrame(0));
+        byte[] authResponse = payload(generator.nextFrame(0));
+        byte[] assocRequest = payload(generator.nextFrame(0));
+        byte[] assocResponse = payload(generator.nextFrame(0));
+
+        assertEquals(subtype(authRequest), Dot11FrameSubtype.AUTH.getValue());
+        assertEquals(subtype(authResponse), Dot11FrameSubtype.AUTH.getValue());
+        assertEquals(subtype(assocRequest), Dot11FrameSubtype.ASSOC_REQ.getValue());
+        assertEquals(subtype(assocResponse), Dot11FrameSubtype.ASSOC_RESP.getValue());
+
+        long client = Dot11MacAddress.read(authRequest, Dot11MacAddress.ADDRESS2_POSITION);
+        assertEquals(Dot11MacAddress.read(authResponse, Dot11MacAddress.ADDRESS1_POSITION), client);
+        assertEquals(Dot11MacAddress.read(assocRequest, Dot11MacAddress.ADDRESS2_POSITION), client);
+        assertEquals(Dot11MacAddress.read(assocResponse, Dot11MacAddress.ADDRESS1_POSITION), client);
+    }
+
+    @Test
+    public void testDeauthFloodIsABurst() throws Exception {
+        TrafficGenerator generator = new TrafficGenerator(ImmutableMap.of(TrafficGenerator.Kind.DEAUTH_FLOOD, 1), 10, 10, 0, 1);
+
+        long source = Dot11MacAddress.read(payload(generator.nextFrame(0)), Dot11MacAddress.ADDRESS2_POSITION);
+        for (int i = 1; i < TrafficGenerator.FLOOD_BURST; i++) {
+            byte[] deauth = payload(generator.nextFrame(0));
+
+            assertEquals(subtype(deauth), Dot11FrameSubtype.DEAUTH.getValue());
+            assertEquals(Dot11MacAddress.read(deauth, Dot11MacAddress.ADDRESS1_POSITION), 0xFFFFFFFFFFFFL);
+            assertEquals(Dot11MacAddress.read(deauth, Dot11MacAddress.ADDRESS2_POSITION), source);
+        }
+    }
+
+    @Test
+    public void testDeterministicForSeed() throws Exception {
+        Map<TrafficGenerator.Kind, Integer> mix = ImmutableMap.of(TrafficGenerator.Kind.BEACON, 1, TrafficGenerator.Kind.SESSION, 1);
+        TrafficGenerator a = new TrafficGenerator(mix, 10, 10, 0, 7);
+        TrafficGenerator b = new TrafficGenerator(mix, 10, 10, 0, 7);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(a.nextFrame(i * 1000L), b.nextFrame(i * 1000L));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsEmptyMix() throws Exception {
+        new TrafficGenerator(ImmutableMap.of(TrafficGenerator.Kind.BEACON, 0), 10, 10, 0, 1);
+    }
+
+    private static FrameDispatcher dispatcher(MockNzyme nzyme) {
+        FrameDispatcher dispatcher = new FrameDispatcher(nzyme, new FrameProcessor(nzyme, 0, 0), false);
+        dispatcher.registerProvidedHandlers();
+        return dispatcher;
+    }
+
+    private static byte[] payload(byte[] frame) {
+        byte[] payload = new byte[frame.length - RADIOTAP_LENGTH];
+        System.arraycopy(frame, RADIOTAP_LENGTH, payload, 0, payload.length);
+        return payload;
+    }
+
+    private static int subtype(byte[] payload) {
+        return (payload[0] >> 4) & 0x0F;
+    }
+
+}
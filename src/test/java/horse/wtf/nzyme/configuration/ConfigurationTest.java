@@ -17,9 +17,14 @@
 
 package horse.wtf.nzyme.configuration;
 
+import com.github.joschi.jadconfig.ValidationException;
+import com.google.common.collect.ImmutableSet;
+import horse.wtf.nzyme.capture.TrafficGenerator;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class ConfigurationTest {
 
@@ -75,16 +80,86 @@ public class ConfigurationTest {
         assertEquals(configuration.getChannels().get("wlan1").get(0), new Integer(7));
     }
 
+    @Test
+    public void testGetUplinkFilters() throws Exception {
+        TestableConfiguration configuration = new TestableConfiguration();
+        assertTrue(configuration.getUplinkFilters().isEmpty());
+
+        configuration.setParameterUplinkFilters("alerts.example.org:12000;subtypes=deauth|archive.example.org:12000;subtypes=beacon,probe-req");
+
+        assertEquals(configuration.getUplinkFilters().size(), 2);
+        assertTrue(configuration.getUplinkFilters().containsKey("alerts.example.org:12000"));
+        assertTrue(configuration.getUplinkFilters().containsKey("archive.example.org:12000"));
+    }
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void testUplinkFiltersValidator() throws Exception {
+        new UplinkFiltersValidator().validate("uplink_filters", "alerts.example.org:12000;subtypes=foo");
+    }
+
+    @Test
+    public void testParseGeneratorMix() throws Exception {
+        assertEquals(Configuration.parseGeneratorMix(TrafficGenerator.DEFAULT_MIX).size(), 8);
+        assertEquals(Configuration.parseGeneratorMix("beacon:3, deauth-flood:1").get(TrafficGenerator.Kind.DEAUTH_FLOOD),
+                Integer.valueOf(1));
+    }
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void testGeneratorMixValidator() throws Exception {
+        new GeneratorMixValidator().validate("generator_mix", "beacon:0,probe-req:0");
+    }
+
+    @Test
+    public void testParseFrameSubtypes() throws Exception {
+        assertEquals(Configuration.parseFrameSubtypes("action, beacon"),
+                ImmutableSet.of(Dot11FrameSubtype.ACTION, Dot11FrameSubtype.BEACON));
+    }
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void testFrameSubtypesValidator() throws Exception {
+        new FrameSubtypesValidator().validate("disabled_frame_subtypes", "beacon,foo");
+    }
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void testRejectsBeaconSamplingRate() throws Exception {
+        TestableConfiguration configuration = new TestableConfiguration();
+        configuration.setParameterBeaconSamplingRate(10);
+
+        configuration.validateSampling();
+    }
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void testRejectsSamplingWithoutBudget() throws Exception {
+        TestableConfiguration configuration = new TestableConfiguration();
+        configuration.setParameterSampling(60, 0);
+
+        configuration.validateSampling();
+    }
+
     private class TestableConfiguration extends Configuration {
 
         public void setParameterGraylogAddresses(String addresses) {
             this.graylogAddresses = addresses;
         }
 
+        public void setParameterUplinkFilters(String filters) {
+            this.uplinkFilters = filters;
+        }
+
         public void setParameterChannels(String channels) {
             this.channels = channels;
         }
 
+        @SuppressWarnings("deprecation") // Setting the deprecated parameter is what is tested.
+        public void setParameterBeaconSamplingRate(int rate) {
+            this.beaconSamplingRate = rate;
+        }
+
+        public void setParameterSampling(int minIntervalSeconds, int budget) {
+            this.samplingMinIntervalSeconds = minIntervalSeconds;
+            this.samplingBudget = budget;
+        }
+
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.detection;
+
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.BeaconEvent;
+import horse.wtf.nzyme.notifications.Notification;
+import org.pcap4j.packet.RadiotapDataChannel;
+import org.pcap4j.packet.RadiotapDataTsft;
+import org.pcap4j.packet.RadiotapPacket;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+
+import static org.testng.Assert.*;
+
+public class BeaconClockAnalyzerTest {
+
+    private static final long BSSID = 0x001122334455L;
+
+    private static final long INTERVAL_MICROS = 100 * 1024;
+    private static final long AP_OFFSET = 5_000_000_000L;
+    private static final long SPOOFER_OFFSET = 7_000_000L;
+
+    @Test
+    public void testRegularBeaconsAreFine() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        BeaconClockAnalyzer analyzer = new BeaconClockAnalyzer(nzyme, 10);
+
+        long arrival = 1_000_000;
+        for (int i = 0; i < 50; i++) {
+            // Some jitter and a few missed beacons.
+            arrival += (i % 10 == 0 ? 3 : 1) * INTERVAL_MICROS + (i % 3) * 100;
+            analyzer.handle(beacon(AP_OFFSET + arrival, arrival), 1000);
+        }
+
+        assertTrue(nzyme.getNotifications().isEmpty());
+        assertEquals(analyzer.getTrackedBssids(), 1);
+    }
+
+    @Test
+    public void testDetectsTwoClocks() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        BeaconClockAnalyzer analyzer = new BeaconClockAnalyzer(nzyme, 10);
+
+        long arrival = 1_000_000;
+        for (int i = 0; i < 20; i++) {
+            arrival += INTERVAL_MICROS / 2;
+            long offset = i % 2 == 0 ? AP_OFFSET : AP_OFFSET + SPOOFER_OFFSET;
+            analyzer.handle(beacon(offset + arrival, arrival), 1000);
+        }
+
+        // One notification because of the cooldown.
+        assertEquals(nzyme.getNotifications().size(), 1);
+
+        Notification notification = nzyme.getNotifications().get(0);
+        assertEquals(notification.getMessage(), "BSSID 00:11:22:33:44:55 (foo) is sending beacons from two clocks " +
+                "7000000 microseconds apart. Likely spoofed.");
+        assertEquals(notification.getAdditionalFields().get("_beacon_clock_anomaly"), "clock_divergence");
+    }
+
+    @Test
+    public void testRestartIsReportedOnce() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        BeaconClockAnalyzer analyzer = new BeaconClockAnalyzer(nzyme, 10);
+
+        long arrival = 1_000_000;
+        for (int i = 0; i < 10; i++) {
+            arrival += INTERVAL_MICROS;
+            analyzer.handle(beacon(AP_OFFSET + arrival, arrival), 1000);
+        }
+
+        // TSF timer starts at 0 again.
+        long restart = arrival;
+        for (int i = 0; i < 10; i++) {
+            arrival += INTERVAL_MICROS;
+            analyzer.handle(beacon(arrival - restart, arrival), 1000 + 120000 * i);
+        }
+
+        assertEquals(nzyme.getNotifications().size(), 1);
+        assertEquals(nzyme.getNotifications().get(0).getAdditionalFields().get("_beacon_clock_anomaly"),
+                "timestamp_regression");
+    }
+
+    @Test
+    public void testExpiresIdleBssids() throws Exception {
+        BeaconClockAnalyzer analyzer = new BeaconClockAnalyzer(new MockNzyme(), 1);
+        analyzer.handle(beacon(AP_OFFSET, 1000), 1000);
+        analyzer.handle(new BeaconEvent(meta(2000), BSSID + 1, "bar", AP_OFFSET, 100, 6, 0), 1000);
+        assertEquals(analyzer.getTrackedBssids(), 1);
+
+        analyzer.expire(1000 + 600000);
+        assertEquals(analyzer.getTrackedBssids(), 0);
+    }
+
+    private static BeaconEvent beacon(long timestamp, long arrival) throws Exception {
+        return new BeaconEvent(meta(arrival), BSSID, "foo", timestamp, 100, 6, 0);
+    }
+
+    private static Dot11MetaInformation meta(long tsft) throws Exception {
+        byte[] raw = new byte[8];
+        for (int i = 0; i < 8; i++) {
+            raw[i] = (byte) (tsft >>> (8 * i));
+        }
+
+        ArrayList<RadiotapPacket.RadiotapData> fields = Lists.newArrayList();
+        fields.add(RadiotapDataTsft.newInstance(raw, 0, 8));
+        fields.add(RadiotapDataChannel.newInstance(new byte[]{(byte) 0x85, (byte) 0x09, 0, 0}, 0, 4));
+
+        return Dot11MetaInformation.parse(fields);
+    }
+
+}
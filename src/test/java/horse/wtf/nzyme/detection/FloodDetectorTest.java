@@ -0,0 +1,83 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.detection;
+
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.events.DeauthenticationEvent;
+import horse.wtf.nzyme.events.DisassociationEvent;
+import horse.wtf.nzyme.notifications.Notification;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class FloodDetectorTest {
+
+    private static final long BSSID = 0x001122334455L;
+    private static final long BROADCAST = 0xFFFFFFFFFFFFL;
+
+    @Test
+    public void testAlertsOnceAndClears() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FloodDetector detector = new FloodDetector(nzyme, 10, 2);
+
+        long now = 1000000;
+        for (int i = 0; i < 100; i++) {
+            detector.handle(new DeauthenticationEvent(null, 0xAA0000000001L + (i % 2), BROADCAST, BSSID, (short) 7), now + i);
+        }
+
+        // One alert for the BSSID and one for the broadcast destination.
+        assertEquals(nzyme.getNotifications().size(), 2);
+
+        Notification alert = nzyme.getNotifications().get(0);
+        Map<String, Object> fields = alert.getAdditionalFields();
+        assertEquals(fields.get("_flood_target_type"), "bssid");
+        assertEquals(fields.get("_flood_target"), "00:11:22:33:44:55");
+        assertEquals(fields.get("_subtype"), "deauth");
+        assertTrue(((String) fields.get("_flood_sources")).startsWith("aa:00:00:00:00:0"));
+        assertEquals(fields.get("_flood_reason_codes"), "7 (20)");
+        assertEquals(nzyme.getNotifications().get(1).getField("flood_target_type"), "destination");
+
+        detector.sweep(now + 1000);
+        assertEquals(nzyme.getNotifications().size(), 2);
+
+        detector.sweep(now + 5000);
+        assertEquals(nzyme.getNotifications().size(), 4);
+        assertEquals(nzyme.getNotifications().get(2).getMessage(),
+                "deauth flood against bssid 00:11:22:33:44:55 stopped after 4 seconds and 100 frames");
+
+        detector.sweep(now + 10000);
+        assertEquals(detector.getTrackedTargets(), 0);
+    }
+
+    @Test
+    public void testIgnoresLowRates() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FloodDetector detector = new FloodDetector(nzyme, 10, 2);
+
+        long now = 1000000;
+        for (int i = 0; i < 10; i++) {
+            detector.handle(new DisassociationEvent(null, 0xAA0000000001L, BROADCAST, BSSID, (short) 8), now + i * 1000);
+        }
+
+        assertTrue(nzyme.getNotifications().isEmpty());
+        assertEquals(detector.getTrackedTargets(), 2);
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.devices;
+
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11BeaconFields;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.BeaconEvent;
+import horse.wtf.nzyme.events.ProbeResponseEvent;
+import horse.wtf.nzyme.notifications.Notification;
+import org.pcap4j.packet.RadiotapDataAntennaSignal;
+import org.pcap4j.packet.RadiotapDataChannel;
+import org.pcap4j.packet.RadiotapPacket;
+import org.testng.annotations.Test;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import static org.testng.Assert.*;
+
+public class AccessPointInventoryTest {
+
+    private static final long BSSID = 0x001122334455L;
+    private static final long TWIN = 0x66778899AABBL;
+
+    private static final int WPA2 = Dot11BeaconFields.SECURITY_PRIVACY | Dot11BeaconFields.SECURITY_RSN;
+
+    @Test
+    public void testRecordsAccessPoint() throws Exception {
+        AccessPointInventory inventory = new AccessPointInventory(new MockNzyme(), 10, 60, 0);
+
+        long now = 1000000;
+        inventory.handle(beacon(BSSID, "foo", 6, WPA2), now);
+        inventory.handle(beacon(BSSID, "foo", 6, WPA2), now + 100);
+
+        AccessPoint ap = inventory.get(BSSID);
+        assertNotNull(ap);
+        assertEquals(ap.getSsid(), "foo");
+        assertEquals(ap.getChannel(), 6);
+        assertEquals(ap.getBeaconInterval(), 100);
+        assertEquals(ap.getSecurity(), WPA2);
+        assertEquals(ap.getFirstSeen(), now);
+        assertEquals(ap.getLastSeen(), now + 100);
+        assertEquals(ap.getFrames(), 2);
+        assertEquals(inventory.getBySsid("foo").size(), 1);
+    }
+
+    @Test
+    public void testReportsNewBssidForKnownSsid() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        AccessPointInventory inventory = new AccessPointInventory(nzyme, 10, 60, 0);
+
+        inventory.handle(beacon(BSSID, "foo", 6, WPA2), 1000);
+        inventory.handle(beacon(0x0A0B0C0D0E0FL, "bar", 6, WPA2), 1000);
+        assertTrue(nzyme.getNotifications().isEmpty());
+
+        inventory.handle(beacon(TWIN, "foo", 6, 0), 2000);
+        assertEquals(nzyme.getNotifications().size(), 1);
+        assertEquals(inventory.getBySsid("foo").size(), 2);
+
+        Notification notification = nzyme.getNotifications().get(0);
+        assertEquals(notification.getMessage(), "New BSSID 66:77:88:99:aa:bb is advertising known SSID foo (open). " +
+                "Known BSSIDs: 00:11:22:33:44:55");
+        assertEquals(notification.getAdditionalFields().get("_ap_security_mismatch"), true);
+    }
+
+    @Test
+    public void testDoesNotReportNewBssidsWhileLearning() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        AccessPointInventory inventory = new AccessPointInventory(nzyme, 10, 60, 5);
+
+        inventory.handle(beacon(BSSID, "foo", 6, WPA2), 0);
+        inventory.handle(beacon(TWIN, "foo", 6, WPA2), 60000);
+        assertTrue(nzyme.getNotifications().isEmpty());
+
+        inventory.handle(beacon(0x0A0B0C0D0E0FL, "foo", 6, WPA2), 300000);
+        assertEquals(nzyme.getNotifications().size(), 1);
+    }
+
+    @Test
+    public void testReportsChannelAndSecurityChanges() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        AccessPointInventory inventory = new AccessPointInventory(nzyme, 10, 60, 0);
+
+        inventory.handle(beacon(BSSID, "foo", 6, WPA2), 1000);
+        inventory.handle(beacon(BSSID, "foo", 11, WPA2), 2000);
+        inventory.handle(beacon(BSSID, "foo", 11, 0), 3000);
+
+        assertEquals(nzyme.getNotifications().size(), 2);
+        assertEquals(nzyme.getNotifications().get(0).getMessage(),
+                "BSSID 00:11:22:33:44:55 of SSID foo moved from channel 6 to 11");
+        assertEquals(nzyme.getNotifications().get(1).getMessage(),
+                "BSSID 00:11:22:33:44:55 of SSID foo changed security from WPA2 to open");
+    }
+
+    @Test
+    public void testLearnsSsidOfHiddenNetwork() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        AccessPointInventory inventory = new AccessPointInventory(nzyme, 10, 60, 0);
+
+        inventory.handle(beacon(BSSID, "", 6, WPA2), 1000);
+        inventory.handle(new ProbeResponseEvent(meta(2437), BSSID, TWIN, "hidden", 100, 6, WPA2), 2000);
+        inventory.handle(beacon(BSSID, "", 6, WPA2), 3000);
+
+        assertEquals(inventory.get(BSSID).getSsid(), "hidden");
+        assertEquals(inventory.getBySsid("hidden").size(), 1);
+        assertTrue(nzyme.getNotifications().isEmpty());
+    }
+
+    @Test
+    public void testExpiresAndLimitsAccessPoints() throws Exception {
+        AccessPointInventory inventory = new AccessPointInventory(new MockNzyme(), 1, 1, 0);
+
+        inventory.handle(beacon(BSSID, "foo", 6, WPA2), 1000);
+        inventory.handle(beacon(TWIN, "foo", 6, WPA2), 1000);
+        assertEquals(inventory.size(), 1);
+        assertEquals(inventory.getIgnoredCount(), 1);
+
+        inventory.expire(61000);
+        assertEquals(inventory.size(), 0);
+        assertTrue(inventory.getBySsid("foo").isEmpty());
+    }
+
+    @Test
+    public void testContinuesLearningPeriodAfterRestore() throws Exception {
+        AccessPointInventory inventory = new AccessPointInventory(new MockNzyme(), 10, 60, 5);
+        inventory.handle(beacon(BSSID, "foo", 6, WPA2), 0);
+        inventory.handle(beacon(0x0A0B0C0D0E0FL, null, 6, WPA2), 60000);
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 * AccessPoint.MAX_SNAPSHOT_RECORD_SIZE);
+        assertEquals(inventory.writeTo(buffer), 2);
+        ((Buffer) buffer).flip();
+
+        MockNzyme nzyme = new MockNzyme();
+        AccessPointInventory restored = new AccessPointInventory(nzyme, 10, 60, 5);
+        restored.readFrom(buffer, 2, inventory.getLearningStartedAt(), 600000);
+        assertEquals(restored.size(), 2);
+        assertEquals(restored.get(BSSID).getFrames(), 1);
+        assertNull(restored.get(0x0A0B0C0D0E0FL).getSsid());
+
+        // The learning period ended before the restart, so a new BSSID of a known SSID is reported right away.
+        restored.handle(beacon(TWIN, "foo", 6, WPA2), 600000);
+        assertEquals(nzyme.getNotifications().size(), 1);
+    }
+
+    @Test
+    public void testLearnsAgainIfNothingWasRestored() throws Exception {
+        AccessPointInventory inventory = new AccessPointInventory(new MockNzyme(), 10, 1, 5);
+        inventory.handle(beacon(BSSID, "foo", 6, WPA2), 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(AccessPoint.MAX_SNAPSHOT_RECORD_SIZE);
+        inventory.writeTo(buffer);
+        ((Buffer) buffer).flip();
+
+        // All access points expired while nzyme was stopped.
+        AccessPointInventory restored = new AccessPointInventory(new MockNzyme(), 10, 1, 5);
+        restored.readFrom(buffer, 1, inventory.getLearningStartedAt(), 600000);
+        assertEquals(restored.size(), 0);
+        assertEquals(restored.getLearningStartedAt(), -1);
+    }
+
+    private static BeaconEvent beacon(long bssid, String ssid, int channel, int security) throws Exception {
+        return new BeaconEvent(meta(2437), bssid, ssid, 0, 100, channel, security);
+    }
+
+    private static Dot11MetaInformation meta(int frequency) throws Exception {
+        ArrayList<RadiotapPacket.RadiotapData> fields = Lists.newArrayList();
+        fields.add(RadiotapDataChannel.newInstance(
+                new byte[]{(byte) (frequency & 0xFF), (byte) (frequency >> 8), 0, 0}, 0, 4));
+        fields.add(RadiotapDataAntennaSignal.newInstance(new byte[]{(byte) -50}, 0, 1));
+
+        return Dot11MetaInformation.parse(fields);
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.devices;
+
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.BeaconEvent;
+import horse.wtf.nzyme.events.ProbeRequestEvent;
+import org.pcap4j.packet.RadiotapDataAntennaSignal;
+import org.pcap4j.packet.RadiotapDataChannel;
+import org.pcap4j.packet.RadiotapPacket;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+
+import static org.testng.Assert.*;
+
+public class DeviceTableTest {
+
+    private static final long MAC = 0x001122334455L;
+
+    @Test
+    public void testRecordsDevice() throws Exception {
+        DeviceTable table = new DeviceTable(new MockNzyme(), 10, 1);
+
+        long now = 1000000;
+        table.record(new ProbeRequestEvent(meta(2412, -40), MAC, "foo", false), now);
+        table.record(new ProbeRequestEvent(meta(2437, -60), MAC, "bar", false), now + 10);
+        table.record(new ProbeRequestEvent(meta(2437, -60), MAC, "foo", false), now + 20);
+        table.record(new ProbeRequestEvent(meta(2437, -60), MAC, null, true), now + 30);
+        table.record(new BeaconEvent(meta(2437, -60), MAC, "baz"), now + 40);
+
+        Device device = table.get(MAC);
+        assertNotNull(device);
+        assertEquals(device.getFirstSeen(), now);
+        assertEquals(device.getLastSeen(), now + 40);
+        assertEquals(device.getFrameCount(Dot11FrameSubtype.PROBE_REQ), 4);
+        assertEquals(device.getFrameCount(Dot11FrameSubtype.BEACON), 1);
+        assertEquals(device.getTotalFrameCount(), 5);
+        assertEquals(device.getProbedSsids(), new String[]{"foo", "bar"});
+        assertTrue(device.wasSeenOnChannel(1));
+        assertTrue(device.wasSeenOnChannel(6));
+        assertFalse(device.wasSeenOnChannel(11));
+        assertTrue(device.getRssiEwma() < -50 && device.getRssiEwma() > -60);
+        assertEquals(device.getMacString(), "00:11:22:33:44:55");
+    }
+
+    @Test
+    public void testExpiresAfterTtl() throws Exception {
+        DeviceTable table = new DeviceTable(new MockNzyme(), 10, 1);
+
+        long now = 1000000;
+        table.advance(now);
+        table.record(new BeaconEvent(meta(2412, -40), MAC, "foo"), now);
+        table.record(new BeaconEvent(meta(2412, -40), MAC + 1, "foo"), now);
+
+        // Seen again, so only the other device expires at the original time.
+        table.record(new BeaconEvent(meta(2412, -40), MAC, "foo"), now + 30000);
+
+        table.advance(now + 59000);
+        assertEquals(table.size(), 2);
+
+        table.advance(now + 61000);
+        assertEquals(table.size(), 1);
+        assertNotNull(table.get(MAC));
+
+        table.advance(now + 91000);
+        assertEquals(table.size(), 0);
+        assertEquals(table.getEvictedCount(), 2);
+    }
+
+    @Test
+    public void testEvictsWhenFull() throws Exception {
+        DeviceTable table = new DeviceTable(new MockNzyme(), 3, 1);
+
+        long now = 1000000;
+        table.advance(now);
+        for (int i = 0; i < 5; i++) {
+            table.record(new BeaconEvent(meta(2412, -40), MAC + i, "foo"), now + i * 1000);
+        }
+
+        assertEquals(table.size(), 3);
+        assertEquals(table.getEvictedCount(), 2);
+        assertNull(table.get(MAC));
+        assertNotNull(table.get(MAC + 4));
+    }
+
+    private static Dot11MetaInformation meta(int frequency, int signal) throws Exception {
+        ArrayList<RadiotapPacket.RadiotapData> fields = Lists.newArrayList();
+        fields.add(RadiotapDataChannel.newInstance(
+                new byte[]{(byte) (frequency & 0xFF), (byte) (frequency >> 8), 0, 0}, 0, 4));
+        fields.add(RadiotapDataAntennaSignal.newInstance(new byte[]{(byte) signal}, 0, 1));
+
+        return Dot11MetaInformation.parse(fields);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.dot11;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class Dot11BeaconFieldsTest {
+
+    private static final byte[] RSN_PSK_SAE = {
+            48, 24,
+            1, 0,                                       // version
+            0x00, 0x0F, (byte) 0xAC, 4,                 // group cipher: CCMP
+            1, 0, 0x00, 0x0F, (byte) 0xAC, 4,           // pairwise ciphers: CCMP
+            2, 0, 0x00, 0x0F, (byte) 0xAC, 2,           // AKM suites: PSK, SAE
+            0x00, 0x0F, (byte) 0xAC, 8,
+            (byte) 0x80, 0                              // RSN capabilities: MFP capable
+    };
+
+    private static final byte[] WPA_PSK = {
+            (byte) 221, 22,
+            0x00, 0x50, (byte) 0xF2, 1, 1, 0,           // OUI, type, version
+            0x00, 0x50, (byte) 0xF2, 2,                 // group cipher: TKIP
+            1, 0, 0x00, 0x50, (byte) 0xF2, 2,           // pairwise ciphers: TKIP
+            1, 0, 0x00, 0x50, (byte) 0xF2, 2            // AKM suites: PSK
+    };
+
+    @Test
+    public void testReadsFixedFieldsAndChannel() throws Exception {
+        byte[] payload = frame(true, new byte[]{0, 3, 'f', 'o', 'o'}, new byte[]{3, 1, 11});
+
+        assertEquals(Dot11BeaconFields.readBeaconInterval(payload), 100);
+        assertEquals(Dot11BeaconFields.readChannel(payload), 11);
+        assertEquals(Dot11BeaconFields.readSecurity(payload), Dot11BeaconFields.SECURITY_PRIVACY);
+        assertEquals(Dot11BeaconFields.securityToString(Dot11BeaconFields.readSecurity(payload)), "WEP");
+    }
+
+    @Test
+    public void testReadsRsnAndWpa() throws Exception {
+        int rsn = Dot11BeaconFields.readSecurity(frame(true, RSN_PSK_SAE));
+        assertEquals(Dot11BeaconFields.securityToString(rsn), "WPA2/PSK+SAE (MFP capable)");
+
+        int wpa = Dot11BeaconFields.readSecurity(frame(true, WPA_PSK));
+        assertEquals(Dot11BeaconFields.securityToString(wpa), "WPA/PSK");
+
+        int both = Dot11BeaconFields.readSecurity(frame(true, WPA_PSK, RSN_PSK_SAE));
+        assertEquals(Dot11BeaconFields.securityToString(both), "WPA+WPA2/PSK+SAE (MFP capable)");
+
+        assertNotEquals(rsn, both);
+        assertTrue(Dot11BeaconFields.isEncrypted(rsn));
+    }
+
+    @Test
+    public void testOpenAndTruncated() throws Exception {
+        int open = Dot11BeaconFields.readSecurity(frame(false, new byte[]{0, 0}));
+        assertEquals(open, 0);
+        assertFalse(Dot11BeaconFields.isEncrypted(open));
+        assertEquals(Dot11BeaconFields.securityToString(open), "open");
+
+        assertEquals(Dot11BeaconFields.readSecurity(new byte[30]), Dot11BeaconFields.UNKNOWN);
+        assertEquals(Dot11BeaconFields.readSecurity(frame(true)), Dot11BeaconFields.UNKNOWN);
+        assertEquals(Dot11BeaconFields.readBeaconInterval(new byte[30]), Dot11BeaconFields.UNKNOWN);
+        assertEquals(Dot11BeaconFields.readChannel(new byte[30]), Dot11BeaconFields.UNKNOWN);
+
+        // Element length pointing beyond the payload.
+        byte[] truncated = frame(true, new byte[]{0, 0}, new byte[]{48, 20, 1, 0});
+        assertEquals(Dot11BeaconFields.readSecurity(truncated), Dot11BeaconFields.UNKNOWN);
+    }
+
+    static byte[] frame(boolean privacy, byte[]... elements) {
+        int length = Dot11BeaconFields.TAGGED_PARAMETERS_POSITION;
+        for (byte[] element : elements) {
+            length += element.length;
+        }
+
+        byte[] payload = new byte[length];
+        payload[0] = (byte) 0x80;
+        payload[Dot11BeaconFields.BEACON_INTERVAL_POSITION] = 100;
+        payload[Dot11BeaconFields.CAPABILITIES_POSITION] = (byte) (privacy ? 0x11 : 0x01);
+
+        int position = Dot11BeaconFields.TAGGED_PARAMETERS_POSITION;
+        for (byte[] element : elements) {
+            System.arraycopy(element, 0, payload, position, element.length);
+            position += element.length;
+        }
+
+        return payload;
+    }
+
+}
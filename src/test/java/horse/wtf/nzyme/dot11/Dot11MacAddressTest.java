@@ -0,0 +1,54 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.dot11;
+
+import org.pcap4j.util.MacAddress;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class Dot11MacAddressTest {
+
+    @Test
+    public void testRead() throws Exception {
+        byte[] payload = new byte[24];
+        for (int i = 0; i < 6; i++) {
+            payload[10 + i] = (byte) (0xA0 + i);
+        }
+
+        assertEquals(Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS2_POSITION), 0xA0A1A2A3A4A5L);
+        assertEquals(Dot11MacAddress.read(payload, Dot11MacAddress.ADDRESS1_POSITION), 0L);
+    }
+
+    @Test
+    public void testReadOutOfBounds() throws Exception {
+        assertEquals(Dot11MacAddress.read(new byte[15], Dot11MacAddress.ADDRESS2_POSITION), -1L);
+        assertEquals(Dot11MacAddress.toString(-1), "");
+    }
+
+    @Test
+    public void testToStringMatchesPcap4j() throws Exception {
+        byte[] address = new byte[]{(byte) 0xDE, (byte) 0xAD, (byte) 0xBE, (byte) 0xEF, 0x00, 0x01};
+
+        assertEquals(
+                Dot11MacAddress.toString(Dot11MacAddress.read(address, 0)),
+                MacAddress.getByAddress(address).toString()
+        );
+    }
+
+}
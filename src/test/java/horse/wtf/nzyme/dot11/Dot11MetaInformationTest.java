@@ -0,0 +1,102 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.dot11;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+public class Dot11MetaInformationTest {
+
+    @Test
+    public void testParse() throws Exception {
+        Dot11MetaInformation meta = Dot11MetaInformation.parse(frame((byte) 0x04));
+
+        assertNotNull(meta);
+        assertEquals(meta.getRadiotapLength(), 26);
+        assertEquals(meta.getMacTimestamp(), 0x0102030405060708L);
+        assertEquals(meta.getFrequency(), 2437);
+        assertEquals(meta.getChannel(), 6);
+        assertEquals(meta.getAntennaSignal(), -42);
+        assertTrue(meta.isWep());
+        assertFalse(meta.hasFcs());
+        assertFalse(meta.isMalformed());
+    }
+
+    @Test
+    public void testParseFlags() throws Exception {
+        assertTrue(Dot11MetaInformation.parse(frame((byte) 0x10)).hasFcs());
+        assertTrue(Dot11MetaInformation.parse(frame((byte) 0x40)).isMalformed());
+    }
+
+    @Test
+    public void testParseSkipsExtendedPresentBitmaps() throws Exception {
+        ByteBuffer frame = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        frame.put((byte) 0).put((byte) 0).putShort((short) 14);
+        frame.putInt(0x80000022); // FLAGS, DBM_ANTSIGNAL, EXT
+        frame.putInt(0);
+        frame.put((byte) 0).put((byte) -70);
+
+        Dot11MetaInformation meta = Dot11MetaInformation.parse(frame.array());
+
+        assertNotNull(meta);
+        assertEquals(meta.getRadiotapLength(), 14);
+        assertEquals(meta.getAntennaSignal(), -70);
+    }
+
+    @Test
+    public void testParseRejectsInvalidHeaders() throws Exception {
+        byte[] frame = frame((byte) 0);
+
+        // Truncated.
+        assertNull(Dot11MetaInformation.parse(Arrays.copyOf(frame, 7)));
+        assertNull(Dot11MetaInformation.parse(Arrays.copyOf(frame, 20)));
+
+        // Unknown version.
+        byte[] version = frame.clone();
+        version[0] = 1;
+        assertNull(Dot11MetaInformation.parse(version));
+
+        // Fields do not fit into the header length.
+        byte[] length = frame.clone();
+        length[2] = 12;
+        assertNull(Dot11MetaInformation.parse(length));
+    }
+
+    /**
+     * The radiotap header of the traffic generator: TSFT, flags, rate, channel, antenna signal and RX flags.
+     */
+    private static byte[] frame(byte flags) {
+        ByteBuffer frame = ByteBuffer.allocate(26 + 24).order(ByteOrder.LITTLE_ENDIAN);
+        frame.put((byte) 0).put((byte) 0).putShort((short) 26).putInt(0x402F);
+        frame.putLong(0x0102030405060708L);
+        frame.put(flags);
+        frame.put((byte) 2);
+        frame.putShort((short) 2437).putShort((short) 0x00A0);
+        frame.put((byte) -42);
+        frame.put((byte) 0);
+        frame.putShort((short) 0);
+
+        return frame.array();
+    }
+
+}
@@ -20,6 +20,8 @@ package horse.wtf.nzyme.dot11;
 import horse.wtf.nzyme.handlers.ProbeResponseFrameHandler;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+
 import static org.testng.Assert.*;
 
 public class Dot11SSIDTest {
@@ -37,18 +39,27 @@ public class Dot11SSIDTest {
 
     @Test
     public void testExtractSSID() throws Exception {
-        String ssid = null;
-        try {
-            ssid = Dot11SSID.extractSSID(
-                    ProbeResponseFrameHandler.SSID_LENGTH_POSITION,
-                    ProbeResponseFrameHandler.SSID_POSITION,
-                    PROBE_RESP
-            );
-        } catch (MalformedFrameException e) {
-            fail("malformed frame");
-        }
+        String ssid = Dot11SSID.extractSSID(
+                ProbeResponseFrameHandler.SSID_LENGTH_POSITION,
+                ProbeResponseFrameHandler.SSID_POSITION,
+                PROBE_RESP
+        );
 
         assertEquals(ssid, "United_Wi-Fi");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testExtractSSIDMalformed() throws Exception {
+        byte[] truncated = Arrays.copyOf(PROBE_RESP, ProbeResponseFrameHandler.SSID_POSITION + 4);
+        assertNull(Dot11SSID.extractSSID(37, 38, truncated));
+
+        byte[] invalid = PROBE_RESP.clone();
+        invalid[ProbeResponseFrameHandler.SSID_POSITION + 1] = (byte) 0xC3;
+        assertNull(Dot11SSID.extractSSID(37, 38, invalid));
+
+        byte[] hidden = PROBE_RESP.clone();
+        hidden[ProbeResponseFrameHandler.SSID_LENGTH_POSITION] = 0;
+        assertEquals(Dot11SSID.extractSSID(37, 38, hidden), "");
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.events;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.notifications.Notification;
+import horse.wtf.nzyme.statistics.Statistics;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class EventBusTest {
+
+    @Test
+    public void testSynchronousDelivery() throws Exception {
+        EventBus bus = new EventBus("test");
+        List<Event> received = Lists.newArrayList();
+        bus.subscribe("test", Event.class, received::add);
+
+        Event event = new NotificationEvent(new Notification("foo", 1), null);
+        bus.publish(event);
+
+        assertEquals(received.size(), 1);
+        assertSame(received.get(0), event);
+    }
+
+    @Test
+    public void testDeliversOnlySubscribedTypes() throws Exception {
+        EventBus bus = new EventBus("test");
+        List<FrameEvent> frames = Lists.newArrayList();
+        List<DeauthenticationEvent> deauths = Lists.newArrayList();
+        bus.subscribe("frames", FrameEvent.class, frames::add);
+        bus.subscribe("deauths", DeauthenticationEvent.class, deauths::add);
+
+        bus.publish(new NotificationEvent(new Notification("foo", 1), null));
+        bus.publish(new DeauthenticationEvent(null, 1, 2, 3, (short) 7));
+        bus.publish(new BeaconEvent(null, 1, "foo"));
+
+        assertEquals(frames.size(), 2);
+        assertEquals(deauths.size(), 1);
+        assertEquals(deauths.get(0).getReasonCode(), 7);
+    }
+
+    @Test
+    public void testFailingSubscriberDoesNotAffectOthers() throws Exception {
+        EventBus bus = new EventBus("test");
+        List<Event> received = Lists.newArrayList();
+        bus.subscribe("failing", Event.class, e -> { throw new RuntimeException("boom"); });
+        bus.subscribe("working", Event.class, received::add);
+
+        bus.publish(new NotificationEvent(new Notification("foo", 1), null));
+
+        assertEquals(received.size(), 1);
+    }
+
+    @Test
+    public void testQueuedDeliveryAndDrops() throws Exception {
+        EventBus bus = new EventBus("test");
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(3);
+
+        bus.subscribe("slow", Event.class, DeliveryPolicy.QUEUED, 2, e -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.countDown();
+        });
+
+        // First event is taken by the subscriber thread and blocks it, the next two fill the queue.
+        for (int i = 0; i < 10; i++) {
+            bus.publish(new NotificationEvent(new Notification("foo", 1), null));
+            Thread.sleep(i == 0 ? 100 : 0);
+        }
+
+        assertEquals(bus.getDroppedCount("slow"), 7);
+
+        blocked.countDown();
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueuedSubscriptionToSeveralTypes() throws Exception {
+        Statistics statistics = new Statistics();
+        EventBus bus = new EventBus("test", 10, statistics);
+        List<FrameEvent> received = Lists.newCopyOnWriteArrayList();
+        CountDownLatch delivered = new CountDownLatch(2);
+
+        bus.subscribeQueued("tracker", ImmutableList.of(DeauthenticationEvent.class, DisassociationEvent.class), e -> {
+            received.add(e);
+            delivered.countDown();
+        });
+
+        bus.publish(new DeauthenticationEvent(null, 1, 2, 3, (short) 7));
+        bus.publish(new BeaconEvent(null, 1, "foo"));
+        bus.publish(new DisassociationEvent(null, 1, 2, 3, (short) 8));
+
+        // One queue, so both types arrive in the order they were published.
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(received.get(0) instanceof DeauthenticationEvent);
+        assertTrue(received.get(1) instanceof DisassociationEvent);
+        assertTrue(statistics.getEventDroppedCounts().isEmpty());
+    }
+
+    @Test
+    public void testQueuedSubscriptionIsSynchronousWithoutQueueSize() throws Exception {
+        EventBus bus = new EventBus("test");
+        List<Event> received = Lists.newArrayList();
+        bus.subscribeQueued("tracker", ImmutableList.of(Event.class), received::add);
+
+        bus.publish(new NotificationEvent(new Notification("foo", 1), null));
+
+        assertEquals(received.size(), 1);
+    }
+
+}
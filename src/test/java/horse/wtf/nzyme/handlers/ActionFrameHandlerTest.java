@@ -0,0 +1,81 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.handlers;
+
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.notifications.Notification;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+public class ActionFrameHandlerTest {
+
+    private static final Dot11MetaInformation META = Dot11MetaInformation.parse(new byte[]{0, 0, 8, 0, 0, 0, 0, 0});
+
+    @Test
+    public void testHandle() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        new ActionFrameHandler(nzyme).handle(action(3, 0), new byte[0], META);
+
+        Notification notification = nzyme.getNotifications().get(0);
+        assertEquals(notification.getMessage(), "00:11:22:33:44:55 sent Block Ack action frame to 66:77:88:99:aa:bb");
+        assertEquals(notification.getField("subtype"), "action");
+        assertEquals(notification.getField("action_category_code"), 3L);
+        assertEquals(notification.getField("action_code"), 0L);
+        assertEquals(notification.getField("bssid"), "00:11:22:33:44:55");
+    }
+
+    @Test
+    public void testHandleProtected() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        byte[] payload = action(10, 7);
+        payload[1] = 0x40;
+        new ActionFrameHandler(nzyme).handle(payload, new byte[0], META);
+
+        Notification notification = nzyme.getNotifications().get(0);
+        assertEquals(notification.getField("action_category"), "Protected");
+        assertEquals(notification.getField("action_category_code"), -1L);
+    }
+
+    @Test
+    public void testHandleTruncated() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        new ActionFrameHandler(nzyme).handle(Arrays.copyOf(action(3, 0), 24), new byte[0], META);
+
+        assertTrue(nzyme.getNotifications().isEmpty());
+        assertEquals(nzyme.getStatistics().getMalformedReasons().get("truncated").get(), 1);
+    }
+
+    private static byte[] action(int category, int action) {
+        byte[] payload = new byte[26];
+        payload[0] = (byte) 0xD0;
+        for (int i = 0; i < 6; i++) {
+            payload[4 + i] = (byte) (0x66 + i * 0x11);
+            payload[10 + i] = (byte) (i * 0x11);
+            payload[16 + i] = (byte) (i * 0x11);
+        }
+        payload[24] = (byte) category;
+        payload[25] = (byte) action;
+
+        return payload;
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.handlers;
+
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class InvalidSsidTest {
+
+    private static final Dot11MetaInformation META = Dot11MetaInformation.parse(new byte[]{0, 0, 8, 0, 0, 0, 0, 0});
+
+    @DataProvider(name = "handlers")
+    public static Object[][] handlers() {
+        return new Object[][]{
+                {"beacon", 0x80, 37},
+                {"probe-resp", 0x50, 37},
+                {"assoc-req", 0x00, 29},
+                {"reassoc-req", 0x20, 35}
+        };
+    }
+
+    @Test(dataProvider = "handlers")
+    public void testSkipsFrame(String subtype, int frameControl, int ssidLengthPosition) throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameHandler handler = handlerFor(nzyme, subtype);
+
+        // Two bytes of SSID that are not valid UTF-8.
+        byte[] payload = new byte[ssidLengthPosition + 3];
+        payload[0] = (byte) frameControl;
+        payload[ssidLengthPosition] = 2;
+        payload[ssidLengthPosition + 1] = (byte) 0xFF;
+        payload[ssidLengthPosition + 2] = (byte) 0xFE;
+
+        handler.handle(payload, new byte[0], META);
+
+        assertTrue(nzyme.getNotifications().isEmpty());
+        assertEquals(nzyme.getStatistics().getMalformedReasons().get("invalid_ssid").get(), 1);
+    }
+
+    private static FrameHandler handlerFor(MockNzyme nzyme, String subtype) {
+        switch (subtype) {
+            case "beacon":
+                return new BeaconFrameHandler(nzyme);
+            case "probe-resp":
+                return new ProbeResponseFrameHandler(nzyme);
+            case "assoc-req":
+                return new AssociationRequestFrameHandler(nzyme);
+            default:
+                return new ReassociationRequestFrameHandler(nzyme);
+        }
+    }
+
+}
@@ -18,8 +18,8 @@
 package horse.wtf.nzyme.handlers;
 
 import horse.wtf.nzyme.Nzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
 import horse.wtf.nzyme.dot11.Dot11MetaInformation;
-import org.pcap4j.packet.IllegalRawDataException;
 
 public class MockFrameHandler extends FrameHandler {
 
@@ -28,10 +28,15 @@ public class MockFrameHandler extends FrameHandler {
     }
 
     @Override
-    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) throws IllegalRawDataException {
+    public void handle(byte[] payload, byte[] header, Dot11MetaInformation meta) {
         // noop
     }
 
+    @Override
+    public Dot11FrameSubtype getSubtype() {
+        return Dot11FrameSubtype.BEACON;
+    }
+
     @Override
     public String getName() {
         return "MockFrameHandler";
@@ -0,0 +1,70 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.handlers;
+
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.AssociationRequestEvent;
+import horse.wtf.nzyme.events.ReassociationRequestEvent;
+import horse.wtf.nzyme.notifications.Notification;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.*;
+
+public class ReassociationRequestFrameHandlerTest {
+
+    @Test
+    public void testHandle() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        AtomicReference<AssociationRequestEvent> received = new AtomicReference<>();
+        nzyme.getEventBus().subscribe("test", AssociationRequestEvent.class, received::set);
+
+        new ReassociationRequestFrameHandler(nzyme).handle(reassociationRequest("foo"), new byte[0],
+                Dot11MetaInformation.parse(new byte[]{0, 0, 8, 0, 0, 0, 0, 0}));
+
+        // Association request subscribers like the session tracker see reassociations.
+        assertTrue(received.get() instanceof ReassociationRequestEvent);
+        assertEquals(((ReassociationRequestEvent) received.get()).getCurrentAp(), 0xAABBCCDDEEFFL);
+
+        Notification notification = nzyme.getNotifications().get(0);
+        assertEquals(notification.getMessage(), "00:11:22:33:44:55 is requesting to reassociate with foo at " +
+                "66:77:88:99:aa:bb, coming from aa:bb:cc:dd:ee:ff");
+        assertEquals(notification.getField("subtype"), "reassoc-req");
+    }
+
+    private static byte[] reassociationRequest(String ssid) {
+        byte[] ssidBytes = ssid.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[36 + ssidBytes.length];
+        payload[0] = 0x20;
+        for (int i = 0; i < 6; i++) {
+            payload[4 + i] = (byte) (0x66 + i * 0x11);
+            payload[10 + i] = (byte) (i * 0x11);
+            payload[16 + i] = (byte) (0x66 + i * 0x11);
+            payload[28 + i] = (byte) (0xAA + i * 0x11);
+        }
+        payload[34] = 0;
+        payload[35] = (byte) ssidBytes.length;
+        System.arraycopy(ssidBytes, 0, payload, 36, ssidBytes.length);
+
+        return payload;
+    }
+
+}
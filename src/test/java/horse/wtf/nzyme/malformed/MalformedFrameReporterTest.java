@@ -0,0 +1,178 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.malformed;
+
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.capture.PcapFileReader;
+import horse.wtf.nzyme.capture.PcapFileWriter;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.dot11.MalformedReason;
+import horse.wtf.nzyme.notifications.Notification;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+public class MalformedFrameReporterTest {
+
+    @Test
+    public void testSummarizesPerChannel() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        MalformedFrameReporter reporter = new MalformedFrameReporter(nzyme, 60, null, 0);
+
+        byte[] frame = frame(2412, (byte) 0);
+        Dot11MetaInformation meta = Dot11MetaInformation.parse(frame);
+        for (int i = 0; i < 3; i++) {
+            reporter.report(frame, meta, MalformedReason.BAD_CHECKSUM);
+        }
+        reporter.report(frame, meta, MalformedReason.TRUNCATED);
+        reporter.report(frame, null, MalformedReason.BAD_RADIOTAP);
+
+        assertTrue(nzyme.getNotifications().isEmpty());
+        assertEquals(nzyme.getStatistics().getMalformedCount().get(), 5);
+
+        reporter.flush(System.currentTimeMillis());
+
+        assertEquals(nzyme.getNotifications().size(), 2);
+
+        Notification channel1 = nzyme.getNotifications().get(0).getField("channel").equals(1L)
+                ? nzyme.getNotifications().get(0) : nzyme.getNotifications().get(1);
+        assertEquals(channel1.getMessage(), "Received 4 malformed frames on channel 1. Most common reason: bad_checksum");
+        assertEquals(channel1.getField("malformed_bad_checksum"), 3L);
+        assertEquals(channel1.getField("malformed_truncated"), 1L);
+        assertNull(channel1.getField("malformed_bad_radiotap"));
+
+        // Nothing happened during the next interval.
+        reporter.flush(System.currentTimeMillis());
+        assertEquals(nzyme.getNotifications().size(), 2);
+    }
+
+    @Test
+    public void testDisabledOnlyCountsStatistics() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        MalformedFrameReporter reporter = new MalformedFrameReporter(nzyme, 0, null, 0);
+
+        reporter.report(new byte[0], null, MalformedReason.BAD_RADIOTAP);
+        reporter.flush(System.currentTimeMillis());
+
+        assertFalse(reporter.isEnabled());
+        assertTrue(nzyme.getNotifications().isEmpty());
+        assertEquals(nzyme.getStatistics().getMalformedReasons().get("bad_radiotap").get(), 1);
+    }
+
+    @Test
+    public void testSamplesRawFrames() throws Exception {
+        Path file = Files.createTempFile("nzyme-test", ".pcap");
+
+        try {
+            byte[] frame = frame(2412, (byte) 0x10);
+            Dot11MetaInformation meta = Dot11MetaInformation.parse(frame);
+            byte[] header = Arrays.copyOf(frame, meta.getRadiotapLength());
+            byte[] payload = Arrays.copyOfRange(frame, meta.getRadiotapLength(), frame.length - 4);
+
+            try (PcapFileWriter writer = new PcapFileWriter(file)) {
+                MalformedFrameReporter reporter = new MalformedFrameReporter(new MockNzyme(), 60,
+                        new MalformedSampleFile(writer, 1024), 2);
+
+                for (int i = 0; i < 5; i++) {
+                    reporter.report(frame, meta, MalformedReason.TRUNCATED);
+                }
+                reporter.report(header, payload, meta, MalformedReason.INVALID_SSID);
+
+                // New interval.
+                reporter.flush(System.currentTimeMillis());
+                reporter.report(frame, meta, MalformedReason.TRUNCATED);
+            }
+
+            try (PcapFileReader reader = new PcapFileReader(file)) {
+                assertEquals(reader.nextFrame(), frame);
+                assertEquals(reader.nextFrame(), frame);
+
+                // Reassembled without FCS and FCS flag.
+                byte[] reassembled = reader.nextFrame();
+                assertEquals(reassembled.length, frame.length - 4);
+                assertFalse(Dot11MetaInformation.parse(reassembled).hasFcs());
+
+                assertEquals(reader.nextFrame(), frame);
+
+                try {
+                    reader.nextFrame();
+                    fail("Expected end of file.");
+                } catch (EOFException e) {
+                    // expected
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSharesSampleFileBetweenInterfaces() throws Exception {
+        Path file = Files.createTempFile("nzyme-test", ".pcap");
+
+        try {
+            byte[] frame = frame(2412, (byte) 0x10);
+            Dot11MetaInformation meta = Dot11MetaInformation.parse(frame);
+
+            try (PcapFileWriter writer = new PcapFileWriter(file)) {
+                // Room for three frames in total.
+                MalformedSampleFile sampleFile = new MalformedSampleFile(writer, frame.length * 3);
+                MalformedFrameReporter wlan0 = new MalformedFrameReporter(new MockNzyme(), 60, sampleFile, 2);
+                MalformedFrameReporter wlan1 = new MalformedFrameReporter(new MockNzyme(), 60, sampleFile, 2);
+
+                for (int i = 0; i < 2; i++) {
+                    wlan0.report(frame, meta, MalformedReason.TRUNCATED);
+                    wlan1.report(frame, meta, MalformedReason.TRUNCATED);
+                }
+            }
+
+            int frames = 0;
+            try (PcapFileReader reader = new PcapFileReader(file)) {
+                while (true) {
+                    assertEquals(reader.nextFrame(), frame);
+                    frames++;
+                }
+            } catch (EOFException e) {
+                assertEquals(frames, 3);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Radiotap header with flags and channel, followed by a 24 byte management frame header and a 4 byte FCS.
+     */
+    private static byte[] frame(int frequency, byte flags) {
+        byte[] frame = new byte[14 + 24 + 4];
+        frame[2] = 14;                          // radiotap length
+        frame[4] = 0x0A;                        // present: flags, channel
+        frame[8] = flags;
+        frame[10] = (byte) (frequency & 0xFF);
+        frame[11] = (byte) (frequency >> 8);
+        frame[14] = (byte) 0xC0;                // deauth
+
+        return frame;
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.notifications;
+
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class NotificationTest {
+
+    @Test
+    public void testRendersTemplate() throws Exception {
+        Notification n = new Notification(MessageTemplate.DEAUTH, 6)
+                .addMacField(FieldNames.TRANSMITTER, 0x001122334455L)
+                .addMacField(FieldNames.DESTINATION, 0xFFFFFFFFFFFFL)
+                .addMacField(FieldNames.BSSID, 0x001122334455L)
+                .addField(FieldNames.REASON_STRING, "Unspecified reason");
+
+        assertEquals(n.getMessage(), "Deauth: Transmitter 00:11:22:33:44:55 is deauthenticating ff:ff:ff:ff:ff:ff " +
+                "from BSSID 00:11:22:33:44:55 (Unspecified reason)");
+    }
+
+    @Test
+    public void testTypedFields() throws Exception {
+        Notification n = new Notification(MessageTemplate.AUTH_OPEN_REQUEST, 11)
+                .addMacField(FieldNames.TRANSMITTER, 0x0A0B0C0D0E0FL)
+                .addField(FieldNames.RESPONSE_CODE, (short) 1)
+                .addField(FieldNames.IS_WEP, false)
+                .addField(FieldNames.SSID, null)
+                .addField(FieldNames.SUBTYPE, "auth");
+
+        Map<String, Object> fields = n.getAdditionalFields();
+        assertEquals(fields.size(), 5);
+        assertEquals(fields.get("_channel"), 11L);
+        assertEquals(fields.get("_transmitter"), "0a:0b:0c:0d:0e:0f");
+        assertEquals(fields.get("_response_code"), 1L);
+        assertEquals(fields.get("_is_wep"), false);
+        assertEquals(fields.get("_subtype"), "auth");
+        assertFalse(fields.containsKey("_ssid"));
+    }
+
+    @Test
+    public void testGrowsBeyondInitialCapacity() throws Exception {
+        Notification n = new Notification("foo", 1);
+        for (int i = 0; i < 20; i++) {
+            n.addField("field_" + i, i);
+        }
+
+        assertEquals(n.getMessage(), "foo");
+        assertEquals(n.getAdditionalFields().size(), 21);
+        assertEquals(n.getField("field_19"), 19L);
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.notifications;
+
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.BeaconEvent;
+import horse.wtf.nzyme.events.DeauthenticationEvent;
+import horse.wtf.nzyme.events.NotificationEvent;
+import org.pcap4j.packet.RadiotapDataAntennaSignal;
+import org.pcap4j.packet.RadiotapDataChannel;
+import org.pcap4j.packet.RadiotapPacket;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+
+import static org.testng.Assert.*;
+
+public class UplinkFilterTest {
+
+    @Test
+    public void testSubtypes() throws Exception {
+        UplinkFilter filter = UplinkFilter.parse("subtypes=deauth,disassoc,auth");
+
+        assertTrue(filter.accepts(deauth(meta(2412, -50), 0x001122334455L)));
+        assertFalse(filter.accepts(new BeaconEvent(meta(2412, -50), 0x001122334455L, "foo")));
+        assertFalse(filter.accepts(new NotificationEvent(new Notification("foo", 1), null)));
+        assertTrue(UplinkFilter.parse("subtypes=malformed").accepts(new NotificationEvent(new Notification("foo", 1), null)));
+    }
+
+    @Test
+    public void testChannelsAndSignal() throws Exception {
+        UplinkFilter filter = UplinkFilter.parse("channels=1-6,36; min_signal=-70");
+
+        assertTrue(filter.accepts(deauth(meta(2412, -50), 1L)));       // channel 1
+        assertTrue(filter.accepts(deauth(meta(5180, -70), 1L)));       // channel 36
+        assertFalse(filter.accepts(deauth(meta(2462, -50), 1L)));      // channel 11
+        assertFalse(filter.accepts(deauth(meta(2412, -71), 1L)));
+    }
+
+    @Test
+    public void testTransmittersAndSsids() throws Exception {
+        UplinkFilter filter = UplinkFilter.parse("deny_transmitters=00:11:22:33:44:55;allow_ssids=foo,bar");
+
+        assertFalse(filter.accepts(new BeaconEvent(meta(2412, -50), 0x001122334455L, "foo")));
+        assertTrue(filter.accepts(new BeaconEvent(meta(2412, -50), 0x001122334466L, "foo")));
+        assertFalse(filter.accepts(new BeaconEvent(meta(2412, -50), 0x001122334466L, "baz")));
+
+        // Events without an SSID are not filtered by SSID.
+        assertTrue(filter.accepts(deauth(meta(2412, -50), 0x001122334466L)));
+    }
+
+    @Test
+    public void testAcceptsEverythingWithoutRules() throws Exception {
+        assertTrue(UplinkFilter.parse("").accepts(deauth(meta(2412, -90), 1L)));
+        assertTrue(UplinkFilter.ALL.accepts(new NotificationEvent(new Notification("foo", 1), null)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownSubtype() throws Exception {
+        UplinkFilter.parse("subtypes=beacon,foo");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownRule() throws Exception {
+        UplinkFilter.parse("foo=bar");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidAddress() throws Exception {
+        UplinkFilter.parse("allow_transmitters=00:11:22");
+    }
+
+    private static DeauthenticationEvent deauth(Dot11MetaInformation meta, long transmitter) {
+        return new DeauthenticationEvent(meta, transmitter, 0xFFFFFFFFFFFFL, transmitter, (short) 1);
+    }
+
+    private static Dot11MetaInformation meta(int frequency, int signal) throws Exception {
+        ArrayList<RadiotapPacket.RadiotapData> fields = Lists.newArrayList();
+        fields.add(RadiotapDataChannel.newInstance(
+                new byte[]{(byte) (frequency & 0xFF), (byte) (frequency >> 8), 0, 0}, 0, 4));
+        fields.add(RadiotapDataAntennaSignal.newInstance(new byte[]{(byte) signal}, 0, 1));
+
+        return Dot11MetaInformation.parse(fields);
+    }
+
+}
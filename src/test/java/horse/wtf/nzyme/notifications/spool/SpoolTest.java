@@ -0,0 +1,164 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.notifications.spool;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+public class SpoolTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("nzyme-spool-test");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testAppendAndDrainInOrder() throws Exception {
+        Spool spool = buildSpool(Long.MAX_VALUE);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(spool.append(record(i)));
+        }
+
+        assertEquals(spool.getDepth(), 100);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(new String(spool.peek(), StandardCharsets.UTF_8), "record-" + i);
+            spool.commit();
+        }
+
+        assertNull(spool.peek());
+        assertEquals(spool.getDepth(), 0);
+    }
+
+    @Test
+    public void testPeekWithoutCommitReturnsSameRecord() throws Exception {
+        Spool spool = buildSpool(Long.MAX_VALUE);
+        spool.append(record(1));
+        spool.append(record(2));
+
+        assertEquals(new String(spool.peek(), StandardCharsets.UTF_8), "record-1");
+        assertEquals(new String(spool.peek(), StandardCharsets.UTF_8), "record-1");
+    }
+
+    @Test
+    public void testRecoversPendingRecordsAfterRestart() throws Exception {
+        Spool spool = buildSpool(Long.MAX_VALUE);
+        for (int i = 0; i < 50; i++) {
+            spool.append(record(i));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            spool.peek();
+            spool.commit();
+        }
+        spool.close();
+
+        Spool recovered = buildSpool(Long.MAX_VALUE);
+        assertEquals(recovered.getDepth(), 30);
+        assertEquals(new String(recovered.peek(), StandardCharsets.UTF_8), "record-20");
+    }
+
+    @Test
+    public void testCorruptedRecordTruncatesSegment() throws Exception {
+        Spool spool = buildSpool(Long.MAX_VALUE);
+        spool.append(record(1));
+        spool.append(record(2));
+        spool.close();
+
+        // Flip a byte in the payload of the second record.
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow(IOException::new);
+        }
+        int secondPayload = SpoolSegment.HEADER_LENGTH + SpoolSegment.RECORD_OVERHEAD + record(1).length
+                + SpoolSegment.RECORD_OVERHEAD;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(secondPayload);
+            file.write('X');
+        }
+
+        Spool recovered = buildSpool(Long.MAX_VALUE);
+        assertEquals(recovered.getDepth(), 1);
+        assertEquals(new String(recovered.peek(), StandardCharsets.UTF_8), "record-1");
+    }
+
+    @Test
+    public void testSizeRetentionDropsOldestSegments() throws Exception {
+        Spool spool = new Spool("test", directory, SEGMENT_SIZE, SEGMENT_SIZE * 2, Long.MAX_VALUE);
+
+        for (int i = 0; i < 1000; i++) {
+            spool.append(record(i));
+        }
+
+        assertTrue(spool.getSize() <= SEGMENT_SIZE * 2);
+        assertTrue(spool.getDroppedCount() > 0);
+        assertEquals(spool.getDepth() + spool.getDroppedCount(), 1000);
+        assertEquals(new String(spool.peek(), StandardCharsets.UTF_8), "record-" + spool.getDroppedCount());
+    }
+
+    @Test
+    public void testAgeRetentionSkipsExpiredRecords() throws Exception {
+        Spool spool = buildSpool(1);
+        spool.append(record(1));
+
+        TimeUnit.MILLISECONDS.sleep(10);
+
+        assertNull(spool.peek());
+        assertEquals(spool.getDepth(), 0);
+        assertEquals(spool.getDroppedCount(), 1);
+    }
+
+    @Test
+    public void testRejectsRecordLargerThanSegment() throws Exception {
+        Spool spool = buildSpool(Long.MAX_VALUE);
+        assertFalse(spool.append(new byte[SEGMENT_SIZE]));
+    }
+
+    private Spool buildSpool(long maxAgeMillis) throws IOException {
+        return new Spool("test", directory, SEGMENT_SIZE, Long.MAX_VALUE, maxAgeMillis);
+    }
+
+    private static byte[] record(int i) {
+        return ("record-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,230 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.capture.PcapFileReader;
+import horse.wtf.nzyme.events.Event;
+import horse.wtf.nzyme.notifications.Notification;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.testng.Assert.*;
+
+/**
+ * Replays the pcap files in src/test/resources/corpus through all frame handlers and compares the notifications to
+ * the golden file next to each pcap. Also measures frames per second and bytes allocated per frame, writes them to
+ * target/corpus-report.properties and fails if allocations regress beyond a tolerance of the checked in baseline.
+ *
+ * After an intended change of notifications or performance, or to add a pcap to the corpus, rewrite the golden files
+ * and the baseline and review their diff:
+ *
+ *   mvn test -Dtest=CorpusRegressionTest -Dcorpus.update=true
+ *
+ * Throughput depends on the machine and its load, so it only fails the test when asked to, on the machine that
+ * recorded the baseline:
+ *
+ *   mvn test -Dtest=CorpusRegressionTest -Dcorpus.check_throughput=true
+ *
+ * Tolerances are fractions of the baseline and can be overridden with -Dcorpus.throughput_tolerance and
+ * -Dcorpus.allocation_tolerance.
+ */
+public class CorpusRegressionTest {
+
+    private static final Path CORPUS = Paths.get("src", "test", "resources", "corpus");
+    private static final Path BASELINE = CORPUS.resolve("performance.properties");
+    private static final Path REPORT = Paths.get("target", "corpus-report.properties");
+
+    private static final boolean UPDATE = Boolean.getBoolean("corpus.update");
+    private static final boolean CHECK_THROUGHPUT = Boolean.getBoolean("corpus.check_throughput");
+
+    private static final double THROUGHPUT_TOLERANCE = Double.parseDouble(System.getProperty("corpus.throughput_tolerance", "0.5"));
+    private static final double ALLOCATION_TOLERANCE = Double.parseDouble(System.getProperty("corpus.allocation_tolerance", "0.1"));
+
+    private static final int WARMUP_PASSES = 20;
+    private static final int MEASURED_PASSES = 20;
+
+    @DataProvider(name = "corpus")
+    public static Object[][] corpus() throws IOException {
+        List<Object[]> files = Lists.newArrayList();
+        try (DirectoryStream<Path> pcaps = Files.newDirectoryStream(CORPUS, "*.pcap")) {
+            for (Path pcap : pcaps) {
+                files.add(new Object[]{pcap});
+            }
+        }
+
+        return files.toArray(new Object[0][]);
+    }
+
+    @Test(dataProvider = "corpus")
+    public void testMatchesGoldenNotifications(Path pcap) throws Exception {
+        CorpusNzyme nzyme = new CorpusNzyme(true);
+        FrameDispatcher dispatcher = dispatcher(nzyme);
+        for (byte[] frame : read(pcap)) {
+            dispatcher.dispatch(frame);
+        }
+
+        Path golden = Paths.get(pcap.toString().replaceAll("\\.pcap$", ".golden"));
+        if (UPDATE) {
+            Files.write(golden, nzyme.lines, StandardCharsets.UTF_8);
+            return;
+        }
+
+        assertTrue(Files.exists(golden), "No golden file for [" + pcap + "]. Run with -Dcorpus.update=true.");
+        List<String> expected = Files.readAllLines(golden, StandardCharsets.UTF_8);
+
+        for (int i = 0; i < Math.min(expected.size(), nzyme.lines.size()); i++) {
+            assertEquals(nzyme.lines.get(i), expected.get(i), "Notification #" + (i + 1) + " of [" + pcap + "] changed.");
+        }
+        assertEquals(nzyme.lines.size(), expected.size(), "Number of notifications of [" + pcap + "] changed.");
+    }
+
+    @Test
+    public void testPerformance() throws Exception {
+        List<byte[]> frames = Lists.newArrayList();
+        for (Object[] pcap : corpus()) {
+            frames.addAll(read((Path) pcap[0]));
+        }
+
+        CorpusNzyme nzyme = new CorpusNzyme(false);
+        FrameDispatcher dispatcher = dispatcher(nzyme);
+
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            replay(dispatcher, frames);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; i++) {
+            replay(dispatcher, frames);
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        long count = (long) frames.size() * MEASURED_PASSES;
+        long framesPerSecond = count * 1_000_000_000L / nanos;
+        long bytesPerFrame = allocated / count;
+
+        Properties report = new Properties();
+        report.setProperty("frames_per_second", String.valueOf(framesPerSecond));
+        report.setProperty("allocated_bytes_per_frame", String.valueOf(bytesPerFrame));
+
+        if (UPDATE) {
+            store(report, BASELINE, "Baseline of CorpusRegressionTest");
+            return;
+        }
+
+        Properties baseline = new Properties();
+        try (InputStream in = Files.newInputStream(BASELINE)) {
+            baseline.load(in);
+        }
+        long baselineFramesPerSecond = Long.parseLong(baseline.getProperty("frames_per_second"));
+        long baselineBytesPerFrame = Long.parseLong(baseline.getProperty("allocated_bytes_per_frame"));
+
+        report.setProperty("baseline_frames_per_second", String.valueOf(baselineFramesPerSecond));
+        report.setProperty("baseline_allocated_bytes_per_frame", String.valueOf(baselineBytesPerFrame));
+        report.setProperty("throughput_tolerance", String.valueOf(THROUGHPUT_TOLERANCE));
+        report.setProperty("allocation_tolerance", String.valueOf(ALLOCATION_TOLERANCE));
+        Files.createDirectories(REPORT.getParent());
+        store(report, REPORT, "Frame processing performance on the pcap corpus");
+
+        if (CHECK_THROUGHPUT) {
+            assertTrue(framesPerSecond >= baselineFramesPerSecond * (1 - THROUGHPUT_TOLERANCE),
+                    "Throughput regressed to " + framesPerSecond + " frames/s. Baseline: " + baselineFramesPerSecond);
+        }
+        assertTrue(bytesPerFrame <= baselineBytesPerFrame * (1 + ALLOCATION_TOLERANCE),
+                "Allocations regressed to " + bytesPerFrame + " bytes/frame. Baseline: " + baselineBytesPerFrame);
+    }
+
+    private static FrameDispatcher dispatcher(MockNzyme nzyme) {
+        FrameDispatcher dispatcher = new FrameDispatcher(nzyme, new FrameProcessor(nzyme, 0, 0), false);
+        dispatcher.registerProvidedHandlers();
+
+        return dispatcher;
+    }
+
+    private static void replay(FrameDispatcher dispatcher, List<byte[]> frames) {
+        for (byte[] frame : frames) {
+            dispatcher.dispatch(frame);
+        }
+    }
+
+    private static List<byte[]> read(Path pcap) throws IOException {
+        List<byte[]> frames = Lists.newArrayList();
+        try (PcapFileReader reader = new PcapFileReader(pcap)) {
+            while (true) {
+                frames.add(reader.nextFrame());
+            }
+        } catch (EOFException e) {
+            return frames;
+        }
+    }
+
+    private static void store(Properties properties, Path path, String comment) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            properties.store(out, comment);
+        }
+    }
+
+    /**
+     * Renders every notification like an uplink does. Keeps one line per notification for the golden files if asked to.
+     */
+    private static class CorpusNzyme extends MockNzyme {
+
+        private final boolean keep;
+        private final List<String> lines = Lists.newArrayList();
+        private int sink;
+
+        CorpusNzyme(boolean keep) {
+            this.keep = keep;
+        }
+
+        @Override
+        protected void record(Event event) {
+            Notification notification = event.toNotification();
+            String message = notification.getMessage();
+            Map<String, Object> fields = notification.getAdditionalFields();
+
+            if (keep) {
+                lines.add(message + " " + fields);
+            } else {
+                sink += message.length() + fields.size();
+            }
+        }
+
+    }
+
+}
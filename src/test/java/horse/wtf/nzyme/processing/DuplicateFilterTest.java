@@ -0,0 +1,159 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class DuplicateFilterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testRecognizesDuplicateWithinWindow() throws Exception {
+        DuplicateFilter filter = new DuplicateFilter(100, 1024);
+        int first = filter.register();
+        int second = filter.register();
+        long key = DuplicateFilter.key(frame(1), Dot11FrameSubtype.DEAUTH.getIndex());
+
+        assertFalse(filter.isDuplicate(key, first, 1000 * MILLIS));
+        assertTrue(filter.isDuplicate(key, second, 1010 * MILLIS));
+        assertTrue(filter.isDuplicate(key, second, 1070 * MILLIS));
+
+        // Expired after the window.
+        assertFalse(filter.isDuplicate(key, second, 1100 * MILLIS));
+    }
+
+    @Test
+    public void testSameInterfaceCapturesAreNoDuplicates() throws Exception {
+        DuplicateFilter filter = new DuplicateFilter(100, 1024);
+        int first = filter.register();
+        int second = filter.register();
+
+        // Flooded frames with the same sequence number, captured on overlapping channels.
+        long key = DuplicateFilter.key(frame(0), Dot11FrameSubtype.DEAUTH.getIndex());
+        for (int i = 0; i < 10; i++) {
+            assertFalse(filter.isDuplicate(key, first, (1000 + i * 50) * MILLIS));
+            assertTrue(filter.isDuplicate(key, second, (1000 + i * 50 + 1) * MILLIS));
+        }
+    }
+
+    @Test
+    public void testEntriesFromTheFutureAreExpired() throws Exception {
+        DuplicateFilter filter = new DuplicateFilter(100, 1024);
+        int first = filter.register();
+        int second = filter.register();
+        long key = DuplicateFilter.key(frame(1), Dot11FrameSubtype.DEAUTH.getIndex());
+
+        // 25ms buckets. After half of the 16 bit bucket range, the entry seems to be ahead.
+        assertFalse(filter.isDuplicate(key, first, 1000 * MILLIS));
+        assertFalse(filter.isDuplicate(key, second, (1000 + 40000 * 25) * MILLIS));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testRegistersUpTo256Interfaces() throws Exception {
+        assertEquals(new DuplicateFilter(0, 1024).register(), 0);
+
+        DuplicateFilter filter = new DuplicateFilter(100, 1024);
+        for (int i = 0; i < 256; i++) {
+            assertEquals(filter.register(), i);
+        }
+        filter.register();
+    }
+
+    @Test
+    public void testKeyDependsOnSequenceNumberAndSubtype() throws Exception {
+        long key = DuplicateFilter.key(frame(1), Dot11FrameSubtype.DEAUTH.getIndex());
+
+        assertEquals(DuplicateFilter.key(frame(1), Dot11FrameSubtype.DEAUTH.getIndex()), key);
+        assertNotEquals(DuplicateFilter.key(frame(2), Dot11FrameSubtype.DEAUTH.getIndex()), key);
+        assertNotEquals(DuplicateFilter.key(frame(1), Dot11FrameSubtype.DISASSOC.getIndex()), key);
+    }
+
+    @Test
+    public void testKeyOfFrameInCaptureBuffer() throws Exception {
+        byte[] payload = frame(1);
+        byte[] captured = new byte[8 + payload.length + 4];
+        System.arraycopy(payload, 0, captured, 8, payload.length);
+
+        assertEquals(DuplicateFilter.key(captured, 8, 8 + payload.length, Dot11FrameSubtype.DEAUTH.getIndex()),
+                DuplicateFilter.key(payload, Dot11FrameSubtype.DEAUTH.getIndex()));
+    }
+
+    @Test
+    public void testConcurrentCapturesAreHandledOnce() throws Exception {
+        DuplicateFilter filter = new DuplicateFilter(1000, 65536);
+        AtomicInteger unique = new AtomicInteger(0);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int interfaceId = filter.register();
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                for (int sequence = 0; sequence < 1024; sequence++) {
+                    if (!filter.isDuplicate(frame(sequence), Dot11FrameSubtype.DEAUTH.getIndex(), interfaceId)) {
+                        unique.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(unique.get(), 1024);
+    }
+
+    @Test
+    public void testDisabledWithZeroWindow() throws Exception {
+        DuplicateFilter filter = new DuplicateFilter(0, 1024);
+
+        assertFalse(filter.isEnabled());
+        assertFalse(filter.isDuplicate(frame(1), Dot11FrameSubtype.DEAUTH.getIndex(), 0));
+        assertFalse(filter.isDuplicate(frame(1), Dot11FrameSubtype.DEAUTH.getIndex(), 1));
+    }
+
+    private static byte[] frame(int sequence) {
+        byte[] payload = new byte[26];
+        payload[0] = (byte) 0xC0;
+        for (int i = 0; i < 6; i++) {
+            payload[10 + i] = (byte) (0x10 + i);
+        }
+        payload[22] = (byte) (sequence << 4);
+        payload[23] = (byte) (sequence >> 4);
+        payload[24] = 7;
+
+        return payload;
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.handlers.DeauthenticationFrameHandler;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+public class FrameDispatcherTest {
+
+    @Test
+    public void testDispatchesToHandler() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameDispatcher dispatcher = new FrameDispatcher(nzyme, new FrameProcessor(nzyme, 0, 0), false);
+        dispatcher.register(new DeauthenticationFrameHandler(nzyme));
+
+        dispatcher.dispatch(radiotap((byte) 0x00, 0xC0));
+
+        assertEquals(nzyme.getStatistics().getFrameCount().get(), 1);
+        assertEquals(nzyme.getStatistics().getMalformedCount().get(), 0);
+        assertEquals(nzyme.getNotifications().size(), 1);
+        assertEquals(nzyme.getNotifications().get(0).getField("subtype"), "deauth");
+    }
+
+    @Test
+    public void testSkipsUnhandledSubtype() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameDispatcher dispatcher = new FrameDispatcher(nzyme, new FrameProcessor(nzyme, 0, 0), false);
+        dispatcher.register(new DeauthenticationFrameHandler(nzyme));
+
+        // Disassociation and QoS data.
+        dispatcher.dispatch(radiotap((byte) 0x00, 0xA0));
+        dispatcher.dispatch(radiotap((byte) 0x00, 0x88));
+        dispatcher.dispatch(radiotap((byte) 0x00, 0x88));
+
+        assertEquals(nzyme.getStatistics().getFrameCount().get(), 3);
+        assertEquals(nzyme.getStatistics().getUnhandledFrames().get(10), 1);
+        assertEquals(nzyme.getStatistics().getUnhandledFrames().get(0x28), 2);
+        assertTrue(nzyme.getNotifications().isEmpty());
+        assertNull(dispatcher.handlerFor(10));
+        assertNull(dispatcher.handlerFor(64));
+    }
+
+    @Test
+    public void testRegistersProvidedHandlers() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameDispatcher dispatcher = new FrameDispatcher(nzyme, new FrameProcessor(nzyme, 0, 0), false);
+        dispatcher.registerProvidedHandlers();
+
+        for (Dot11FrameSubtype subtype : Dot11FrameSubtype.values()) {
+            assertEquals(dispatcher.handlerFor(subtype.getIndex()).getSubtype(), subtype);
+        }
+    }
+
+    @Test
+    public void testCountsBadFcsAsMalformed() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameDispatcher dispatcher = new FrameDispatcher(nzyme, new FrameProcessor(nzyme, 0, 0), false);
+        dispatcher.register(new DeauthenticationFrameHandler(nzyme));
+
+        dispatcher.dispatch(radiotap((byte) 0x40, 0xC0));
+
+        assertEquals(nzyme.getStatistics().getFrameCount().get(), 0);
+        assertEquals(nzyme.getStatistics().getMalformedCount().get(), 1);
+        assertEquals(nzyme.getStatistics().getMalformedReasons().get("bad_checksum").get(), 1);
+        assertTrue(nzyme.getNotifications().isEmpty());
+    }
+
+    @Test
+    public void testCountsInvalidRadiotapAsMalformed() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameDispatcher dispatcher = new FrameDispatcher(nzyme, new FrameProcessor(nzyme, 0, 0), false);
+        dispatcher.register(new DeauthenticationFrameHandler(nzyme));
+
+        // Radiotap header claims to be longer than the frame.
+        byte[] frame = radiotap((byte) 0x00, 0xC0);
+        frame[2] = (byte) 0xFF;
+        dispatcher.dispatch(frame);
+
+        // No 802.11 frame after the radiotap header.
+        dispatcher.dispatch(Arrays.copyOf(radiotap((byte) 0x00, 0xC0), 9));
+
+        assertEquals(nzyme.getStatistics().getFrameCount().get(), 0);
+        assertEquals(nzyme.getStatistics().getMalformedReasons().get("bad_radiotap").get(), 1);
+        assertEquals(nzyme.getStatistics().getMalformedReasons().get("truncated").get(), 1);
+    }
+
+    /**
+     * Radiotap header with only the flags field, followed by a management frame of 24 header bytes and a reason code.
+     */
+    private static byte[] radiotap(byte flags, int frameControl) {
+        byte[] frame = new byte[9 + 24 + 2];
+        frame[2] = 9;       // radiotap length
+        frame[4] = 0x02;    // present: flags
+        frame[8] = flags;
+        frame[9] = (byte) frameControl;
+        for (int i = 0; i < 6; i++) {
+            frame[9 + 4 + i] = (byte) 0xFF;
+            frame[9 + 10 + i] = (byte) (0x10 + i);
+            frame[9 + 16 + i] = (byte) (0x10 + i);
+        }
+        frame[9 + 24] = 7;  // reason code
+
+        return frame;
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.handlers.BeaconFrameHandler;
+import horse.wtf.nzyme.handlers.DeauthenticationFrameHandler;
+import horse.wtf.nzyme.handlers.FrameHandler;
+import horse.wtf.nzyme.handlers.ProbeRequestFrameHandler;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class FrameProcessorTest {
+
+    @Test
+    public void testDefaultPriorities() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+
+        assertEquals(new DeauthenticationFrameHandler(nzyme).getPriority(), FramePriority.HIGH);
+        assertEquals(new ProbeRequestFrameHandler(nzyme).getPriority(), FramePriority.NORMAL);
+        assertEquals(new BeaconFrameHandler(nzyme).getPriority(), FramePriority.LOW);
+    }
+
+    @Test
+    public void testShedsLowPriorityFirst() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+
+        // Worker is not started, so the queues only fill up.
+        FrameProcessor processor = new FrameProcessor(nzyme, 8, 60000);
+        FrameHandler beacons = new BeaconFrameHandler(nzyme);
+        FrameHandler probes = new ProbeRequestFrameHandler(nzyme);
+        FrameHandler deauths = new DeauthenticationFrameHandler(nzyme);
+
+        assertTrue(processor.submit(beacons, new byte[0], new byte[0], null));
+        assertTrue(processor.submit(beacons, new byte[0], new byte[0], null));
+        assertFalse(processor.submit(beacons, new byte[0], new byte[0], null));
+
+        assertTrue(processor.submit(probes, new byte[0], new byte[0], null));
+        assertTrue(processor.submit(probes, new byte[0], new byte[0], null));
+        assertFalse(processor.submit(probes, new byte[0], new byte[0], null));
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(processor.submit(deauths, new byte[0], new byte[0], null));
+        }
+        assertFalse(processor.submit(deauths, new byte[0], new byte[0], null));
+
+        assertEquals(processor.getDepth(), 12);
+        assertEquals(processor.getShedCount(), 3);
+        assertEquals(nzyme.getStatistics().getShedCounts().get("low").get(), 1);
+        assertEquals(nzyme.getStatistics().getShedCounts().get("normal").get(), 1);
+        assertEquals(nzyme.getStatistics().getShedCounts().get("high").get(), 1);
+    }
+
+    @Test
+    public void testHandlesDirectlyWhenDisabled() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameProcessor processor = new FrameProcessor(nzyme, 0, 500);
+
+        assertFalse(processor.isEnabled());
+
+        // Truncated frame is handled right away and counted as malformed.
+        assertTrue(processor.submit(new DeauthenticationFrameHandler(nzyme), new byte[10], new byte[0], null));
+        assertEquals(nzyme.getStatistics().getMalformedCount().get(), 1);
+        assertEquals(processor.getDepth(), 0);
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.processing;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.capture.CaptureSource;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.handlers.BeaconFrameHandler;
+import horse.wtf.nzyme.handlers.FrameHandler;
+import horse.wtf.nzyme.notifications.Notification;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class OverloadFilterTest {
+
+    private static final ImmutableMap<Dot11FrameSubtype, FramePriority> SUBTYPES = ImmutableMap.of(
+            Dot11FrameSubtype.PROBE_REQ, FramePriority.NORMAL,
+            Dot11FrameSubtype.BEACON, FramePriority.LOW,
+            Dot11FrameSubtype.DEAUTH, FramePriority.HIGH
+    );
+
+    @Test
+    public void testNarrowsWhenOverloaded() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        RecordingCaptureSource source = new RecordingCaptureSource();
+        OverloadFilter filter = new OverloadFilter(nzyme, source, new FrameProcessor(nzyme, 0, 0), SUBTYPES, 100, 60);
+
+        long dropped = 0;
+        filter.check(dropped, 0);
+        for (int i = 1; i <= 2; i++) {
+            filter.check(dropped += 500, i * 1000);
+        }
+        assertEquals(filter.getLevel(), 0);
+        assertTrue(source.filters.isEmpty());
+
+        filter.check(dropped += 500, 3000);
+        assertEquals(filter.getLevel(), 1);
+        assertEquals(source.filters.get(0), "wlan[0] & 0xfc = 0x40 or wlan[0] & 0xfc = 0xc0");
+
+        Notification notification = nzyme.getNotifications().get(0);
+        assertEquals(notification.getMessage(), "Sensor is overloaded with 500.0 dropped frames per second. " +
+                "Stopped capturing beacon frames");
+
+        // Another class only after being overloaded for a while again. High priority frames are always captured.
+        for (int i = 4; i <= 20; i++) {
+            filter.check(dropped += 500, i * 1000);
+        }
+        assertEquals(filter.getLevel(), 2);
+        assertEquals(source.filters.size(), 2);
+        assertEquals(source.filters.get(1), "wlan[0] & 0xfc = 0xc0");
+    }
+
+    @Test
+    public void testWidensAfterHoldTime() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        RecordingCaptureSource source = new RecordingCaptureSource();
+        OverloadFilter filter = new OverloadFilter(nzyme, source, new FrameProcessor(nzyme, 0, 0), SUBTYPES, 100, 60);
+
+        long dropped = 0;
+        for (int i = 0; i <= 3; i++) {
+            filter.check(dropped += 500, i * 1000);
+        }
+        assertEquals(filter.getLevel(), 1);
+
+        // Between half of the threshold and the threshold is neither overloaded nor calm.
+        for (int i = 4; i <= 100; i++) {
+            filter.check(dropped += 60, i * 1000);
+        }
+        assertEquals(filter.getLevel(), 1);
+
+        for (int i = 101; i <= 160; i++) {
+            filter.check(dropped, i * 1000);
+        }
+        assertEquals(filter.getLevel(), 1);
+
+        filter.check(dropped, 161 * 1000);
+        assertEquals(filter.getLevel(), 0);
+        assertEquals(source.filters.get(1), "wlan[0] & 0xfc = 0x40 or wlan[0] & 0xfc = 0x80 or wlan[0] & 0xfc = 0xc0");
+
+        Notification notification = nzyme.getNotifications().get(1);
+        assertEquals(notification.getMessage(), "Sensor load decreased. Capturing beacon frames again. Not captured: none");
+    }
+
+    @Test
+    public void testDisabledWithZeroThreshold() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        FrameProcessor processor = new FrameProcessor(nzyme, 0, 0);
+
+        assertFalse(new OverloadFilter(nzyme, new RecordingCaptureSource(), processor, SUBTYPES, 0, 60).isEnabled());
+        assertTrue(new OverloadFilter(nzyme, new RecordingCaptureSource(), processor, SUBTYPES, 1, 60).isEnabled());
+    }
+
+    @Test
+    public void testIgnoresFramesShedForOtherInterfaces() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        RecordingCaptureSource source = new RecordingCaptureSource();
+
+        // Worker is not started, so the queues only fill up.
+        FrameProcessor processor = new FrameProcessor(nzyme, 4, 60000);
+        OverloadFilter filter = new OverloadFilter(nzyme, source, processor, SUBTYPES, 100, 60);
+        FrameHandler beacons = new BeaconFrameHandler(nzyme);
+
+        filter.check(0);
+        for (int i = 1; i <= 3; i++) {
+            // Statistics are shared by all interfaces. Only frames shed by this processor count.
+            for (int j = 0; j < 500; j++) {
+                nzyme.getStatistics().tickShed(FramePriority.LOW);
+            }
+            filter.check(i * 1000);
+        }
+        assertEquals(filter.getLevel(), 0);
+
+        for (int i = 4; i <= 6; i++) {
+            for (int j = 0; j < 500; j++) {
+                processor.submit(beacons, new byte[0], new byte[0], null);
+            }
+            filter.check(i * 1000);
+        }
+        assertEquals(filter.getLevel(), 1);
+    }
+
+    private static class RecordingCaptureSource implements CaptureSource {
+
+        private final List<String> filters = Lists.newArrayList();
+
+        @Override
+        public byte[] next() {
+            return null;
+        }
+
+        @Override
+        public boolean isLive() {
+            return true;
+        }
+
+        @Override
+        public void setFilter(String filter) {
+            filters.add(filter);
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
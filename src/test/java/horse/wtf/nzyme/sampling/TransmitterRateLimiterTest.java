@@ -0,0 +1,136 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.sampling;
+
+import com.google.common.collect.ImmutableMap;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.notifications.Notification;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class TransmitterRateLimiterTest {
+
+    private static final long TRANSMITTER = 0x001122334455L;
+
+    @Test
+    public void testLimitsAfterBurst() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        TransmitterRateLimiter limiter = limiter(nzyme);
+
+        long now = 1000000;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER, 6, now));
+        }
+
+        assertFalse(limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER, 6, now));
+        assertFalse(limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER, 6, now + 50));
+        assertEquals(limiter.getSuppressedCount(), 2);
+
+        // Other transmitters and subtypes without a limit are not affected.
+        assertTrue(limiter.allow(Dot11FrameSubtype.DEAUTH, 0x001122334466L, 6, now));
+        assertTrue(limiter.allow(Dot11FrameSubtype.BEACON, TRANSMITTER, 6, now));
+        assertTrue(nzyme.getNotifications().isEmpty());
+    }
+
+    @Test
+    public void testPublishesSuppressedCountWhenRefilled() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        TransmitterRateLimiter limiter = limiter(nzyme);
+
+        long now = 1000000;
+        for (int i = 0; i < 8; i++) {
+            limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER, 6, now);
+        }
+
+        // 10 per second refills one token every 100ms.
+        assertTrue(limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER, 6, now + 100));
+
+        assertEquals(nzyme.getNotifications().size(), 1);
+        Notification notification = nzyme.getNotifications().get(0);
+        assertEquals(notification.getMessage(),
+                "Suppressed 3 deauth frames from 00:11:22:33:44:55 because of rate limiting");
+        assertEquals(notification.getChannel(), 6);
+    }
+
+    @Test
+    public void testSweepPublishesQuietTransmitters() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        TransmitterRateLimiter limiter = limiter(nzyme);
+
+        long now = 1000000;
+        for (int i = 0; i < 6; i++) {
+            limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER, 6, now);
+        }
+
+        limiter.sweep(now + 10);
+        assertTrue(nzyme.getNotifications().isEmpty());
+
+        limiter.sweep(now + 1000);
+        assertEquals(nzyme.getNotifications().size(), 1);
+        assertEquals(nzyme.getNotifications().get(0).getField("suppressed_count"), 1L);
+
+        limiter.sweep(now + 2000);
+        assertEquals(nzyme.getNotifications().size(), 1);
+    }
+
+    @Test
+    public void testLimitsNewTransmittersAsAWhole() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        TransmitterRateLimiter limiter = limiter(nzyme);
+
+        // Randomized addresses never send a second frame, so only the per-subtype bucket can limit them.
+        long now = 1000000;
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER + i, 6, now)) {
+                allowed++;
+            }
+        }
+        assertEquals(allowed, 5);
+
+        assertTrue(limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER + 100, 6, now + 100));
+        assertEquals(nzyme.getNotifications().size(), 1);
+        assertEquals(nzyme.getNotifications().get(0).getMessage(),
+                "Suppressed 15 deauth frames from new transmitters because of rate limiting");
+    }
+
+    @Test
+    public void testTakenOverSlotStartsEmpty() throws Exception {
+        // Two slots. These transmitters hash to the same one and keep evicting each other.
+        TransmitterRateLimiter limiter = new TransmitterRateLimiter(new MockNzyme(),
+                ImmutableMap.of(Dot11FrameSubtype.DEAUTH, new RateLimit(10, 100)), 1);
+
+        long now = 1000000;
+        assertTrue(limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER, 6, now));
+        assertTrue(limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER + 1, 6, now));
+        assertFalse(limiter.allow(Dot11FrameSubtype.DEAUTH, TRANSMITTER + 1, 6, now));
+    }
+
+    @Test
+    public void testDisabledWithoutLimits() throws Exception {
+        assertFalse(new TransmitterRateLimiter(new MockNzyme(), ImmutableMap.of(), 100).isEnabled());
+        assertTrue(limiter(new MockNzyme()).isEnabled());
+    }
+
+    private static TransmitterRateLimiter limiter(MockNzyme nzyme) {
+        return new TransmitterRateLimiter(nzyme, ImmutableMap.of(Dot11FrameSubtype.DEAUTH, new RateLimit(10, 5)), 128);
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.sampling;
+
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class TransmitterSamplerTest {
+
+    private static final long LOUD = 0x001122334455L;
+    private static final long RARE = 0x66778899AABBL;
+
+    @Test
+    public void testDisabledSamplesEverything() throws Exception {
+        TransmitterSampler sampler = new TransmitterSampler(0, 0, 10);
+
+        assertFalse(sampler.isEnabled());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(sampler.sample(Dot11FrameSubtype.BEACON, LOUD, 0));
+        }
+    }
+
+    @Test
+    public void testFirstSeenEmitted() throws Exception {
+        // A budget of 1 per second leaves nothing for frames that are not first seen or due.
+        TransmitterSampler sampler = new TransmitterSampler(60, 1, 10);
+
+        assertTrue(sampler.sample(Dot11FrameSubtype.BEACON, LOUD, 1000));
+        assertFalse(sampler.sample(Dot11FrameSubtype.BEACON, LOUD, 1001));
+
+        // Same transmitter, different subtype.
+        assertTrue(sampler.sample(Dot11FrameSubtype.PROBE_RESP, LOUD, 2000));
+    }
+
+    @Test
+    public void testMinimumIntervalPerTransmitter() throws Exception {
+        TransmitterSampler sampler = new TransmitterSampler(10, 1, 10);
+
+        assertTrue(sampler.sample(Dot11FrameSubtype.BEACON, LOUD, 0));
+        assertTrue(sampler.sample(Dot11FrameSubtype.BEACON, RARE, 1000));
+
+        for (int i = 1; i < 10000; i++) {
+            assertFalse(sampler.sample(Dot11FrameSubtype.BEACON, LOUD, i));
+        }
+
+        assertTrue(sampler.sample(Dot11FrameSubtype.BEACON, LOUD, 10000));
+        assertTrue(sampler.sample(Dot11FrameSubtype.BEACON, RARE, 11000));
+        assertEquals(sampler.getSuppressedCount(), 9999);
+    }
+
+    @Test
+    public void testBudgetLimitsNewTransmitters() throws Exception {
+        TransmitterSampler sampler = new TransmitterSampler(60, 10, 100000);
+
+        // Randomized MAC addresses. Every frame is from a new transmitter.
+        int sent = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (sampler.sample(Dot11FrameSubtype.PROBE_REQ, RARE + i, i)) {
+                sent++;
+            }
+        }
+
+        // 10 per second plus the burst.
+        assertTrue(sent <= 10 * 10 + 10, "sent " + sent);
+        assertTrue(sent >= 10 * 10, "sent " + sent);
+    }
+
+    @Test
+    public void testStaysDueWhenOverBudget() throws Exception {
+        TransmitterSampler sampler = new TransmitterSampler(60, 1, 10);
+
+        assertTrue(sampler.sample(Dot11FrameSubtype.BEACON, LOUD, 0));
+        assertFalse(sampler.sample(Dot11FrameSubtype.BEACON, RARE, 0));
+        assertTrue(sampler.sample(Dot11FrameSubtype.BEACON, RARE, 1000));
+    }
+
+    @Test
+    public void testLoudTransmitterCannotStarveRareOne() throws Exception {
+        TransmitterSampler sampler = new TransmitterSampler(10, 5, 10);
+
+        sampler.sample(Dot11FrameSubtype.BEACON, RARE, 0);
+
+        // The loud transmitter exhausts the global budget ...
+        int sent = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (sampler.sample(Dot11FrameSubtype.BEACON, LOUD, i)) {
+                sent++;
+            }
+        }
+
+        // ... but is still limited to roughly 5 per second plus its first frame and burst.
+        assertTrue(sent <= 1 + 5 * 10 + 5, "sent " + sent);
+        assertTrue(sent >= 5 * 10, "sent " + sent);
+
+        // The rare transmitter gets its guaranteed slot regardless of budget.
+        assertTrue(sampler.sample(Dot11FrameSubtype.BEACON, RARE, 10000));
+    }
+
+    @Test
+    public void testStateIsBounded() throws Exception {
+        TransmitterSampler sampler = new TransmitterSampler(10, 0, 100);
+
+        for (int i = 0; i < 1000; i++) {
+            sampler.sample(Dot11FrameSubtype.BEACON, i, 0);
+        }
+
+        assertTrue(sampler.getTrackedTransmitters() <= 100);
+    }
+
+}
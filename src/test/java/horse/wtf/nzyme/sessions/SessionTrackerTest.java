@@ -0,0 +1,168 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.sessions;
+
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.AssociationRequestEvent;
+import horse.wtf.nzyme.events.AssociationResponseEvent;
+import horse.wtf.nzyme.events.AuthenticationEvent;
+import horse.wtf.nzyme.events.DeauthenticationEvent;
+import horse.wtf.nzyme.events.DisassociationEvent;
+import horse.wtf.nzyme.notifications.Notification;
+import org.pcap4j.packet.RadiotapDataChannel;
+import org.pcap4j.packet.RadiotapPacket;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class SessionTrackerTest {
+
+    private static final long CLIENT = 0x001122334455L;
+    private static final long BSSID = 0x66778899AABBL;
+
+    @Test
+    public void testConnectAndDisconnect() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        SessionTracker tracker = new SessionTracker(nzyme, 10, 10, 60);
+
+        connect(tracker, 1000);
+        assertEquals(tracker.size(), 1);
+        assertEquals(nzyme.getNotifications().size(), 1);
+
+        Notification connected = nzyme.getNotifications().get(0);
+        assertEquals(connected.getMessage(), "00:11:22:33:44:55 connected to 66:77:88:99:aa:bb (foo) in 40ms");
+
+        Map<String, Object> fields = connected.getAdditionalFields();
+        assertEquals(fields.get("_session_outcome"), "connected");
+        assertEquals(fields.get("_session_auth_millis"), 10L);
+        assertEquals(fields.get("_session_association_millis"), 20L);
+        assertEquals(fields.get("_authentication_algorithm"), "open_system");
+
+        // Client leaves.
+        tracker.handle(new DisassociationEvent(meta(), CLIENT, BSSID, BSSID, (short) 8), 61040);
+        assertEquals(tracker.size(), 0);
+        assertEquals(nzyme.getNotifications().size(), 2);
+        assertEquals(nzyme.getNotifications().get(1).getMessage(), "00:11:22:33:44:55 disconnected from " +
+                "66:77:88:99:aa:bb (foo) after 60 seconds. Disassociated: Disassociated because sending STA is " +
+                "leaving (or has left) BSS");
+    }
+
+    @Test
+    public void testRefusedAssociation() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        SessionTracker tracker = new SessionTracker(nzyme, 10, 10, 60);
+
+        tracker.handle(auth(CLIENT, BSSID, 1, 0), 1000);
+        tracker.handle(auth(BSSID, CLIENT, 2, 0), 1010);
+        tracker.handle(new AssociationRequestEvent(meta(), CLIENT, BSSID, "foo"), 1020);
+        tracker.handle(new AssociationResponseEvent(meta(), BSSID, CLIENT, (short) 17), 1030);
+
+        assertEquals(tracker.size(), 0);
+        assertEquals(nzyme.getNotifications().size(), 1);
+        assertEquals(nzyme.getNotifications().get(0).getMessage(), "00:11:22:33:44:55 failed to connect to " +
+                "66:77:88:99:aa:bb (foo) during association: Association refused (status 17)");
+    }
+
+    @Test
+    public void testHalfOpenSessionTimesOut() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        SessionTracker tracker = new SessionTracker(nzyme, 10, 10, 60);
+
+        tracker.advance(0);
+        tracker.handle(auth(CLIENT, BSSID, 1, 0), 1000);
+        tracker.handle(auth(CLIENT, BSSID, 1, 0), 1100); // Retransmission.
+        tracker.handle(auth(BSSID, CLIENT, 2, 0), 1200);
+
+        tracker.advance(10000);
+        assertEquals(tracker.size(), 1);
+        assertTrue(nzyme.getNotifications().isEmpty());
+
+        tracker.advance(12000);
+        assertEquals(tracker.size(), 0);
+        assertEquals(nzyme.getNotifications().size(), 1);
+        assertEquals(nzyme.getNotifications().get(0).getMessage(), "00:11:22:33:44:55 did not finish connecting to " +
+                "66:77:88:99:aa:bb ([unknown SSID]). Last step: authenticated");
+        assertEquals(nzyme.getNotifications().get(0).getAdditionalFields().get("_session_auth_millis"), 200L);
+    }
+
+    @Test
+    public void testConnectedSessionsExpireSilently() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        SessionTracker tracker = new SessionTracker(nzyme, 10, 10, 1);
+
+        tracker.advance(0);
+        connect(tracker, 1000);
+        tracker.advance(62000);
+
+        assertEquals(tracker.size(), 0);
+        assertEquals(nzyme.getNotifications().size(), 1);
+    }
+
+    @Test
+    public void testIgnoresBroadcastDeauthAndOtherBssids() throws Exception {
+        MockNzyme nzyme = new MockNzyme();
+        SessionTracker tracker = new SessionTracker(nzyme, 10, 10, 60);
+
+        connect(tracker, 1000);
+        tracker.handle(new DeauthenticationEvent(meta(), BSSID, 0xFFFFFFFFFFFFL, BSSID, (short) 7), 2000);
+        tracker.handle(new DeauthenticationEvent(meta(), 0x0A0B0C0D0E0FL, CLIENT, 0x0A0B0C0D0E0FL, (short) 7), 2000);
+        assertEquals(tracker.size(), 1);
+
+        // The access point kicks the client.
+        tracker.handle(new DeauthenticationEvent(meta(), BSSID, CLIENT, BSSID, (short) 7), 3000);
+        assertEquals(tracker.size(), 0);
+        assertEquals(nzyme.getNotifications().get(1).getAdditionalFields().get("_session_outcome"), "disconnected");
+    }
+
+    @Test
+    public void testDropsOldestWhenFull() throws Exception {
+        SessionTracker tracker = new SessionTracker(new MockNzyme(), 1, 10, 60);
+
+        tracker.handle(auth(CLIENT, BSSID, 1, 0), 1000);
+        tracker.handle(auth(CLIENT + 1, BSSID, 1, 0), 1000);
+
+        assertEquals(tracker.size(), 1);
+        assertEquals(tracker.getDroppedCount(), 1);
+    }
+
+    private static void connect(SessionTracker tracker, long start) throws Exception {
+        tracker.handle(auth(CLIENT, BSSID, 1, 0), start);
+        tracker.handle(auth(BSSID, CLIENT, 2, 0), start + 10);
+        tracker.handle(new AssociationRequestEvent(meta(), CLIENT, BSSID, "foo"), start + 20);
+        tracker.handle(new AssociationResponseEvent(meta(), BSSID, CLIENT, (short) 0), start + 40);
+    }
+
+    private static AuthenticationEvent auth(long transmitter, long destination, int sequence, int status)
+            throws Exception {
+        return new AuthenticationEvent(meta(), transmitter, destination, AuthenticationEvent.Algorithm.OPEN_SYSTEM,
+                (short) sequence, (short) status);
+    }
+
+    private static Dot11MetaInformation meta() throws Exception {
+        ArrayList<RadiotapPacket.RadiotapData> fields = Lists.newArrayList();
+        fields.add(RadiotapDataChannel.newInstance(new byte[]{(byte) 0x85, (byte) 0x09, 0, 0}, 0, 4));
+
+        return Dot11MetaInformation.parse(fields);
+    }
+
+}
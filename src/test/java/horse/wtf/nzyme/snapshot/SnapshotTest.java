@@ -0,0 +1,171 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.snapshot;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import horse.wtf.nzyme.MockNzyme;
+import horse.wtf.nzyme.devices.AccessPoint;
+import horse.wtf.nzyme.devices.AccessPointInventory;
+import horse.wtf.nzyme.devices.Device;
+import horse.wtf.nzyme.devices.DeviceTable;
+import horse.wtf.nzyme.dot11.Dot11FrameSubtype;
+import horse.wtf.nzyme.dot11.Dot11MetaInformation;
+import horse.wtf.nzyme.events.BeaconEvent;
+import horse.wtf.nzyme.processing.FramePriority;
+import horse.wtf.nzyme.statistics.Statistics;
+import org.pcap4j.packet.RadiotapDataAntennaSignal;
+import org.pcap4j.packet.RadiotapDataChannel;
+import org.pcap4j.packet.RadiotapPacket;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+public class SnapshotTest {
+
+    private static final long MAC = 0x001122334455L;
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("nzyme-snapshot-test");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Statistics statistics = new Statistics();
+        Dot11MetaInformation meta = meta(2437, -50);
+        for (int i = 0; i < 3; i++) {
+            statistics.tickFrameCount(meta);
+            statistics.tickType("beacon");
+        }
+        statistics.tickShed(FramePriority.LOW);
+        statistics.tickUnhandled(0x1D);
+        statistics.tickAccessPoint(MAC);
+        statistics.tickAccessPoint(MAC);
+
+        long now = System.currentTimeMillis();
+        DeviceTable devices = new DeviceTable(new MockNzyme(), 10, 1);
+        devices.handle(new BeaconEvent(meta, MAC, "foo"));
+        devices.handle(new BeaconEvent(meta, MAC + 1, "foo"));
+
+        Path path = directory.resolve("nzyme.snapshot");
+        Snapshot.write(path, statistics, ImmutableMap.of("wlan0", devices), ImmutableMap.of());
+        assertFalse(Files.exists(directory.resolve("nzyme.snapshot.tmp")));
+
+        Snapshot snapshot = Snapshot.load(path);
+        assertNotNull(snapshot);
+        assertTrue(snapshot.getCreatedAt() >= now);
+
+        Statistics restoredStatistics = new Statistics();
+        snapshot.restore(restoredStatistics);
+        assertEquals(restoredStatistics.getFrameCount().get(), 3);
+        assertEquals(restoredStatistics.getFrameTypes().get("beacon").get(), 3);
+        assertEquals(restoredStatistics.getChannelCounts().get(6).get(), 3);
+        assertEquals(restoredStatistics.getShedCounts().get(FramePriority.LOW.getName()).get(), 1);
+        assertEquals(restoredStatistics.getUnhandledFrames().get(0x1D), 1);
+        assertEquals(restoredStatistics.getAccessPoints().size(), 1);
+        assertEquals(restoredStatistics.getAccessPoints().get(restoredStatistics.getAccessPoints().find(MAC), 0), 2);
+
+        DeviceTable restoredDevices = new DeviceTable(new MockNzyme(), 10, 1);
+        snapshot.restore("wlan0", restoredDevices, now);
+        assertEquals(restoredDevices.size(), 2);
+
+        Device device = restoredDevices.get(MAC);
+        assertNotNull(device);
+        assertEquals(device.getFrameCount(Dot11FrameSubtype.BEACON), 1);
+        assertEquals(device.getRssiEwma(), -50.0);
+        assertTrue(device.wasSeenOnChannel(6));
+    }
+
+    @Test
+    public void testSkipsExpiredDevices() throws Exception {
+        DeviceTable devices = new DeviceTable(new MockNzyme(), 10, 1);
+        devices.handle(new BeaconEvent(meta(2412, -50), MAC, "foo"));
+
+        Path path = directory.resolve("nzyme.snapshot");
+        Snapshot.write(path, new Statistics(), ImmutableMap.of("wlan0", devices), ImmutableMap.of());
+
+        DeviceTable restored = new DeviceTable(new MockNzyme(), 10, 1);
+        Snapshot.load(path).restore("wlan0", restored, System.currentTimeMillis() + 120000);
+        assertEquals(restored.size(), 0);
+    }
+
+    @Test
+    public void testRestoresAccessPoints() throws Exception {
+        AccessPointInventory inventory = new AccessPointInventory(new MockNzyme(), 10, 60, 5);
+        inventory.handle(new BeaconEvent(meta(2437, -50), MAC, "foo", 0, 100, 6, 0));
+
+        Path path = directory.resolve("nzyme.snapshot");
+        Snapshot.write(path, new Statistics(), ImmutableMap.of(), ImmutableMap.of("wlan0", inventory));
+
+        AccessPointInventory restored = new AccessPointInventory(new MockNzyme(), 10, 60, 5);
+        Snapshot.load(path).restore("wlan0", restored, System.currentTimeMillis());
+
+        AccessPoint ap = restored.get(MAC);
+        assertNotNull(ap);
+        assertEquals(ap.getSsid(), "foo");
+        assertEquals(ap.getChannel(), 6);
+        assertEquals(restored.getLearningStartedAt(), inventory.getLearningStartedAt());
+    }
+
+    @Test
+    public void testIgnoresOtherVersions() throws Exception {
+        Path path = directory.resolve("nzyme.snapshot");
+        Snapshot.write(path, new Statistics(), ImmutableMap.of(), ImmutableMap.of());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer version = ByteBuffer.allocate(4);
+            version.putInt(0, Snapshot.VERSION + 1);
+            channel.write(version, 4);
+        }
+
+        assertNull(Snapshot.load(path));
+        assertNull(Snapshot.load(directory.resolve("missing")));
+    }
+
+    private static Dot11MetaInformation meta(int frequency, int signal) throws Exception {
+        ArrayList<RadiotapPacket.RadiotapData> fields = Lists.newArrayList();
+        fields.add(RadiotapDataChannel.newInstance(
+                new byte[]{(byte) (frequency & 0xFF), (byte) (frequency >> 8), 0, 0}, 0, 4));
+        fields.add(RadiotapDataAntennaSignal.newInstance(new byte[]{(byte) signal}, 0, 1));
+
+        return Dot11MetaInformation.parse(fields);
+    }
+
+}
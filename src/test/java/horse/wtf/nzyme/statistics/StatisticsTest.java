@@ -0,0 +1,77 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.statistics;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class StatisticsTest {
+
+    @Test
+    public void testCountsDevicesThatDoNotFit() throws Exception {
+        Statistics statistics = new Statistics(8);
+
+        int capacity = statistics.getProbingDevices().getCapacity() / 4 * 3;
+        for (long mac = 0; mac < capacity + 10; mac++) {
+            statistics.tickProbingDevice(mac);
+        }
+
+        assertEquals(statistics.getProbingDevices().size(), capacity);
+        assertEquals(statistics.getUncountedDevicesCount().get(), 10);
+    }
+
+    @Test
+    public void testResetStartsEmptyTables() throws Exception {
+        Statistics statistics = new Statistics(100);
+
+        statistics.tickAccessPoint(1L);
+        statistics.resetAccumulativeTicks();
+        assertEquals(statistics.getAccessPoints().size(), 0);
+
+        statistics.tickAccessPoint(2L);
+        statistics.resetAccumulativeTicks();
+        assertEquals(statistics.getAccessPoints().size(), 0);
+        assertEquals(statistics.getAccessPoints().find(1L), -1);
+        assertEquals(statistics.getAccessPoints().find(2L), -1);
+    }
+
+    @Test
+    public void testConcurrentTicksOfNamedCounters() throws Exception {
+        Statistics statistics = new Statistics(100);
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    statistics.tickBeaconedNetwork("network-" + (i % 100));
+                    statistics.tickType("beacon");
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(statistics.getBeaconedNetworks().size(), 100);
+        assertEquals(statistics.getBeaconedNetworks().get("network-0").get(), 400);
+        assertEquals(statistics.getFrameTypes().get("beacon").get(), 40000);
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.util;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void testPutGetRemove() throws Exception {
+        LongObjectMap<String> map = new LongObjectMap<>(4);
+
+        for (long i = 0; i < 1000; i++) {
+            assertNull(map.put(i * 31, "v" + i));
+        }
+
+        assertEquals(map.size(), 1000);
+        assertEquals(map.put(31, "x"), "v1");
+
+        // Removing every other entry must not break the probe chains of the remaining ones.
+        for (long i = 0; i < 1000; i += 2) {
+            assertEquals(map.remove(i * 31), "v" + i);
+        }
+
+        assertEquals(map.size(), 500);
+        assertEquals(map.keys().length, 500);
+        for (long i = 1; i < 1000; i += 2) {
+            assertNotNull(map.get(i * 31));
+        }
+        assertNull(map.get(0));
+        assertNull(map.remove(0));
+    }
+
+}
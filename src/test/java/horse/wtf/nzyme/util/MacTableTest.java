@@ -0,0 +1,110 @@
+/*
+ *  This file is part of Nzyme.
+ *
+ *  Nzyme is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Nzyme is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Nzyme.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package horse.wtf.nzyme.util;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class MacTableTest {
+
+    @Test
+    public void testSlotsAndFields() throws Exception {
+        MacTable table = new MacTable(100, 2);
+
+        int slot = table.slot(0x001122334455L);
+        assertTrue(slot >= 0);
+        assertEquals(table.slot(0x001122334455L), slot);
+        assertEquals(table.find(0x001122334455L), slot);
+        assertEquals(table.find(0x001122334466L), -1);
+
+        // The all zero MAC address is a valid key.
+        int zero = table.slot(0L);
+        assertNotEquals(zero, slot);
+        assertEquals(table.size(), 2);
+
+        assertEquals(table.addAndGet(slot, 0, 5), 5);
+        assertEquals(table.addAndGet(slot, 0, 1), 6);
+        table.max(slot, 1, 100);
+        table.max(slot, 1, 50);
+        assertEquals(table.get(slot, 1), 100);
+        assertEquals(table.get(zero, 0), 0);
+    }
+
+    @Test
+    public void testCursorAndClear() throws Exception {
+        MacTable table = new MacTable(100, 1);
+        for (long mac = 1; mac <= 50; mac++) {
+            table.addAndGet(table.slot(mac), 0, mac);
+        }
+
+        long macs = 0;
+        long counts = 0;
+        MacTable.Cursor cursor = table.cursor();
+        while (cursor.next()) {
+            macs += cursor.mac();
+            counts += cursor.get(0);
+        }
+
+        assertEquals(macs, 1275);
+        assertEquals(counts, 1275);
+
+        table.clear();
+        assertEquals(table.size(), 0);
+        assertFalse(table.cursor().next());
+        assertEquals(table.find(1), -1);
+    }
+
+    @Test
+    public void testFull() throws Exception {
+        MacTable table = new MacTable(8, 1);
+
+        int inserted = 0;
+        for (long mac = 0; mac < 100; mac++) {
+            if (table.slot(mac) >= 0) {
+                inserted++;
+            }
+        }
+
+        assertEquals(inserted, table.getCapacity() / 4 * 3);
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        MacTable table = new MacTable(1000, 1);
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100000; i++) {
+                    table.addAndGet(table.slot(i % 1000), 0, 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(table.size(), 1000);
+        for (long mac = 0; mac < 1000; mac++) {
+            assertEquals(table.get(table.find(mac), 0), 400);
+        }
+    }
+
+}